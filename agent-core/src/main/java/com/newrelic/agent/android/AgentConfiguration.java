@@ -11,6 +11,7 @@ import com.newrelic.agent.android.analytics.AnalyticsEventStore;
 import com.newrelic.agent.android.crash.CrashStore;
 import com.newrelic.agent.android.harvest.HarvestConfigurable;
 import com.newrelic.agent.android.harvest.HarvestConfiguration;
+import com.newrelic.agent.android.harvest.NetworkRequestAggregator;
 import com.newrelic.agent.android.hybrid.JSErrorStore;
 import com.newrelic.agent.android.sessioncontext.SessionContextStore;
 import com.newrelic.agent.android.logging.AgentLog;
@@ -21,6 +22,7 @@ import com.newrelic.agent.android.metric.MetricNames;
 import com.newrelic.agent.android.payload.NullPayloadStore;
 import com.newrelic.agent.android.payload.Payload;
 import com.newrelic.agent.android.payload.PayloadStore;
+import com.newrelic.agent.android.payload.UploadPolicy;
 import com.newrelic.agent.android.sessionReplay.OfflineSessionReplayStore;
 import com.newrelic.agent.android.sessionReplay.SessionReplayConfiguration;
 import com.newrelic.agent.android.sessionReplay.SessionReplayLocalConfiguration;
@@ -66,6 +68,12 @@ public class AgentConfiguration implements HarvestConfigurable {
 
     public static final int DEFAULT_MAX_CACHED_EVENT_COUNT = 1000;
 
+    // With NetworkRequestAggregation enabled, 1 in this many successful requests is kept in full
+    public static final int DEFAULT_NETWORK_REQUEST_SAMPLE_INTERVAL = NetworkRequestAggregator.DEFAULT_SAMPLE_INTERVAL;
+
+    // With NetworkAwareUploads enabled, the longest bulk payloads are held back from metered networks
+    public static final long DEFAULT_UPLOAD_DEFERRAL_MAX_AGE = UploadPolicy.DEFAULT_MAX_DEFERRAL_AGE_MS;
+
     static final String DEFAULT_DEVICE_UUID = "0";
     static final int DEVICE_UUID_MAX_LEN = 40;
 
@@ -78,6 +86,10 @@ public class AgentConfiguration implements HarvestConfigurable {
     private boolean reportCrashes = false;
     private boolean reportHandledExceptions = true;
     private boolean enableAnalyticsEvents = true;
+    private boolean okHttpResponseBodyMeasurement = false;
+    private boolean stagedStartup = false;
+    private boolean adaptiveHarvest = false;
+    private boolean concurrentHarvestListeners = false;
     private String sessionID = null;
     private String customApplicationVersion = null;
     private String customBuildId = null;
@@ -91,6 +103,8 @@ public class AgentConfiguration implements HarvestConfigurable {
     private int maxCachedSessionContextCount = DEFAULT_MAX_CACHED_SESSION_CONTEXT_COUNT;
     private int maxCachedCrashCount = DEFAULT_MAX_CACHED_CRASH_COUNT;
     private int maxCachedEventCount = DEFAULT_MAX_CACHED_EVENT_COUNT;
+    private int networkRequestSampleInterval = DEFAULT_NETWORK_REQUEST_SAMPLE_INTERVAL;
+    private long uploadDeferralMaxAge = DEFAULT_UPLOAD_DEFERRAL_MAX_AGE;
     private AnalyticsEventStore eventStore;
     private SessionReplayStore sessionReplayStore;
     private OfflineSessionReplayStore offlineSessionReplayStore;
@@ -235,6 +249,58 @@ public class AgentConfiguration implements HarvestConfigurable {
         this.enableAnalyticsEvents = enableAnalyticsEvents;
     }
 
+    public boolean getOkHttpResponseBodyMeasurement() {
+        return okHttpResponseBodyMeasurement;
+    }
+
+    /**
+     * When enabled, OkHttp3 transactions are completed once the response body has been read
+     * or closed, rather than when the headers arrive. Byte counts then reflect the bytes actually
+     * received (including chunked and streamed responses), and timing includes the body download.
+     * A response whose body is never read or closed is not recorded.
+     */
+    public void setOkHttpResponseBodyMeasurement(boolean okHttpResponseBodyMeasurement) {
+        this.okHttpResponseBodyMeasurement = okHttpResponseBodyMeasurement;
+    }
+
+    public boolean getStagedStartup() {
+        return stagedStartup;
+    }
+
+    /**
+     * When enabled, only the crash handler is installed while the agent is started. Agent stores
+     * and services are opened on a background thread, and API calls made in the meantime are
+     * replayed once startup completes.
+     */
+    public void setStagedStartup(boolean stagedStartup) {
+        this.stagedStartup = stagedStartup;
+    }
+
+    public boolean getAdaptiveHarvest() {
+        return adaptiveHarvest;
+    }
+
+    /**
+     * When enabled, the harvest period adapts to the data buffered: harvests run early when
+     * buffers grow large, are spaced out while there is nothing to send, and are brought forward
+     * to share the radio with other agent uploads.
+     */
+    public void setAdaptiveHarvest(boolean adaptiveHarvest) {
+        this.adaptiveHarvest = adaptiveHarvest;
+    }
+
+    public boolean getConcurrentHarvestListeners() {
+        return concurrentHarvestListeners;
+    }
+
+    /**
+     * When enabled, harvest listeners that declare themselves independent of the harvest payload
+     * run their harvest callbacks on a bounded pool, in parallel with the rest of the cycle.
+     */
+    public void setConcurrentHarvestListeners(boolean concurrentHarvestListeners) {
+        this.concurrentHarvestListeners = concurrentHarvestListeners;
+    }
+
     public String getSessionID() {
         if (sessionID == null) {
             synchronized (this) {
@@ -375,6 +441,25 @@ public class AgentConfiguration implements HarvestConfigurable {
         this.maxCachedEventCount = n > 0 ? n : DEFAULT_MAX_CACHED_EVENT_COUNT;
     }
 
+    public int getNetworkRequestSampleInterval() {
+        return networkRequestSampleInterval;
+    }
+
+    public void setNetworkRequestSampleInterval(int n) {
+        this.networkRequestSampleInterval = n > 0 ? n : DEFAULT_NETWORK_REQUEST_SAMPLE_INTERVAL;
+    }
+
+    public long getUploadDeferralMaxAge() {
+        return uploadDeferralMaxAge;
+    }
+
+    /**
+     * @param ms the longest a bulk payload may be held back from a metered network, in millis
+     */
+    public void setUploadDeferralMaxAge(long ms) {
+        this.uploadDeferralMaxAge = ms >= 0 ? ms : DEFAULT_UPLOAD_DEFERRAL_MAX_AGE;
+    }
+
     String getDefaultCollectorHost() {
         return DEFAULT_COLLECTOR_HOST;
     }
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android;
+
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.util.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs agent startup in named stages. Stages submitted with {@link #stage(String, Runnable)} run in order
+ * on a dedicated background thread, leaving only the work passed to {@link #runStage(String, Runnable)}
+ * on the caller's (usually the main) thread.
+ * <p>
+ * API calls made while startup is pending can be deferred with {@link #defer(Runnable)}. Deferred calls
+ * are replayed in order on the startup thread once all stages have run, after which startup is complete
+ * and calls are no longer deferred. Calls made once the buffer is full are dropped, rather than run out
+ * of order, and {@link #deferCall(Runnable)} reports them as {@link Deferral#DROPPED}. If {@link #complete()} is not called within {@link #MAX_PENDING_MS}, the deferred calls are
+ * replayed anyway, and later calls are no longer deferred.
+ * <p>
+ * Each stage's duration is recorded as a supportability metric.
+ */
+public class AgentStartup {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    public static final String STAGE_CRASH_HANDLER = "CrashHandler";
+    public static final String STAGE_STORES = "Stores";
+    public static final String STAGE_SERVICES = "Services";
+
+    // upper limit on API calls buffered while startup is pending
+    static final int MAX_DEFERRED_CALLS = 512;
+
+    // longest time API calls are buffered when the agent is not started
+    static final long MAX_PENDING_MS = 30 * 1000;
+
+    /**
+     * The outcome of {@link #deferCall(Runnable)}.
+     */
+    public enum Deferral {
+        // not deferred: the caller should proceed normally
+        NONE,
+        // buffered, and replayed once startup completes
+        DEFERRED,
+        // the buffer is full, and the call was discarded
+        DROPPED
+    }
+
+    protected static final AtomicReference<AgentStartup> instance = new AtomicReference<>(null);
+
+    private final ScheduledExecutorService executor;
+    private final ScheduledFuture<?> expiry;
+    private final List<Runnable> deferredCalls = new ArrayList<>();
+    private final Map<String, Long> stageTimes = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private final long startTimeMs;
+    private volatile Thread startupThread;
+    private boolean complete = false;
+
+    /**
+     * Start a new staged startup, unless one is already pending.
+     */
+    public static AgentStartup initialize() {
+        final AgentStartup startup = instance.get();
+        if (startup == null || startup.isComplete()) {
+            instance.compareAndSet(startup, new AgentStartup());
+        }
+        return instance.get();
+    }
+
+    public static AgentStartup getInstance() {
+        return instance.get();
+    }
+
+    /**
+     * @return true if a staged startup has begun but not yet completed.
+     */
+    public static boolean isPending() {
+        final AgentStartup startup = instance.get();
+        return startup != null && !startup.isComplete();
+    }
+
+    /**
+     * Defer an API call until staged startup completes.
+     *
+     * @param call the call to replay
+     * @return true if the call was deferred or dropped, false if the caller should proceed normally.
+     * @see #deferCall(Runnable)
+     */
+    public static boolean defer(Runnable call) {
+        return deferCall(call) != Deferral.NONE;
+    }
+
+    /**
+     * Defer an API call until staged startup completes, reporting whether it was buffered or dropped.
+     * Calls are never deferred when no startup is pending, or when made from the startup thread. Calls
+     * made once the queue is full are dropped.
+     *
+     * @param call the call to replay
+     * @return the outcome of the deferral
+     */
+    public static Deferral deferCall(Runnable call) {
+        final AgentStartup startup = instance.get();
+        return startup != null ? startup.enqueue(call) : Deferral.NONE;
+    }
+
+    /**
+     * Stop deferring calls, and release the startup thread. When called from the startup thread
+     * (i.e. by a replayed call), the calls already queued are run first.
+     */
+    public static void shutdown() {
+        final AgentStartup startup = instance.getAndSet(null);
+        if (startup != null) {
+            if (Thread.currentThread() == startup.startupThread) {
+                startup.executor.shutdown();
+            } else {
+                startup.executor.shutdownNow();
+            }
+        }
+    }
+
+    AgentStartup() {
+        this(MAX_PENDING_MS);
+    }
+
+    AgentStartup(long maxPendingMs) {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("AgentStartup"));
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = executor;
+        this.startTimeMs = System.currentTimeMillis();
+        this.expiry = executor.schedule(this::expire, maxPendingMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a stage on the caller's thread.
+     */
+    public void runStage(final String name, final Runnable stage) {
+        final long tStart = System.currentTimeMillis();
+
+        try {
+            stage.run();
+        } catch (Exception e) {
+            log.error("AgentStartup: stage [" + name + "] failed: " + e);
+        }
+
+        final long duration = System.currentTimeMillis() - tStart;
+        stageTimes.put(name, duration);
+        StatsEngine.SUPPORTABILITY.sampleTimeMs(MetricNames.SUPPORTABILITY_STARTUP_STAGE
+                .replace(MetricNames.TAG_NAME, name), duration);
+        log.debug("AgentStartup: stage [" + name + "] completed in " + duration + " ms");
+    }
+
+    /**
+     * Queue a stage on the startup thread. Stages run in the order they are submitted.
+     */
+    public Future<?> stage(final String name, final Runnable stage) {
+        return executor.submit(() -> {
+            startupThread = Thread.currentThread();
+            runStage(name, stage);
+        });
+    }
+
+    /**
+     * Queue completion of the startup, after all previously submitted stages. Deferred calls are
+     * replayed before the startup is marked complete.
+     */
+    public Future<?> complete() {
+        expiry.cancel(false);
+
+        final Future<?> future = executor.submit(() -> {
+            startupThread = Thread.currentThread();
+            replayDeferredCalls();
+
+            final long duration = System.currentTimeMillis() - startTimeMs;
+            StatsEngine.SUPPORTABILITY.sampleTimeMs(MetricNames.SUPPORTABILITY_STARTUP_TOTAL, duration);
+            log.info("AgentStartup: startup completed in " + duration + " ms");
+
+            completed.countDown();
+        });
+        executor.shutdown();
+
+        return future;
+    }
+
+    /**
+     * Wait for all stages and deferred calls to complete.
+     *
+     * @return true if startup completed within the timeout
+     */
+    public boolean await(long timeout, TimeUnit unit) {
+        try {
+            return completed.await(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isComplete() {
+        synchronized (deferredCalls) {
+            return complete;
+        }
+    }
+
+    public Map<String, Long> getStageTimes() {
+        synchronized (stageTimes) {
+            return new LinkedHashMap<>(stageTimes);
+        }
+    }
+
+    int getDeferredCallCount() {
+        synchronized (deferredCalls) {
+            return deferredCalls.size();
+        }
+    }
+
+    Deferral enqueue(Runnable call) {
+        synchronized (deferredCalls) {
+            if (complete || Thread.currentThread() == startupThread) {
+                return Deferral.NONE;
+            }
+
+            if (deferredCalls.size() >= MAX_DEFERRED_CALLS) {
+                // running the call now would reorder it ahead of those already buffered
+                log.warn("AgentStartup: " + MAX_DEFERRED_CALLS + " calls already deferred, dropping API call");
+                StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_STARTUP_DEFERRED_OVERFLOW);
+                return Deferral.DROPPED;
+            }
+
+            deferredCalls.add(call);
+        }
+        StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_STARTUP_DEFERRED);
+
+        return Deferral.DEFERRED;
+    }
+
+    /**
+     * The agent was not started in time: replay the calls buffered so far, and stop deferring.
+     */
+    void expire() {
+        startupThread = Thread.currentThread();
+
+        log.warn("AgentStartup: agent was not started in time, replaying " + getDeferredCallCount() + " deferred calls");
+        StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_STARTUP_EXPIRED);
+        replayDeferredCalls();
+    }
+
+    /**
+     * Replay deferred calls in order. Calls deferred while replaying are picked up
+     * by the next pass; startup is complete once a pass finds the queue empty.
+     */
+    void replayDeferredCalls() {
+        while (true) {
+            final List<Runnable> calls;
+
+            synchronized (deferredCalls) {
+                if (deferredCalls.isEmpty()) {
+                    complete = true;
+                    return;
+                }
+                calls = new ArrayList<>(deferredCalls);
+                deferredCalls.clear();
+            }
+
+            for (Runnable call : calls) {
+                try {
+                    call.run();
+                } catch (Exception e) {
+                    log.error("AgentStartup: deferred call failed: " + e);
+                }
+            }
+        }
+    }
+}
@@ -27,7 +27,9 @@ public enum FeatureFlag {
     LogReporting,
     ApplicationExitReporting,
     BackgroundReporting,
-    EventPersistence;
+    EventPersistence,
+    NetworkRequestAggregation,
+    NetworkAwareUploads;
 
     public static final Set<FeatureFlag> enabledFeatures = new HashSet<FeatureFlag>();
 
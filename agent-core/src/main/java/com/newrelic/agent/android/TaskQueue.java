@@ -11,14 +11,14 @@ import com.newrelic.agent.android.harvest.Harvest;
 import com.newrelic.agent.android.harvest.HarvestAdapter;
 import com.newrelic.agent.android.measurement.HttpTransactionMeasurement;
 import com.newrelic.agent.android.metric.Metric;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 import com.newrelic.agent.android.tracing.ActivityTrace;
 import com.newrelic.agent.android.tracing.Trace;
-import com.newrelic.agent.android.util.NamedThreadFactory;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -35,7 +35,7 @@ public class TaskQueue extends HarvestAdapter {
 
     private static final long DEQUEUE_PERIOD_MS = 1000;
 
-    private static final ScheduledExecutorService queueExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("TaskQueue"));
+    private static final ScheduledExecutorService queueExecutor = AgentScheduler.newExecutor(Lane.TASK_QUEUE);
     private static final ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<Object>();
     private static final Runnable dequeueTask = () -> TaskQueue.dequeue();
     protected static Future dequeueFuture;
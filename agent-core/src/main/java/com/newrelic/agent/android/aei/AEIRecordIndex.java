@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2024. New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.aei;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.util.Streams;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact, persisted index of the exit info records that have already been reported.
+ * <p>
+ * Records are keyed by pid and stamped with the record timestamp, so a recycled pid is
+ * not mistaken for a reported exit. The high-water mark is the newest timestamp seen, and
+ * allows a scan to stop as soon as it reaches records that predate the last harvest.
+ */
+public class AEIRecordIndex {
+
+    static final Gson gson = new GsonBuilder().create();
+
+    final File indexStore;
+    final Map<Integer, Long> records;
+    long highWaterMark;
+
+    static class Model {
+        long highWaterMark;
+        Map<Integer, Long> records;
+    }
+
+    public AEIRecordIndex(File indexStore) {
+        this.indexStore = indexStore;
+        this.records = new HashMap<>();
+        this.highWaterMark = 0;
+        if (indexStore.exists()) {
+            load();
+        }
+    }
+
+    /**
+     * Returns true if the record for this pid and timestamp has been processed
+     */
+    public synchronized boolean contains(int pid, long timestamp) {
+        Long recorded = records.get(pid);
+        return recorded != null && recorded == timestamp;
+    }
+
+    /**
+     * Returns true if the record has not been processed and is not older than the high-water mark
+     */
+    public synchronized boolean isNew(int pid, long timestamp) {
+        return timestamp >= highWaterMark && !contains(pid, timestamp);
+    }
+
+    public synchronized AEIRecordIndex add(int pid, long timestamp) {
+        records.put(pid, timestamp);
+        highWaterMark = Math.max(highWaterMark, timestamp);
+        return this;
+    }
+
+    public synchronized long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Remove any records whose pids are *not* in the passed set. The high-water mark is retained.
+     *
+     * @return the pids that were removed
+     */
+    public synchronized Set<Integer> retain(Set<Integer> pidSet) {
+        Set<Integer> removed = new HashSet<>(records.keySet());
+        removed.removeAll(pidSet);
+        records.keySet().removeAll(removed);
+
+        return removed;
+    }
+
+    public synchronized AEIRecordIndex load() {
+        if (indexStore.exists() && indexStore.canRead()) {
+            try {
+                String storeData = Streams.slurpString(indexStore, StandardCharsets.UTF_8.toString());
+                Model model = gson.fromJson(storeData, Model.class);
+
+                if (model != null) {
+                    if (model.records != null) {
+                        model.records.forEach(records::putIfAbsent);
+                    }
+                    highWaterMark = Math.max(highWaterMark, model.highWaterMark);
+                }
+
+            } catch (Exception e) {
+                AgentLogManager.getAgentLog().error("Cannot read AEI record index: " + e);
+            }
+        }
+
+        return this;
+    }
+
+    public synchronized boolean flush() {
+        Model model = new Model();
+        model.highWaterMark = highWaterMark;
+        model.records = records;
+
+        try (BufferedWriter os = Streams.newBufferedFileWriter(indexStore)) {
+            os.write(gson.toJson(model));
+            os.flush();
+
+        } catch (IOException e) {
+            AgentLogManager.getAgentLog().error("Cannot write AEI record index: " + e);
+        }
+
+        return indexStore.exists() && indexStore.canRead();
+    }
+
+    public boolean exists() {
+        return indexStore.exists();
+    }
+
+    public synchronized void clear() {
+        records.clear();
+        highWaterMark = 0;
+    }
+
+    public void delete() {
+        if (indexStore.exists()) {
+            indexStore.delete();
+        }
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+}
@@ -2,10 +2,15 @@ package com.newrelic.agent.android.aei;
 
 import com.newrelic.agent.android.logging.AgentLogManager;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -15,15 +20,21 @@ import java.util.stream.Collectors;
  *
  * The AEI trace filters and reduces the system trace returned
  * by ApplicationExitInfo.getTraceInputStream() to just the data expected at ingest.
+ * The trace is read once, line by line, so memory use is bounded by the reported
+ * threads rather than the size of the system trace.
  */
 public class AEITrace {
-    final static Pattern TRACE_HEADER_REGEXP = Pattern.compile(".*----- pid (?<pid>.\\d+) at (?<timeCreated>\\d{4}-\\d{2}-\\d{2}[T ]{0,}[0-9:.-]+) -----(?<body>.*$)");
-    final static Pattern TRACE_THREADS_REGEXP = Pattern.compile(".*DALVIK THREADS \\((?<threadCnt>\\d+)\\):\\s(.*)----- end (\\d+) -----", Pattern.MULTILINE);
+    final static Pattern TRACE_HEADER_REGEXP = Pattern.compile("----- pid (?<pid>.\\d+) at (?<timeCreated>\\d{4}-\\d{2}-\\d{2}[T ]{0,}[0-9:.-]+) -----");
+    final static Pattern TRACE_THREADS_REGEXP = Pattern.compile("DALVIK THREADS \\((?<threadCnt>\\d+)\\):");
+    final static Pattern TRACE_THREADS_END_REGEXP = Pattern.compile("----- end (\\d+) -----");
     final static Pattern TRACE_THREAD_ID_REGEXP = Pattern.compile("^\"(?<threadName>.*)\" (.*)prio=(\\d+).*$");
 
     final ArrayList<String> threads;
     String pid;
     String createTime;
+    int threadCnt = 0;
+    int maxThreads = Integer.MAX_VALUE;
+    int maxFrames = Integer.MAX_VALUE;
 
     public AEITrace() {
         threads = new ArrayList<String>();
@@ -39,48 +50,146 @@ public class AEITrace {
     }
 
     public AEITrace decomposeFromSystemTrace(String sysTrace) {
+        return decomposeFromSystemTrace(new StringReader(sysTrace));
+    }
+
+    public AEITrace decomposeFromSystemTrace(File sysTraceFile) {
+        try (Reader reader = new InputStreamReader(new FileInputStream(sysTraceFile), StandardCharsets.UTF_8)) {
+            return decomposeFromSystemTrace(reader);
+        } catch (IOException e) {
+            AgentLogManager.getAgentLog().error("Unable to read trace file: " + e);
+        }
 
-        // replace newlines with tabs to parse the entire trace as a tab delimited string
-        sysTrace = sysTrace.strip().replace('\n', '\t');
+        return this;
+    }
 
-        // ----- pid 4473 at 2024-02-15 23:37:45.593138790-0800 -----
-        Matcher headerMatcher = TRACE_HEADER_REGEXP.matcher(sysTrace);
-        if (headerMatcher.matches()) {
-            if (null == pid || pid.isBlank()) {
-                pid = headerMatcher.group(1);
+    /**
+     * Parse the system trace one line at a time. Only the thread currently being parsed
+     * is buffered, and reading stops once the thread data (or the thread limit) is reached.
+     */
+    public AEITrace decomposeFromSystemTrace(Reader sysTrace) {
+        final BufferedReader reader = (sysTrace instanceof BufferedReader) ? (BufferedReader) sysTrace : new BufferedReader(sysTrace);
+        final StringBuilder thread = new StringBuilder();
+        boolean headerFound = false;
+        boolean threadsFound = false;
+        boolean skipThread = false;
+        int frameCnt = 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!threadsFound) {
+                    if (!headerFound) {
+                        // ----- pid 4473 at 2024-02-15 23:37:45.593138790-0800 -----
+                        Matcher headerMatcher = TRACE_HEADER_REGEXP.matcher(line);
+                        if (headerMatcher.find()) {
+                            if (null == pid || pid.isBlank()) {
+                                pid = headerMatcher.group("pid");
+                            }
+                            createTime = headerMatcher.group("timeCreated").strip();
+                            headerFound = true;
+                            continue;
+                        }
+                    }
+
+                    // DALVIK THREADS (<nThreads>):\n<thread 0>\n<thread 1>...\n<thread n>\n----- end (<pid>) -----
+                    Matcher threadsMatcher = TRACE_THREADS_REGEXP.matcher(line);
+                    if (threadsMatcher.find()) {
+                        threadCnt = Integer.parseInt(threadsMatcher.group("threadCnt"));
+                        threadsFound = true;
+                    }
+                    continue;
+                }
+
+                if (TRACE_THREADS_END_REGEXP.matcher(line).find()) {
+                    break;
+                }
+
+                if (line.isEmpty()) {
+                    // threads are separated by an empty line
+                    addThread(thread);
+                    skipThread = false;
+                    if (threads.size() >= maxThreads) {
+                        break;
+                    }
+                    continue;
+                }
+
+                if (skipThread) {
+                    continue;
+                }
+
+                if (thread.length() == 0) {
+                    // "main" prio=5 tid=1 Sleeping
+                    if (!TRACE_THREAD_ID_REGEXP.matcher(line).matches()) {
+                        skipThread = true;
+                        continue;
+                    }
+                    thread.append(line);
+                    frameCnt = 0;
+
+                } else if (!isThreadMetadata(line) && frameCnt < maxFrames) {
+                    thread.append('\n').append(line);
+                    frameCnt++;
+                }
             }
-            createTime = headerMatcher.group(2).strip();
-        } else {
-            AgentLogManager.getAgentLog().debug("The trace file does not contain the expected file header.");
+
+            addThread(thread);
+
+        } catch (IOException e) {
+            AgentLogManager.getAgentLog().error("Unable to read trace data: " + e);
         }
 
-        // DALVIK THREADS (<nThreads>):\n<thread 0>\n<thread 1>...\n<thread n>\n----- end (<pid>) -----
-        Matcher threadsMatcher = TRACE_THREADS_REGEXP.matcher(sysTrace);
-        if (threadsMatcher.matches()) {
-            String threadData = threadsMatcher.group(2).strip();
-            parseThreadsData(threadData);
-        } else {
+        if (!headerFound) {
+            AgentLogManager.getAgentLog().debug("The trace file does not contain the expected file header.");
+        }
+        if (!threadsFound) {
             AgentLogManager.getAgentLog().error("The trace file does not contain the expected threads data.");
-            // TODO try to parse the file anyway?
-            // parseThreadsData(sysTrace);
         }
 
         return this;
     }
 
-    private ArrayList<String> parseThreadsData(String threadData) {
-        if (!(threadData == null || threadData.isEmpty())) {
-            threads.addAll(List.of(threadData.split("\t\t")));
-            threads.removeIf(s -> !TRACE_THREAD_ID_REGEXP.matcher(s).matches());
-            threads.replaceAll(s -> {
-                String[] frames = s.split("\t");
-                return Arrays.stream(frames)
-                        .filter(s1 -> !s1.trim().matches("[(|-].*"))
-                        .collect(Collectors.joining("\n"));
-            });
+    private void addThread(StringBuilder thread) {
+        if (thread.length() > 0) {
+            if (threads.size() < maxThreads) {
+                threads.add(thread.toString());
+            }
+            thread.setLength(0);
         }
+    }
 
-        return threads;
+    /**
+     * Thread state and lock lines start with '|', '-' or '('
+     */
+    static boolean isThreadMetadata(String line) {
+        for (int i = 0; i < line.length(); i++) {
+            final char ch = line.charAt(i);
+            if (!Character.isWhitespace(ch)) {
+                return ch == '|' || ch == '-' || ch == '(';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Limit the number of threads reported
+     */
+    public AEITrace setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+        return this;
+    }
+
+    /**
+     * Limit the number of frames reported per thread
+     */
+    public AEITrace setMaxFrames(int maxFrames) {
+        this.maxFrames = maxFrames;
+        return this;
+    }
+
+    public int getThreadCnt() {
+        return threadCnt;
     }
 
     public ArrayList<String> getThreads() {
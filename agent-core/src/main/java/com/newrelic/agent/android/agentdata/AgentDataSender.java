@@ -16,6 +16,7 @@ import com.newrelic.agent.android.util.Constants;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
 
 import javax.net.ssl.HttpsURLConnection;
@@ -32,8 +33,7 @@ public class AgentDataSender extends PayloadSender {
 
     @Override
     protected HttpURLConnection getConnection() throws IOException {
-        final String urlString = getProtocol() + agentConfiguration.getHexCollectorHost() + agentConfiguration.getHexCollectorPath();
-        final URL url = new URL(urlString);
+        final URL url = getCollectorURI().toURL();
         final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
 
         connection.setDoOutput(true);
@@ -97,4 +97,14 @@ public class AgentDataSender extends PayloadSender {
     protected boolean shouldUploadOpportunistically() {
         return PayloadController.shouldUploadOpportunistically();
     }
+
+    @Override
+    protected URI getCollectorURI() {
+        return URI.create(getProtocol() + agentConfiguration.getHexCollectorHost() + agentConfiguration.getHexCollectorPath());
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.HANDLED_EXCEPTION;
+    }
 }
@@ -7,6 +7,8 @@ package com.newrelic.agent.android.analytics;
 
 import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.FeatureFlag;
+import com.newrelic.agent.android.harvest.AdaptiveHarvestPolicy;
+import com.newrelic.agent.android.harvest.Harvest;
 import com.newrelic.agent.android.harvest.HarvestTimer;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
@@ -29,6 +31,10 @@ public class EventManagerImpl implements EventManager, EventListener {
     public static final int DEFAULT_MIN_EVENT_BUFFER_SIZE = 64;
     public static final int DEFAULT_MIN_EVENT_BUFFER_TIME = (int) (HarvestTimer.DEFAULT_HARVEST_PERIOD / 1000);     // 60 seconds (1 minutes, same as harvest)
 
+    // rough harvested sizes, used to size the buffer for adaptive harvests
+    static final int EVENT_SIZE_ESTIMATE = 128;
+    static final int ATTRIBUTE_SIZE_ESTIMATE = 48;
+
     private AtomicReference<List<AnalyticsEvent>> events;
     int maxEventPoolSize;
     int maxBufferTimeInSec;
@@ -224,6 +230,8 @@ public class EventManagerImpl implements EventManager, EventListener {
                     eventStore.store(persisted);
                 }
                 eventsRecorded.incrementAndGet();
+                Harvest.onDataBuffered(AdaptiveHarvestPolicy.Buffer.EVENTS,
+                        EVENT_SIZE_ESTIMATE + ATTRIBUTE_SIZE_ESTIMATE * event.getAttributeSet().size());
                 return true;
             }
 
@@ -8,9 +8,9 @@ package com.newrelic.agent.android.analytics;
 import com.newrelic.agent.android.FeatureFlag;
 import com.newrelic.agent.android.distributedtracing.TraceContext;
 import com.newrelic.agent.android.harvest.HttpTransaction;
+import com.newrelic.agent.android.util.ParsedUrl;
+import com.newrelic.agent.android.util.UrlCache;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -35,11 +35,11 @@ public class NetworkRequestEvent extends AnalyticsEvent {
     static Set<AnalyticsAttribute> createDefaultAttributeSet(final HttpTransaction txn) {
         final Set<AnalyticsAttribute> attributes = new HashSet<AnalyticsAttribute>();
 
-        try {
-            final URL url = new URL(txn.getUrl());
+        final ParsedUrl url = UrlCache.parse(txn.getUrl());
+        if (url != null) {
             attributes.add(new AnalyticsAttribute(AnalyticsAttribute.REQUEST_DOMAIN_ATTRIBUTE, url.getHost()));
             attributes.add(new AnalyticsAttribute(AnalyticsAttribute.REQUEST_PATH_ATTRIBUTE, url.getPath()));
-        } catch (MalformedURLException e) {
+        } else {
             log.error(txn.getUrl() + " is not a valid URL. Unable to set host or path attributes.");
         }
 
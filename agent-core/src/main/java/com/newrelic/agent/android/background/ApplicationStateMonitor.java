@@ -7,11 +7,11 @@ package com.newrelic.agent.android.background;
 
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
-import com.newrelic.agent.android.util.NamedThreadFactory;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 
 import java.util.ArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -29,7 +29,7 @@ public class ApplicationStateMonitor {
     private AtomicLong activityCount = new AtomicLong(0);
 
     public ApplicationStateMonitor() {
-        executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("AppStateMon"));
+        executor = AgentScheduler.newExecutor(Lane.LIFECYCLE);
         log.info("Application state monitor has started");
     }
 
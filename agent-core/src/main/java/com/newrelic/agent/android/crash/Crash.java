@@ -82,10 +82,14 @@ public class Crash extends HarvestableObject {
     }
 
     public Crash(Throwable throwable, Set<AnalyticsAttribute> sessionAttributes, Collection<AnalyticsEvent> events, boolean analyticsEnabled) {
+        this(UUID.randomUUID(), throwable, sessionAttributes, events, analyticsEnabled);
+    }
+
+    public Crash(UUID uuid, Throwable throwable, Set<AnalyticsAttribute> sessionAttributes, Collection<AnalyticsEvent> events, boolean analyticsEnabled) {
         final AgentImpl agentImpl = Agent.getImpl();
         final Throwable cause = getRootCause(throwable);
 
-        this.uuid = UUID.randomUUID();
+        this.uuid = uuid;
         this.buildId = getSafeBuildId();
         this.timestamp = System.currentTimeMillis();
         this.appToken = getAppToken();
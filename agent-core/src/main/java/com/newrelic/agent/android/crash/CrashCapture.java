@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.crash;
+
+import com.google.gson.stream.JsonWriter;
+import com.newrelic.agent.android.Agent;
+import com.newrelic.agent.android.AgentImpl;
+import com.newrelic.agent.android.FeatureFlag;
+import com.newrelic.agent.android.analytics.AnalyticsAttribute;
+import com.newrelic.agent.android.analytics.AnalyticsEvent;
+import com.newrelic.agent.android.background.ApplicationStateMonitor;
+import com.newrelic.agent.android.harvest.ActivityHistory;
+import com.newrelic.agent.android.harvest.ActivitySighting;
+import com.newrelic.agent.android.harvest.DataToken;
+import com.newrelic.agent.android.harvest.Harvest;
+import com.newrelic.agent.android.harvest.crash.ApplicationInfo;
+import com.newrelic.agent.android.harvest.crash.DeviceInfo;
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.tracing.TraceMachine;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A crash record capture path that is reserved before it is needed.
+ * <p>
+ * When reserved, the capture allocates its output buffer, opens the file the crash will be written to,
+ * and snapshots the device and application info. On a crash, the record is streamed directly into the
+ * buffer, in the same format as {@link Crash#asJsonObject()}, without building a Crash or a Gson tree.
+ * If the record exceeds the buffer (or the heap is exhausted while collecting threads), a minimal
+ * record containing only the exception and the crashed thread is written in its place.
+ * <p>
+ * The record is named after the crash UUID, so a crash later stored through the {@link CrashStore}
+ * with the same UUID replaces it. An unused reservation is left as a transient file, which the file
+ * crash store removes on the next launch.
+ * <p>
+ * The buffer is held for as long as the reservation, which is normally the life of the process, so
+ * the default budget is kept small. Most records fit; those that don't fall back to the minimal record.
+ */
+public class CrashCapture {
+    protected static final AgentLog log = AgentLogManager.getAgentLog();
+
+    public static final int DEFAULT_BUDGET = 64 * 1024;     // bytes, reserved until the capture is released
+    static final int MAX_MINIMAL_FRAMES = 64;
+    static final int MAX_MINIMAL_MESSAGE_LENGTH = 1024;
+
+    static final String RESERVED_SUFFIX = ".tmp";
+    static final String RECORD_SUFFIX = ".json";
+
+    private final UUID uuid;
+    private final File reservedFile;
+    private final File recordFile;
+    private final BufferWriter buffer;
+    private final String buildId;
+    private final String appToken;
+    private final String deviceInfo;
+    private final String applicationInfo;
+    private FileOutputStream reservedStream;
+
+    CrashCapture(File directory, int budget) throws IOException {
+        final AgentImpl agentImpl = Agent.getImpl();
+
+        this.uuid = UUID.randomUUID();
+        this.reservedFile = new File(directory, uuid.toString() + RESERVED_SUFFIX);
+        this.recordFile = new File(directory, uuid.toString() + RECORD_SUFFIX);
+        this.buffer = new BufferWriter(budget);
+        this.buildId = Crash.getSafeBuildId();
+        this.appToken = CrashReporter.getInstance() != null
+                ? CrashReporter.getInstance().getAgentConfiguration().getApplicationToken()
+                : "<missing app token>";
+        this.deviceInfo = new DeviceInfo(agentImpl.getDeviceInformation(), agentImpl.getEnvironmentInformation()).asJsonObject().toString();
+        this.applicationInfo = new ApplicationInfo(agentImpl.getApplicationInformation()).asJsonObject().toString();
+        this.reservedStream = new FileOutputStream(reservedFile, false);
+    }
+
+    /**
+     * Reserve a capture in the crash store's root directory. Returns null if the store
+     * is not file-backed, or the reservation fails.
+     */
+    public static CrashCapture reserve(CrashStore crashStore) {
+        if (crashStore == null) {
+            return null;
+        }
+
+        final String rootPath = crashStore.getRootPath();
+        if (rootPath == null || rootPath.isEmpty()) {
+            return null;
+        }
+
+        return reserve(new File(rootPath), DEFAULT_BUDGET);
+    }
+
+    static CrashCapture reserve(File directory, int budget) {
+        if (!directory.isDirectory()) {
+            return null;
+        }
+
+        try {
+            return new CrashCapture(directory, budget);
+        } catch (Exception e) {
+            log.warn("CrashCapture: unable to reserve crash capture: " + e);
+        }
+
+        return null;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public File getRecordFile() {
+        return recordFile;
+    }
+
+    public synchronized boolean isReserved() {
+        return reservedStream != null;
+    }
+
+    /**
+     * Write the crash record to the reserved file. The capture can only be used once.
+     *
+     * @return true if a complete or minimal record was written
+     */
+    public synchronized boolean capture(Thread thread, Throwable throwable, Collection<AnalyticsAttribute> sessionAttributes,
+                                        Collection<AnalyticsEvent> events) {
+        if (reservedStream == null) {
+            return false;
+        }
+
+        final long timestamp = System.currentTimeMillis();
+
+        try {
+            try {
+                buffer.reset();
+                writeCrash(new JsonWriter(buffer), thread, throwable, sessionAttributes, events, timestamp);
+
+            } catch (IOException | OutOfMemoryError e) {
+                // drop whatever was collected and settle for the exception and crashed thread
+                buffer.reset();
+                writeMinimalCrash(new JsonWriter(buffer), thread, throwable, timestamp);
+                StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_CRASH_CAPTURE_TRUNCATED);
+            }
+
+            return commit();
+
+        } catch (IOException | OutOfMemoryError e) {
+            log.error("CrashCapture: unable to capture crash: " + e);
+            StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_CRASH_CAPTURE_FAILED);
+            release();
+        }
+
+        return false;
+    }
+
+    /**
+     * Close and remove the reserved file, if it was not used
+     */
+    public synchronized void release() {
+        if (reservedStream != null) {
+            try {
+                reservedStream.close();
+            } catch (IOException e) {
+                log.debug("CrashCapture: " + e);
+            }
+            reservedStream = null;
+
+            if (reservedFile.exists() && !reservedFile.delete()) {
+                log.debug("CrashCapture: failed to delete reserved file [" + reservedFile.getName() + "]");
+            }
+        }
+    }
+
+    private boolean commit() throws IOException {
+        final FileOutputStream stream = reservedStream;
+
+        reservedStream = null;
+        try {
+            stream.write(buffer.buffer, 0, buffer.size());
+            stream.flush();
+            stream.getFD().sync();
+        } finally {
+            stream.close();
+        }
+
+        if (!reservedFile.renameTo(recordFile)) {
+            throw new IOException("rename failed for [" + reservedFile.getName() + "]");
+        }
+
+        log.debug("CrashCapture: crash [" + uuid + "] captured (" + buffer.size() + " bytes)");
+
+        return true;
+    }
+
+    void writeCrash(JsonWriter writer, Thread thread, Throwable throwable, Collection<AnalyticsAttribute> sessionAttributes,
+                    Collection<AnalyticsEvent> events, long timestamp) throws IOException {
+        writeHeader(writer, timestamp);
+        writeException(writer, throwable, Integer.MAX_VALUE);
+
+        writer.name("threads").beginArray();
+        writeThread(writer, thread, true, throwable.getStackTrace(), Integer.MAX_VALUE);
+        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+            if (entry.getKey().getId() != thread.getId()) {
+                writeThread(writer, entry.getKey(), false, entry.getValue(), Integer.MAX_VALUE);
+            }
+        }
+        writer.endArray();
+
+        writer.name("activityHistory").beginArray();
+        final ActivityHistory activityHistory = TraceMachine.getActivityHistory();
+        if (activityHistory != null) {
+            for (ActivitySighting sighting : activityHistory.getActivitySightings()) {
+                writer.beginArray().value(sighting.getTimestampMs()).value(sighting.getName()).endArray();
+            }
+        }
+        writer.endArray();
+
+        writer.name("sessionAttributes").beginObject();
+        if (sessionAttributes != null) {
+            for (AnalyticsAttribute attribute : sessionAttributes) {
+                writeAttribute(writer, attribute);
+            }
+            writer.name("obfuscated").value(Agent.getIsObfuscated());
+            if (FeatureFlag.featureEnabled(FeatureFlag.BackgroundReporting) && ApplicationStateMonitor.isAppInBackground()) {
+                writer.name(AnalyticsAttribute.BACKGROUND_ATTRIBUTE_NAME).value(true);
+            }
+        }
+        writer.endObject();
+
+        writer.name("analyticsEvents").beginArray();
+        if (events != null) {
+            for (AnalyticsEvent event : events) {
+                writer.beginObject();
+                synchronized (event) {
+                    for (AnalyticsAttribute attribute : event.getAttributeSet()) {
+                        writeAttribute(writer, attribute);
+                    }
+                }
+                writer.endObject();
+            }
+        }
+        writer.endArray();
+
+        writeFooter(writer);
+    }
+
+    void writeMinimalCrash(JsonWriter writer, Thread thread, Throwable throwable, long timestamp) throws IOException {
+        writeHeader(writer, timestamp);
+        writeException(writer, throwable, MAX_MINIMAL_MESSAGE_LENGTH);
+
+        writer.name("threads").beginArray();
+        writeThread(writer, thread, true, throwable.getStackTrace(), MAX_MINIMAL_FRAMES);
+        writer.endArray();
+
+        writer.name("activityHistory").beginArray().endArray();
+        writer.name("sessionAttributes").beginObject().endObject();
+        writer.name("analyticsEvents").beginArray().endArray();
+
+        writeFooter(writer);
+    }
+
+    private void writeHeader(JsonWriter writer, long timestamp) throws IOException {
+        writer.setLenient(true);
+        writer.beginObject();
+        writer.name("protocolVersion").value(Crash.PROTOCOL_VERSION);
+        writer.name("platform").value("Android");
+        writer.name("uuid").value(uuid.toString());
+        writer.name("buildId").value(buildId);
+        writer.name("timestamp").value(timestamp);
+        writer.name("appToken").value(appToken);
+        writer.name("deviceInfo").jsonValue(deviceInfo);
+        writer.name("appInfo").jsonValue(applicationInfo);
+    }
+
+    private void writeFooter(JsonWriter writer) throws IOException {
+        final DataToken dataToken = Harvest.getHarvestConfiguration().getDataToken();
+
+        writer.name("dataToken").beginArray()
+                .value(dataToken.getAccountId())
+                .value(dataToken.getAgentId())
+                .endArray();
+        writer.endObject();
+        writer.flush();
+    }
+
+    private void writeException(JsonWriter writer, Throwable throwable, int maxMessageLength) throws IOException {
+        final String message = throwable.getMessage() != null ? throwable.getMessage() : "";
+
+        writer.name("exception").beginObject();
+        writer.name("name").value(throwable.getClass().getName());
+        writer.name("cause").value(message.length() > maxMessageLength ? message.substring(0, maxMessageLength) : message);
+        writer.endObject();
+    }
+
+    private void writeThread(JsonWriter writer, Thread thread, boolean crashed, StackTraceElement[] stackTrace, int maxFrames) throws IOException {
+        writer.beginObject();
+        writer.name("crashed").value(crashed);
+        writer.name("state").value(thread.getState().toString());
+        writer.name("threadNumber").value(thread.getId());
+        writer.name("threadId").value(thread.getName());
+        writer.name("priority").value(thread.getPriority());
+        writer.name("stack").beginArray();
+        for (int i = 0; i < stackTrace.length && i < maxFrames; i++) {
+            final StackTraceElement element = stackTrace[i];
+            writer.beginObject();
+            if (element.getFileName() != null) {
+                writer.name("fileName").value(element.getFileName());
+            }
+            writer.name("className").value(element.getClassName());
+            writer.name("methodName").value(element.getMethodName());
+            writer.name("lineNumber").value(element.getLineNumber());
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private void writeAttribute(JsonWriter writer, AnalyticsAttribute attribute) throws IOException {
+        switch (attribute.getAttributeDataType()) {
+            case STRING:
+                writer.name(attribute.getName()).value(attribute.getStringValue());
+                break;
+            case DOUBLE:
+                writer.name(attribute.getName()).value(attribute.getDoubleValue());
+                break;
+            case BOOLEAN:
+                writer.name(attribute.getName()).value(attribute.getBooleanValue());
+                break;
+            default:
+                break;
+        }
+    }
+
+    int size() {
+        return buffer.size();
+    }
+
+    byte[] getBuffer() {
+        return buffer.buffer;
+    }
+
+    /**
+     * Thrown when the crash record no longer fits in the reserved buffer
+     */
+    static class BudgetExceededException extends IOException {
+        BudgetExceededException(int budget) {
+            super("Crash record exceeds capture budget of " + budget + " bytes");
+        }
+    }
+
+    /**
+     * A Writer that UTF-8 encodes directly into a fixed, pre-allocated buffer
+     */
+    static class BufferWriter extends Writer {
+        final byte[] buffer;
+        int position = 0;
+        int highSurrogate = 0;
+
+        BufferWriter(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void reset() {
+            position = 0;
+            highSurrogate = 0;
+        }
+
+        int size() {
+            return position;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            final char ch = (char) c;
+
+            if (Character.isHighSurrogate(ch)) {
+                highSurrogate = ch;
+                return;
+            }
+
+            if (Character.isLowSurrogate(ch) && highSurrogate != 0) {
+                final int codePoint = Character.toCodePoint((char) highSurrogate, ch);
+                highSurrogate = 0;
+                ensureCapacity(4);
+                buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                return;
+            }
+
+            highSurrogate = 0;
+            if (Character.isSurrogate(ch)) {
+                // unpaired surrogate
+                ensureCapacity(1);
+                buffer[position++] = '?';
+            } else if (ch < 0x80) {
+                ensureCapacity(1);
+                buffer[position++] = (byte) ch;
+            } else if (ch < 0x800) {
+                ensureCapacity(2);
+                buffer[position++] = (byte) (0xc0 | (ch >> 6));
+                buffer[position++] = (byte) (0x80 | (ch & 0x3f));
+            } else {
+                ensureCapacity(3);
+                buffer[position++] = (byte) (0xe0 | (ch >> 12));
+                buffer[position++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+                buffer[position++] = (byte) (0x80 | (ch & 0x3f));
+            }
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(cbuf[i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(str.charAt(i));
+            }
+        }
+
+        @Override
+        public void write(String str) throws IOException {
+            write(str, 0, str.length());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void ensureCapacity(int bytes) throws BudgetExceededException {
+            if (position + bytes > buffer.length) {
+                throw new BudgetExceededException(buffer.length);
+            }
+        }
+    }
+}
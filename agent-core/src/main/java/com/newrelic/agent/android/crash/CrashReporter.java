@@ -86,6 +86,7 @@ public class CrashReporter extends PayloadReporter {
             if (isEnabled()) {
                 if (isStarted.compareAndSet(false, true)) {
                     uncaughtExceptionHandler.installExceptionHandler();
+                    uncaughtExceptionHandler.reserveCrashCapture(crashStore);
                     jitCrashReporting = agentConfiguration.getReportCrashes();
                 }
             } else {
@@ -130,7 +131,7 @@ public class CrashReporter extends PayloadReporter {
                 if (hasValidDataToken) {
                     final CrashSender sender = new CrashSender(crash, agentConfiguration);
 
-                    long crashSize = crash.asJsonObject().toString().getBytes().length;
+                    long crashSize = sender.getCrashLength();
                     if (crashSize > Constants.Network.MAX_PAYLOAD_SIZE) {
                         DeviceInformation deviceInformation = Agent.getDeviceInformation();
                         String name = MetricNames.SUPPORTABILITY_MAXPAYLOADSIZELIMIT_ENDPOINT
@@ -188,7 +189,7 @@ public class CrashReporter extends PayloadReporter {
                     .replace(MetricNames.TAG_FRAMEWORK, deviceInformation.getApplicationFramework().name())
                     .replace(MetricNames.TAG_DESTINATION, MetricNames.METRIC_DATA_USAGE_COLLECTOR)
                     .replace(MetricNames.TAG_SUBDESTINATION, "mobile_crash");
-            StatsEngine.get().sampleMetricDataUsage(name, crash.asJsonObject().toString().getBytes().length, 0);
+            StatsEngine.get().sampleMetricDataUsage(name, payloadSender.getPayloadSize(), 0);
         } else {
             if (payloadSender.getResponseCode() == HttpURLConnection.HTTP_BAD_REQUEST || payloadSender.getResponseCode() == HttpURLConnection.HTTP_FORBIDDEN) {
                 deleteCrash(crash);
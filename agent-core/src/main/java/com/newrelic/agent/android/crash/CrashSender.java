@@ -10,13 +10,20 @@ import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.metric.MetricNames;
 import com.newrelic.agent.android.payload.PayloadController;
 import com.newrelic.agent.android.payload.PayloadSender;
+import com.newrelic.agent.android.payload.StreamingPayload;
 import com.newrelic.agent.android.stats.StatsEngine;
 import com.newrelic.agent.android.util.Constants;
+import com.newrelic.agent.android.util.JsonStreams;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -25,10 +32,37 @@ public class CrashSender extends PayloadSender {
     private static final String CRASH_COLLECTOR_PATH = "/mobile_crash";
 
     private final Crash crash;
+    private final StreamingPayload crashPayload;
 
     public CrashSender(Crash crash, AgentConfiguration agentConfiguration) {
-        super(crash.toJsonString().getBytes(), agentConfiguration);
+        super(agentConfiguration);
         this.crash = crash;
+        // the crash is serialized as it is sent, and is never held in memory
+        this.crashPayload = new StreamingPayload(this::writeCrash);
+        this.payload = crashPayload;
+    }
+
+    /**
+     * Returns the size of the crash as sent. The crash is measured once, by serializing it into
+     * a counting sink, after which it is sent with a fixed length.
+     *
+     * @return The crash size in bytes, or -1 if it could not be measured (the crash is then sent chunked)
+     */
+    public long getCrashLength() {
+        if (crashPayload.contentLength() < 0) {
+            try {
+                crashPayload.measure();
+            } catch (IOException e) {
+                log.error("CrashSender: unable to measure crash: " + e);
+            }
+        }
+        return crashPayload.contentLength();
+    }
+
+    void writeCrash(OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonStreams.ELEMENT_WRITER.toJson(crash.asJsonObject(), writer);
+        writer.flush();
     }
 
     @Override
@@ -48,8 +82,6 @@ public class CrashSender extends PayloadSender {
 
     @Override
     public PayloadSender call() {
-        setPayload(crash.toJsonString().getBytes());
-
         try {
             PayloadSender result = super.call();
 
@@ -128,4 +160,9 @@ public class CrashSender extends PayloadSender {
         return URI.create(getProtocol() + agentConfiguration.getCrashCollectorHost() + CRASH_COLLECTOR_PATH);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.CRASH;
+    }
+
 }
@@ -20,6 +20,8 @@ import com.newrelic.agent.android.payload.PayloadController;
 import com.newrelic.agent.android.stats.StatsEngine;
 
 import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class UncaughtExceptionHandler implements Thread.UncaughtExceptionHandler {
@@ -27,6 +29,7 @@ public class UncaughtExceptionHandler implements Thread.UncaughtExceptionHandler
 
     protected final AtomicBoolean handledException = new AtomicBoolean(false);
     private final CrashReporter crashReporter;
+    private CrashCapture crashCapture = null;
 
     static Thread.UncaughtExceptionHandler previousExceptionHandler = null;
 
@@ -93,45 +96,77 @@ public class UncaughtExceptionHandler implements Thread.UncaughtExceptionHandler
             }
 
             final Collection<AnalyticsEvent> queuedEvents = analyticsController.getEventManager().getQueuedEvents();
-            final Crash crash = new Crash(throwable,
-                    analyticsController.getSessionAttributes(),
-                    queuedEvents,
-                    agentConfiguration.getEnableAnalyticsEvents());
-
-            // These events are now captured in the crash payload above; delete them from the
-            // persistent event store so they aren't reloaded and re-sent as standalone events
-            // on next launch (the harvest-time cleanup in AnalyticsControllerImpl.onHarvest()
-            // never runs here since the process is about to die).
-            analyticsController.removePersistedEvents(queuedEvents);
-
-            // Store the crash right away.  We'll delete it later if we're able to send it.
-            crashReporter.storeAndReportCrash(crash,false);
-
-        } finally {
-            // InstantApps don't provide the same lifecycle hints as normal apps.
-            // The app UI does go to background, so let the monitor know it is
-            // now hidden so it shuts down the agent
-            if (Agent.isInstantApp()) {
-                // To avoid harvesting during Agent.stop(), shut down the Harvester now.
-                // Harvest takes longer than we're allowed with IA
-                Harvest.shutdown();
-                ApplicationStateMonitor.getInstance().uiHidden();
+            final Set<AnalyticsAttribute> sessionAttributes = analyticsController.getSessionAttributes();
+
+            // Write the crash through the reserved capture first. It doesn't depend on free heap,
+            // and is replaced by the complete crash if that can be stored.
+            final CrashCapture capture = crashCapture;
+            final boolean captured = (capture != null) && capture.capture(thread, throwable, sessionAttributes, queuedEvents);
+
+            try {
+                final Crash crash = new Crash(captured ? capture.getUuid() : UUID.randomUUID(),
+                        throwable,
+                        sessionAttributes,
+                        queuedEvents,
+                        agentConfiguration.getEnableAnalyticsEvents());
+
+                // These events are now captured in the crash payload above; delete them from the
+                // persistent event store so they aren't reloaded and re-sent as standalone events
+                // on next launch (the harvest-time cleanup in AnalyticsControllerImpl.onHarvest()
+                // never runs here since the process is about to die).
+                analyticsController.removePersistedEvents(queuedEvents);
+
+                // Store the crash right away.  We'll delete it later if we're able to send it.
+                crashReporter.storeAndReportCrash(crash,false);
+
+            } catch (OutOfMemoryError e) {
+                if (!captured) {
+                    throw e;
+                }
+                // the captured record stands in for the crash, and the original throwable is chained below
+                log.warn("Insufficient memory to report the crash. The captured crash will be uploaded during the next app launch.");
             }
 
+        } finally {
             // PayloadController.shutdown() below will reset the previous handler, so save it here
-            Thread.UncaughtExceptionHandler exceptionHandler = previousExceptionHandler;
+            final Thread.UncaughtExceptionHandler exceptionHandler = previousExceptionHandler;
+
+            try {
+                // InstantApps don't provide the same lifecycle hints as normal apps.
+                // The app UI does go to background, so let the monitor know it is
+                // now hidden so it shuts down the agent
+                if (Agent.isInstantApp()) {
+                    // To avoid harvesting during Agent.stop(), shut down the Harvester now.
+                    // Harvest takes longer than we're allowed with IA
+                    Harvest.shutdown();
+                    ApplicationStateMonitor.getInstance().uiHidden();
+                }
 
-            // all submitted tasks will still run out
-            PayloadController.shutdown();
+                // all submitted tasks will still run out
+                PayloadController.shutdown();
 
-            // To prevent recursive crashing, just proxy this exception through
-            // Chaining to an existing handler is usually a one-way trip:
-            // the app is usually killed and the call never returns, which is why PayloadController
-            // must be shutdown prior to chaining.
-            chainExceptionHandler(exceptionHandler, thread, throwable);
+            } finally {
+                // To prevent recursive crashing, just proxy this exception through
+                // Chaining to an existing handler is usually a one-way trip:
+                // the app is usually killed and the call never returns, which is why PayloadController
+                // must be shutdown prior to chaining. The original throwable is always chained, even
+                // if the agent fails (or runs out of memory) while shutting down.
+                chainExceptionHandler(exceptionHandler, thread, throwable);
+            }
+        }
+    }
+
+    // Reserve the crash capture while memory is still available
+    public void reserveCrashCapture(CrashStore crashStore) {
+        if (crashCapture == null || !crashCapture.isReserved()) {
+            crashCapture = CrashCapture.reserve(crashStore);
         }
     }
 
+    CrashCapture getCrashCapture() {
+        return crashCapture;
+    }
+
     // Chain the exception along to the previous exception handler
     void chainExceptionHandler(Thread.UncaughtExceptionHandler exceptionHandler, final Thread thread, final Throwable throwable) {
         if (exceptionHandler != null) {
@@ -155,6 +190,10 @@ public class UncaughtExceptionHandler implements Thread.UncaughtExceptionHandler
                 }
             }
         }
+        if (crashCapture != null) {
+            crashCapture.release();
+            crashCapture = null;
+        }
         handledException.set(false);
     }
 
@@ -25,6 +25,10 @@ public class ActivityHistory extends HarvestableArray {
         return activityHistory.size();
     }
 
+    public List<ActivitySighting> getActivitySightings() {
+        return activityHistory;
+    }
+
     @Override
     public JsonArray asJsonArray() {
         final JsonArray data = new JsonArray();
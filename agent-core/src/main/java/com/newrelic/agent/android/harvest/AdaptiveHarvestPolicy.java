@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.harvest;
+
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when the {@link HarvestTimer} should harvest outside its fixed period:
+ * <ul>
+ * <li>Early, when the data buffered since the last harvest crosses a byte threshold.</li>
+ * <li>Later, by stretching the period while consecutive harvests find nothing buffered.</li>
+ * <li>Coalesced, when another agent upload has just woken the radio and a harvest is due soon.</li>
+ * </ul>
+ * Buffered sizes are estimates reported by the code that buffers the data.
+ */
+public class AdaptiveHarvestPolicy {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    public enum Buffer {
+        EVENTS("Events", 256 * 1024),
+        HTTP_TRANSACTIONS("HttpTransactions", 128 * 1024),
+        ACTIVITY_TRACES("ActivityTraces", 256 * 1024);
+
+        private final String bufferName;
+        private final long thresholdBytes;
+        final String earlyHarvestMetric;
+
+        Buffer(String bufferName, long thresholdBytes) {
+            this.bufferName = bufferName;
+            this.thresholdBytes = thresholdBytes;
+            this.earlyHarvestMetric = MetricNames.SUPPORTABILITY_HARVEST_ADAPTIVE_EARLY.replace(MetricNames.TAG_NAME, bufferName);
+        }
+
+        public String getBufferName() {
+            return bufferName;
+        }
+
+        public long getThresholdBytes() {
+            return thresholdBytes;
+        }
+    }
+
+    // never harvest early more often than this
+    static final long MIN_HARVEST_INTERVAL_MS = TimeUnit.SECONDS.toMillis(15);
+
+    // an idle period doubles after each empty harvest, up to this multiple
+    static final int MAX_PERIOD_STRETCH = 4;
+
+    // an upload coalesces with the harvest once this fraction of the period has elapsed
+    static final float COALESCE_WINDOW = 0.5f;
+
+    private final AtomicLong[] bufferedBytes = new AtomicLong[Buffer.values().length];
+    private final AtomicBoolean harvestRequested = new AtomicBoolean(false);
+    private volatile int periodStretch = 1;
+    private volatile long lastHarvestTimeMs = 0;
+
+    public AdaptiveHarvestPolicy() {
+        for (int i = 0; i < bufferedBytes.length; i++) {
+            bufferedBytes[i] = new AtomicLong(0);
+        }
+    }
+
+    /**
+     * Account for data added to a harvest buffer.
+     *
+     * @return true if the buffer has crossed its threshold and an early harvest should be requested
+     */
+    public boolean onBuffered(Buffer buffer, long bytes, long nowMs) {
+        final long buffered = bufferedBytes[buffer.ordinal()].addAndGet(Math.max(0, bytes));
+
+        // new data ends an idle stretch
+        periodStretch = 1;
+
+        if (buffered < buffer.getThresholdBytes() || nowMs - lastHarvestTimeMs < MIN_HARVEST_INTERVAL_MS) {
+            return false;
+        }
+
+        if (harvestRequested.compareAndSet(false, true)) {
+            log.debug("AdaptiveHarvestPolicy: " + buffer.getBufferName() + " buffer reached " + buffered + " bytes, harvesting early");
+            StatsEngine.SUPPORTABILITY.inc(buffer.earlyHarvestMetric);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Another agent component has just uploaded data, so the radio is active.
+     *
+     * @return true if a harvest due within the coalescing window should run now
+     */
+    public boolean onUpload(long periodMs, long nowMs) {
+        final long elapsed = nowMs - lastHarvestTimeMs;
+
+        if (lastHarvestTimeMs == 0 || elapsed < MIN_HARVEST_INTERVAL_MS || elapsed < getEffectivePeriod(periodMs) * COALESCE_WINDOW) {
+            return false;
+        }
+
+        if (harvestRequested.compareAndSet(false, true)) {
+            log.debug("AdaptiveHarvestPolicy: coalescing harvest with an agent upload");
+            StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_HARVEST_ADAPTIVE_COALESCED);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Record a completed harvest. When nothing was buffered and the harvester is connected,
+     * the next period is stretched.
+     */
+    public void onHarvest(boolean connected, long nowMs) {
+        long buffered = 0;
+        for (AtomicLong bytes : bufferedBytes) {
+            buffered += bytes.getAndSet(0);
+        }
+
+        if (connected && buffered == 0) {
+            if (periodStretch < MAX_PERIOD_STRETCH) {
+                periodStretch = Math.min(periodStretch * 2, MAX_PERIOD_STRETCH);
+                StatsEngine.SUPPORTABILITY.sample(MetricNames.SUPPORTABILITY_HARVEST_ADAPTIVE_STRETCHED, periodStretch);
+            }
+        } else {
+            periodStretch = 1;
+        }
+
+        lastHarvestTimeMs = nowMs;
+        harvestRequested.set(false);
+    }
+
+    /**
+     * @return the period to wait before the next harvest, given the configured period
+     */
+    public long getEffectivePeriod(long periodMs) {
+        return periodMs * periodStretch;
+    }
+
+    public long getBufferedBytes(Buffer buffer) {
+        return bufferedBytes[buffer.ordinal()].get();
+    }
+
+    int getPeriodStretch() {
+        return periodStretch;
+    }
+}
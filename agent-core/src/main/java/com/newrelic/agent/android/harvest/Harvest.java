@@ -6,6 +6,7 @@
 package com.newrelic.agent.android.harvest;
 
 import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.FeatureFlag;
 import com.newrelic.agent.android.activity.config.ActivityTraceConfiguration;
 import com.newrelic.agent.android.analytics.AnalyticsAttribute;
 import com.newrelic.agent.android.analytics.AnalyticsControllerImpl;
@@ -26,6 +27,10 @@ public class Harvest implements HarvestConfigurable {
     private static final boolean DISABLE_ACTIVITY_TRACE_LIMITS_FOR_DEBUGGING = false;
     public static final long INVALID_SESSION_DURATION = 0;
 
+    // rough harvested sizes, used to size buffers for adaptive harvests
+    static final int HTTP_TRANSACTION_SIZE_ESTIMATE = 192;
+    static final int TRACE_SIZE_ESTIMATE = 256;
+
     protected static Harvest instance = new Harvest();
 
     private Harvester harvester;
@@ -34,6 +39,7 @@ public class Harvest implements HarvestConfigurable {
     protected HarvestData harvestData;
     private HarvestDataValidator harvestDataValidator;
     private AgentConfiguration agentConfig;
+    private NetworkRequestAggregator networkRequestAggregator;
 
     // A list of entities that want to listen to lifecycle events. Used for pre-initialization.
     private static final Collection<HarvestLifecycleAware> unregisteredLifecycleListeners = new ArrayList<HarvestLifecycleAware>();
@@ -48,13 +54,22 @@ public class Harvest implements HarvestConfigurable {
         instance.initializeHarvester(agentConfiguration);
         registerUnregisteredListeners();
         addHarvestListener(StatsEngine.get());
+        addHarvestListener(instance.networkRequestAggregator);
     }
 
     public void initializeHarvester(AgentConfiguration agentConfiguration) {
+        if (networkRequestAggregator != null) {
+            // the aggregator is replaced below, so the previous one must stop listening
+            removeHarvestListener(networkRequestAggregator);
+        }
+
         createHarvester();
         harvester.setAgentConfiguration(agentConfiguration);
         harvester.setHarvestConfiguration(instance.getConfiguration());
+        harvestTimer.setAdaptivePolicy(agentConfiguration.getAdaptiveHarvest() ? new AdaptiveHarvestPolicy() : null);
         flushHarvestableCaches();
+        networkRequestAggregator = new NetworkRequestAggregator(agentConfiguration.getNetworkRequestSampleInterval(),
+                NetworkRequestAggregator.DEFAULT_MAX_ENDPOINTS);
         agentConfig = agentConfiguration;
     }
 
@@ -158,6 +173,12 @@ public class Harvest implements HarvestConfigurable {
     public static void addHttpTransaction(HttpTransaction txn) {
         if (isDisabled()) return;
 
+        // when aggregating, only failures and a sample of the successful requests are kept in full
+        if (FeatureFlag.featureEnabled(FeatureFlag.NetworkRequestAggregation)
+                && !instance.networkRequestAggregator.aggregate(txn)) {
+            return;
+        }
+
         HttpTransactions transactions = instance.getHarvestData().getHttpTransactions();
         instance.getHarvester().expireHttpTransactions();
 
@@ -168,6 +189,8 @@ public class Harvest implements HarvestConfigurable {
             return;
         }
         transactions.add(txn);
+        onDataBuffered(AdaptiveHarvestPolicy.Buffer.HTTP_TRANSACTIONS, HTTP_TRANSACTION_SIZE_ESTIMATE
+                + (txn.getUrl() == null ? 0 : txn.getUrl().length()));
 
         AnalyticsControllerImpl analyticsController = AnalyticsControllerImpl.getInstance();
 
@@ -218,6 +241,29 @@ public class Harvest implements HarvestConfigurable {
 
         log.debug("Adding activity trace: " + activityTrace.toJsonString());
         activityTraces.add(activityTrace);
+        onDataBuffered(AdaptiveHarvestPolicy.Buffer.ACTIVITY_TRACES, TRACE_SIZE_ESTIMATE * (1 + activityTrace.getTraceCount()));
+    }
+
+    /**
+     * Report data added to a harvest buffer, so an adaptive harvest timer can harvest early.
+     *
+     * @param bytes Estimated size of the data when harvested
+     */
+    public static void onDataBuffered(AdaptiveHarvestPolicy.Buffer buffer, long bytes) {
+        final HarvestTimer harvestTimer = instance.getHarvestTimer();
+        if (harvestTimer != null) {
+            harvestTimer.onDataBuffered(buffer, bytes);
+        }
+    }
+
+    /**
+     * Report an upload made outside the harvest, so an adaptive harvest timer can use the same radio wake-up.
+     */
+    public static void onAgentUpload() {
+        final HarvestTimer harvestTimer = instance.getHarvestTimer();
+        if (harvestTimer != null) {
+            harvestTimer.onAgentUpload();
+        }
     }
 
     public static void addMetric(Metric metric) {
@@ -361,6 +407,10 @@ public class Harvest implements HarvestConfigurable {
         return harvester;
     }
 
+    NetworkRequestAggregator getNetworkRequestAggregator() {
+        return networkRequestAggregator;
+    }
+
     public HarvestData getHarvestData() {
         return harvestData;
     }
@@ -9,6 +9,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import com.newrelic.agent.android.Agent;
 import com.newrelic.agent.android.FeatureFlag;
 import com.newrelic.agent.android.analytics.AnalyticsAttribute;
@@ -16,9 +17,14 @@ import com.newrelic.agent.android.analytics.AnalyticsEvent;
 import com.newrelic.agent.android.harvest.type.HarvestableArray;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.metric.Metric;
 import com.newrelic.agent.android.metric.MetricNames;
 import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.tracing.ActivityTrace;
+import com.newrelic.agent.android.util.JsonStreams;
+import com.newrelic.agent.android.util.SafeJsonPrimitive;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -138,6 +144,161 @@ public class HarvestData extends HarvestableArray implements HarvestConfigurable
         return array;
     }
 
+    /**
+     * Creates the same JSON as {@link #asJsonArray()}, streamed directly to a string rather than
+     * built as a tree of JsonElements first.
+     */
+    @Override
+    public String toJsonString() {
+        return JsonStreams.toJsonString(this::writeJson, () -> asJson().toString());
+    }
+
+    /**
+     * Writes the harvest {@code data} payload. The layout matches {@link #asJsonArray()}.
+     */
+    void writeJson(JsonWriter writer) throws IOException {
+        writer.beginArray();
+
+        writer.beginArray()
+                .value(dataToken.getAccountId())
+                .value(dataToken.getAgentId())
+                .endArray();
+        JsonStreams.ELEMENT_WRITER.toJson(deviceInformation.asJson(), writer);
+        writer.value(harvestTimeDelta);
+
+        writeHttpTransactions(writer);
+
+        writer.beginArray();
+        for (Metric metric : machineMeasurements.metrics.getAll()) {
+            writer.beginArray();
+            writer.beginObject()
+                    .name("scope").value(metric.getStringScope())
+                    .name("name").value(metric.getName())
+                    .endObject();
+            metric.writeJson(writer);
+            writer.endArray();
+        }
+        writer.endArray();
+
+        writer.beginArray().endArray(); // must be empty per the harvest data spec
+
+        // The trace size is only known once written, so write them to a scratch buffer
+        // and check the length before adding them
+        final String activityTraceJson = writeActivityTraces();
+        if (activityTraceJson.length() < Harvest.getHarvestConfiguration().getActivity_trace_max_size() && FeatureFlag.featureEnabled(FeatureFlag.DefaultInteractions)) {
+            writer.jsonValue(activityTraceJson);
+        } else {
+            StatsEngine.get().sample(MetricNames.SUPPORTABILITY_TRACES_DROPPED, (float) activityTraceJson.length());
+            writer.beginArray().endArray();
+        }
+
+        JsonStreams.ELEMENT_WRITER.toJson(agentHealth.asJson(), writer);
+
+        if (analyticsEnabled) {
+            writer.beginObject();
+            for (AnalyticsAttribute attribute : sessionAttributes) {
+                writeSessionAttribute(writer, attribute);
+            }
+            writer.endObject();
+
+            writeAnalyticsEvents(writer);
+        }
+
+        writer.endArray();
+    }
+
+    void writeHttpTransactions(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (HttpTransaction transaction : httpTransactions.getHttpTransactions()) {
+            writeHttpTransaction(writer, transaction);
+        }
+        writer.endArray();
+    }
+
+    String writeActivityTraces() throws IOException {
+        return JsonStreams.toJsonString(writer -> {
+            writer.beginArray();
+            for (ActivityTrace activityTrace : activityTraces.getActivityTraces()) {
+                writeActivityTrace(writer, activityTrace);
+            }
+            writer.endArray();
+        }, 1024);
+    }
+
+    void writeAnalyticsEvents(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (AnalyticsEvent event : analyticsEvents) {
+            writeAnalyticsEvent(writer, event);
+        }
+        writer.endArray();
+    }
+
+    static void writeActivityTrace(JsonWriter writer, ActivityTrace activityTrace) throws IOException {
+        if (activityTrace.getClass() == ActivityTrace.class) {
+            activityTrace.writeJson(writer);
+        } else {
+            // subclasses may provide their own tree
+            JsonStreams.ELEMENT_WRITER.toJson(activityTrace.asJson(), writer);
+        }
+    }
+
+    static void writeAnalyticsEvent(JsonWriter writer, AnalyticsEvent event) throws IOException {
+        writer.beginObject();
+        synchronized (event) {
+            for (AnalyticsAttribute attribute : event.getAttributeSet()) {
+                writeEventAttribute(writer, attribute);
+            }
+        }
+        writer.endObject();
+    }
+
+    static void writeHttpTransaction(JsonWriter writer, HttpTransaction transaction) throws IOException {
+        writer.beginArray();
+        writer.value(SafeJsonPrimitive.checkNull(transaction.getUrl()));
+        writer.value(SafeJsonPrimitive.checkNull(transaction.getCarrier()));
+        writer.value(SafeJsonPrimitive.checkNumber(transaction.getTotalTime()));
+        writer.value(transaction.getStatusCode());
+        writer.value(transaction.getErrorCode());
+        writer.value(transaction.getBytesSent());
+        writer.value(transaction.getBytesReceived());
+        writer.value(transaction.getAppData());
+        writer.value(SafeJsonPrimitive.checkNull(transaction.getWanType()));
+        writer.value(SafeJsonPrimitive.checkNull(transaction.getHttpMethod()));
+        writer.endArray();
+    }
+
+    private static void writeSessionAttribute(JsonWriter writer, AnalyticsAttribute attribute) throws IOException {
+        switch (attribute.getAttributeDataType()) {
+            case STRING:
+                writer.name(attribute.getName()).value(attribute.getStringValue());
+                break;
+            case DOUBLE:
+                writer.name(attribute.getName()).value(attribute.getDoubleValue());
+                break;
+            case BOOLEAN:
+                writer.name(attribute.getName()).value(attribute.getBooleanValue());
+                break;
+        }
+    }
+
+    // matches AnalyticsAttribute.asJsonElement()
+    private static void writeEventAttribute(JsonWriter writer, AnalyticsAttribute attribute) throws IOException {
+        switch (attribute.getAttributeDataType()) {
+            case STRING:
+                writer.name(attribute.getName()).value(SafeJsonPrimitive.checkNull(attribute.getStringValue()));
+                break;
+            case DOUBLE:
+                writer.name(attribute.getName()).value(SafeJsonPrimitive.checkNumber(attribute.getDoubleValue()));
+                break;
+            case BOOLEAN:
+                writer.name(attribute.getName()).value(attribute.getBooleanValue());
+                break;
+            default:
+                writer.name(attribute.getName()).nullValue();
+                break;
+        }
+    }
+
     /**
      * Is this harvest data up-to-date?
      *
@@ -170,6 +331,10 @@ public class HarvestData extends HarvestableArray implements HarvestConfigurable
         this.harvestTimeDelta = harvestTimeDelta;
     }
 
+    public double getHarvestTimeDelta() {
+        return harvestTimeDelta;
+    }
+
     public void setHttpTransactions(HttpTransactions httpTransactions) {
         this.httpTransactions = httpTransactions;
     }
@@ -223,6 +388,10 @@ public class HarvestData extends HarvestableArray implements HarvestConfigurable
         return agentHealth;
     }
 
+    void setAgentHealth(AgentHealth agentHealth) {
+        this.agentHealth = agentHealth;
+    }
+
     public DataToken getDataToken() {
         return dataToken;
     }
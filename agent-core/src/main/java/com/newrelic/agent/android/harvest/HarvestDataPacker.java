@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.harvest;
+
+import com.google.gson.stream.JsonWriter;
+import com.newrelic.agent.android.analytics.AnalyticsEvent;
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.tracing.ActivityTrace;
+import com.newrelic.agent.android.util.Constants;
+import com.newrelic.agent.android.util.Deflator;
+import com.newrelic.agent.android.util.JsonStreams;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Partitions a harvest into {@code data} payloads that each fit under the collector's size limit.
+ * <p>
+ * A harvest that fits is sent whole. Otherwise its HTTP transactions, activity traces and analytics
+ * events are serialized once, and packed in order into as few parts as fit. Every part carries the
+ * data token, device information and session attributes; metrics and agent health are sent once,
+ * with the first part.
+ */
+class HarvestDataPacker {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    // parts are sized before compression, assuming a little less than the whole harvest's compression ratio
+    static final double COMPRESSION_MARGIN = 0.75;
+
+    private final long maxPayloadSize;
+
+    HarvestDataPacker() {
+        this(Constants.Network.MAX_PAYLOAD_SIZE);
+    }
+
+    HarvestDataPacker(long maxPayloadSize) {
+        this.maxPayloadSize = maxPayloadSize;
+    }
+
+    /**
+     * @return the payloads to send, in order
+     */
+    List<Payload> pack(HarvestData harvestData) {
+        final List<HttpTransaction> httpTransactions = snapshot(harvestData.getHttpTransactions().getHttpTransactions(), harvestData.getHttpTransactions());
+        final List<ActivityTrace> activityTraces = snapshot(harvestData.getActivityTraces().getActivityTraces(), harvestData.getActivityTraces());
+        final List<AnalyticsEvent> analyticsEvents = harvestData.isAnalyticsEnabled() ? new ArrayList<>(harvestData.getAnalyticsEvents()) : Collections.<AnalyticsEvent>emptyList();
+        final List<Payload> payloads = new ArrayList<>();
+
+        final Payload whole = new Payload(harvestData, true, httpTransactions, activityTraces, analyticsEvents);
+        final byte[] bytes = whole.toJsonString().getBytes();
+        if (bytes.length <= maxPayloadSize) {
+            payloads.add(whole);
+            return payloads;
+        }
+
+        // large payloads are deflated by HarvestConnection
+        final int deflatedSize = Deflator.deflate(bytes).length;
+        if (deflatedSize <= maxPayloadSize) {
+            payloads.add(whole);
+            return payloads;
+        }
+
+        final long budget = Math.max(maxPayloadSize, (long) (maxPayloadSize * COMPRESSION_MARGIN * bytes.length / Math.max(1, deflatedSize)));
+
+        try {
+            pack(harvestData, budget, httpTransactions, activityTraces, analyticsEvents, payloads);
+        } catch (IOException e) {
+            // StringWriter does not throw, but send the harvest as it is if anything goes wrong
+            log.error("HarvestDataPacker: failed to split harvest: " + e);
+            payloads.clear();
+            payloads.add(whole);
+        }
+
+        if (payloads.size() > 1) {
+            log.info("HarvestDataPacker: harvest exceeds " + maxPayloadSize + " bytes, sending as " + payloads.size() + " payloads");
+            StatsEngine.SUPPORTABILITY.sample(MetricNames.SUPPORTABILITY_HARVEST_SPLIT, payloads.size());
+        }
+
+        return payloads;
+    }
+
+    private void pack(HarvestData harvestData, long budget,
+                      List<HttpTransaction> httpTransactions, List<ActivityTrace> activityTraces, List<AnalyticsEvent> analyticsEvents,
+                      List<Payload> payloads) throws IOException {
+        final List<Item<?>> items = new ArrayList<>(httpTransactions.size() + activityTraces.size() + analyticsEvents.size());
+        serialize(httpTransactions, HarvestData::writeHttpTransaction, items);
+        serialize(activityTraces, HarvestData::writeActivityTrace, items);
+        serialize(analyticsEvents, HarvestData::writeAnalyticsEvent, items);
+
+        // the size of a part with no items, with and without the metrics sent in the first part
+        final long sharedFrameSize = new Part(harvestData, true).toPayload().toJsonString().getBytes().length;
+        final long frameSize = new Part(harvestData, false).toPayload().toJsonString().getBytes().length;
+
+        Part part = new Part(harvestData, true);
+        long partSize = sharedFrameSize;
+        for (Item<?> item : items) {
+            if (part.count() > 0 && partSize + item.size > budget) {
+                payloads.add(part.toPayload());
+                part = new Part(harvestData, false);
+                partSize = frameSize;
+            }
+
+            part.add(item);
+            partSize += item.size;
+
+            if (part.count() == 1 && partSize > budget) {
+                // a single item can't be split further; let the collector decide
+                StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_HARVEST_SPLIT_OVERSIZE);
+            }
+        }
+        payloads.add(part.toPayload());
+    }
+
+    private static <T> void serialize(List<T> values, ItemWriter<T> itemWriter, List<Item<?>> items) throws IOException {
+        for (T value : values) {
+            items.add(new Item<>(value, JsonStreams.toJsonString(writer -> itemWriter.write(writer, value), 1024)));
+        }
+    }
+
+    boolean fits(String json) {
+        final byte[] bytes = json.getBytes();
+        if (bytes.length <= maxPayloadSize) {
+            return true;
+        }
+
+        return Deflator.deflate(bytes).length <= maxPayloadSize;
+    }
+
+    private static <T> List<T> snapshot(Collection<T> collection, Object lock) {
+        synchronized (lock) {
+            return new ArrayList<>(collection);
+        }
+    }
+
+    interface ItemWriter<T> {
+        void write(JsonWriter writer, T value) throws IOException;
+    }
+
+    /**
+     * A harvested item, and its serialized JSON
+     */
+    static class Item<T> {
+        final T value;
+        final String json;
+        final long size;
+
+        Item(T value, String json) {
+            this.value = value;
+            this.json = json;
+            this.size = json.getBytes().length + 1;     // allow for the separator
+        }
+    }
+
+    /**
+     * The items collected for one {@code data} post
+     */
+    static class Part {
+        final HarvestData harvestData;
+        final boolean includesShared;
+        final List<Item<HttpTransaction>> httpTransactions = new ArrayList<>();
+        final List<Item<ActivityTrace>> activityTraces = new ArrayList<>();
+        final List<Item<AnalyticsEvent>> analyticsEvents = new ArrayList<>();
+
+        Part(HarvestData harvestData, boolean includesShared) {
+            this.harvestData = harvestData;
+            this.includesShared = includesShared;
+        }
+
+        @SuppressWarnings("unchecked")
+        void add(Item<?> item) {
+            if (item.value instanceof HttpTransaction) {
+                httpTransactions.add((Item<HttpTransaction>) item);
+            } else if (item.value instanceof ActivityTrace) {
+                activityTraces.add((Item<ActivityTrace>) item);
+            } else {
+                analyticsEvents.add((Item<AnalyticsEvent>) item);
+            }
+        }
+
+        int count() {
+            return httpTransactions.size() + activityTraces.size() + analyticsEvents.size();
+        }
+
+        Payload toPayload() {
+            return new Payload(harvestData, includesShared,
+                    Payload.values(httpTransactions), Payload.values(activityTraces), Payload.values(analyticsEvents),
+                    Payload.json(httpTransactions), Payload.json(activityTraces), Payload.json(analyticsEvents));
+        }
+    }
+
+    /**
+     * One {@code data} post. The JSON is serialized once, when the payload is created. A payload
+     * built from a {@link Part} writes the JSON already serialized for each of its items.
+     */
+    static class Payload extends HarvestData {
+        private final boolean includesShared;
+        private final List<String> httpTransactionJson;
+        private final List<String> activityTraceJson;
+        private final List<String> analyticsEventJson;
+        private final String json;
+
+        Payload(HarvestData harvestData, boolean includesShared,
+                List<HttpTransaction> httpTransactions, List<ActivityTrace> activityTraces, List<AnalyticsEvent> analyticsEvents) {
+            this(harvestData, includesShared, httpTransactions, activityTraces, analyticsEvents, null, null, null);
+        }
+
+        private Payload(HarvestData harvestData, boolean includesShared,
+                        List<HttpTransaction> httpTransactions, List<ActivityTrace> activityTraces, List<AnalyticsEvent> analyticsEvents,
+                        List<String> httpTransactionJson, List<String> activityTraceJson, List<String> analyticsEventJson) {
+            this.includesShared = includesShared;
+            this.httpTransactionJson = httpTransactionJson;
+            this.activityTraceJson = activityTraceJson;
+            this.analyticsEventJson = analyticsEventJson;
+
+            setDataToken(harvestData.getDataToken());
+            setDeviceInformation(harvestData.getDeviceInformation());
+            setHarvestTimeDelta(harvestData.getHarvestTimeDelta());
+            setAnalyticsEnabled(harvestData.isAnalyticsEnabled());
+            setSessionAttributes(harvestData.getSessionAttributes());
+            setAnalyticsEvents(analyticsEvents);
+
+            for (HttpTransaction transaction : httpTransactions) {
+                getHttpTransactions().add(transaction);
+            }
+            for (ActivityTrace activityTrace : activityTraces) {
+                getActivityTraces().add(activityTrace);
+            }
+            if (includesShared) {
+                setMachineMeasurements(harvestData.getMachineMeasurements());
+                setAgentHealth(harvestData.getAgentHealth());
+            }
+
+            this.json = super.toJsonString();
+        }
+
+        @Override
+        public String toJsonString() {
+            return json;
+        }
+
+        @Override
+        void writeHttpTransactions(JsonWriter writer) throws IOException {
+            if (httpTransactionJson == null) {
+                super.writeHttpTransactions(writer);
+                return;
+            }
+            writer.beginArray();
+            for (String item : httpTransactionJson) {
+                writer.jsonValue(item);
+            }
+            writer.endArray();
+        }
+
+        @Override
+        String writeActivityTraces() throws IOException {
+            if (activityTraceJson == null) {
+                return super.writeActivityTraces();
+            }
+            return "[" + String.join(",", activityTraceJson) + "]";
+        }
+
+        @Override
+        void writeAnalyticsEvents(JsonWriter writer) throws IOException {
+            if (analyticsEventJson == null) {
+                super.writeAnalyticsEvents(writer);
+                return;
+            }
+            writer.beginArray();
+            for (String item : analyticsEventJson) {
+                writer.jsonValue(item);
+            }
+            writer.endArray();
+        }
+
+        /**
+         * Remove the data in this payload from the harvest, once the collector has accepted
+         * or rejected it
+         */
+        void removeFrom(HarvestData harvestData) {
+            final HttpTransactions transactions = harvestData.getHttpTransactions();
+            synchronized (transactions) {
+                transactions.getHttpTransactions().removeAll(identitySet(getHttpTransactions().getHttpTransactions()));
+            }
+
+            final ActivityTraces traces = harvestData.getActivityTraces();
+            synchronized (traces) {
+                traces.getActivityTraces().removeAll(identitySet(getActivityTraces().getActivityTraces()));
+            }
+
+            harvestData.getAnalyticsEvents().removeAll(identitySet(getAnalyticsEvents()));
+
+            if (includesShared) {
+                harvestData.getMachineMeasurements().clear();
+                harvestData.getAgentHealth().clear();
+            }
+        }
+
+        private static <T> List<T> values(Collection<Item<T>> items) {
+            final List<T> values = new ArrayList<>(items.size());
+            for (Item<T> item : items) {
+                values.add(item.value);
+            }
+            return values;
+        }
+
+        private static List<String> json(Collection<? extends Item<?>> items) {
+            final List<String> json = new ArrayList<>(items.size());
+            for (Item<?> item : items) {
+                json.add(item.json);
+            }
+            return json;
+        }
+
+        private static <T> Set<T> identitySet(Collection<T> items) {
+            final Set<T> set = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+            set.addAll(items);
+            return set;
+        }
+    }
+}
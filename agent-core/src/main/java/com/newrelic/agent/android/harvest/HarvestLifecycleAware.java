@@ -32,4 +32,14 @@ public interface HarvestLifecycleAware {
     default void onHarvestConfigurationChanged() {}
 
     default void onSessionRestarted() {}
+
+    /**
+     * Listeners that neither add to nor depend on the harvest payload may return true to have their
+     * onHarvestBefore, onHarvest, onHarvestFinalize and onHarvestComplete callbacks run concurrently
+     * with other listeners, when concurrent dispatch is enabled. The callbacks of one listener are
+     * still delivered in order, one at a time.
+     */
+    default boolean isConcurrentHarvestListener() {
+        return false;
+    }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.harvest;
+
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches the harvest cycle callbacks to {@link HarvestLifecycleAware} listeners.
+ * <p>
+ * When concurrent dispatch is enabled, listeners that report {@link HarvestLifecycleAware#isConcurrentHarvestListener()}
+ * run each phase on the {@link Lane#HARVEST_LISTENERS} lane while the remaining listeners run inline on the
+ * harvest thread. Otherwise every listener runs inline. A phase completes when the inline listeners have returned and the concurrent listeners have
+ * either finished or exceeded the deadline. A listener that overruns keeps running; its later callbacks
+ * are queued behind it, so each listener still sees its callbacks in order and never concurrently.
+ * <p>
+ * The duration of every callback, inline or concurrent, is sampled per listener as a supportability metric.
+ */
+class HarvestListenerDispatcher {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    static final long DEFAULT_DEADLINE_MS = TimeUnit.SECONDS.toMillis(5);
+
+    enum Phase {
+        BEFORE("onHarvestBefore", HarvestLifecycleAware::onHarvestBefore),
+        HARVEST("onHarvest", HarvestLifecycleAware::onHarvest),
+        FINALIZE("onHarvestFinalize", HarvestLifecycleAware::onHarvestFinalize),
+        COMPLETE("onHarvestComplete", HarvestLifecycleAware::onHarvestComplete);
+
+        final String callbackName;
+        final Consumer<HarvestLifecycleAware> callback;
+
+        Phase(String callbackName, Consumer<HarvestLifecycleAware> callback) {
+            this.callbackName = callbackName;
+            this.callback = callback;
+        }
+    }
+
+    private final Map<HarvestLifecycleAware, ListenerState> listenerStates = new ConcurrentHashMap<>();
+    private final long deadlineMs;
+
+    HarvestListenerDispatcher() {
+        this(DEFAULT_DEADLINE_MS);
+    }
+
+    HarvestListenerDispatcher(long deadlineMs) {
+        this.deadlineMs = deadlineMs;
+    }
+
+    /**
+     * Run one phase of the harvest cycle across all listeners, concurrently where they allow it.
+     */
+    void dispatch(Phase phase, Collection<HarvestLifecycleAware> listeners) {
+        dispatch(phase, listeners, true);
+    }
+
+    /**
+     * Run one phase of the harvest cycle across all listeners. If {@code concurrent} is false,
+     * every listener runs inline on the calling thread.
+     */
+    void dispatch(Phase phase, Collection<HarvestLifecycleAware> listeners, boolean concurrent) {
+        final List<Future<?>> futures = new ArrayList<>();
+        final List<ListenerState> pending = new ArrayList<>();
+
+        for (HarvestLifecycleAware listener : listeners) {
+            final ListenerState state = getListenerState(listener);
+            if (concurrent && listener.isConcurrentHarvestListener()) {
+                try {
+                    futures.add(state.getExecutor().submit(() -> state.invoke(phase)));
+                    pending.add(state);
+                    continue;
+                } catch (RejectedExecutionException e) {
+                    log.debug("HarvestListenerDispatcher: " + state.name + " rejected, running inline");
+                }
+            }
+            state.invoke(phase);
+        }
+
+        final long deadline = System.currentTimeMillis() + deadlineMs;
+        for (int i = 0; i < futures.size(); i++) {
+            final ListenerState state = pending.get(i);
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("HarvestListenerDispatcher: " + state.name + "." + phase.callbackName + " exceeded " + deadlineMs + "ms deadline");
+                StatsEngine.SUPPORTABILITY.inc(state.deadlineMetric);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("HarvestListenerDispatcher: " + state.name + "." + phase.callbackName + " failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Release resources held for a listener that is no longer registered.
+     */
+    void remove(HarvestLifecycleAware listener) {
+        final ListenerState state = listenerStates.remove(listener);
+        if (state != null) {
+            state.shutdown();
+        }
+    }
+
+    ListenerState getListenerState(HarvestLifecycleAware listener) {
+        ListenerState state = listenerStates.get(listener);
+        if (state == null) {
+            state = new ListenerState(listener);
+            final ListenerState existing = listenerStates.putIfAbsent(listener, state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        return state;
+    }
+
+    static String getListenerName(HarvestLifecycleAware listener) {
+        final String className = listener.getClass().getName();
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    static class ListenerState {
+        final HarvestLifecycleAware listener;
+        final String name;
+        final String[] timingMetrics = new String[Phase.values().length];
+        final String deadlineMetric;
+
+        // serial, so a listener that overruns its deadline does not overlap with its next callback.
+        // Only created once the listener is first dispatched concurrently.
+        private ExecutorService executor;
+
+        ListenerState(HarvestLifecycleAware listener) {
+            this.listener = listener;
+            this.name = getListenerName(listener);
+
+            final String prefix = MetricNames.SUPPORTABILITY_HARVEST_LISTENER.replace(MetricNames.TAG_NAME, name);
+            for (Phase phase : Phase.values()) {
+                timingMetrics[phase.ordinal()] = prefix + phase.callbackName;
+            }
+            this.deadlineMetric = MetricNames.SUPPORTABILITY_HARVEST_LISTENER_DEADLINE.replace(MetricNames.TAG_NAME, name);
+        }
+
+        synchronized ExecutorService getExecutor() {
+            if (executor == null) {
+                executor = AgentScheduler.newExecutor(Lane.HARVEST_LISTENERS);
+            }
+            return executor;
+        }
+
+        synchronized boolean hasExecutor() {
+            return executor != null;
+        }
+
+        synchronized void shutdown() {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+
+        void invoke(Phase phase) {
+            final long start = System.nanoTime();
+            try {
+                phase.callback.accept(listener);
+            } catch (Exception e) {
+                log.error("Error in " + name + "." + phase.callbackName, e);
+                AgentHealth.noticeException(e);
+            } finally {
+                StatsEngine.SUPPORTABILITY.sampleTimeMs(timingMetrics[phase.ordinal()],
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+    }
+}
@@ -9,10 +9,11 @@ import com.newrelic.agent.android.FeatureFlag;
 import com.newrelic.agent.android.background.ApplicationStateMonitor;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 import com.newrelic.agent.android.stats.TicToc;
-import com.newrelic.agent.android.util.NamedThreadFactory;
 
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -24,7 +25,7 @@ public class HarvestTimer implements Runnable {
     private final static long HARVEST_PERIOD_LEEWAY = TimeUnit.SECONDS.toMillis(1);
     final static long DEFAULT_SESSION_DURATION_PERIOD = TimeUnit.HOURS.toMillis(4);
     private final static long NEVER_TICKED = -1;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Harvester"));
+    private final ScheduledExecutorService scheduler = AgentScheduler.newExecutor(Lane.HARVEST);
     private final AgentLog log = AgentLogManager.getAgentLog();
     private ScheduledFuture tickFuture = null;
     protected long period = DEFAULT_HARVEST_PERIOD;
@@ -33,6 +34,7 @@ public class HarvestTimer implements Runnable {
     private long startTimeMs;
     private long sessionStartTimeMs;
     private final Lock lock = new ReentrantLock();
+    private volatile AdaptiveHarvestPolicy adaptivePolicy = null;
 
     public HarvestTimer(Harvester harvester) {
         this.harvester = harvester;
@@ -54,10 +56,11 @@ public class HarvestTimer implements Runnable {
 
     private void tickIfReady() {
         long lastTickDelta = timeSinceLastTick();
+        long tickPeriod = getTickPeriod();
 
         // We want to run if the last tick was 5999ms ago (with a period of 6000ms) so we add a small leeway to the
         // delta before checking it against period.
-        if (lastTickDelta + HARVEST_PERIOD_LEEWAY < period && lastTickDelta != NEVER_TICKED) {
+        if (lastTickDelta + HARVEST_PERIOD_LEEWAY < tickPeriod && lastTickDelta != NEVER_TICKED) {
             log.debug("HarvestTimer: Tick is too soon (" + lastTickDelta + " delta) Last tick time: " + lastTickTime + " . Skipping.");
             return;
         }
@@ -99,6 +102,11 @@ public class HarvestTimer implements Runnable {
             AgentHealth.noticeException(e);
         }
 
+        final AdaptiveHarvestPolicy policy = adaptivePolicy;
+        if (policy != null) {
+            policy.onHarvest(harvester.getCurrentState() == Harvester.State.CONNECTED, now());
+        }
+
         // If the Harvester has become disabled, the HarvestTimer must be stopped.
         if (harvester.isDisabled()) {
             stop();
@@ -202,6 +210,43 @@ public class HarvestTimer implements Runnable {
         }
     }
 
+    /**
+     * Account for data added to a harvest buffer, and harvest early if the
+     * adaptive policy asks for it.
+     */
+    public void onDataBuffered(AdaptiveHarvestPolicy.Buffer buffer, long bytes) {
+        final AdaptiveHarvestPolicy policy = adaptivePolicy;
+        if (policy != null && isRunning() && policy.onBuffered(buffer, bytes, now())) {
+            requestTick();
+        }
+    }
+
+    /**
+     * Another agent component has uploaded data. Harvest now if the adaptive policy
+     * would rather share the active radio than wake it again shortly.
+     */
+    public void onAgentUpload() {
+        final AdaptiveHarvestPolicy policy = adaptivePolicy;
+        if (policy != null && isRunning() && policy.onUpload(period, now())) {
+            requestTick();
+        }
+    }
+
+    private void requestTick() {
+        try {
+            scheduler.execute(() -> {
+                try {
+                    lock.lock();
+                    tick();
+                } finally {
+                    lock.unlock();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("HarvestTimer: Unable to request a harvest: " + e.getMessage());
+        }
+    }
+
     public boolean isRunning() {
         return tickFuture != null;
     }
@@ -210,6 +255,22 @@ public class HarvestTimer implements Runnable {
         this.period = period;
     }
 
+    /**
+     * @return the time between harvests, which the adaptive policy may stretch beyond the period
+     */
+    long getTickPeriod() {
+        final AdaptiveHarvestPolicy policy = adaptivePolicy;
+        return policy == null ? period : policy.getEffectivePeriod(period);
+    }
+
+    public AdaptiveHarvestPolicy getAdaptivePolicy() {
+        return adaptivePolicy;
+    }
+
+    public void setAdaptivePolicy(AdaptiveHarvestPolicy adaptivePolicy) {
+        this.adaptivePolicy = adaptivePolicy;
+    }
+
     public long timeSinceLastTick() {
         if (lastTickTime == 0) {
             return NEVER_TICKED;
@@ -19,6 +19,8 @@ import com.newrelic.agent.android.background.ApplicationStateMonitor;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
 import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.payload.PayloadController;
+import com.newrelic.agent.android.payload.PayloadSender;
 import com.newrelic.agent.android.stats.StatsEngine;
 import com.newrelic.agent.android.tracing.ActivityTrace;
 
@@ -26,6 +28,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -66,6 +69,9 @@ public class Harvester implements HarvestConfigurable {
     private HarvestConnection harvestConnection;
     private HarvestConfiguration harvestConfiguration = HarvestConfiguration.getDefaultHarvestConfiguration();
     private HarvestData harvestData;
+    private final HarvestListenerDispatcher listenerDispatcher = new HarvestListenerDispatcher();
+    private HarvestDataPacker harvestDataPacker = new HarvestDataPacker();
+    private long offlineDataUploadedAt = System.currentTimeMillis();
 
     private final Collection<HarvestLifecycleAware> harvestListeners = new ArrayList<>() {{
         add(new HarvestLifecycleAware() {
@@ -235,7 +241,29 @@ public class Harvester implements HarvestConfigurable {
         log.info("Harvester: Sending [" + harvestData.getSessionAttributes().size() + "] session attributes.");
         log.info("Harvester: Sending [" + harvestData.getAnalyticsEvents().size() + "] analytics events.");
 
-        HarvestResponse response = harvestConnection.sendData(harvestData);
+        // Oversized harvests are sent as several posts. Each accepted post is dropped from
+        // the harvest, so a failure part-way through only retains what was not delivered.
+        // A post the collector rejects as invalid is dropped alone, and the rest are still sent.
+        final List<HarvestDataPacker.Payload> payloads = harvestDataPacker.pack(harvestData);
+        HarvestResponse response = null;
+        for (int i = 0; i < payloads.size(); i++) {
+            final HarvestDataPacker.Payload payload = payloads.get(i);
+            response = harvestConnection.sendData(payload);
+            if (response == null || response.isUnknown()) {
+                break;
+            }
+            if (response.isError()) {
+                if (i == payloads.size() - 1 || !isRejectedPayload(response)) {
+                    break;
+                }
+                log.error("An invalid harvest payload was sent to the Collector, and has been dropped.");
+                StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_COLLECTOR + "Harvest/Error/" + response.getResponseCode());
+                fireOnHarvestError();
+            }
+            if (payloads.size() > 1) {
+                payload.removeFrom(harvestData);
+            }
+        }
 
         // Network level error, or something else really bad. Don't clear the harvest data, we'll attempt again
         if (response == null || response.isUnknown()) {
@@ -326,14 +354,20 @@ public class Harvester implements HarvestConfigurable {
             //Offline Storage
             try {
                 if (FeatureFlag.featureEnabled(FeatureFlag.OfflineStorage)) {
-                    Map<String, String> harvestDataObjects = Agent.getAllOfflineData();
-                    for (Map.Entry<String, String> entry : harvestDataObjects.entrySet()) {
-                        HarvestResponse eachResponse = harvestConnection.sendData(entry.getValue());
-                        if (eachResponse.isOK()) {
-                            File file = new File(entry.getKey());
-                            file.delete();
+                    if (PayloadController.shouldDeferUpload(PayloadSender.Priority.OFFLINE_DATA, offlineDataUploadedAt)) {
+                        // leave the backlog on disk, unread, until the network is unmetered or it has been held too long
+                        log.debug("OfflineStorage: Deferring upload of offline data on a metered network");
+                    } else {
+                        offlineDataUploadedAt = System.currentTimeMillis();
+                        Map<String, String> harvestDataObjects = Agent.getAllOfflineData();
+                        for (Map.Entry<String, String> entry : harvestDataObjects.entrySet()) {
+                            HarvestResponse eachResponse = harvestConnection.sendData(entry.getValue());
+                            if (eachResponse.isOK()) {
+                                File file = new File(entry.getKey());
+                                file.delete();
+                            }
+                            StatsEngine.get().inc(MetricNames.SUPPORTABILITY_COLLECTOR + "Harvest/OfflineStorage/" + eachResponse.getResponseCode());
                         }
-                        StatsEngine.get().inc(MetricNames.SUPPORTABILITY_COLLECTOR + "Harvest/OfflineStorage/" + eachResponse.getResponseCode());
                     }
                 }
             } catch (Exception ex) {
@@ -347,6 +381,16 @@ public class Harvester implements HarvestConfigurable {
         harvestData.reset();
     }
 
+    private static boolean isRejectedPayload(HarvestResponse response) {
+        switch (response.getResponseCode()) {
+            case UNSUPPORTED_MEDIA_TYPE:
+            case ENTITY_TOO_LARGE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * This method is executed when Harvester is in the {@link State#DISABLED} state.
      * <p/>
@@ -547,6 +591,7 @@ public class Harvester implements HarvestConfigurable {
             }
             harvestListeners.remove(harvestAware);
         }
+        listenerDispatcher.remove(harvestAware);
     }
 
     public void expireHarvestData() {
@@ -630,6 +675,10 @@ public class Harvester implements HarvestConfigurable {
         this.harvestConnection = connection;
     }
 
+    void setHarvestDataPacker(HarvestDataPacker harvestDataPacker) {
+        this.harvestDataPacker = harvestDataPacker;
+    }
+
     public HarvestConnection getHarvestConnection() {
         return harvestConnection;
     }
@@ -644,14 +693,7 @@ public class Harvester implements HarvestConfigurable {
 
     private void fireOnHarvestBefore() {
         // Notify all listeners that an execute cycle is about to occur.
-        try {
-            for (HarvestLifecycleAware harvestAware : getHarvestListeners()) {
-                harvestAware.onHarvestBefore();
-            }
-        } catch (Exception e) {
-            log.error("Error in fireOnHarvestBefore", e);
-            AgentHealth.noticeException(e);
-        }
+        listenerDispatcher.dispatch(HarvestListenerDispatcher.Phase.BEFORE, getHarvestListeners(), isConcurrentDispatchEnabled());
     }
 
     private void fireOnHarvestStart() {
@@ -680,26 +722,12 @@ public class Harvester implements HarvestConfigurable {
 
     private void fireOnHarvest() {
         // Notify all listeners that an execute cycle is occurring.
-        try {
-            for (HarvestLifecycleAware harvestAware : getHarvestListeners()) {
-                harvestAware.onHarvest();
-            }
-        } catch (Exception e) {
-            log.error("Error in fireOnHarvest", e);
-            AgentHealth.noticeException(e);
-        }
+        listenerDispatcher.dispatch(HarvestListenerDispatcher.Phase.HARVEST, getHarvestListeners(), isConcurrentDispatchEnabled());
     }
 
     private void fireOnHarvestFinalize() {
         // Notify all listeners that an execute cycle is completing.
-        try {
-            for (HarvestLifecycleAware harvestAware : getHarvestListeners()) {
-                harvestAware.onHarvestFinalize();
-            }
-        } catch (Exception e) {
-            log.error("Error in fireOnHarvestFinalize", e);
-            AgentHealth.noticeException(e);
-        }
+        listenerDispatcher.dispatch(HarvestListenerDispatcher.Phase.FINALIZE, getHarvestListeners(), isConcurrentDispatchEnabled());
     }
 
     private void fireOnHarvestDisabled() {
@@ -752,14 +780,7 @@ public class Harvester implements HarvestConfigurable {
 
     private void fireOnHarvestComplete() {
         // Notify all listeners that the harvest completed
-        try {
-            for (HarvestLifecycleAware harvestAware : getHarvestListeners()) {
-                harvestAware.onHarvestComplete();
-            }
-        } catch (Exception e) {
-            log.error("Error in fireOnHarvestComplete", e);
-            AgentHealth.noticeException(e);
-        }
+        listenerDispatcher.dispatch(HarvestListenerDispatcher.Phase.COMPLETE, getHarvestListeners(), isConcurrentDispatchEnabled());
     }
 
     private void fireOnHarvestConnected() {
@@ -834,6 +855,10 @@ public class Harvester implements HarvestConfigurable {
         return harvestConfiguration;
     }
 
+    boolean isConcurrentDispatchEnabled() {
+        return agentConfiguration != null && agentConfiguration.getConcurrentHarvestListeners();
+    }
+
     Collection<HarvestLifecycleAware> getHarvestListeners() {
         return new ArrayList<>(harvestListeners);
     }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.harvest;
+
+import com.newrelic.agent.android.metric.Metric;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.util.ParsedUrl;
+import com.newrelic.agent.android.util.UrlCache;
+import com.newrelic.agent.android.util.UrlTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rolls HTTP transactions up by endpoint when the
+ * {@link com.newrelic.agent.android.FeatureFlag#NetworkRequestAggregation} feature is enabled.
+ * <p>
+ * Each transaction is counted against its endpoint: the {@link UrlTemplate} of its URL, its
+ * method and its status class ({@code 2xx}, {@code 4xx}, or {@code Failed} for network
+ * failures). Each endpoint is reported once per harvest through the metrics payload, as the
+ * response time (count, total, min and max), the bytes sent and received, and a histogram of
+ * response times.
+ * <p>
+ * Failed transactions and HTTP errors are always kept in full. Of the successful transactions
+ * to an endpoint, the first in each harvest and every {@code sampleInterval}th after that are
+ * kept in full; the rest are only counted.
+ */
+public class NetworkRequestAggregator extends HarvestAdapter {
+    public static final int DEFAULT_SAMPLE_INTERVAL = 10;
+    public static final int DEFAULT_MAX_ENDPOINTS = 250;
+
+    static final String OTHER_ENDPOINT = "Other";
+    static final String STATUS_FAILED = "Failed";
+
+    // upper bounds of the response time histogram buckets, in ms
+    static final int[] HISTOGRAM_BOUNDS = {100, 250, 500, 1000, 2500, 5000, 10000};
+
+    static class Aggregate {
+        final String name;
+        final Metric responseTime;
+        final Metric bytesSent;
+        final Metric bytesReceived;
+        final long[] histogram = new long[HISTOGRAM_BOUNDS.length + 1];
+
+        Aggregate(String name) {
+            this.name = name;
+            this.responseTime = new Metric(name);
+            this.bytesSent = new Metric(name + "/BytesSent");
+            this.bytesReceived = new Metric(name + "/BytesReceived");
+        }
+
+        void sample(HttpTransaction txn) {
+            responseTime.sample(txn.getTotalTime());
+            bytesSent.sample(txn.getBytesSent());
+            bytesReceived.sample(txn.getBytesReceived());
+
+            final double ms = txn.getTotalTime() * 1000;
+            int bucket = 0;
+            while (bucket < HISTOGRAM_BOUNDS.length && ms > HISTOGRAM_BOUNDS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket]++;
+        }
+
+        Collection<Metric> asMetrics() {
+            final List<Metric> metrics = new ArrayList<>(3 + histogram.length);
+            metrics.add(responseTime);
+            metrics.add(bytesSent);
+            metrics.add(bytesReceived);
+
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] > 0) {
+                    final String bound = i < HISTOGRAM_BOUNDS.length ? String.valueOf(HISTOGRAM_BOUNDS[i]) : "Inf";
+                    final Metric bucket = new Metric(name + "/Histogram/" + bound);
+                    bucket.setCount(histogram[i]);
+                    metrics.add(bucket);
+                }
+            }
+
+            return metrics;
+        }
+    }
+
+    private final int sampleInterval;
+    private final int maxEndpoints;
+    private Map<String, Aggregate> aggregates = new HashMap<>();
+
+    public NetworkRequestAggregator() {
+        this(DEFAULT_SAMPLE_INTERVAL, DEFAULT_MAX_ENDPOINTS);
+    }
+
+    public NetworkRequestAggregator(int sampleInterval, int maxEndpoints) {
+        this.sampleInterval = Math.max(1, sampleInterval);
+        this.maxEndpoints = Math.max(1, maxEndpoints);
+    }
+
+    /**
+     * Count a transaction against its endpoint.
+     *
+     * @return true if the transaction should also be kept in full
+     */
+    public synchronized boolean aggregate(HttpTransaction txn) {
+        final boolean failed = txn.getErrorCode() != 0;
+        final boolean httpError = txn.getStatusCode() >= 400;
+
+        final String statusClass = failed ? STATUS_FAILED : (txn.getStatusCode() / 100) + "xx";
+        final String method = txn.getHttpMethod() == null ? "UNKNOWN" : txn.getHttpMethod();
+
+        final ParsedUrl url = UrlCache.parse(txn.getUrl());
+        String name = endpointName(url != null ? url.getTemplate() : UrlTemplate.of(txn.getUrl()), method, statusClass);
+        Aggregate aggregate = aggregates.get(name);
+        if (aggregate == null) {
+            if (aggregates.size() >= maxEndpoints) {
+                name = endpointName(OTHER_ENDPOINT, method, statusClass);
+                aggregate = aggregates.get(name);
+                StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_NETWORK_AGGREGATE_OVERFLOW);
+            }
+            if (aggregate == null) {
+                aggregate = new Aggregate(name);
+                aggregates.put(name, aggregate);
+            }
+        }
+
+        aggregate.sample(txn);
+
+        if (failed || httpError) {
+            return true;
+        }
+
+        // the first of every sampleInterval successful requests to this endpoint
+        final boolean sampled = (aggregate.responseTime.getCount() - 1) % sampleInterval == 0;
+        if (!sampled) {
+            StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_NETWORK_AGGREGATED);
+        }
+
+        return sampled;
+    }
+
+    static String endpointName(String template, String method, String statusClass) {
+        return MetricNames.METRIC_NETWORK_AGGREGATE + template + "/" + method + "/" + statusClass;
+    }
+
+    /**
+     * @return the endpoint metrics recorded since the last harvest, and reset them
+     */
+    synchronized Collection<Metric> drain() {
+        final Collection<Aggregate> drained = aggregates.values();
+        aggregates = new HashMap<>();
+
+        final List<Metric> metrics = new ArrayList<>();
+        for (Aggregate aggregate : drained) {
+            metrics.addAll(aggregate.asMetrics());
+        }
+
+        return metrics;
+    }
+
+    synchronized int getEndpointCount() {
+        return aggregates.size();
+    }
+
+    @Override
+    public void onHarvest() {
+        for (Metric metric : drain()) {
+            Harvest.addMetric(metric);
+        }
+    }
+}
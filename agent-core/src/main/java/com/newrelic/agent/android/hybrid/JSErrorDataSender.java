@@ -18,6 +18,7 @@ import com.newrelic.agent.android.util.Constants;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
 import java.util.Map;
 
@@ -55,8 +56,7 @@ public class JSErrorDataSender extends PayloadSender {
 
     @Override
     protected HttpURLConnection getConnection() throws IOException {
-        final String urlString = getProtocol() + agentConfiguration.getErrorCollectorHost() + getErrorCollectorPath();
-        final URL url = new URL(urlString);
+        final URL url = getCollectorURI().toURL();
         final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         final HarvestConfiguration harvestConfiguration = Harvest.getHarvestConfiguration();
 
@@ -139,4 +139,14 @@ public class JSErrorDataSender extends PayloadSender {
         // CrashSender and AEITraceSender semantics.
         return Agent.hasReachableNetworkConnection(null);
     }
+
+    @Override
+    protected URI getCollectorURI() {
+        return URI.create(getProtocol() + agentConfiguration.getErrorCollectorHost() + getErrorCollectorPath());
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.HANDLED_EXCEPTION;
+    }
 }
@@ -16,10 +16,9 @@ import com.newrelic.agent.android.logging.AgentLogManager;
 import com.newrelic.agent.android.metric.MetricNames;
 import com.newrelic.agent.android.stats.StatsEngine;
 import com.newrelic.agent.android.tracing.TraceMachine;
-import com.newrelic.agent.android.util.Util;
+import com.newrelic.agent.android.util.ParsedUrl;
+import com.newrelic.agent.android.util.UrlCache;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -107,21 +106,16 @@ public class TransactionState {
     }
 
     public void setUrl(final String urlString) {
-        final String url = Util.sanitizeUrl(urlString);
-        if (url == null)
+        final ParsedUrl parsedUrl = UrlCache.parse(urlString);
+        if (parsedUrl == null)
             return;
 
         if (!isSent()) {
+            final String url = parsedUrl.getUrl();
             this.url = url;
 
-            try {
-                if(FeatureFlag.featureEnabled(FeatureFlag.DefaultInteractions)) {
-                    TraceMachine.setCurrentDisplayName("External/" + new URL(url).getHost());
-                }
-            } catch (MalformedURLException e) {
-                log.error("unable to parse host name from " + url);
-            }
             if(FeatureFlag.featureEnabled(FeatureFlag.DefaultInteractions)) {
+                TraceMachine.setCurrentDisplayName("External/" + parsedUrl.getHost());
                 TraceMachine.setCurrentTraceParam("uri", url);
             }
         } else {
@@ -6,6 +6,7 @@
 package com.newrelic.agent.android.instrumentation.httpclient;
 
 import com.newrelic.agent.android.TaskQueue;
+import com.newrelic.agent.android.analytics.AnalyticsAttribute;
 import com.newrelic.agent.android.api.common.TransactionData;
 import com.newrelic.agent.android.instrumentation.TransactionState;
 import com.newrelic.agent.android.instrumentation.TransactionStateUtil;
@@ -27,6 +28,7 @@ import org.apache.http.message.AbstractHttpMessage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -82,7 +84,13 @@ public final class HttpResponseEntityImpl implements HttpEntity, StreamCompleteL
             }
 
             try {
-                contentStream = new CountingInputStream(impl.getContent(), shouldBuffer);
+                if (shouldBuffer) {
+                    contentStream = new CountingInputStream(impl.getContent(), true);
+                } else {
+                    // Chunked responses can't be buffered up front, so capture the
+                    // start of the body as the app reads it instead.
+                    contentStream = new CountingInputStream(impl.getContent(), getCharset());
+                }
                 contentStream.addStreamCompleteListener(this);
             } catch (IllegalArgumentException e) {
                 log.error("HttpResponseEntityImpl: " + e.toString());
@@ -129,7 +137,9 @@ public final class HttpResponseEntityImpl implements HttpEntity, StreamCompleteL
         if (!transactionState.isComplete()) {
             CountingOutputStream outputStream = null;
             try {
-                outputStream = new CountingOutputStream(outstream);
+                // an error body is captured as it is written, as the entity may not be readable again
+                outputStream = new CountingOutputStream(outstream,
+                        transactionState.isErrorOrFailure() ? AnalyticsAttribute.ATTRIBUTE_VALUE_MAX_LENGTH : 0);
                 impl.writeTo(outputStream);
             } catch (IOException e) {
                 //
@@ -148,7 +158,7 @@ public final class HttpResponseEntityImpl implements HttpEntity, StreamCompleteL
                 } else {
                     transactionState.setBytesReceived(outputStream.getCount());
                 }
-                addTransactionAndErrorData(transactionState);
+                addTransactionAndErrorData(transactionState, outputStream.getCaptureAsString(getCharset()));
             }
         } else {
             impl.writeTo(outstream);
@@ -180,6 +190,13 @@ public final class HttpResponseEntityImpl implements HttpEntity, StreamCompleteL
     }
 
     private void addTransactionAndErrorData(TransactionState transactionState) {
+        addTransactionAndErrorData(transactionState, null);
+    }
+
+    /**
+     * @param responseBody the start of the body, or null to read it from the content stream
+     */
+    private void addTransactionAndErrorData(TransactionState transactionState, String responseBody) {
         final TransactionData transactionData = transactionState.end();
 
         // If no transaction data is available, bail out.
@@ -188,15 +205,16 @@ public final class HttpResponseEntityImpl implements HttpEntity, StreamCompleteL
         }
 
         if (transactionState.isErrorOrFailure()) {
-            String responseBody = "";
-
-            try {
-                final InputStream errorStream = getContent();
-                if (errorStream instanceof CountingInputStream) {
-                    responseBody = ((CountingInputStream) errorStream).getBufferAsString();
+            if (responseBody == null) {
+                responseBody = "";
+                try {
+                    final InputStream errorStream = getContent();
+                    if (errorStream instanceof CountingInputStream) {
+                        responseBody = ((CountingInputStream) errorStream).getBufferAsString();
+                    }
+                } catch (Exception e) {
+                    log.error("HttpResponseEntityImpl: " + e);
                 }
-            } catch (Exception e) {
-                log.error("HttpResponseEntityImpl: " + e);
             }
 
             Header contentType = impl.getContentType();
@@ -220,6 +238,11 @@ public final class HttpResponseEntityImpl implements HttpEntity, StreamCompleteL
         TaskQueue.queue(new HttpTransactionMeasurement(transactionData));
     }
 
+    private Charset getCharset() {
+        final Header contentType = impl.getContentType();
+        return CountingInputStream.charsetOf(contentType != null ? contentType.getValue() : null);
+    }
+
     protected void handleException(Exception e) {
         handleException(e, null);
     }
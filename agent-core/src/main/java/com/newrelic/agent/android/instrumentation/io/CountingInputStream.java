@@ -13,7 +13,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.Buffer;
-
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Counts the bytes read from a response stream, optionally keeping the start of the body for
+ * error reporting. The body can be kept in one of two ways:
+ * <ul>
+ *   <li>Buffered: the start of the body is read into a buffer when the stream is created, and
+ *   reads are served from it first.</li>
+ *   <li>Captured: the start of the body is copied as the app reads it. Nothing is read that the
+ *   app didn't ask for, and the capture is complete once the stream reaches EOF or is closed.</li>
+ * </ul>
+ */
 public class CountingInputStream extends InputStream implements StreamCompleteListenerSource {
 
     private final InputStream impl;
@@ -22,6 +34,15 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
 
     private ByteBuffer buffer;
 
+    // captured mode
+    private final byte[] capture;
+    private int captured = 0;
+    private int markCaptured = 0;
+    private boolean captureComplete = false;
+
+    private final Charset charset;
+    private String body;
+
     private long count = 0;
 
     private static final AgentLog log = AgentLogManager.getAgentLog();
@@ -39,6 +60,23 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
     }
 
     CountingInputStream(final InputStream impl, ByteBuffer byteBuffer) throws IOException {
+        this(impl, byteBuffer, null, Charset.defaultCharset());
+    }
+
+    /**
+     * Count the bytes read, and capture the start of the body as the app reads it
+     *
+     * @param charset the declared charset of the body, used to decode the captured bytes
+     */
+    public CountingInputStream(final InputStream impl, final Charset charset) throws IOException {
+        this(impl, charset, AnalyticsAttribute.ATTRIBUTE_VALUE_MAX_LENGTH);
+    }
+
+    CountingInputStream(final InputStream impl, final Charset charset, int capacity) throws IOException {
+        this(impl, null, new byte[capacity], charset);
+    }
+
+    private CountingInputStream(final InputStream impl, ByteBuffer byteBuffer, byte[] capture, Charset charset) throws IOException {
         if (impl == null) {
             throw new IOException("CountingInputStream: input stream cannot be null");
         }
@@ -46,6 +84,8 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
         this.impl = impl;
         this.buffer = byteBuffer;
         this.enableBuffering = (this.buffer != null);
+        this.capture = capture;
+        this.charset = (charset != null) ? charset : StandardCharsets.UTF_8;
         this.listenerManager = new StreamCompleteListenerManager();
 
         if (enableBuffering) {
@@ -81,6 +121,9 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
             n = impl.read();
             if (n >= 0) {
                 count++;
+                if (capture != null) {
+                    capture(n);
+                }
             } else {
                 notifyStreamComplete();
             }
@@ -129,6 +172,9 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
             n = impl.read(b, numBytesFromBuffer, inputBufferRemaining);
             if (n >= 0) {
                 count += n;
+                if (capture != null) {
+                    capture(b, numBytesFromBuffer, n);
+                }
                 return n + numBytesFromBuffer;
             } else {
                 if (numBytesFromBuffer <= 0) {
@@ -182,6 +228,9 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
             n = impl.read(b, off + numBytesFromBuffer, inputBufferRemaining);
             if (n >= 0) {
                 count += n;
+                if (capture != null) {
+                    capture(b, off + numBytesFromBuffer, n);
+                }
                 return n + numBytesFromBuffer;
             } else {
                 if (numBytesFromBuffer <= 0) {
@@ -219,6 +268,10 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
         try {
             long n = impl.skip(toSkip);
             count += n;
+            if (capture != null && n > 0) {
+                // skipped bytes aren't seen, so the capture ends here
+                completeCapture();
+            }
             return n;
         } catch (IOException e) {
             notifyStreamError(e);
@@ -259,6 +312,11 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
         if (!markSupported())
             return;
         impl.mark(readlimit);
+        if (capture != null) {
+            synchronized (capture) {
+                markCaptured = captured;
+            }
+        }
     }
 
     public boolean markSupported() {
@@ -271,6 +329,12 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
 
         try {
             impl.reset();
+            if (capture != null) {
+                // bytes read again after the mark are captured again
+                synchronized (capture) {
+                    captured = Math.min(captured, markCaptured);
+                }
+            }
         } catch (IOException e) {
             notifyStreamError(e);
             throw e;
@@ -344,29 +408,105 @@ public class CountingInputStream extends InputStream implements StreamCompleteLi
         }
     }
 
+    private void capture(int b) {
+        synchronized (capture) {
+            if (!captureComplete && captured < capture.length) {
+                capture[captured++] = (byte) b;
+            }
+        }
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        synchronized (capture) {
+            if (!captureComplete && captured < capture.length) {
+                final int n = Math.min(len, capture.length - captured);
+                System.arraycopy(b, off, capture, captured, n);
+                captured += n;
+            }
+        }
+    }
+
+    private void completeCapture() {
+        if (capture != null) {
+            synchronized (capture) {
+                captureComplete = true;
+            }
+        }
+    }
+
     private void notifyStreamComplete() {
+        completeCapture();
         if (!listenerManager.isComplete()) {
             listenerManager.notifyStreamComplete(new StreamCompleteEvent(this, count));
         }
     }
 
     private void notifyStreamError(Exception e) {
+        completeCapture();
         if (!listenerManager.isComplete()) {
             listenerManager.notifyStreamError(new StreamCompleteEvent(this, count, e));
         }
     }
 
+    /**
+     * @return the start of the body: the buffered bytes, or the bytes captured so far. Once the
+     * body is complete it is decoded only once.
+     */
     public String getBufferAsString() {
-        if (buffer != null) {
+        if (capture != null) {
+            synchronized (capture) {
+                if (body != null) {
+                    return body;
+                }
+                final String decoded = new String(capture, 0, captured, charset);
+                if (captureComplete) {
+                    body = decoded;
+                }
+                return decoded;
+            }
+        } else if (buffer != null) {
             synchronized (buffer) {
-                byte[] buf = new byte[buffer.limit()];
-                for (int i = 0; i < buffer.limit(); i++) {
-                    buf[i] = buffer.get(i);
+                if (body == null) {
+                    if (buffer.hasArray()) {
+                        body = new String(buffer.array(), buffer.arrayOffset(), buffer.limit(), charset);
+                    } else {
+                        byte[] buf = new byte[buffer.limit()];
+                        ((ByteBuffer) buffer.duplicate().position(0)).get(buf);
+                        body = new String(buf, charset);
+                    }
                 }
-                return new String(buf);
+                return body;
             }
         } else {
             return "";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the charset in a Content-Type header value, or UTF-8 if none is declared
+     */
+    public static Charset charsetOf(String contentType) {
+        if (contentType != null) {
+            final int param = contentType.toLowerCase().indexOf("charset=");
+            if (param != -1) {
+                int end = contentType.indexOf(';', param);
+                if (end == -1) {
+                    end = contentType.length();
+                }
+
+                String name = contentType.substring(param + "charset=".length(), end).trim();
+                if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\"")) {
+                    name = name.substring(1, name.length() - 1);
+                }
+
+                try {
+                    return Charset.forName(name);
+                } catch (Exception e) {
+                    log.debug("CountingInputStream: unsupported charset " + name);
+                }
+            }
+        }
+
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -10,19 +10,33 @@ import com.newrelic.agent.android.logging.AgentLogManager;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 
-
+/**
+ * Counts the bytes written to a stream, optionally capturing the start of what was written.
+ */
 public class CountingOutputStream extends OutputStream implements StreamCompleteListenerSource {
     private static final AgentLog log = AgentLogManager.getAgentLog();
     private final OutputStream impl;
     private long count = 0;
     private final StreamCompleteListenerManager listenerManager = new StreamCompleteListenerManager();
 
+    private final byte[] capture;
+    private int captured = 0;
+
     public CountingOutputStream(final OutputStream impl) throws IOException {
+        this(impl, 0);
+    }
+
+    /**
+     * Count the bytes written, and capture up to {@code captureCapacity} bytes from the start of the stream
+     */
+    public CountingOutputStream(final OutputStream impl, int captureCapacity) throws IOException {
         if (impl == null) {
             throw new IOException("CountingOutputStream: output stream cannot be null");
         }
         this.impl = impl;
+        this.capture = (captureCapacity > 0) ? new byte[captureCapacity] : null;
     }
 
     public void addStreamCompleteListener(StreamCompleteListener streamCompleteListener) {
@@ -37,11 +51,24 @@ public class CountingOutputStream extends OutputStream implements StreamComplete
         return count;
     }
 
+    /**
+     * @return the bytes captured from the start of the stream, decoded with the given charset
+     */
+    public String getCaptureAsString(Charset charset) {
+        if (capture == null) {
+            return "";
+        }
+        return new String(capture, 0, captured, charset);
+    }
+
     @Override
     public void write(int oneByte) throws IOException {
         try {
             impl.write(oneByte);
             count++;
+            if (capture != null && captured < capture.length) {
+                capture[captured++] = (byte) oneByte;
+            }
         } catch (IOException e) {
             notifyStreamError(e);
             throw e;
@@ -53,6 +80,7 @@ public class CountingOutputStream extends OutputStream implements StreamComplete
         try {
             impl.write(buffer);
             count += buffer.length;
+            capture(buffer, 0, buffer.length);
         } catch (IOException e) {
             notifyStreamError(e);
             throw e;
@@ -64,6 +92,7 @@ public class CountingOutputStream extends OutputStream implements StreamComplete
         try {
             impl.write(buffer, offset, count);
             this.count += count;
+            capture(buffer, offset, count);
         } catch (IOException e) {
             notifyStreamError(e);
             throw e;
@@ -96,6 +125,14 @@ public class CountingOutputStream extends OutputStream implements StreamComplete
         }
     }
 
+    private void capture(byte[] buffer, int offset, int count) {
+        if (capture != null && captured < capture.length) {
+            final int n = Math.min(count, capture.length - captured);
+            System.arraycopy(buffer, offset, capture, captured, n);
+            captured += n;
+        }
+    }
+
     private void notifyStreamComplete() {
         if (!listenerManager.isComplete()) {
             listenerManager.notifyStreamComplete(new StreamCompleteEvent(this, count));
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.instrumentation.okhttp3;
+
+import com.newrelic.agent.android.instrumentation.TransactionState;
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * A response body that counts bytes as the app consumes them, and completes the transaction
+ * once the body has been exhausted or closed. Nothing is buffered beyond what the app reads,
+ * so streamed (chunked, SSE) responses keep streaming, and the transaction duration includes
+ * the time taken to download the body.
+ * <p>
+ * A body that is neither exhausted nor closed is never recorded. OkHttp requires every response
+ * body to be closed, and reports those that aren't as leaked connections, so this is left to the
+ * app rather than to a finalizer.
+ */
+public class CountingResponseBody extends ResponseBody {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    private final ResponseBody impl;
+    private final TransactionState transactionState;
+    private final Response response;
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+    private volatile long bytesRead = 0;
+    private BufferedSource source;
+
+    public CountingResponseBody(ResponseBody impl, TransactionState transactionState, Response response) {
+        this.impl = impl;
+        this.transactionState = transactionState;
+        this.response = response;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return impl.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+        return impl.contentLength();
+    }
+
+    @Override
+    public synchronized BufferedSource source() {
+        if (source == null) {
+            source = Okio.buffer(new CountingSource(impl.source()));
+        }
+        return source;
+    }
+
+    @Override
+    public void close() {
+        try {
+            impl.close();
+        } finally {
+            complete(false);
+        }
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    boolean isComplete() {
+        return completed.get();
+    }
+
+    /**
+     * Record the transaction once. An exhausted body reports the bytes actually read; a body
+     * closed early favors the declared length, as the app chose not to read the remainder.
+     */
+    void complete(boolean exhausted) {
+        if (completed.compareAndSet(false, true) && !transactionState.isComplete()) {
+            long bytesReceived = bytesRead;
+            if (!exhausted && impl.contentLength() > bytesRead) {
+                bytesReceived = impl.contentLength();
+            }
+            transactionState.setBytesReceived(bytesReceived);
+            OkHttp3TransactionStateUtil.addTransactionAndErrorData(transactionState, response);
+        }
+    }
+
+    void error(IOException e) {
+        if (completed.compareAndSet(false, true) && !transactionState.isComplete()) {
+            transactionState.setBytesReceived(bytesRead);
+            OkHttp3TransactionStateUtil.setErrorCodeFromException(transactionState, e);
+            OkHttp3TransactionStateUtil.addTransactionAndErrorData(transactionState, response);
+        }
+    }
+
+    class CountingSource extends ForwardingSource {
+
+        CountingSource(okio.Source delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            final long read;
+            try {
+                read = super.read(sink, byteCount);
+            } catch (IOException e) {
+                log.debug("CountingResponseBody: " + e);
+                error(e);
+                throw e;
+            }
+
+            if (read == -1) {
+                complete(true);
+            } else {
+                bytesRead += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                complete(false);
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@
 package com.newrelic.agent.android.instrumentation.okhttp3;
 
 import static com.newrelic.agent.android.analytics.AnalyticsAttribute.ATTRIBUTE_VALUE_MAX_LENGTH;
+import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.FeatureFlag;
 import com.newrelic.agent.android.HttpHeaders;
 import com.newrelic.agent.android.TaskQueue;
@@ -83,9 +84,28 @@ public class OkHttp3TransactionStateUtil extends TransactionStateUtil {
 
         inspectAndInstrumentResponse(transactionState, appData, (int) contentLength, statusCode);
 
+        if (shouldDeferCompletion(transactionState, response)) {
+            // the transaction is completed when the app has consumed or closed the body
+            return response.newBuilder()
+                    .body(new CountingResponseBody(response.body(), transactionState, response))
+                    .build();
+        }
+
         return addTransactionAndErrorData(transactionState, response);
     }
 
+    /**
+     * Error responses complete immediately so their body can be captured. Responses with no
+     * body to read have nothing to wait for.
+     */
+    static boolean shouldDeferCompletion(final TransactionState transactionState, final Response response) {
+        return AgentConfiguration.getInstance().getOkHttpResponseBodyMeasurement() &&
+                response != null &&
+                response.body() != null &&
+                response.body().contentLength() != 0 &&
+                !transactionState.isErrorOrFailure();
+    }
+
     private static long exhaustiveContentLength(Response response) {
         // favor buffer length over header value
         long contentLength = CONTENTLENGTH_UNKNOWN;
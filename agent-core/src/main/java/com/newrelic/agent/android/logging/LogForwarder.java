@@ -134,6 +134,11 @@ public class LogForwarder extends PayloadSender {
         return true;
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.LOG_DATA;
+    }
+
     @Override
     protected URI getCollectorURI() {
         return URI.create(getProtocol() + agentConfiguration.getCollectorHost() + "/mobile/logs");
@@ -25,7 +25,11 @@ import com.newrelic.agent.android.analytics.AnalyticsControllerImpl;
 import com.newrelic.agent.android.harvest.Harvest;
 import com.newrelic.agent.android.harvest.HarvestLifecycleAware;
 import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.payload.PayloadController;
 import com.newrelic.agent.android.payload.PayloadReporter;
+import com.newrelic.agent.android.payload.PayloadSender;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 import com.newrelic.agent.android.stats.StatsEngine;
 import com.newrelic.agent.android.util.Constants;
 import com.newrelic.agent.android.util.Streams;
@@ -48,7 +52,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
@@ -62,7 +65,7 @@ import javax.net.ssl.HttpsURLConnection;
 
 public class LogReporter extends PayloadReporter {
     // Add this field at the class level
-    private static final ExecutorService cleanupExecutor = Executors.newSingleThreadExecutor();
+    private static final ExecutorService cleanupExecutor = AgentScheduler.newExecutor(Lane.LOGS);
 
     protected static final Type gtype = new TypeToken<Map<String, Object>>() {
     }.getType();
@@ -107,6 +110,9 @@ public class LogReporter extends PayloadReporter {
     protected File workingLogfile;
     protected AtomicReference<BufferedWriter> workingLogfileWriter = new AtomicReference<>(null);   // lazy initialized
 
+    // onHarvestConnected and onHarvest may run on different threads when listeners are dispatched concurrently
+    private final ReentrantLock processLock = new ReentrantLock();
+
     public static LogReporter initialize(File rootDir, AgentConfiguration agentConfiguration) throws IOException {
         if (!rootDir.isDirectory() || !rootDir.exists() || !rootDir.canWrite()) {
             throw new IOException("Reports directory [" + rootDir.getAbsolutePath() + "] must exist and be writable!");
@@ -198,6 +204,12 @@ public class LogReporter extends PayloadReporter {
         }
     }
 
+    @Override
+    public boolean isConcurrentHarvestListener() {
+        // log data is uploaded to its own endpoint, not with the harvest payload
+        return true;
+    }
+
     @Override
     public void onHarvestConnected() {
         //submit what left when the app was terminated last time
@@ -218,7 +230,9 @@ public class LogReporter extends PayloadReporter {
         }
 
         getCachedLogReports(LogReportState.ROLLUP).forEach(logReport -> {
-            if (postLogReport(logReport)) {
+            if (isUploadDeferred(logReport)) {
+                log.debug("LogReporter: Deferring upload of [" + logReport.getName() + "] on a metered network");
+            } else if (postLogReport(logReport)) {
                 log.info("LogReporter: Uploaded remote log data [" + logReport.getAbsolutePath() + "]");
                 safeDelete(logReport);
             } else {
@@ -340,6 +354,15 @@ public class LogReporter extends PayloadReporter {
     }
 
     void processLogs() {
+        processLock.lock();
+        try {
+            processLogsLocked();
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    private void processLogsLocked() {
         try {
             final Logger logger = LogReporting.getLogger();
             if (logger instanceof HarvestLifecycleAware) {
@@ -365,7 +388,10 @@ public class LogReporter extends PayloadReporter {
             File logReport = rollupLogDataFiles();
 
             if (null != logReport && logReport.isFile()) {
-                if (postLogReport(logReport)) {
+                if (isUploadDeferred(logReport)) {
+                    // the rollup is kept, and offered again on the next harvest
+                    log.debug("LogReporter: Deferring upload of [" + logReport.getName() + "] on a metered network");
+                } else if (postLogReport(logReport)) {
                     log.info("LogReporter: Uploaded remote log data [" + logReport.getName() + "]");
                     safeDelete(logReport);
                 } else {
@@ -375,6 +401,13 @@ public class LogReporter extends PayloadReporter {
         }
     }
 
+    /**
+     * Returns true if the upload of a log rollup should wait for an unmetered network
+     */
+    boolean isUploadDeferred(File logDataFile) {
+        return PayloadController.shouldDeferUpload(PayloadSender.Priority.LOG_DATA, logDataFile.lastModified());
+    }
+
     /**
      * Upload closed log file to Logging ingest endpoint
      *
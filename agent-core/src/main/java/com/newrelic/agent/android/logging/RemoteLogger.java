@@ -8,14 +8,14 @@ package com.newrelic.agent.android.logging;
 
 import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.harvest.HarvestLifecycleAware;
-import com.newrelic.agent.android.util.NamedThreadFactory;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
+import com.newrelic.agent.android.scheduler.LaneExecutor;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 
@@ -29,16 +29,7 @@ public class RemoteLogger implements HarvestLifecycleAware, Logger {
     static int MAX_ATTRIBUTES_NAME_SIZE = 255;
     static int MAX_ATTRIBUTES_VALUE_SIZE = 4096;
 
-    protected ThreadPoolExecutor executor = new ThreadPoolExecutor(2,
-            POOL_SIZE,
-            QUEUE_THREAD_TTL, TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<>(),
-            new NamedThreadFactory("LogReporting"));
-
-    public RemoteLogger() {
-        executor.allowCoreThreadTimeOut(true);
-        executor.prestartCoreThread();
-    }
+    protected LaneExecutor executor = AgentScheduler.newExecutor(Lane.LOGS, POOL_SIZE);
 
     @Override
     public void log(LogLevel logLevel, String message) {
@@ -173,7 +164,7 @@ public class RemoteLogger implements HarvestLifecycleAware, Logger {
             return true;
         };
 
-        if (executor.isTerminating() || executor.isShutdown()) {
+        if (executor.isShutdown()) {
             try {
                 callable.call();        // blocking
             } catch (Exception e) {
@@ -211,14 +202,14 @@ public class RemoteLogger implements HarvestLifecycleAware, Logger {
      * @return Sum of queued tasks
      */
     private int getPendingTaskCount() {
-        return (executor.getQueue().size() + executor.getActiveCount());
+        return executor.getPendingTaskCount();
     }
 
     // Block until the in-progress tasks have completed
     protected void flush() {
         synchronized (executor) {
             try {
-                while (getPendingTaskCount() > 0 && !executor.isTerminating() && !executor.isTerminated()) {
+                while (getPendingTaskCount() > 0 && !executor.isShutdown()) {
                     executor.wait(QUEUE_THREAD_TTL, 0);
                 }
             } catch (InterruptedException e) {
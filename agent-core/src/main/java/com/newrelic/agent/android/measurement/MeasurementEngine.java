@@ -13,12 +13,12 @@ import com.newrelic.agent.android.measurement.MeasurementException;
 import com.newrelic.agent.android.measurement.MeasurementPool;
 import com.newrelic.agent.android.measurement.consumer.MeasurementConsumer;
 import com.newrelic.agent.android.measurement.producer.MeasurementProducer;
-import com.newrelic.agent.android.util.NamedThreadFactory;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 /**
@@ -159,7 +159,7 @@ public class MeasurementEngine {
 
 
     // use judiciously
-    protected final ExecutorService worker = Executors.newCachedThreadPool(new NamedThreadFactory("MeasurementEngine"));
+    protected final ExecutorService worker = AgentScheduler.newExecutor(Lane.MEASUREMENT, Lane.MEASUREMENT.getMaxConcurrency());
 
     Future<?> runOnBackgroundThread(Runnable runnable) {
         Future<?> future = null;
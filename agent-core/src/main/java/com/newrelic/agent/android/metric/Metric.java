@@ -8,8 +8,11 @@ package com.newrelic.agent.android.metric;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import com.newrelic.agent.android.harvest.type.HarvestableObject;
 
+import java.io.IOException;
+
 public class Metric extends HarvestableObject {
     private String name;
     private String scope;
@@ -265,6 +268,25 @@ public class Metric extends HarvestableObject {
         return jsonObject;
     }
 
+    /**
+     * Write the same JSON object as {@link #asJsonObject()} directly to a stream
+     */
+    public void writeJson(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("count").value(count);
+        if (total != null)
+            writer.name("total").value(total);
+        if (min != null)
+            writer.name("min").value(min);
+        if (max != null)
+            writer.name("max").value(max);
+        if (sumOfSquares != null)
+            writer.name("sum_of_squares").value(sumOfSquares);
+        if (exclusive != null)
+            writer.name("exclusive").value(exclusive);
+        writer.endObject();
+    }
+
     @Override
     public String toString() {
         return "Metric{" +
@@ -19,6 +19,8 @@ public class MetricNames {
     public static final String METRIC_UUID_OVERRIDDEN = METRIC_MOBILE + "UUID/Overridden";
     public static final String METRIC_UUID_TRUNCATED = METRIC_MOBILE + "UUID/Truncated";
 
+    public static final String METRIC_NETWORK_AGGREGATE = "Mobile/Network/Aggregate/";
+
     public static final String METRIC_SESSION = "Session/";
     public static final String SESSION_START = METRIC_SESSION + "Start";
     public static final String SESSION_DURATION = METRIC_SESSION + "Duration";
@@ -36,6 +38,8 @@ public class MetricNames {
 
     public static final String SUPPORTABILITY_AGENT = "Supportability/AgentHealth/";
     public static final String SUPPORTABILITY_TRANS_DROPPED = SUPPORTABILITY_AGENT + "TransactionsDropped";
+    public static final String SUPPORTABILITY_NETWORK_AGGREGATED = SUPPORTABILITY_AGENT + "Network/Aggregated";
+    public static final String SUPPORTABILITY_NETWORK_AGGREGATE_OVERFLOW = SUPPORTABILITY_AGENT + "Network/Aggregate/Overflow";
     public static final String SUPPORTABILITY_TRACES_IGNORED = SUPPORTABILITY_AGENT + "IgnoredTraces";
     public static final String SUPPORTABILITY_TRACES_DROPPED = SUPPORTABILITY_AGENT + "BigActivityTracesDropped";
     public static final String SUPPORTABILITY_TRACES_HEALTHY = SUPPORTABILITY_AGENT + "HealthyActivityTraces";
@@ -47,11 +51,20 @@ public class MetricNames {
     public static final String SUPPORTABILITY_PAYLOAD_REJECTED_DEVICE_OFFLINE = SUPPORTABILITY_AGENT + "Payload/Offline/Rejected";
 
     public static final String SUPPORTABILITY_PAYLOAD_CORRUPTED = SUPPORTABILITY_AGENT + "Payload/Corrupted";
+    public static final String SUPPORTABILITY_PAYLOAD_THROTTLED = SUPPORTABILITY_AGENT + "Payload/Retry/Throttled";
+    public static final String SUPPORTABILITY_PAYLOAD_RETRY_AFTER = SUPPORTABILITY_AGENT + "Payload/Retry/RetryAfter";
+    public static final String SUPPORTABILITY_PAYLOAD_RETRY_DELAY = SUPPORTABILITY_AGENT + "Payload/Retry/Delay";
+    public static final String SUPPORTABILITY_PAYLOAD_RETRY_DEFERRED = SUPPORTABILITY_AGENT + "Payload/Retry/Deferred";
+    public static final String SUPPORTABILITY_PAYLOAD_CIRCUIT_OPEN = SUPPORTABILITY_AGENT + "Payload/Circuit/Open";
+    public static final String SUPPORTABILITY_PAYLOAD_CIRCUIT_CLOSED = SUPPORTABILITY_AGENT + "Payload/Circuit/Closed";
+    public static final String SUPPORTABILITY_PAYLOAD_UPLOAD_DEFERRED = SUPPORTABILITY_AGENT + "Payload/Upload/Deferred";
+    public static final String SUPPORTABILITY_PAYLOAD_UPLOAD_BATCHED = SUPPORTABILITY_AGENT + "Payload/Upload/Batched";
     public static final String SUPPORTABILITY_JS_ERROR_EVICTED = SUPPORTABILITY_AGENT + "JSError/Removed/Evicted";
     public static final String SUPPORTABILITY_JS_ERROR_CORRUPTED = SUPPORTABILITY_AGENT + "JSError/Corrupted";
     public static final String SUPPORTABILITY_SESSION_CONTEXT_EVICTED = SUPPORTABILITY_AGENT + "SessionContext/Removed/Evicted";
     public static final String SUPPORTABILITY_SESSION_CONTEXT_CORRUPTED = SUPPORTABILITY_AGENT + "SessionContext/Corrupted";
     public static final String SUPPORTABILITY_SESSION_CONTEXT_MISSING = SUPPORTABILITY_AGENT + "SessionContext/Missing";
+    public static final String SUPPORTABILITY_SESSION_CONTEXT_COMPACTED = SUPPORTABILITY_AGENT + "SessionContext/Compacted";
     public static final String SUPPORTABILITY_SESSION_REPLAY_RECOVERED = SUPPORTABILITY_AGENT + "SessionReplay/Recovered";
     public static final String SUPPORTABILITY_SESSION_REPLAY_RECOVER_SKIPPED = SUPPORTABILITY_AGENT + "SessionReplay/Recover/Skipped";
     public static final String SUPPORTABILITY_SESSION_REPLAY_RECOVER_STALE = SUPPORTABILITY_AGENT + "SessionReplay/Recover/Stale";
@@ -75,6 +88,8 @@ public class MetricNames {
     public static final String SUPPORTABILITY_CRASH_CORRUPTED = SUPPORTABILITY_CRASH + "Corrupted";
     public static final String SUPPORTABILITY_CRASH_SIZE_UNCOMPRESSED = SUPPORTABILITY_CRASH + "Size/Uncompressed";
     public static final String SUPPORTABILITY_CRASH_INVALID_BUILDID = SUPPORTABILITY_CRASH + "InvalidBuildId";
+    public static final String SUPPORTABILITY_CRASH_CAPTURE_TRUNCATED = SUPPORTABILITY_CRASH + "Capture/Truncated";
+    public static final String SUPPORTABILITY_CRASH_CAPTURE_FAILED = SUPPORTABILITY_CRASH + "Capture/Failed";
 
     public static final String SUPPORTABILITY_EVENT_STORE_EVICTED = SUPPORTABILITY_EVENTS + "Store/Removed/Evicted";
     public static final String SUPPORTABILITY_EVENT_STORE_CORRUPTED = SUPPORTABILITY_EVENTS + "Store/Corrupted";
@@ -135,6 +150,30 @@ public class MetricNames {
     public static final String BACKGROUND_HANDLED_EXCEPTION_COUNT = SUPPORTABILITY_BACKGROUND + "HandledException/Count";
     public static final String BACKGROUND_CRASH_COUNT = SUPPORTABILITY_BACKGROUND + "Crash/Count";
 
+    public static final String SUPPORTABILITY_STARTUP = SUPPORTABILITY_AGENT + "Startup/";
+    public static final String SUPPORTABILITY_STARTUP_STAGE = SUPPORTABILITY_STARTUP + "Stage/<name>";
+    public static final String SUPPORTABILITY_STARTUP_TOTAL = SUPPORTABILITY_STARTUP + "Total";
+    public static final String SUPPORTABILITY_STARTUP_DEFERRED = SUPPORTABILITY_STARTUP + "Deferred";
+    public static final String SUPPORTABILITY_STARTUP_DEFERRED_OVERFLOW = SUPPORTABILITY_STARTUP_DEFERRED + "/Overflow";
+    public static final String SUPPORTABILITY_STARTUP_EXPIRED = SUPPORTABILITY_STARTUP + "Expired";
+
+    public static final String SUPPORTABILITY_SCHEDULER = SUPPORTABILITY_AGENT + "Scheduler/";
+    public static final String SUPPORTABILITY_SCHEDULER_QUEUE_TIME = SUPPORTABILITY_SCHEDULER + "<name>/QueueTime";
+    public static final String SUPPORTABILITY_SCHEDULER_QUEUE_DEPTH = SUPPORTABILITY_SCHEDULER + "<name>/QueueDepth";
+
+    public static final String SUPPORTABILITY_SAVED_STATE = SUPPORTABILITY_AGENT + "SavedState/";
+    public static final String SUPPORTABILITY_SAVED_STATE_MIGRATED = SUPPORTABILITY_SAVED_STATE + "Migrated";
+    public static final String SUPPORTABILITY_SAVED_STATE_CORRUPTED = SUPPORTABILITY_SAVED_STATE + "Corrupted";
+
+    public static final String SUPPORTABILITY_HARVEST_ADAPTIVE = SUPPORTABILITY_AGENT + "Harvest/Adaptive/";
+    public static final String SUPPORTABILITY_HARVEST_ADAPTIVE_EARLY = SUPPORTABILITY_HARVEST_ADAPTIVE + "Early/<name>";
+    public static final String SUPPORTABILITY_HARVEST_ADAPTIVE_COALESCED = SUPPORTABILITY_HARVEST_ADAPTIVE + "Coalesced";
+    public static final String SUPPORTABILITY_HARVEST_ADAPTIVE_STRETCHED = SUPPORTABILITY_HARVEST_ADAPTIVE + "Stretched";
+    public static final String SUPPORTABILITY_HARVEST_LISTENER = SUPPORTABILITY_AGENT + "Harvest/Listener/<name>/";
+    public static final String SUPPORTABILITY_HARVEST_LISTENER_DEADLINE = SUPPORTABILITY_HARVEST_LISTENER + "DeadlineExceeded";
+    public static final String SUPPORTABILITY_HARVEST_SPLIT = SUPPORTABILITY_AGENT + "Harvest/Split";
+    public static final String SUPPORTABILITY_HARVEST_SPLIT_OVERSIZE = SUPPORTABILITY_HARVEST_SPLIT + "/Oversize";
+
     public static final String SUPPORTABILITY_DATA_TOKEN = SUPPORTABILITY_AGENT + "DataToken/";
 
     public static final String SUPPORTABILITY_INVALID_DATA_TOKEN = SUPPORTABILITY_DATA_TOKEN + "Invalid";
@@ -14,6 +14,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.zip.GZIPOutputStream;
 
@@ -26,6 +27,8 @@ import java.util.zip.GZIPOutputStream;
  * Payload data is persisted all-or-none. No edits or updates are supported.
  * <p>
  * Requests to putBytes(byte[]) will fill the file with the passed payload data.
+ * <p>
+ * Senders stream the file contents through writeTo(OutputStream) rather than reading the file into memory.
  */
 
 public class FileBackedPayload extends Payload {
@@ -63,6 +66,19 @@ public class FileBackedPayload extends Payload {
         return "".getBytes(StandardCharsets.UTF_8);
     }
 
+    /**
+     * Copy the contents of the backing file to the passed stream.
+     */
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        File payloadFile = payloadFile();
+        if (payloadFile.exists()) {
+            try (FileInputStream fis = new FileInputStream(payloadFile)) {
+                Streams.copy(fis, out);
+            }
+        }
+    }
+
     /**
      * Creates a File instance from the pathname data stored in the payload
      *
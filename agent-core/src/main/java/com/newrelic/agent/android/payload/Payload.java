@@ -8,6 +8,8 @@ package com.newrelic.agent.android.payload;
 import com.google.gson.JsonObject;
 import com.newrelic.agent.android.util.SafeJsonPrimitive;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.UUID;
 
@@ -80,4 +82,20 @@ public class Payload {
     public long size() {
         return payload.array().length;
     }
+
+    /**
+     * Returns the number of bytes {@link #writeTo(OutputStream)} will write,
+     * or -1 if the length isn't known until the payload has been written.
+     */
+    public long contentLength() {
+        return size();
+    }
+
+    /**
+     * Write the payload data to the passed stream. Senders use this rather than {@link #getBytes()}
+     * so implementations can stream their data without first copying it into the heap.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(payload.array());
+    }
 }
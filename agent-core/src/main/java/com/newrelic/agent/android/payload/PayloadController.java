@@ -20,10 +20,10 @@ import com.newrelic.agent.android.stats.StatsEngine;
 import com.newrelic.agent.android.stats.TicToc;
 import com.newrelic.agent.android.util.NamedThreadFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -38,14 +38,19 @@ public class PayloadController implements HarvestLifecycleAware {
     protected static final AgentLog log = AgentLogManager.getAgentLog();
 
     public static final int PAYLOAD_COLLECTOR_TIMEOUT = 5000;               // 5 seconds
-    public static final long PAYLOAD_REQUEUE_PERIOD_MS = 2 * 60 * 1000;     // requeue failed uploads every 2 minutes
+    public static final long PAYLOAD_REQUEUE_PERIOD_MS = 2 * 60 * 1000;     // sweep the retry queue at least every 2 minutes
 
     protected static Lock payloadQueueLock = new ReentrantLock(false);
     protected static AtomicReference<PayloadController> instance = new AtomicReference<>(null);
     protected static ThrottledScheduledThreadPoolExecutor queueExecutor = null;
     protected static ScheduledFuture<?> requeueFuture = null;
-    protected static ConcurrentLinkedQueue<PayloadReaper> payloadReaperQueue = null;
-    protected static ConcurrentLinkedQueue<PayloadReaper> payloadReaperRetryQueue = null;
+    protected static ScheduledFuture<?> retryFuture = null;
+    protected static long retryFutureDueTime = 0;
+    protected static PayloadReaperQueue payloadReaperQueue = null;
+    protected static PayloadReaperQueue payloadReaperRetryQueue = null;
+    protected static PayloadReaperQueue payloadReaperDeferredQueue = null;
+    protected static PayloadRetryScheduler retryScheduler = null;
+    protected static UploadPolicy uploadPolicy = null;
     protected static Map<String, Future> reapersInFlight = null;
     protected static boolean opportunisticUploads = false;
 
@@ -67,8 +72,11 @@ public class PayloadController implements HarvestLifecycleAware {
     public static PayloadController initialize(final AgentConfiguration agentConfiguration) {
         if (instance.compareAndSet(null, new PayloadController(agentConfiguration))) {
 
-            payloadReaperQueue = new ConcurrentLinkedQueue<PayloadReaper>();
-            payloadReaperRetryQueue = new ConcurrentLinkedQueue<PayloadReaper>();
+            payloadReaperQueue = new PayloadReaperQueue();
+            payloadReaperRetryQueue = new PayloadReaperQueue();
+            payloadReaperDeferredQueue = new PayloadReaperQueue();
+            retryScheduler = new PayloadRetryScheduler();
+            uploadPolicy = new UploadPolicy(agentConfiguration.getUploadDeferralMaxAge());
             queueExecutor = new ThrottledScheduledThreadPoolExecutor(agentConfiguration.getIOThreadSize(), new NamedThreadFactory("PayloadWorker"));
             requeueFuture = queueExecutor.scheduleWithFixedDelay(requeueRunnable, PayloadController.PAYLOAD_REQUEUE_PERIOD_MS, PayloadController.PAYLOAD_REQUEUE_PERIOD_MS, TimeUnit.MILLISECONDS);
             reapersInFlight = new ConcurrentHashMap<String, Future>();
@@ -118,6 +126,8 @@ public class PayloadController implements HarvestLifecycleAware {
                     requeueFuture = null;
                 }
 
+                cancelRetryFuture();
+
                 // Don't accept any more payloads
                 if (queueExecutor != null) {
                     queueExecutor.shutdown();
@@ -162,9 +172,18 @@ public class PayloadController implements HarvestLifecycleAware {
                 @Override
                 public PayloadSender call() throws Exception {
                     PayloadSender sender = super.call();
+                    long retryTime = retryScheduler.onResponse(getDestination(),
+                            payloadSender.getResponseCode(), payloadSender.getRetryAfter());
+
                     if (sender != null && !sender.isSuccessfulResponse() && sender.shouldRetry()) {
-                        // resubmit the task
-                        payloadReaperRetryQueue.offer(this);
+                        if (retryTime <= 0) {
+                            // the destination is healthy but rejected this payload: retry on the regular period
+                            retryTime = System.currentTimeMillis() + PAYLOAD_REQUEUE_PERIOD_MS;
+                        }
+
+                        // resubmit the task once the backoff has expired
+                        payloadReaperRetryQueue.offer(this, retryTime);
+                        scheduleRetry(retryTime);
                     }
 
                     reapersInFlight.remove(getUuid());
@@ -176,14 +195,33 @@ public class PayloadController implements HarvestLifecycleAware {
             // remove from any pending queues
             payloadReaperQueue.remove(payloadReaper);
             payloadReaperRetryQueue.remove(payloadReaper);
+            payloadReaperDeferredQueue.remove(payloadReaper);
 
             future = reapersInFlight.get(payloadReaper.getUuid());
             if (future != null) {
                 log.warn("PayloadController: Upload of payload [" + payloadReaper.getUuid() + "] is already in progress.");
             } else {
-                if (payloadSender.shouldUploadOpportunistically()) {
-                    future = queueExecutor.submit(payloadReaper);
-                    reapersInFlight.put(payloadReaper.getUuid(), future);
+                // the half-open probe is only claimed (by allowRequest) when the payload is sent
+                if (!retryScheduler.isAvailable(payloadReaper.getDestination())) {
+                    // the destination is backing off: hold the payload until it may be sent
+                    deferUntilAvailable(payloadReaper);
+                } else if (payloadSender.shouldUploadOpportunistically()) {
+                    if (uploadPolicy.shouldBatch(payloadReaper.getPriority())) {
+                        // don't wake the radio for this payload alone: send it with the next harvest
+                        StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_PAYLOAD_UPLOAD_BATCHED);
+                        payloadReaperQueue.offer(payloadReaper);
+                    } else if (!retryScheduler.allowRequest(payloadReaper.getDestination())) {
+                        // another payload claimed the probe first
+                        deferUntilAvailable(payloadReaper);
+                    } else {
+                        future = queueExecutor.submit(payloadReaper);
+                        reapersInFlight.put(payloadReaper.getUuid(), future);
+
+                        if (uploadPolicy.isDeferring() && !payloadReaperQueue.isEmpty()) {
+                            // the radio is awake for this payload, so send the queued payloads with it
+                            queueExecutor.submit(dequeueRunnable);
+                        }
+                    }
                 } else {
                     // queue the node and let the dequeue runnable process the upload
                     payloadReaperQueue.offer(payloadReaper);
@@ -204,6 +242,7 @@ public class PayloadController implements HarvestLifecycleAware {
             // remove from any pending queues
             payloadReaperQueue.remove(payloadReaper);
             payloadReaperRetryQueue.remove(payloadReaper);
+            payloadReaperDeferredQueue.remove(payloadReaper);
 
             future = reapersInFlight.get(payloadReaper.getUuid());
             if (future != null) {
@@ -225,6 +264,14 @@ public class PayloadController implements HarvestLifecycleAware {
         return opportunisticUploads && Agent.hasReachableNetworkConnection(null);
     }
 
+    /**
+     * Returns true if an upload of the given priority, of data created at {@code timestamp} (in millis),
+     * should be held back on the current network.
+     **/
+    public static boolean shouldDeferUpload(PayloadSender.Priority priority, long timestamp) {
+        return isInitialized() && uploadPolicy.shouldDefer(priority, timestamp);
+    }
+
     public static Future submitCallable(Callable<?> callable) {
         return queueExecutor.submit(callable);
     }
@@ -241,17 +288,17 @@ public class PayloadController implements HarvestLifecycleAware {
         // if already processing, skip it
         if (payloadQueueLock.tryLock()) {
             try {
-                while (!payloadReaperQueue.isEmpty()) {
-                    PayloadReaper payloadReaper = payloadReaperQueue.poll();
-                    if (payloadReaper != null) {
-                        try {
-                            submitPayload(payloadReaper);
-                        } catch (Exception e) {
-                            log.error("PayloadController.dequeuePayloadSenders(): " + e);
-                        }
+                // reapers are drained in priority order
+                for (PayloadReaper payloadReaper : payloadReaperQueue.drain()) {
+                    try {
+                        submitOrDefer(payloadReaper);
+                    } catch (Exception e) {
+                        log.error("PayloadController.dequeuePayloadSenders(): " + e);
                     }
                 }
 
+                releaseDeferredPayloadSenders();
+
             } finally {
                 payloadQueueLock.unlock();
             }
@@ -261,22 +308,110 @@ public class PayloadController implements HarvestLifecycleAware {
     private void requeuePayloadSenders() {
         if (payloadQueueLock.tryLock()) {
             try {
-                while (!payloadReaperRetryQueue.isEmpty()) {
-                    PayloadReaper payloadReaper = payloadReaperRetryQueue.poll();
-                    if (payloadReaper != null) {
-                        if (!payloadReaper.sender.getPayload().isStale(agentConfiguration.getPayloadTTL())) {
-                            submitPayload(payloadReaper);
-                        } else {
-                            log.warn("PayloadController: Will not re-queue stale payload.");
-                        }
+                // only reapers whose backoff has expired are released, in priority order
+                for (PayloadReaper payloadReaper : payloadReaperRetryQueue.drain(System.currentTimeMillis())) {
+                    if (!payloadReaper.sender.getPayload().isStale(agentConfiguration.getPayloadTTL())) {
+                        submitOrDefer(payloadReaper);
+                    } else {
+                        log.warn("PayloadController: Will not re-queue stale payload.");
                     }
                 }
+
+                long nextDueTime = payloadReaperRetryQueue.nextDueTime();
+                if (nextDueTime > 0) {
+                    scheduleRetry(nextDueTime);
+                }
+
+                releaseDeferredPayloadSenders();
+
             } finally {
                 payloadQueueLock.unlock();
             }
         }
     }
 
+    /**
+     * Release the deferred reapers: all of them once the network is unmetered, otherwise
+     * only those held for the longest allowed.
+     */
+    private void releaseDeferredPayloadSenders() {
+        final List<PayloadReaper> released = uploadPolicy.isDeferring() ?
+                payloadReaperDeferredQueue.drain(System.currentTimeMillis()) : payloadReaperDeferredQueue.drain();
+
+        for (PayloadReaper payloadReaper : released) {
+            try {
+                submitOrDefer(payloadReaper);
+            } catch (Exception e) {
+                log.error("PayloadController.releaseDeferredPayloadSenders(): " + e);
+            }
+        }
+    }
+
+    /**
+     * Submit the reaper if its destination will accept requests, otherwise
+     * return it to the retry queue until the destination's backoff expires.
+     * Bulk reapers are held in the deferred queue while the network is metered.
+     */
+    private void submitOrDefer(PayloadReaper payloadReaper) {
+        final String destination = payloadReaper.getDestination();
+        final long timestamp = payloadReaper.sender.getPayload().getTimestamp();
+
+        if (uploadPolicy.shouldDefer(payloadReaper.getPriority(), timestamp)) {
+            StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_PAYLOAD_UPLOAD_DEFERRED);
+            payloadReaperDeferredQueue.offer(payloadReaper, uploadPolicy.deferredUntil(timestamp));
+        } else if (retryScheduler.allowRequest(destination)) {
+            submitPayload(payloadReaper);
+        } else {
+            deferUntilAvailable(payloadReaper);
+        }
+    }
+
+    /**
+     * Hold the reaper in the retry queue until its destination's backoff expires
+     */
+    protected static void deferUntilAvailable(PayloadReaper payloadReaper) {
+        final long retryTime = retryScheduler.nextAttemptTime(payloadReaper.getDestination());
+
+        StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_PAYLOAD_RETRY_DEFERRED);
+        payloadReaperRetryQueue.offer(payloadReaper, retryTime);
+        scheduleRetry(retryTime);
+    }
+
+    /**
+     * Schedule a retry pass at {@code dueTime}, unless one is already scheduled sooner.
+     * The fixed requeue period remains as a backstop.
+     */
+    protected static void scheduleRetry(long dueTime) {
+        if (queueExecutor == null || queueExecutor.isShutdown()) {
+            return;
+        }
+
+        synchronized (requeueRunnable) {
+            final long now = System.currentTimeMillis();
+
+            if (retryFuture != null && !retryFuture.isDone() && retryFutureDueTime <= dueTime) {
+                return;
+            }
+
+            if (retryFuture != null) {
+                retryFuture.cancel(false);
+            }
+
+            retryFutureDueTime = dueTime;
+            retryFuture = queueExecutor.schedule(requeueRunnable, Math.max(0, dueTime - now), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected static void cancelRetryFuture() {
+        synchronized (requeueRunnable) {
+            if (retryFuture != null) {
+                retryFuture.cancel(true);
+                retryFuture = null;
+            }
+            retryFutureDueTime = 0;
+        }
+    }
+
     protected boolean uploadOpportunistically() {
         return opportunisticUploads;
     }
@@ -57,4 +57,12 @@ class PayloadReaper implements Callable<PayloadSender> {
         return sender.getPayload().getUuid();
     }
 
+    public PayloadSender.Priority getPriority() {
+        return sender.getPriority();
+    }
+
+    public String getDestination() {
+        return sender.getDestination();
+    }
+
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.payload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A queue of pending payload reapers, indexed by payload UUID.
+ * <p>
+ * Offering a reaper whose payload is already queued replaces the queued reaper, and removal
+ * by UUID is constant time. Superseded entries are left in the schedule and skipped when drained.
+ * Reapers are released once their due time has passed, ordered by sender priority and then
+ * by the order in which they were queued.
+ */
+class PayloadReaperQueue {
+
+    static class Entry {
+        final PayloadReaper reaper;
+        final long dueTime;
+        final long sequence;
+
+        Entry(PayloadReaper reaper, long dueTime, long sequence) {
+            this.reaper = reaper;
+            this.dueTime = dueTime;
+            this.sequence = sequence;
+        }
+    }
+
+    static final Comparator<Entry> byDueTime = (lhs, rhs) -> {
+        int result = Long.compare(lhs.dueTime, rhs.dueTime);
+        return (result != 0) ? result : Long.compare(lhs.sequence, rhs.sequence);
+    };
+
+    static final Comparator<Entry> byPriority = (lhs, rhs) -> {
+        int result = lhs.reaper.getPriority().compareTo(rhs.reaper.getPriority());
+        return (result != 0) ? result : Long.compare(lhs.sequence, rhs.sequence);
+    };
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Entry> schedule = new PriorityBlockingQueue<>(11, byDueTime);
+    private final AtomicLong sequence = new AtomicLong(0);
+
+    /**
+     * Queue the reaper for immediate release, replacing any queued reaper for the same payload
+     */
+    public boolean offer(PayloadReaper payloadReaper) {
+        return offer(payloadReaper, 0);
+    }
+
+    /**
+     * Queue the reaper for release after {@code dueTime} (in millis), replacing
+     * any queued reaper for the same payload
+     */
+    public boolean offer(PayloadReaper payloadReaper, long dueTime) {
+        final Entry entry = new Entry(payloadReaper, dueTime, sequence.incrementAndGet());
+        index.put(payloadReaper.getUuid(), entry);
+        return schedule.offer(entry);
+    }
+
+    public boolean remove(PayloadReaper payloadReaper) {
+        return remove(payloadReaper.getUuid()) != null;
+    }
+
+    public PayloadReaper remove(String uuid) {
+        final Entry entry = index.remove(uuid);
+        return entry == null ? null : entry.reaper;
+    }
+
+    public boolean contains(String uuid) {
+        return index.containsKey(uuid);
+    }
+
+    /**
+     * Remove and return all reapers due at {@code now}, in priority order
+     */
+    public List<PayloadReaper> drain(long now) {
+        final List<Entry> due = new ArrayList<>();
+
+        synchronized (schedule) {
+            Entry entry;
+            while ((entry = schedule.peek()) != null && entry.dueTime <= now) {
+                schedule.poll();
+                // skip entries that were removed or superseded
+                if (index.remove(entry.reaper.getUuid(), entry)) {
+                    due.add(entry);
+                }
+            }
+        }
+
+        Collections.sort(due, byPriority);
+
+        final List<PayloadReaper> reapers = new ArrayList<>(due.size());
+        for (Entry entry : due) {
+            reapers.add(entry.reaper);
+        }
+
+        return reapers;
+    }
+
+    /**
+     * Remove and return all queued reapers, in priority order
+     */
+    public List<PayloadReaper> drain() {
+        return drain(Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the due time of the next live entry, or -1 if the queue is empty
+     */
+    public long nextDueTime() {
+        synchronized (schedule) {
+            Entry entry;
+            while ((entry = schedule.peek()) != null) {
+                if (index.get(entry.reaper.getUuid()) == entry) {
+                    return entry.dueTime;
+                }
+                schedule.poll();
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    public void clear() {
+        synchronized (schedule) {
+            index.clear();
+            schedule.clear();
+        }
+    }
+}
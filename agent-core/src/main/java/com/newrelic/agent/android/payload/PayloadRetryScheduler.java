@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.payload;
+
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.util.Util;
+
+import java.net.HttpURLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the health of each upload destination and decides when a failed payload may be retried.
+ * <p>
+ * Each destination (collector host and path) keeps its own backoff and circuit breaker:
+ * <ul>
+ * <li>Delays grow exponentially from {@link #BASE_BACKOFF_MS} up to {@link #MAX_BACKOFF_MS}, with
+ * full jitter applied so devices throttled at the same time do not retry in lockstep.</li>
+ * <li>A server-provided Retry-After is honored as the minimum delay.</li>
+ * <li>After {@link #CIRCUIT_BREAKER_THRESHOLD} consecutive failures the circuit opens, and once the backoff
+ * expires only a single probe request is allowed through until the destination responds again. A probe
+ * that hasn't completed within {@link #PROBE_TIMEOUT_MS} is abandoned, and another is allowed.</li>
+ * <li>Connectivity loss (no response code) is retried after a jittered base delay, without penalizing the destination.</li>
+ * </ul>
+ */
+public class PayloadRetryScheduler {
+    protected static final AgentLog log = AgentLogManager.getAgentLog();
+
+    public static final long MIN_BACKOFF_MS = 1000;                         // 1 second
+    public static final long BASE_BACKOFF_MS = 15 * 1000;                   // 15 seconds
+    public static final long MAX_BACKOFF_MS = 30 * 60 * 1000;               // 30 minutes
+    public static final long MAX_RETRY_AFTER_MS = 60 * 60 * 1000;           // 1 hour
+    public static final int CIRCUIT_BREAKER_THRESHOLD = 5;
+    public static final long PROBE_TIMEOUT_MS = 2 * 60 * 1000;              // 2 minutes
+
+    static final int HTTP_TOO_MANY_REQUESTS = 429;  // not defined by HttpURLConnection
+
+    enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    static class Destination {
+        final String name;
+        int consecutiveFailures = 0;
+        long nextAttemptTime = 0;
+        long probeTime = 0;
+        CircuitState state = CircuitState.CLOSED;
+
+        Destination(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+
+    /**
+     * Returns true if a request to the destination may be sent now. When an open circuit has
+     * cooled down, the first caller is granted the (single) half-open probe, so this should only
+     * be called when the request is about to be sent.
+     */
+    public boolean allowRequest(final String destinationName) {
+        final Destination destination = destinations.get(destinationName);
+
+        if (destination == null) {
+            return true;
+        }
+
+        synchronized (destination) {
+            if (!isAvailable(destination)) {
+                return false;
+            }
+
+            if (destination.state != CircuitState.CLOSED) {
+                if (destination.state == CircuitState.HALF_OPEN) {
+                    log.debug("PayloadRetryScheduler: Probe of destination [" + destinationName + "] timed out");
+                }
+                destination.state = CircuitState.HALF_OPEN;
+                destination.probeTime = now();
+                log.debug("PayloadRetryScheduler: Probing destination [" + destinationName + "]");
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Returns true if a request to the destination would be allowed now. Unlike
+     * {@link #allowRequest(String)}, this doesn't claim the half-open probe.
+     */
+    public boolean isAvailable(final String destinationName) {
+        final Destination destination = destinations.get(destinationName);
+
+        if (destination == null) {
+            return true;
+        }
+
+        synchronized (destination) {
+            return isAvailable(destination);
+        }
+    }
+
+    private boolean isAvailable(final Destination destination) {
+        if (now() < destination.nextAttemptTime) {
+            return false;
+        }
+
+        // a probe is already in flight, unless it has been abandoned
+        return destination.state != CircuitState.HALF_OPEN || now() - destination.probeTime >= PROBE_TIMEOUT_MS;
+    }
+
+    /**
+     * Returns the earliest time (in millis) a request to the destination will be considered.
+     */
+    public long nextAttemptTime(final String destinationName) {
+        final Destination destination = destinations.get(destinationName);
+
+        if (destination == null) {
+            return 0;
+        }
+
+        synchronized (destination) {
+            if (destination.state == CircuitState.HALF_OPEN) {
+                // wait at least one base period for the probe to resolve
+                return Math.max(destination.nextAttemptTime, now() + BASE_BACKOFF_MS);
+            }
+            return destination.nextAttemptTime;
+        }
+    }
+
+    /**
+     * Record a completed request. Returns the time (in millis) after which the payload may be retried,
+     * or 0 if the destination responded.
+     */
+    public long onResponse(final String destinationName, final int responseCode, final long retryAfterMs) {
+        if (isDestinationFailure(responseCode)) {
+            return onFailure(destinationName, responseCode, retryAfterMs);
+        }
+
+        onSuccess(destinationName);
+
+        return 0;
+    }
+
+    void onSuccess(final String destinationName) {
+        final Destination destination = destinations.remove(destinationName);
+
+        if (destination != null && destination.state != CircuitState.CLOSED) {
+            log.debug("PayloadRetryScheduler: Destination [" + destinationName + "] has recovered");
+            StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_PAYLOAD_CIRCUIT_CLOSED);
+        }
+    }
+
+    long onFailure(final String destinationName, final int responseCode, final long retryAfterMs) {
+        if (responseCode <= 0) {
+            return onConnectivityLoss(destinationName);
+        }
+
+        final Destination destination = getDestination(destinationName);
+
+        synchronized (destination) {
+            destination.consecutiveFailures++;
+
+            long delay = jitter(getBackoffCeiling(destination.consecutiveFailures));
+
+            if (responseCode == HTTP_TOO_MANY_REQUESTS) {
+                StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_PAYLOAD_THROTTLED);
+            }
+
+            if (retryAfterMs > 0) {
+                StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_PAYLOAD_RETRY_AFTER);
+                delay = Math.max(delay, Math.min(retryAfterMs, MAX_RETRY_AFTER_MS));
+            }
+
+            if (destination.state == CircuitState.HALF_OPEN ||
+                    destination.consecutiveFailures >= CIRCUIT_BREAKER_THRESHOLD) {
+                if (destination.state == CircuitState.CLOSED) {
+                    log.warn("PayloadRetryScheduler: Destination [" + destinationName + "] has failed " +
+                            destination.consecutiveFailures + " times. Uploads are suspended for " + delay + "ms");
+                    StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_PAYLOAD_CIRCUIT_OPEN);
+                }
+                destination.state = CircuitState.OPEN;
+            }
+
+            destination.nextAttemptTime = now() + delay;
+            StatsEngine.SUPPORTABILITY.sample(MetricNames.SUPPORTABILITY_PAYLOAD_RETRY_DELAY, delay);
+
+            return destination.nextAttemptTime;
+        }
+    }
+
+    /**
+     * The request never reached the destination, so it isn't penalized. The payload
+     * is retried after a jittered base delay.
+     */
+    long onConnectivityLoss(final String destinationName) {
+        final long retryTime = now() + jitter(BASE_BACKOFF_MS);
+        final Destination destination = destinations.get(destinationName);
+
+        if (destination != null) {
+            synchronized (destination) {
+                if (destination.state == CircuitState.HALF_OPEN) {
+                    // the probe was never answered, so allow another one
+                    destination.state = CircuitState.OPEN;
+                    destination.nextAttemptTime = retryTime;
+                }
+                return Math.max(retryTime, destination.nextAttemptTime);
+            }
+        }
+
+        return retryTime;
+    }
+
+    /**
+     * Return the most recent circuit state for the destination
+     */
+    CircuitState getCircuitState(final String destinationName) {
+        final Destination destination = destinations.get(destinationName);
+        return destination == null ? CircuitState.CLOSED : destination.state;
+    }
+
+    public void reset() {
+        destinations.clear();
+    }
+
+    /**
+     * Timeouts, throttling, server errors and connectivity loss indicate the destination
+     * should be backed off. Any other response means it is reachable and healthy.
+     */
+    static boolean isDestinationFailure(final int responseCode) {
+        return responseCode <= 0 ||
+                responseCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT ||
+                responseCode == HTTP_TOO_MANY_REQUESTS ||
+                responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+    }
+
+    static long getBackoffCeiling(final int attempts) {
+        final int exponent = Math.max(0, Math.min(attempts - 1, 16));
+        return Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << exponent);
+    }
+
+    /**
+     * Full jitter: a uniformly random delay in [0, ceiling), floored at {@link #MIN_BACKOFF_MS}
+     * so a retry never lands immediately after the failure.
+     */
+    static long jitter(final long ceiling) {
+        return Math.max(MIN_BACKOFF_MS, (long) (Util.getRandom().nextDouble() * ceiling));
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    private Destination getDestination(final String destinationName) {
+        Destination destination = destinations.get(destinationName);
+        if (destination == null) {
+            destinations.putIfAbsent(destinationName, new Destination(destinationName));
+            destination = destinations.get(destinationName);
+        }
+        return destination;
+    }
+
+}
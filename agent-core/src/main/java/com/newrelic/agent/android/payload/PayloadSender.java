@@ -6,9 +6,11 @@
 package com.newrelic.agent.android.payload;
 
 import static com.newrelic.agent.android.util.Constants.Network.CONTENT_LENGTH_HEADER;
+import static com.newrelic.agent.android.util.Constants.Network.RETRY_AFTER_HEADER;
 
 import com.newrelic.agent.android.Agent;
 import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.harvest.Harvest;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
 import com.newrelic.agent.android.metric.MetricNames;
@@ -23,22 +25,31 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HttpsURLConnection;
 
 public abstract class PayloadSender implements Callable<PayloadSender> {
     protected static final AgentLog log = AgentLogManager.getAgentLog();
 
+    static final int STREAMING_BUFFER_SIZE = 8 * 1024;
+
     protected Payload payload;
     protected final AgentConfiguration agentConfiguration;
     protected final TicToc timer;
     protected int responseCode;
+    protected long retryAfter;
 
     public PayloadSender(AgentConfiguration agentConfiguration) {
         this.agentConfiguration = agentConfiguration;
         this.timer = new TicToc().tic();
         this.responseCode = 0;
+        this.retryAfter = 0;
     }
 
     public PayloadSender(Payload payload, AgentConfiguration agentConfiguration) {
@@ -56,7 +67,7 @@ public abstract class PayloadSender implements Callable<PayloadSender> {
     }
 
     public int getPayloadSize() {
-        return payload.getBytes().length;
+        return (int) Math.min(Integer.MAX_VALUE, payload.size());
     }
 
     public void setPayload(byte[] payloadBytes) {
@@ -122,23 +133,31 @@ public abstract class PayloadSender implements Callable<PayloadSender> {
     @SuppressWarnings("NewApi")
     public PayloadSender call() throws Exception {
         try {
-            byte[] payloadBytes = getPayload().getBytes();
+            final Payload payload = getPayload();
             final HttpURLConnection connection = getConnection();
 
 
             try {
                 timer.tic();
+                if (connection.getDoOutput()) {
+                    setStreamingMode(connection, payload.contentLength());
+                }
                 connection.connect();
                 if (connection.getDoOutput()) {
-                    try (final OutputStream out = new BufferedOutputStream(connection.getOutputStream())) {
-                        out.write(payloadBytes);
+                    // stream the payload into the request rather than staging it in memory
+                    try (final OutputStream out = new BufferedOutputStream(connection.getOutputStream(), STREAMING_BUFFER_SIZE)) {
+                        payload.writeTo(out);
                         out.flush();
                     }
                 }
 
                 responseCode = connection.getResponseCode();
+                retryAfter = parseRetryAfter(connection.getHeaderField(RETRY_AFTER_HEADER));
                 onRequestResponse(connection);
 
+                // the radio is awake now, which a pending harvest may use
+                Harvest.onAgentUpload();
+
             } catch (Exception e) {
                 onRequestException(e);
             } finally {
@@ -154,6 +173,23 @@ public abstract class PayloadSender implements Callable<PayloadSender> {
         return this;
     }
 
+    /**
+     * Payloads of known length are sent in fixed-length streaming mode, others are sent chunked.
+     * Either way the connection won't buffer the request body internally.
+     */
+    @SuppressWarnings("NewApi")
+    protected void setStreamingMode(HttpURLConnection connection, long contentLength) {
+        try {
+            if (contentLength >= 0) {
+                connection.setFixedLengthStreamingMode(contentLength);
+            } else {
+                connection.setChunkedStreamingMode(STREAMING_BUFFER_SIZE);
+            }
+        } catch (IllegalStateException e) {
+            log.debug("PayloadSender: Unable to set streaming mode: " + e);
+        }
+    }
+
     protected String getProtocol() {
         // unencrypted http no longer supported as of 09/24/2021
         return "https://";
@@ -163,6 +199,40 @@ public abstract class PayloadSender implements Callable<PayloadSender> {
         return responseCode;
     }
 
+    /**
+     * Returns the delay (in millis) requested by the collector's Retry-After header
+     * on the last response, or 0 if none was provided.
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Parse a Retry-After header value, expressed as either delay-seconds or an HTTP-date.
+     *
+     * @return The delay in millis, or 0 if the value is missing or malformed
+     */
+    static long parseRetryAfter(String headerValue) {
+        if (headerValue == null || headerValue.trim().isEmpty()) {
+            return 0;
+        }
+
+        headerValue = headerValue.trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(headerValue)));
+        } catch (NumberFormatException e) {
+            try {
+                final SimpleDateFormat httpDate = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+                final Date date = httpDate.parse(headerValue);
+                return date == null ? 0 : Math.max(0, date.getTime() - System.currentTimeMillis());
+            } catch (ParseException ex) {
+                log.debug("PayloadSender: Ignoring malformed Retry-After value [" + headerValue + "]");
+            }
+        }
+
+        return 0;
+    }
+
     /**
      * Converts the contents of an InputStream to a String.
      */
@@ -213,6 +283,37 @@ public abstract class PayloadSender implements Callable<PayloadSender> {
         return URI.create(getProtocol() + agentConfiguration.getCollectorHost());
     }
 
+    /**
+     * The upload destination (collector host and path) used to track backoff and circuit state.
+     */
+    public String getDestination() {
+        try {
+            final URI uri = getCollectorURI();
+            return uri.getHost() + uri.getPath();
+        } catch (Exception e) {
+            return getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Determines the order in which queued and retried payloads are uploaded.
+     */
+    public Priority getPriority() {
+        return Priority.DEFAULT;
+    }
+
+    /**
+     * Upload priority, highest first.
+     */
+    public enum Priority {
+        CRASH,
+        HANDLED_EXCEPTION,
+        DEFAULT,
+        SESSION_REPLAY,
+        LOG_DATA,
+        OFFLINE_DATA
+    }
+
     public interface CompletionHandler {
         default void onResponse(PayloadSender payloadSender) {
         }
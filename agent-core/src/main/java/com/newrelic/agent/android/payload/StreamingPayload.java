@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.payload;
+
+import com.newrelic.agent.android.logging.AgentLogManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * StreamingPayload is an implementation of Payload whose data is produced by a {@link BodyWriter}
+ * at the time it is sent, rather than held as bytes. The writer encodes directly into the
+ * connection's output stream, so large payloads are never materialized in the heap.
+ * <p>
+ * If the content length is known in advance the payload is sent in fixed-length streaming mode,
+ * otherwise it is sent chunked. The size of the payload is known once it has been written.
+ * <p>
+ * A payload of unknown length may be given a buffer limit. Its data is then written into memory
+ * when its length is first requested, and sent with a fixed length from that buffer, provided it
+ * is no larger than the limit. Larger payloads are streamed as above.
+ * <p>
+ * Requests to getBytes() will run the writer into a memory buffer, and should be avoided.
+ * Streaming payloads are not persisted.
+ */
+public class StreamingPayload extends Payload {
+
+    public interface BodyWriter {
+        /**
+         * Write the payload data to the passed stream. Closing the stream is allowed,
+         * but does not close the underlying connection stream.
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    protected transient BodyWriter bodyWriter;
+    protected long contentLength;
+    protected long bytesWritten;
+    protected final int bufferLimit;
+    protected transient byte[] buffer;
+    protected transient boolean bufferExceeded;     // once too large to buffer, always streamed
+
+    public StreamingPayload(BodyWriter bodyWriter) {
+        this(bodyWriter, -1);
+    }
+
+    public StreamingPayload(BodyWriter bodyWriter, long contentLength) {
+        this(bodyWriter, contentLength, 0);
+    }
+
+    public StreamingPayload(BodyWriter bodyWriter, long contentLength, int bufferLimit) {
+        super();
+        this.bodyWriter = bodyWriter;
+        this.contentLength = contentLength;
+        this.bufferLimit = bufferLimit;
+        this.bytesWritten = 0;
+        this.isPersistable = false;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        final byte[] buffered = buffer;
+        if (buffered != null) {
+            // the buffer is sent once: a retry writes the data again, as it may have changed
+            buffer = null;
+            out.write(buffered);
+            bytesWritten = buffered.length;
+            return;
+        }
+
+        final CountingOutputStream countingOut = new CountingOutputStream(out);
+        bodyWriter.writeTo(countingOut);
+        bytesWritten = countingOut.count;
+    }
+
+    /**
+     * Determine the content length by running the writer into a counting sink. Nothing is buffered,
+     * but the payload data is produced twice, so use this only when the size must be known in advance.
+     *
+     * @return The number of bytes the payload will write
+     */
+    public long measure() throws IOException {
+        final CountingOutputStream countingOut = new CountingOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+
+        bodyWriter.writeTo(countingOut);
+        contentLength = countingOut.count;
+
+        return contentLength;
+    }
+
+    /**
+     * Return the payload data by running the writer into memory.
+     *
+     * @return Byte array containing the payload data, an empty array on failure
+     */
+    @Override
+    public byte[] getBytes() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : 1024);
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            AgentLogManager.getAgentLog().error("StreamingPayload: failed to write payload. " + e);
+        }
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public void putBytes(final byte[] payloadBytes) {
+        this.bodyWriter = out -> out.write(payloadBytes);
+        this.contentLength = payloadBytes.length;
+        this.buffer = null;
+    }
+
+    @Override
+    public long contentLength() {
+        if (contentLength < 0 && bufferLimit > 0) {
+            if (buffer == null && !bufferExceeded) {
+                buffer = writeToBuffer();
+            }
+            if (buffer != null) {
+                return buffer.length;
+            }
+        }
+
+        return contentLength;
+    }
+
+    /**
+     * Returns the content length if known, otherwise the number of bytes written by the last upload
+     */
+    @Override
+    public long size() {
+        final long length = contentLength();
+        return length >= 0 ? length : bytesWritten;
+    }
+
+    /**
+     * Run the writer into a buffer of at most {@code bufferLimit} bytes.
+     *
+     * @return The payload data, or null if it is larger than the limit or could not be written
+     */
+    private byte[] writeToBuffer() {
+        final BoundedOutputStream out = new BoundedOutputStream(bufferLimit);
+        try {
+            bodyWriter.writeTo(out);
+            return out.toByteArray();
+        } catch (Exception e) {
+            // writers may wrap the exception (Gson does), so check the stream
+            if (out.limitExceeded) {
+                bufferExceeded = true;
+            } else {
+                AgentLogManager.getAgentLog().error("StreamingPayload: failed to buffer payload. " + e);
+            }
+        }
+
+        return null;
+    }
+
+    static class CountingOutputStream extends FilterOutputStream {
+        long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the caller owns the underlying stream
+            flush();
+        }
+    }
+
+    static class BoundedOutputStream extends OutputStream {
+        private final ByteArrayOutputStream buffer;
+        private final int limit;
+        boolean limitExceeded = false;
+
+        BoundedOutputStream(int limit) {
+            this.buffer = new ByteArrayOutputStream(Math.min(limit, 8192));
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureCapacity(1);
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureCapacity(len);
+            buffer.write(b, off, len);
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+
+        private void ensureCapacity(int len) throws IOException {
+            if (buffer.size() + len > limit) {
+                limitExceeded = true;
+                throw new IOException("Payload exceeds the buffer limit of " + limit + " bytes");
+            }
+        }
+    }
+}
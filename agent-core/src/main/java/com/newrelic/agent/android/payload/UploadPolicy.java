@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.payload;
+
+import com.newrelic.agent.android.Agent;
+import com.newrelic.agent.android.FeatureFlag;
+import com.newrelic.agent.android.api.common.WanType;
+
+/**
+ * Decides when payloads are worth the cost of the current network, when the
+ * {@link FeatureFlag#NetworkAwareUploads} feature is enabled.
+ * <p>
+ * The network is classified from the WAN type and reachability reported by the agent:
+ * <ul>
+ * <li>Unmetered (Wi-Fi, Ethernet, or unknown): nothing is held back.</li>
+ * <li>Metered (3G and faster cellular) and constrained (2G cellular): bulky, low priority payloads
+ * (session replay, logs and the offline harvest backlog) are deferred until the device is on an
+ * unmetered network, or until they are {@code maxDeferralAge} old. Other non-urgent payloads wait
+ * for the next harvest, rather than waking the radio on their own.</li>
+ * <li>Offline: bulky payloads are deferred, as above.</li>
+ * </ul>
+ * Crashes and handled exceptions are never held back.
+ */
+public class UploadPolicy {
+    public static final long DEFAULT_MAX_DEFERRAL_AGE_MS = 30 * 60 * 1000;     // 30 minutes
+    static final long NETWORK_REFRESH_MS = 15 * 1000;                           // 15 seconds
+
+    public enum NetworkClass {
+        UNMETERED,
+        METERED,
+        CONSTRAINED,
+        OFFLINE
+    }
+
+    private final long maxDeferralAge;
+    private NetworkClass networkClass = NetworkClass.UNMETERED;
+    private long networkCheckedAt = 0;
+
+    public UploadPolicy() {
+        this(DEFAULT_MAX_DEFERRAL_AGE_MS);
+    }
+
+    public UploadPolicy(long maxDeferralAge) {
+        this.maxDeferralAge = Math.max(0, maxDeferralAge);
+    }
+
+    public long getMaxDeferralAge() {
+        return maxDeferralAge;
+    }
+
+    /**
+     * Returns true if the payload is bulky and of low enough priority to wait for a better network
+     */
+    public static boolean isDeferrable(PayloadSender.Priority priority) {
+        return priority.compareTo(PayloadSender.Priority.SESSION_REPLAY) >= 0;
+    }
+
+    /**
+     * Returns true if a payload must be sent as soon as possible
+     */
+    public static boolean isUrgent(PayloadSender.Priority priority) {
+        return priority.compareTo(PayloadSender.Priority.DEFAULT) < 0;
+    }
+
+    /**
+     * Returns true if a payload with this priority, created at {@code timestamp} (in millis),
+     * should not be uploaded on the current network
+     */
+    public boolean shouldDefer(PayloadSender.Priority priority, long timestamp) {
+        if (!isEnabled() || !isDeferrable(priority)) {
+            return false;
+        }
+
+        return getNetworkClass() != NetworkClass.UNMETERED && !isOverdue(timestamp);
+    }
+
+    /**
+     * Returns true if a payload with this priority should wait for the next harvest,
+     * rather than being uploaded on its own
+     */
+    public boolean shouldBatch(PayloadSender.Priority priority) {
+        if (!isEnabled() || isUrgent(priority)) {
+            return false;
+        }
+
+        return getNetworkClass() != NetworkClass.UNMETERED;
+    }
+
+    /**
+     * Returns true if deferred payloads are being held on the current network
+     */
+    public boolean isDeferring() {
+        return isEnabled() && getNetworkClass() != NetworkClass.UNMETERED;
+    }
+
+    /**
+     * Returns the time (in millis) after which a payload created at {@code timestamp} is no longer deferred
+     */
+    public long deferredUntil(long timestamp) {
+        return timestamp + maxDeferralAge;
+    }
+
+    boolean isOverdue(long timestamp) {
+        return now() >= deferredUntil(timestamp);
+    }
+
+    boolean isEnabled() {
+        return FeatureFlag.featureEnabled(FeatureFlag.NetworkAwareUploads);
+    }
+
+    /**
+     * Returns the class of the current network. The WAN type requires IPC on Android, so it is
+     * only refreshed every {@link #NETWORK_REFRESH_MS}; reachability is tracked asynchronously,
+     * and is checked on every call.
+     */
+    public NetworkClass getNetworkClass() {
+        if (!Agent.hasReachableNetworkConnection(null)) {
+            return NetworkClass.OFFLINE;
+        }
+
+        synchronized (this) {
+            final long now = now();
+            if (networkCheckedAt == 0 || now - networkCheckedAt >= NETWORK_REFRESH_MS) {
+                networkClass = classify(Agent.getActiveNetworkWanType());
+                networkCheckedAt = now;
+            }
+            return networkClass;
+        }
+    }
+
+    static NetworkClass classify(final String wanType) {
+        if (wanType == null) {
+            return NetworkClass.UNMETERED;
+        }
+
+        switch (wanType) {
+            case WanType.NONE:
+                return NetworkClass.OFFLINE;
+
+            case WanType.GPRS:
+            case WanType.EDGE:
+            case WanType.CDMA:
+            case WanType.RTT:
+            case WanType.IDEN:
+                return NetworkClass.CONSTRAINED;
+
+            case WanType.EVDO_REV_0:
+            case WanType.EVDO_REV_A:
+            case WanType.EVDO_REV_B:
+            case WanType.HRPD:
+            case WanType.HSDPA:
+            case WanType.HSPA:
+            case WanType.HSPAP:
+            case WanType.HSUPA:
+            case WanType.UMTS:
+            case WanType.LTE:
+                return NetworkClass.METERED;
+
+            default:
+                // Wi-Fi, Ethernet, or unknown: fail open, as Reachability does
+                return NetworkClass.UNMETERED;
+        }
+    }
+
+    /**
+     * Force the network to be classified again on the next check
+     */
+    public synchronized void invalidate() {
+        networkCheckedAt = 0;
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+}
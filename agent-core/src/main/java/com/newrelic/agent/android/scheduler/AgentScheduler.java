@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.scheduler;
+
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.util.NamedThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A single agent-wide scheduler. Work from every subsystem runs on a small, fixed pool of worker threads,
+ * plus one timer thread that releases delayed and periodic tasks into their lanes.
+ * <p>
+ * Subsystems obtain a {@link java.util.concurrent.ScheduledExecutorService} for a {@link Lane} with {@link #newExecutor(Lane)}.
+ * Each executor keeps its own shutdown state and concurrency limit, so existing executor lifecycles are
+ * preserved, while the lanes bound the threads any one kind of work can occupy.
+ * <p>
+ * Queue time and queue depth are sampled per lane as supportability metrics.
+ */
+public class AgentScheduler {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    static final int DEFAULT_POOL_SIZE = 4;
+
+    private static final AtomicReference<AgentScheduler> instance = new AtomicReference<>(null);
+
+    private final int poolSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition taskAvailable = lock.newCondition();
+    private final ArrayDeque<LaneExecutor.LaneTask<?>>[] queues;
+    private final int[] running;
+    private final Lane[] lanesByPriority;
+    private final List<Thread> workers = new ArrayList<>();
+    private final ThreadFactory workerFactory = new NamedThreadFactory("AgentScheduler");
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadLocal<LaneExecutor.LaneTask<?>> currentTask = new ThreadLocal<>();
+    private int idleWorkers = 0;
+
+    public static AgentScheduler getInstance() {
+        AgentScheduler scheduler = instance.get();
+        if (scheduler == null) {
+            instance.compareAndSet(null, new AgentScheduler(DEFAULT_POOL_SIZE));
+            scheduler = instance.get();
+        }
+        return scheduler;
+    }
+
+    /**
+     * Create a serial executor in the given lane. Tasks submitted to it run one at a time, in order.
+     */
+    public static LaneExecutor newExecutor(Lane lane) {
+        return newExecutor(lane, 1);
+    }
+
+    /**
+     * Create an executor in the given lane that runs up to maxConcurrency tasks at once.
+     * The lane's own limit still applies.
+     */
+    public static LaneExecutor newExecutor(Lane lane, int maxConcurrency) {
+        return new LaneExecutor(getInstance(), lane, maxConcurrency);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    AgentScheduler(int poolSize) {
+        this.poolSize = Math.max(1, poolSize);
+        this.queues = new ArrayDeque[Lane.values().length];
+        this.running = new int[Lane.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+
+        this.lanesByPriority = Lane.values().clone();
+        Arrays.sort(lanesByPriority, (lhs, rhs) -> Integer.compare(rhs.getPriority(), lhs.getPriority()));
+
+        this.timer = new ScheduledThreadPoolExecutor(1, daemon(new NamedThreadFactory("AgentScheduler-Timer")));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * @return the number of tasks waiting in the lane
+     */
+    public int getQueueDepth(Lane lane) {
+        lock.lock();
+        try {
+            return queues[lane.ordinal()].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of tasks running in the lane
+     */
+    public int getRunningCount(Lane lane) {
+        lock.lock();
+        try {
+            return running[lane.ordinal()];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWorkerCount() {
+        lock.lock();
+        try {
+            return workers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ScheduledFuture<?> schedule(Runnable release, long delayNanos) {
+        return timer.schedule(release, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+    }
+
+    void enqueue(LaneExecutor.LaneTask<?> task) {
+        final Lane lane = task.getLane();
+        final int depth;
+
+        lock.lock();
+        try {
+            final ArrayDeque<LaneExecutor.LaneTask<?>> queue = queues[lane.ordinal()];
+            task.enqueueTimeNanos = System.nanoTime();
+            queue.add(task);
+            depth = queue.size();
+
+            if (idleWorkers > 0) {
+                taskAvailable.signal();
+            } else if (workers.size() < poolSize) {
+                startWorker();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        StatsEngine.SUPPORTABILITY.sample(lane.queueDepthMetric, depth);
+    }
+
+    boolean remove(LaneExecutor.LaneTask<?> task) {
+        lock.lock();
+        try {
+            return queues[task.getLane().ordinal()].remove(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run a queued task on the calling worker, which is about to wait on it and would otherwise hold
+     * a worker the task may need. The task only runs if it is next in line: nothing of its executor
+     * is running, it is at the head of its executor's queued tasks, and its lane has a free slot
+     * (or is the waiting task's lane, whose slot it borrows). Otherwise the caller should wait.
+     *
+     * @return true if the task was run
+     */
+    boolean runInline(LaneExecutor.LaneTask<?> task) {
+        final LaneExecutor.LaneTask<?> waiting = currentTask.get();
+        if (waiting == null) {
+            return false;   // not called from a worker
+        }
+
+        final Lane lane = task.getLane();
+        final LaneExecutor executor = task.getExecutor();
+
+        lock.lock();
+        try {
+            if (executor.running > 0) {
+                return false;
+            }
+            if (running[lane.ordinal()] >= lane.getMaxConcurrency() && waiting.getLane() != lane) {
+                return false;
+            }
+            if (!isNext(task)) {
+                return false;
+            }
+            queues[lane.ordinal()].remove(task);
+            running[lane.ordinal()]++;
+            executor.running++;
+        } finally {
+            lock.unlock();
+        }
+
+        runTask(task);
+
+        return true;
+    }
+
+    /**
+     * @return true if the task is the first queued task of its executor. Called with the lock held.
+     */
+    private boolean isNext(LaneExecutor.LaneTask<?> task) {
+        for (LaneExecutor.LaneTask<?> queued : queues[task.getLane().ordinal()]) {
+            if (queued.getExecutor() == task.getExecutor()) {
+                return queued == task;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all queued tasks belonging to an executor.
+     */
+    List<Runnable> drain(LaneExecutor executor) {
+        final List<Runnable> drained = new ArrayList<>();
+
+        lock.lock();
+        try {
+            final Iterator<LaneExecutor.LaneTask<?>> it = queues[executor.getLane().ordinal()].iterator();
+            while (it.hasNext()) {
+                final LaneExecutor.LaneTask<?> task = it.next();
+                if (task.getExecutor() == executor) {
+                    it.remove();
+                    drained.add(task);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return drained;
+    }
+
+    /**
+     * Find the first runnable task, highest priority lane first. A task is runnable when neither
+     * its lane nor its executor is at their concurrency limit. Called with the lock held.
+     */
+    private LaneExecutor.LaneTask<?> nextTask() {
+        for (Lane lane : lanesByPriority) {
+            final ArrayDeque<LaneExecutor.LaneTask<?>> queue = queues[lane.ordinal()];
+
+            if (queue.isEmpty() || running[lane.ordinal()] >= lane.getMaxConcurrency()) {
+                continue;
+            }
+
+            final Iterator<LaneExecutor.LaneTask<?>> it = queue.iterator();
+            while (it.hasNext()) {
+                final LaneExecutor.LaneTask<?> task = it.next();
+                final LaneExecutor executor = task.getExecutor();
+
+                if (executor.running < executor.getMaxConcurrency()) {
+                    it.remove();
+                    running[lane.ordinal()]++;
+                    executor.running++;
+                    return task;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private void startWorker() {
+        final Thread worker = daemon(workerFactory).newThread(this::runWorker);
+        workers.add(worker);
+        worker.start();
+    }
+
+    private void runWorker() {
+        while (true) {
+            final LaneExecutor.LaneTask<?> task;
+
+            lock.lock();
+            try {
+                LaneExecutor.LaneTask<?> next = nextTask();
+                while (next == null) {
+                    idleWorkers++;
+                    try {
+                        taskAvailable.awaitUninterruptibly();
+                    } finally {
+                        idleWorkers--;
+                    }
+                    next = nextTask();
+                }
+                task = next;
+            } finally {
+                lock.unlock();
+            }
+
+            runTask(task);
+
+            // clear any interrupt raised by the task before taking the next one
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Run a task claimed from its queue, then release its lane and executor slots.
+     */
+    private void runTask(LaneExecutor.LaneTask<?> task) {
+        final Lane lane = task.getLane();
+        final LaneExecutor.LaneTask<?> waiting = currentTask.get();
+
+        StatsEngine.SUPPORTABILITY.sampleTimeMs(lane.queueTimeMetric,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.enqueueTimeNanos));
+
+        currentTask.set(task);
+        try {
+            task.run();
+        } catch (Throwable e) {
+            log.error("AgentScheduler: task in lane [" + lane.getLaneName() + "] failed: " + e);
+        } finally {
+            currentTask.set(waiting);
+
+            lock.lock();
+            try {
+                running[lane.ordinal()]--;
+                task.getExecutor().running--;
+
+                // a freed lane slot may make a queued task runnable for a waiting worker
+                if (idleWorkers > 0) {
+                    taskAvailable.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+            task.getExecutor().onTaskComplete();
+        }
+    }
+
+    private static ThreadFactory daemon(ThreadFactory factory) {
+        return runnable -> {
+            final Thread thread = factory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.scheduler;
+
+import com.newrelic.agent.android.metric.MetricNames;
+
+/**
+ * Task lanes of the {@link AgentScheduler}. When workers are contended, queued tasks in higher
+ * priority lanes run first. No lane runs more than maxConcurrency tasks at once, however many
+ * workers are idle.
+ */
+public enum Lane {
+    HARVEST("Harvest", 10, 1),
+    HARVEST_LISTENERS("HarvestListeners", 9, 2),
+    LIFECYCLE("Lifecycle", 8, 1),
+    TASK_QUEUE("TaskQueue", 7, 1),
+    MEASUREMENT("Measurement", 6, 2),
+    STORAGE("Storage", 5, 1),
+    LOGS("Logs", 4, 2),
+    SESSION_REPLAY("SessionReplay", 3, 2),
+    SAMPLER("Sampler", 2, 1),
+    BACKGROUND("Background", 1, 1);
+
+    private final String laneName;
+    private final int priority;
+    private final int maxConcurrency;
+
+    // metric names are built once rather than per task
+    final String queueTimeMetric;
+    final String queueDepthMetric;
+
+    Lane(String laneName, int priority, int maxConcurrency) {
+        this.laneName = laneName;
+        this.priority = priority;
+        this.maxConcurrency = maxConcurrency;
+        this.queueTimeMetric = MetricNames.SUPPORTABILITY_SCHEDULER_QUEUE_TIME.replace(MetricNames.TAG_NAME, laneName);
+        this.queueDepthMetric = MetricNames.SUPPORTABILITY_SCHEDULER_QUEUE_DEPTH.replace(MetricNames.TAG_NAME, laneName);
+    }
+
+    public String getLaneName() {
+        return laneName;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+}
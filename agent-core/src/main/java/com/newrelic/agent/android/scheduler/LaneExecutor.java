@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ScheduledExecutorService} backed by one lane of the {@link AgentScheduler}. Shutting
+ * down the executor only affects tasks submitted through it.
+ * <p>
+ * As with {@link java.util.concurrent.ScheduledThreadPoolExecutor}, periodic tasks are cancelled
+ * on shutdown while delayed one-shot tasks still run, and a periodic task is suppressed once
+ * a run throws.
+ */
+public class LaneExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final AgentScheduler scheduler;
+    private final Lane lane;
+    private final int maxConcurrency;
+    private final AtomicInteger outstanding = new AtomicInteger(0);
+    private final Set<ScheduledLaneTask<?>> delayed = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown = false;
+
+    // guarded by the scheduler lock
+    int running = 0;
+
+    LaneExecutor(AgentScheduler scheduler, Lane lane, int maxConcurrency) {
+        this.scheduler = scheduler;
+        this.lane = lane;
+        this.maxConcurrency = Math.max(1, Math.min(maxConcurrency, lane.getMaxConcurrency()));
+    }
+
+    Lane getLane() {
+        return lane;
+    }
+
+    int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return the number of tasks queued or running, not counting delayed tasks that are not yet due
+     */
+    public int getPendingTaskCount() {
+        return outstanding.get();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+
+        final LaneTask<?> task;
+        if (command instanceof LaneTask && ((LaneTask<?>) command).getExecutor() == this) {
+            task = (LaneTask<?>) command;
+        } else {
+            task = new LaneTask<Void>(command, null);
+        }
+
+        enqueue(task);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new LaneTask<>(runnable, value);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new LaneTask<>(callable);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return schedule(new ScheduledLaneTask<Void>(Executors.callable(command, null), unit.toNanos(delay), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return schedule(new ScheduledLaneTask<>(callable, unit.toNanos(delay), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return schedule(new ScheduledLaneTask<Void>(Executors.callable(command, null), unit.toNanos(initialDelay), unit.toNanos(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return schedule(new ScheduledLaneTask<Void>(Executors.callable(command, null), unit.toNanos(initialDelay), -unit.toNanos(delay)));
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (ScheduledLaneTask<?> task : delayed) {
+            if (task.isPeriodic()) {
+                task.cancel(false);
+            }
+        }
+        signalIfTerminated();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+
+        final List<Runnable> pending = new ArrayList<>(scheduler.drain(this));
+        for (Runnable task : pending) {
+            ((LaneTask<?>) task).cancel(false);
+            outstanding.decrementAndGet();
+        }
+        for (ScheduledLaneTask<?> task : delayed) {
+            task.cancel(false);
+            pending.add(task);
+        }
+        signalIfTerminated();
+
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && outstanding.get() == 0 && delayed.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        synchronized (outstanding) {
+            while (!isTerminated()) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(outstanding, remaining);
+            }
+        }
+
+        return true;
+    }
+
+    private <V> ScheduledFuture<V> schedule(ScheduledLaneTask<V> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor for lane [" + lane.getLaneName() + "] has been shut down");
+        }
+        task.release(task.delayNanos);
+        return task;
+    }
+
+    private void enqueue(LaneTask<?> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor for lane [" + lane.getLaneName() + "] has been shut down");
+        }
+        outstanding.incrementAndGet();
+        scheduler.enqueue(task);
+    }
+
+    void onTaskComplete() {
+        outstanding.decrementAndGet();
+        signalIfTerminated();
+    }
+
+    private void signalIfTerminated() {
+        if (shutdown) {
+            synchronized (outstanding) {
+                outstanding.notifyAll();
+            }
+        }
+    }
+
+    class LaneTask<V> extends FutureTask<V> {
+        // set by the scheduler under its lock
+        long enqueueTimeNanos;
+
+        LaneTask(Callable<V> callable) {
+            super(callable);
+        }
+
+        LaneTask(Runnable runnable, V result) {
+            super(runnable, result);
+        }
+
+        LaneExecutor getExecutor() {
+            return LaneExecutor.this;
+        }
+
+        Lane getLane() {
+            return lane;
+        }
+
+        /**
+         * A worker that waits on a task still queued behind it would hold a worker the task may
+         * need. Run the task on the waiting worker instead, if it is next in line to run.
+         */
+        void runIfQueued() {
+            if (!isDone()) {
+                scheduler.runInline(this);
+            }
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            runIfQueued();
+            return super.get();
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            runIfQueued();
+            return super.get(timeout, unit);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && scheduler.remove(this)) {
+                onTaskComplete();
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * A delayed or periodic task. The scheduler's timer releases the task into its lane when due.
+     * Periodic tasks are released again once a run completes, so runs never overlap.
+     */
+    class ScheduledLaneTask<V> extends LaneTask<V> implements RunnableScheduledFuture<V> {
+        final long delayNanos;
+
+        // > 0 for a fixed rate, < 0 for a fixed delay, 0 for a one-shot task
+        private final long period;
+        private volatile long dueTimeNanos;
+        private volatile ScheduledFuture<?> release;
+
+        ScheduledLaneTask(Callable<V> callable, long delayNanos, long period) {
+            super(callable);
+            this.delayNanos = delayNanos;
+            this.period = period;
+        }
+
+        void release(long delay) {
+            dueTimeNanos = System.nanoTime() + delay;
+            delayed.add(this);
+            release = scheduler.schedule(() -> {
+                if (isCancelled()) {
+                    delayed.remove(this);
+                    signalIfTerminated();
+                    return;
+                }
+
+                // count the task as outstanding before it leaves the delayed set,
+                // so the executor never appears terminated in between
+                outstanding.incrementAndGet();
+                delayed.remove(this);
+                scheduler.enqueue(this);
+            }, delay);
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset() && !isShutdown()) {
+                if (period > 0) {
+                    dueTimeNanos += period;
+                    release(dueTimeNanos - System.nanoTime());
+                } else {
+                    release(-period);
+                }
+            }
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueTimeNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                final ScheduledFuture<?> pending = release;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                delayed.remove(this);
+                signalIfTerminated();
+            }
+            return cancelled;
+        }
+    }
+}
@@ -51,6 +51,26 @@ public class SessionReplayLocalConfiguration {
      */
     private Set<String> unmaskedViewTags;
 
+    /**
+     * Minimum time between recorded touch move samples, in milliseconds
+     */
+    private long touchMoveIntervalMs;
+
+    /**
+     * Minimum distance between recorded touch move samples, in dp
+     */
+    private float touchMoveDistance;
+
+    /**
+     * Largest deviation, in dp, allowed when simplifying a touch move path
+     */
+    private float touchPathTolerance;
+
+    /**
+     * Maximum number of move positions recorded per touch gesture
+     */
+    private int maxTouchMovePositions;
+
     /**
      * Default constructor with default values
      */
@@ -63,6 +83,10 @@ public class SessionReplayLocalConfiguration {
         this.unmaskedViewTags = new HashSet<>();
         this.maskApplicationText = false;
         this.maskUserInputText = false;
+        this.touchMoveIntervalMs = TouchPath.DEFAULT_MOVE_INTERVAL_MS;
+        this.touchMoveDistance = TouchPath.DEFAULT_MOVE_DISTANCE;
+        this.touchPathTolerance = TouchPath.DEFAULT_PATH_TOLERANCE;
+        this.maxTouchMovePositions = TouchPath.DEFAULT_MAX_POSITIONS;
     }
 
 
@@ -251,5 +275,79 @@ public class SessionReplayLocalConfiguration {
         return maskUserInputText;
     }
 
+    /**
+     * Gets the minimum time between recorded touch move samples.
+     *
+     * @return The interval in milliseconds, or 0 if moves are not decimated by time
+     */
+    public long getTouchMoveIntervalMs() {
+        return touchMoveIntervalMs;
+    }
+
+    /**
+     * Sets the minimum time between recorded touch move samples. Samples that arrive sooner
+     * after the last recorded one are dropped.
+     *
+     * @param touchMoveIntervalMs The interval in milliseconds, or 0 to keep every sample
+     */
+    public void setTouchMoveIntervalMs(long touchMoveIntervalMs) {
+        this.touchMoveIntervalMs = touchMoveIntervalMs;
+    }
+
+    /**
+     * Gets the minimum distance between recorded touch move samples.
+     *
+     * @return The distance in dp, or 0 if moves are not decimated by distance
+     */
+    public float getTouchMoveDistance() {
+        return touchMoveDistance;
+    }
+
+    /**
+     * Sets the minimum distance between recorded touch move samples. Samples closer than this to
+     * the last recorded one are dropped.
+     *
+     * @param touchMoveDistance The distance in dp, or 0 to keep every sample
+     */
+    public void setTouchMoveDistance(float touchMoveDistance) {
+        this.touchMoveDistance = touchMoveDistance;
+    }
 
-}
\ No newline at end of file
+    /**
+     * Gets the largest deviation allowed when simplifying a touch move path.
+     *
+     * @return The tolerance in dp, or 0 if paths are not simplified
+     */
+    public float getTouchPathTolerance() {
+        return touchPathTolerance;
+    }
+
+    /**
+     * Sets the largest deviation allowed when simplifying a touch move path. Positions that lie
+     * within this distance of the simplified path are dropped.
+     *
+     * @param touchPathTolerance The tolerance in dp, or 0 to disable simplification
+     */
+    public void setTouchPathTolerance(float touchPathTolerance) {
+        this.touchPathTolerance = touchPathTolerance;
+    }
+
+    /**
+     * Gets the maximum number of move positions recorded per touch gesture.
+     *
+     * @return The maximum, or 0 if unbounded
+     */
+    public int getMaxTouchMovePositions() {
+        return maxTouchMovePositions;
+    }
+
+    /**
+     * Sets the maximum number of move positions recorded per touch gesture. Longer paths are
+     * resampled down to this many positions.
+     *
+     * @param maxTouchMovePositions The maximum, or 0 for no limit
+     */
+    public void setMaxTouchMovePositions(int maxTouchMovePositions) {
+        this.maxTouchMovePositions = maxTouchMovePositions;
+    }
+}
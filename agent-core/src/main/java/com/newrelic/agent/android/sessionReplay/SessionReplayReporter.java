@@ -19,11 +19,13 @@ import com.newrelic.agent.android.payload.Payload;
 import com.newrelic.agent.android.payload.PayloadController;
 import com.newrelic.agent.android.payload.PayloadReporter;
 import com.newrelic.agent.android.payload.PayloadSender;
+import com.newrelic.agent.android.payload.StreamingPayload;
 import com.newrelic.agent.android.stats.StatsEngine;
 import com.newrelic.agent.android.util.Constants;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -84,12 +86,38 @@ public class SessionReplayReporter extends PayloadReporter {
     // Helper method to apply gzip compression
     private static byte[] gzipCompress(byte[] uncompressedData) throws IOException {
         ByteArrayOutputStream byteStream = new ByteArrayOutputStream(uncompressedData.length);
-        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteStream)) {
+        gzipCompress(uncompressedData, byteStream);
+        return byteStream.toByteArray();
+    }
+
+    // Helper method to gzip compress directly into the passed stream
+    private static void gzipCompress(byte[] uncompressedData, OutputStream out) throws IOException {
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(out)) {
             gzipOutputStream.write(uncompressedData);
         }
+    }
+
+    // Helper method to gzip compress a payload into memory
+    private static byte[] gzipCompress(Payload uncompressedPayload, long uncompressedLength) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream((int) Math.min(uncompressedLength, Constants.Network.MAX_PAYLOAD_SIZE));
+        gzipCompress(uncompressedPayload, byteStream);
         return byteStream.toByteArray();
     }
 
+    // Helper method to gzip compress a payload directly into the passed stream
+    private static void gzipCompress(Payload uncompressedPayload, OutputStream out) throws IOException {
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(out)) {
+            uncompressedPayload.writeTo(gzipOutputStream);
+        }
+    }
+
+    /**
+     * The largest size gzip can produce for the passed input size (zlib's deflateBound plus the gzip wrapper).
+     */
+    static long gzipBound(long uncompressedLength) {
+        return uncompressedLength + (uncompressedLength >> 12) + (uncompressedLength >> 14) + (uncompressedLength >> 25) + 13 + 18;
+    }
+
     protected static boolean isInitialized() {
         return instance.get() != null;
     }
@@ -253,28 +281,57 @@ public class SessionReplayReporter extends PayloadReporter {
     }
 
     public Future reportSessionReplayData(Payload payload, Map<String, Object> attributes) throws IOException {
+        return reportSessionReplayData(payload, attributes, null);
+    }
+
+    /**
+     * Report a replay payload, notifying {@code completionHandler} (if not null) of each send attempt.
+     * The handler is not called when the payload is not sent: it exceeds the size limit, or is
+     * persisted to the offline store.
+     */
+    public Future reportSessionReplayData(Payload payload, Map<String, Object> attributes,
+                                          final PayloadSender.CompletionHandler completionHandler) throws IOException {
+
+        // streaming payloads are written from their source, rather than copied into memory
+        long uncompressedLength = payload.contentLength();
+        if (uncompressedLength < 0 && payload instanceof StreamingPayload) {
+            uncompressedLength = ((StreamingPayload) payload).measure();
+        }
 
         attributes.put(Constants.SessionReplay.HAS_META, hasMeta);
-        attributes.put(Constants.SessionReplay.DECOMPRESSED_BYTES, payload.getBytes().length);
+        attributes.put(Constants.SessionReplay.DECOMPRESSED_BYTES, uncompressedLength);
 
-        byte[] compressedBytes = gzipCompress(payload.getBytes());
-        if(compressedBytes.length > Constants.Network.MAX_PAYLOAD_SIZE) {
+        // Build the frozen snapshot once. Used both for proactive offline persist and for
+        // failure-time persist via the completion handler.
+        final OfflineSessionReplayStore offlineStore = agentConfiguration.getOfflineSessionReplayStore();
+        final boolean offlineEnabled = FeatureFlag.featureEnabled(FeatureFlag.OfflineStorage)
+                && offlineStore != null;
+
+        final Payload compressedPayload;
+        final byte[] compressedBytes;
+        if (offlineEnabled || gzipBound(uncompressedLength) > Constants.Network.MAX_PAYLOAD_SIZE) {
+            // the offline snapshot retains the compressed bytes, and a compressed size that could
+            // exceed the limit must be known before sending, so compress once into memory
+            compressedBytes = gzipCompress(payload, uncompressedLength);
+            compressedPayload = new Payload(compressedBytes);
+        } else {
+            // otherwise compress directly into the request body
+            compressedBytes = null;
+            compressedPayload = new StreamingPayload(out -> gzipCompress(payload, out));
+        }
+
+        final long compressedSize = compressedPayload.contentLength();
+        if (compressedSize > Constants.Network.MAX_PAYLOAD_SIZE) {
             DeviceInformation deviceInformation = Agent.getDeviceInformation();
             String name = MetricNames.SUPPORTABILITY_MAXPAYLOADSIZELIMIT_ENDPOINT
                     .replace(MetricNames.TAG_FRAMEWORK, deviceInformation.getApplicationFramework().name())
                     .replace(MetricNames.TAG_DESTINATION, MetricNames.METRIC_DATA_USAGE_COLLECTOR)
                     .replace(MetricNames.TAG_SUBDESTINATION,"SessionReplay");
-            StatsEngine.SUPPORTABILITY.sample(name,compressedBytes.length);
-            log.warn("SessionReplayReporter.reportSessionReplayData(Payload): Payload size (" + compressedBytes.length + " bytes) exceeds maximum allowed size (" + Constants.Network.MAX_PAYLOAD_SIZE + " bytes). Payload not sent.");
+            StatsEngine.SUPPORTABILITY.sample(name,compressedSize);
+            log.warn("SessionReplayReporter.reportSessionReplayData(Payload): Payload size (" + compressedSize + " bytes) exceeds maximum allowed size (" + Constants.Network.MAX_PAYLOAD_SIZE + " bytes). Payload not sent.");
             return null;
         }
 
-        // Build the frozen snapshot once. Used both for proactive offline persist and for
-        // failure-time persist via the completion handler.
-        final OfflineSessionReplayStore offlineStore = agentConfiguration.getOfflineSessionReplayStore();
-        final boolean offlineEnabled = FeatureFlag.featureEnabled(FeatureFlag.OfflineStorage)
-                && offlineStore != null;
-
         OfflineSessionReplayPayload snapshot = null;
         if (offlineEnabled) {
             // Proactive persist: network unreachable at capture. Tag offline=true to match
@@ -298,7 +355,6 @@ public class SessionReplayReporter extends PayloadReporter {
                     payload.getUuid(), ts, ts, buildFrozenAttributes(attributes), compressedBytes);
         }
 
-        Payload compressedPayload = new Payload(compressedBytes);
         PayloadSender payloadSender = new SessionReplaySender(compressedPayload, getAgentConfiguration(), HarvestConfiguration.getDefaultHarvestConfiguration(), attributes);
 
         final OfflineSessionReplayPayload snapshotForCallback = snapshot;
@@ -306,6 +362,9 @@ public class SessionReplayReporter extends PayloadReporter {
         Future future = PayloadController.submitPayload(payloadSender, new PayloadSender.CompletionHandler() {
             @Override
             public void onResponse(PayloadSender payloadSender) {
+                if (completionHandler != null) {
+                    completionHandler.onResponse(payloadSender);
+                }
                 if (payloadSender.isSuccessfulResponse()) {
                     return;
                 }
@@ -324,6 +383,9 @@ public class SessionReplayReporter extends PayloadReporter {
             @Override
             public void onException(PayloadSender payloadSender, Exception e) {
                 log.error("SessionReplayReporter.reportSessionReplayData(Payload): " + e);
+                if (completionHandler != null) {
+                    completionHandler.onException(payloadSender, e);
+                }
                 if (!offlineEnabled || snapshotForCallback == null || storeForCallback == null) {
                     return;
                 }
@@ -55,7 +55,6 @@ public class SessionReplaySender extends PayloadSender {
         this.frozenAttributes = null;
         this.frozenUrlTimestamp = 0L;
         this.isFromOfflineStore = false;
-        setPayload(this.payload.getBytes());
     }
 
     /**
@@ -68,13 +67,12 @@ public class SessionReplaySender extends PayloadSender {
                                AgentConfiguration agentConfiguration,
                                HarvestConfiguration harvestConfiguration) {
         super(new Payload(cached.getBody()), agentConfiguration);
-        this.payload = new Payload(cached.getBody());
+        this.payload = getPayload();    // the cached body is sent as is, without copying
         this.harvestConfiguration = harvestConfiguration;
         this.replayDataMap = null;
         this.frozenAttributes = new LinkedHashMap<>(cached.getAttributes());
         this.frozenUrlTimestamp = cached.getUrlTimestamp();
         this.isFromOfflineStore = true;
-        setPayload(this.payload.getBytes());
     }
 
     @Override
@@ -248,4 +246,9 @@ public class SessionReplaySender extends PayloadSender {
     protected URI getCollectorURI() {
         return URI.create(getProtocol() + agentConfiguration.getCollectorHost() + "/mobile/blobs?");
     }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.SESSION_REPLAY;
+    }
 }
\ No newline at end of file
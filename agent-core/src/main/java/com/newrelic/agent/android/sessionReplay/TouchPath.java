@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2026-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.sessionReplay;
+
+import java.util.Arrays;
+
+/**
+ * The move samples of one touch gesture, coalesced as they arrive.
+ * <p>
+ * Samples are kept in primitive arrays rather than as one object per sample. Coalescing happens
+ * in three stages:
+ * <ol>
+ *   <li>Decimation: a sample is dropped if it arrives within the move interval, or lies within
+ *   the move distance, of the last kept sample. The last dropped sample is held back so the path
+ *   always ends where the finger did.</li>
+ *   <li>Simplification: {@link #simplify()} runs Ramer-Douglas-Peucker over the kept samples,
+ *   dropping those within the path tolerance of the simplified path.</li>
+ *   <li>Capping: a simplified path longer than the position limit is resampled down to it. While
+ *   the gesture is in progress, the buffer is halved whenever it reaches four times the limit,
+ *   so a long drag holds a bounded number of samples.</li>
+ * </ol>
+ * Coordinates are in dp. A limit of 0 disables its stage.
+ */
+public class TouchPath {
+    public static final long DEFAULT_MOVE_INTERVAL_MS = 16;
+    public static final float DEFAULT_MOVE_DISTANCE = 1f;
+    public static final float DEFAULT_PATH_TOLERANCE = 1f;
+    public static final int DEFAULT_MAX_POSITIONS = 120;
+
+    static final int MIN_BUFFER_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long moveIntervalMs;
+    private final float moveDistance;
+    private final float pathTolerance;
+    private final int maxPositions;
+    private final int bufferLimit;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private float[] xs = new float[INITIAL_CAPACITY];
+    private float[] ys = new float[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int size = 0;
+    private boolean pending = false;    // the slot at [size] holds the last dropped sample
+
+    public TouchPath() {
+        this(DEFAULT_MOVE_INTERVAL_MS, DEFAULT_MOVE_DISTANCE, DEFAULT_PATH_TOLERANCE, DEFAULT_MAX_POSITIONS);
+    }
+
+    public TouchPath(SessionReplayLocalConfiguration configuration) {
+        this(configuration.getTouchMoveIntervalMs(), configuration.getTouchMoveDistance(),
+                configuration.getTouchPathTolerance(), configuration.getMaxTouchMovePositions());
+    }
+
+    public TouchPath(long moveIntervalMs, float moveDistance, float pathTolerance, int maxPositions) {
+        this.moveIntervalMs = Math.max(0, moveIntervalMs);
+        this.moveDistance = Math.max(0f, moveDistance);
+        this.pathTolerance = Math.max(0f, pathTolerance);
+        this.maxPositions = Math.max(0, maxPositions);
+        this.bufferLimit = this.maxPositions > 0 ? Math.max(MIN_BUFFER_SIZE, 4 * this.maxPositions) : Integer.MAX_VALUE;
+    }
+
+    public void add(int id, float x, float y, long timestamp) {
+        if (size > 0) {
+            final int last = size - 1;
+            final float dx = x - xs[last];
+            final float dy = y - ys[last];
+
+            if (timestamp - timestamps[last] < moveIntervalMs || (dx * dx + dy * dy) < moveDistance * moveDistance) {
+                ensureCapacity(size + 1);
+                set(size, id, x, y, timestamp);
+                pending = true;
+                return;
+            }
+        }
+
+        if (size == bufferLimit) {
+            halve();
+        }
+
+        ensureCapacity(size + 1);
+        set(size++, id, x, y, timestamp);
+        pending = false;
+    }
+
+    /**
+     * @return the number of samples currently held, including a held back sample
+     */
+    public int size() {
+        return pending ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public float getX(int index) {
+        return xs[index];
+    }
+
+    public float getY(int index) {
+        return ys[index];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Simplify and cap the path
+     *
+     * @return the indices of the samples to record, in order. The first and last samples are
+     * always included.
+     */
+    public int[] simplify() {
+        final int count = size();
+        if (count <= 2) {
+            final int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        final boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        if (pathTolerance > 0f) {
+            simplify(keep, count);
+        } else {
+            Arrays.fill(keep, true);
+        }
+
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+
+        final int[] indices = new int[kept];
+        for (int i = 0, j = 0; i < count; i++) {
+            if (keep[i]) {
+                indices[j++] = i;
+            }
+        }
+
+        if (maxPositions <= 0 || kept <= maxPositions) {
+            return indices;
+        }
+
+        return resample(indices, Math.max(2, maxPositions));
+    }
+
+    /**
+     * Ramer-Douglas-Peucker, with an explicit stack of segments rather than recursion
+     */
+    private void simplify(boolean[] keep, int count) {
+        final float tolerance = pathTolerance * pathTolerance;
+        final int[] stack = new int[2 * count];
+        int top = 0;
+
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+
+        while (top > 0) {
+            final int end = stack[--top];
+            final int start = stack[--top];
+
+            float farthest = -1f;
+            int index = -1;
+            for (int i = start + 1; i < end; i++) {
+                final float distance = distanceSquared(i, start, end);
+                if (distance > farthest) {
+                    farthest = distance;
+                    index = i;
+                }
+            }
+
+            if (index != -1 && farthest > tolerance) {
+                keep[index] = true;
+                stack[top++] = start;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = end;
+            }
+        }
+    }
+
+    /**
+     * @return the squared distance of a sample from the segment between two others
+     */
+    private float distanceSquared(int index, int start, int end) {
+        final float x = xs[index], y = ys[index];
+        final float x1 = xs[start], y1 = ys[start];
+        final float dx = xs[end] - x1, dy = ys[end] - y1;
+        final float length = dx * dx + dy * dy;
+
+        float px = x1, py = y1;
+        if (length > 0f) {
+            final float t = Math.max(0f, Math.min(1f, ((x - x1) * dx + (y - y1) * dy) / length));
+            px = x1 + t * dx;
+            py = y1 + t * dy;
+        }
+
+        return (x - px) * (x - px) + (y - py) * (y - py);
+    }
+
+    /**
+     * Pick {@code limit} of the given indices, evenly spaced and including both ends
+     */
+    private static int[] resample(int[] indices, int limit) {
+        final int[] resampled = new int[limit];
+        final double step = (indices.length - 1) / (double) (limit - 1);
+        for (int i = 0; i < limit; i++) {
+            resampled[i] = indices[(int) Math.round(i * step)];
+        }
+        return resampled;
+    }
+
+    /**
+     * Drop every other sample, keeping the first and last
+     */
+    private void halve() {
+        int j = 1;
+        for (int i = 2; i < size - 1; i += 2) {
+            set(j++, ids[i], xs[i], ys[i], timestamps[i]);
+        }
+        final int last = size - 1;
+        set(j++, ids[last], xs[last], ys[last], timestamps[last]);
+        size = j;
+    }
+
+    private void set(int index, int id, float x, float y, long timestamp) {
+        ids[index] = id;
+        xs[index] = x;
+        ys[index] = y;
+        timestamps[index] = timestamp;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > xs.length) {
+            final int newCapacity = Math.max(capacity, 2 * xs.length);
+            ids = Arrays.copyOf(ids, newCapacity);
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+        }
+    }
+}
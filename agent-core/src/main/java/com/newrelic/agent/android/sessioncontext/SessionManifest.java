@@ -124,14 +124,7 @@ public class SessionManifest {
         root.addProperty(KEY_SESSION_START_MS, sessionStartMs);
         root.addProperty(KEY_LAST_UPDATE_MS, lastUpdateMs);
 
-        JsonObject attrs = new JsonObject();
-        for (AnalyticsAttribute attribute : attributes) {
-            JsonElement element = attribute.asJsonElement();
-            if (element != null) {
-                attrs.add(attribute.getName(), element);
-            }
-        }
-        root.add(KEY_ATTRIBUTES, attrs);
+        root.add(KEY_ATTRIBUTES, attributesAsJson());
 
         // Internal, never-sent fields live at the manifest top level, never inside attributes.
         if (reachedFullMode != null) {
@@ -146,6 +139,41 @@ public class SessionManifest {
         return root;
     }
 
+    private JsonObject attributesAsJson() {
+        JsonObject attrs = new JsonObject();
+        for (AnalyticsAttribute attribute : attributes) {
+            JsonElement element = attribute.asJsonElement();
+            if (element != null) {
+                attrs.add(attribute.getName(), element);
+            }
+        }
+        return attrs;
+    }
+
+    /**
+     * True if both manifests describe the same context, i.e. differ at most in
+     * {@link #getLastUpdateMs()}. Attributes are compared by name <em>and</em> value, which
+     * {@link AnalyticsAttribute#equals(Object)} alone does not do.
+     */
+    boolean hasSameContextAs(SessionManifest other) {
+        if (other == null) {
+            return false;
+        }
+        return schemaVersion == other.schemaVersion
+                && sessionId.equals(other.sessionId)
+                && realAgentId == other.realAgentId
+                && sessionStartMs == other.sessionStartMs
+                && same(reachedFullMode, other.reachedFullMode)
+                && same(isFirstChunk, other.isFirstChunk)
+                && same(exitReason, other.exitReason)
+                && attributes.size() == other.attributes.size()
+                && attributesAsJson().equals(other.attributesAsJson());
+    }
+
+    private static boolean same(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
     public static SessionManifest fromJson(JsonObject root) {
         if (root == null) {
             return new SessionManifest(CURRENT_SCHEMA_VERSION, "", 0, 0L, 0L, new HashSet<>());
@@ -5,9 +5,10 @@
 
 package com.newrelic.agent.android.tracing;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.newrelic.agent.android.Agent;
 import com.newrelic.agent.android.Measurements;
 import com.newrelic.agent.android.TaskQueue;
@@ -19,8 +20,10 @@ import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
 import com.newrelic.agent.android.metric.Metric;
 import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.util.JsonStreams;
 import com.newrelic.agent.android.util.SafeJsonPrimitive;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -28,15 +31,13 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class ActivityTrace extends HarvestableArray {
     public final static String TRACE_VERSION = "1.0";
     public final static int MAX_TRACES = 2000;
 
     public Trace rootTrace;
-    final private ConcurrentHashMap<UUID, Trace> traces = new ConcurrentHashMap<UUID, Trace>();
-    private int traceCount = 0;
+    final private TraceArena traces = new TraceArena(MAX_TRACES, GSON_STRING_MAP_TYPE);
     final private Set<UUID> missingChildren = Collections.synchronizedSet(new HashSet<UUID>());
     private NamedActivity measuredActivity;
 
@@ -95,8 +96,16 @@ public class ActivityTrace extends HarvestableArray {
         return rootTrace.myUUID.toString();
     }
 
+    /**
+     * Add a trace whose parent is not known; it is recorded as a child of the root trace.
+     */
     public void addTrace(Trace trace) {
+        addTrace(rootTrace, trace);
+    }
+
+    public void addTrace(Trace parentTrace, Trace trace) {
         missingChildren.add(trace.myUUID);
+        trace.arenaSlot = traces.reserve(parentTrace == rootTrace ? TraceArena.ROOT : parentTrace.arenaSlot);
 
         lastUpdatedAt = System.currentTimeMillis();
     }
@@ -117,14 +126,11 @@ public class ActivityTrace extends HarvestableArray {
 
         missingChildren.remove(trace.myUUID);
 
-        if (traceCount > MAX_TRACES) {
+        if (!traces.store(trace)) {
             log.verbose("Maximum trace limit reached, discarding trace " + trace.myUUID);
             return;
         }
 
-        traces.put(trace.myUUID, trace);
-        traceCount++;
-
         // Since there's no well defined end to a trace, we'll just use the timestamp of the last thing we record as the
         // duration of the activity trace.
         if (trace.exitTimestamp > rootTrace.exitTimestamp) {
@@ -160,7 +166,7 @@ public class ActivityTrace extends HarvestableArray {
             rootTrace.exitTimestamp = System.currentTimeMillis();
 
         // Don't record this AT if there are no children.
-        if (traces.isEmpty()) {
+        if (traces.size() == 0) {
             rootTrace.traceMachine = null;
             complete = true;
             Measurements.endActivityWithoutMeasurement(measuredActivity);
@@ -179,82 +185,128 @@ public class ActivityTrace extends HarvestableArray {
         TaskQueue.queue(this);
     }
 
+    /**
+     * @return a snapshot of the completed traces, rebuilt from the trace arena
+     */
     public Map<UUID, Trace> getTraces() {
-        return traces;
+        return traces.asTraceMap(rootTrace);
     }
 
+    /**
+     * @return the number of completed traces, not including the root trace
+     */
+    public int getTraceCount() {
+        return traces.size();
+    }
+
+    /**
+     * Streams the activity trace rather than building it as a tree of JsonElements first.
+     */
     @Override
-    public JsonArray asJsonArray() {
-        JsonArray tree = new JsonArray();
+    public String toJsonString() {
+        return JsonStreams.toJsonString(this::writeJson, () -> String.valueOf(asJson()));
+    }
 
+    /**
+     * Writes the activity trace. The layout matches {@link #asJsonArray()}.
+     */
+    public void writeJson(JsonWriter writer) throws IOException {
         if (!complete) {
             log.verbose("Attempted to serialize trace " + rootTrace.myUUID.toString() + " but it has yet to be finalized");
-            return null;
+            writer.nullValue();
+            return;
         }
 
-        tree.add(new Gson().toJsonTree(params, GSON_STRING_MAP_TYPE));
-        tree.add(SafeJsonPrimitive.factory(rootTrace.entryTimestamp));
-        tree.add(SafeJsonPrimitive.factory(rootTrace.exitTimestamp));
-        tree.add(SafeJsonPrimitive.factory(rootTrace.displayName));
+        writer.beginArray();
+        JsonStreams.TREE_WRITER.toJson(params, GSON_STRING_MAP_TYPE, writer);
+        writer.value(rootTrace.entryTimestamp);
+        writer.value(rootTrace.exitTimestamp);
+        writer.value(SafeJsonPrimitive.checkNull(rootTrace.displayName));
 
-        JsonArray segments = new JsonArray();
-        segments.add(getEnvironment());
-        segments.add(traceToTree(rootTrace));
-        segments.add(getVitalsAsJson());
+        writer.beginArray();
+        writeTypedSegment(writer, ENVIRONMENT_TYPE, getEnvironment());
+        traces.writeJson(writer, rootTrace);
+        writeVitals(writer);
 
         // Add the previous activity if we have one.
         if (previousActivity != null) {
-            segments.add(getPreviousActivityAsJson());
+            writeTypedSegment(writer, ACTIVITY_HISTORY_TYPE, previousActivity.asJsonArray());
         }
+        writer.endArray();
 
-        tree.add(segments);
-
-        return tree;
+        writer.endArray();
     }
 
-    private JsonArray traceToTree(final Trace trace) {
-        JsonArray segment = new JsonArray();
+    private static void writeTypedSegment(JsonWriter writer, Map<String, String> type, JsonArray elements) throws IOException {
+        writer.beginArray();
+        JsonStreams.TREE_WRITER.toJson(type, GSON_STRING_MAP_TYPE, writer);
+        for (JsonElement element : elements) {
+            JsonStreams.ELEMENT_WRITER.toJson(element, writer);
+        }
+        writer.endArray();
+    }
 
-        trace.prepareForSerialization();
+    private void writeVitals(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        JsonStreams.TREE_WRITER.toJson(VITALS_TYPE, GSON_STRING_MAP_TYPE, writer);
 
-        segment.add(new Gson().toJsonTree(trace.getParams(), GSON_STRING_MAP_TYPE));
-        segment.add(SafeJsonPrimitive.factory(trace.entryTimestamp));
-        segment.add(SafeJsonPrimitive.factory(trace.exitTimestamp));
-        segment.add(SafeJsonPrimitive.factory(trace.displayName));
+        writer.beginObject();
+        if (vitals != null) {
+            for (Map.Entry<Sample.SampleType, Collection<Sample>> entry : vitals.entrySet()) {
+                writer.name(entry.getKey().toString());
+                writer.beginArray();
+                for (Sample sample : entry.getValue()) {
+                    // The sampler runs until the end of an ActivityTrace, which may be well beyond the last recorded Trace so we'll cull them here
+                    if (sample.getTimestamp() <= lastUpdatedAt) {
+                        writer.beginArray()
+                                .value(sample.getTimestamp())
+                                .value(SafeJsonPrimitive.checkNull(sample.getSampleValue().getValue()))
+                                .endArray();
+                    }
+                }
+                writer.endArray();
+            }
+        }
+        writer.endObject();
 
-        JsonArray threadData = new JsonArray();
-        threadData.add(SafeJsonPrimitive.factory(trace.threadId));
-        threadData.add(SafeJsonPrimitive.factory(trace.threadName));
+        writer.endArray();
+    }
 
-        segment.add(threadData);
+    @Override
+    public JsonArray asJsonArray() {
+        JsonArray tree = new JsonArray();
 
-        // Useful for debugging
-        //segment.add(new JsonPrimitive(trace.UUID.toString()));
+        if (!complete) {
+            log.verbose("Attempted to serialize trace " + rootTrace.myUUID.toString() + " but it has yet to be finalized");
+            return null;
+        }
 
-        if (trace.getChildren().isEmpty()) {
-            segment.add(new JsonArray());
-        } else {
-            JsonArray children = new JsonArray();
+        tree.add(JsonStreams.TREE_WRITER.toJsonTree(params, GSON_STRING_MAP_TYPE));
+        tree.add(SafeJsonPrimitive.factory(rootTrace.entryTimestamp));
+        tree.add(SafeJsonPrimitive.factory(rootTrace.exitTimestamp));
+        tree.add(SafeJsonPrimitive.factory(rootTrace.displayName));
 
-            for (UUID traceUUID : trace.getChildren()) {
-                // Since we occasionally serialize a trace with missing children, it's important to check if they exist first.
-                Trace childTrace = traces.get(traceUUID);
-                if (childTrace != null) {
-                    children.add(traceToTree(childTrace));
-                }
-            }
+        JsonArray segments = new JsonArray();
+        JsonArray environment = new JsonArray();
+        environment.add(JsonStreams.TREE_WRITER.toJsonTree(ENVIRONMENT_TYPE, GSON_STRING_MAP_TYPE));
+        environment.addAll(getEnvironment());
+        segments.add(environment);
+        segments.add(traces.asJsonArray(rootTrace));
+        segments.add(getVitalsAsJson());
 
-            segment.add(children);
+        // Add the previous activity if we have one.
+        if (previousActivity != null) {
+            segments.add(getPreviousActivityAsJson());
         }
 
-        return segment;
+        tree.add(segments);
+
+        return tree;
     }
 
     private JsonArray getEnvironment() {
         JsonArray environment = new JsonArray();
 
-        environment.add(new Gson().toJsonTree(ENVIRONMENT_TYPE, GSON_STRING_MAP_TYPE));
-
         // Add the application and device information elements
         ConnectInformation connectInformation = new ConnectInformation(Agent.getApplicationInformation(), Agent.getDeviceInformation());
         environment.addAll(connectInformation.asJsonArray());
@@ -262,7 +314,7 @@ public class ActivityTrace extends HarvestableArray {
         // Add the environment params.  For the moment this includes just the size key.
         HashMap<String, String> environmentParams = new HashMap<String, String>();
         environmentParams.put("size", SIZE_NORMAL);
-        environment.add(new Gson().toJsonTree(environmentParams, GSON_STRING_MAP_TYPE));
+        environment.add(JsonStreams.TREE_WRITER.toJsonTree(environmentParams, GSON_STRING_MAP_TYPE));
 
         return environment;
     }
@@ -274,7 +326,7 @@ public class ActivityTrace extends HarvestableArray {
     private JsonArray getVitalsAsJson() {
         JsonArray vitalsJson = new JsonArray();
 
-        vitalsJson.add(new Gson().toJsonTree(VITALS_TYPE, GSON_STRING_MAP_TYPE));
+        vitalsJson.add(JsonStreams.TREE_WRITER.toJsonTree(VITALS_TYPE, GSON_STRING_MAP_TYPE));
 
         JsonObject vitalsMap = new JsonObject();
 
@@ -313,7 +365,7 @@ public class ActivityTrace extends HarvestableArray {
     private JsonArray getPreviousActivityAsJson() {
         final JsonArray historyJson = new JsonArray();
 
-        historyJson.add(new Gson().toJsonTree(ACTIVITY_HISTORY_TYPE, GSON_STRING_MAP_TYPE));
+        historyJson.add(JsonStreams.TREE_WRITER.toJsonTree(ACTIVITY_HISTORY_TYPE, GSON_STRING_MAP_TYPE));
         historyJson.addAll(previousActivity.asJsonArray());
 
         return historyJson;
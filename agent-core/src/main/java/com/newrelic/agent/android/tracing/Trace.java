@@ -14,12 +14,12 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class Trace {
-    private static final String CATEGORY_PARAMETER = "category";
+    static final String CATEGORY_PARAMETER = "category";
     private static final AgentLog log = AgentLogManager.getAgentLog();
 
     // UUIDs are used for internal tracking
     final public UUID parentUUID;
-    final public UUID myUUID = new UUID(Util.getRandom().nextLong(), Util.getRandom().nextLong());
+    final public UUID myUUID;
 
     public long entryTimestamp = 0;
     public long exitTimestamp = 0;
@@ -46,16 +46,28 @@ public class Trace {
 
     public TraceMachine traceMachine;
 
+    // Slot in the owning ActivityTrace's arena, assigned when the trace is registered
+    int arenaSlot = TraceArena.NO_SLOT;
+
     public Trace() {
-        parentUUID = null;
+        this(newUUID(), null);
     }
 
     public Trace(String displayName, UUID parentUUID, TraceMachine traceMachine) {
+        this(newUUID(), parentUUID);
         this.displayName = displayName;
-        this.parentUUID = parentUUID;
         this.traceMachine = traceMachine;
     }
 
+    Trace(UUID myUUID, UUID parentUUID) {
+        this.myUUID = myUUID;
+        this.parentUUID = parentUUID;
+    }
+
+    private static UUID newUUID() {
+        return new UUID(Util.getRandom().nextLong(), Util.getRandom().nextLong());
+    }
+
     public void addChild(Trace trace) {
         // Employ double-checked locking
         if (children == null) {
@@ -91,6 +103,10 @@ public class Trace {
         return params;
     }
 
+    boolean hasParams() {
+        return params != null && !params.isEmpty();
+    }
+
     public void setAnnotationParams(List<String> rawAnnotationParams) {
         this.rawAnnotationParams = rawAnnotationParams;
     }
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.tracing;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.newrelic.agent.android.util.JsonStreams;
+import com.newrelic.agent.android.util.SafeJsonPrimitive;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact storage for the completed traces of an {@link ActivityTrace}.
+ * <p>
+ * Each trace occupies a slot in a set of parallel arrays. A slot is reserved when the trace is
+ * registered, which links it to its parent's slot, and filled in when the trace completes. Only
+ * the fields that are serialized are kept, so the {@link Trace} itself can be collected once it
+ * completes. Display and thread names are interned per arena, as the same few methods and threads
+ * recur throughout a trace.
+ * <p>
+ * Slot 0 is the root trace, which stays live in {@link ActivityTrace#rootTrace} and only uses the
+ * arena for its child links. Slots that are reserved but never filled are skipped when serialized.
+ */
+final class TraceArena {
+    static final int ROOT = 0;
+    static final int NO_SLOT = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxTraces;
+    private final Type paramsType;
+    private final Map<String, String> names = new HashMap<>();
+
+    private int slots = 1;
+    private int completed = 0;
+
+    private long[] uuids;           // most, least significant bits
+    private long[] timestamps;      // entry, exit
+    private long[] threadIds;
+    private String[] displayNames;
+    private String[] threadNames;
+    private TraceType[] types;      // null until the trace completes
+    private Object[] params;        // only for traces with custom params
+    private int[] parents;
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+
+    TraceArena(int maxTraces, Type paramsType) {
+        this.maxTraces = maxTraces;
+        this.paramsType = paramsType;
+        allocate(INITIAL_CAPACITY);
+        firstChild[ROOT] = NO_SLOT;
+        lastChild[ROOT] = NO_SLOT;
+    }
+
+    /**
+     * Reserve a slot for a newly registered trace
+     *
+     * @return the slot, or {@link #NO_SLOT} if the parent has none or the arena is full
+     */
+    synchronized int reserve(int parentSlot) {
+        if (parentSlot == NO_SLOT || slots > maxTraces) {
+            return NO_SLOT;
+        }
+
+        if (slots == parents.length) {
+            allocate(Math.min(parents.length * 2, maxTraces + 1));
+        }
+
+        final int slot = slots++;
+        parents[slot] = parentSlot;
+        firstChild[slot] = NO_SLOT;
+        lastChild[slot] = NO_SLOT;
+        nextSibling[slot] = NO_SLOT;
+
+        // children are kept in registration order
+        if (lastChild[parentSlot] == NO_SLOT) {
+            firstChild[parentSlot] = slot;
+        } else {
+            nextSibling[lastChild[parentSlot]] = slot;
+        }
+        lastChild[parentSlot] = slot;
+
+        return slot;
+    }
+
+    /**
+     * Copy a completed trace into its reserved slot
+     *
+     * @return false if the trace has no slot
+     */
+    synchronized boolean store(Trace trace) {
+        final int slot = trace.arenaSlot;
+        if (slot <= ROOT || slot >= slots || types[slot] != null) {
+            return false;
+        }
+
+        uuids[2 * slot] = trace.myUUID.getMostSignificantBits();
+        uuids[2 * slot + 1] = trace.myUUID.getLeastSignificantBits();
+        timestamps[2 * slot] = trace.entryTimestamp;
+        timestamps[2 * slot + 1] = trace.exitTimestamp;
+        threadIds[slot] = trace.threadId;
+        displayNames[slot] = intern(trace.displayName);
+        threadNames[slot] = intern(trace.threadName);
+        types[slot] = trace.getType();
+
+        if (trace.hasParams()) {
+            trace.prepareForSerialization();
+            params[slot] = trace.getParams();
+        }
+
+        completed++;
+
+        return true;
+    }
+
+    /**
+     * @return the number of completed traces
+     */
+    synchronized int size() {
+        return completed;
+    }
+
+    /**
+     * Write the trace tree below the root, using the live root trace for the root segment.
+     */
+    synchronized void writeJson(JsonWriter writer, Trace rootTrace) throws IOException {
+        rootTrace.prepareForSerialization();
+        writer.beginArray();
+        JsonStreams.TREE_WRITER.toJson(rootTrace.getParams(), paramsType, writer);
+        writeSegment(writer, ROOT, rootTrace.entryTimestamp, rootTrace.exitTimestamp,
+                rootTrace.displayName, rootTrace.threadId, rootTrace.threadName);
+    }
+
+    private void writeSegment(JsonWriter writer, int slot) throws IOException {
+        writer.beginArray();
+        if (params[slot] == null) {
+            writer.beginObject().name("type").value(types[slot].toString()).endObject();
+        } else {
+            JsonStreams.TREE_WRITER.toJson(params[slot], paramsType, writer);
+        }
+        writeSegment(writer, slot, timestamps[2 * slot], timestamps[2 * slot + 1],
+                displayNames[slot], threadIds[slot], threadNames[slot]);
+    }
+
+    private void writeSegment(JsonWriter writer, int slot, long entryTimestamp, long exitTimestamp,
+                              String displayName, long threadId, String threadName) throws IOException {
+        writer.value(entryTimestamp);
+        writer.value(exitTimestamp);
+        writer.value(SafeJsonPrimitive.checkNull(displayName));
+
+        writer.beginArray()
+                .value(threadId)
+                .value(SafeJsonPrimitive.checkNull(threadName))
+                .endArray();
+
+        writer.beginArray();
+        for (int child = firstChild[slot]; child != NO_SLOT; child = nextSibling[child]) {
+            // Since we occasionally serialize a trace with missing children, only write those that completed
+            if (types[child] != null) {
+                writeSegment(writer, child);
+            }
+        }
+        writer.endArray();
+
+        writer.endArray();
+    }
+
+    /**
+     * Build the trace tree below the root as JsonElements. The layout matches {@link #writeJson}.
+     */
+    synchronized JsonArray asJsonArray(Trace rootTrace) {
+        rootTrace.prepareForSerialization();
+        return segmentAsJsonArray(ROOT, JsonStreams.TREE_WRITER.toJsonTree(rootTrace.getParams(), paramsType).getAsJsonObject(),
+                rootTrace.entryTimestamp, rootTrace.exitTimestamp, rootTrace.displayName, rootTrace.threadId, rootTrace.threadName);
+    }
+
+    private JsonArray segmentAsJsonArray(int slot) {
+        final JsonObject segmentParams;
+        if (params[slot] == null) {
+            segmentParams = new JsonObject();
+            segmentParams.addProperty("type", types[slot].toString());
+        } else {
+            segmentParams = JsonStreams.TREE_WRITER.toJsonTree(params[slot], paramsType).getAsJsonObject();
+        }
+
+        return segmentAsJsonArray(slot, segmentParams, timestamps[2 * slot], timestamps[2 * slot + 1],
+                displayNames[slot], threadIds[slot], threadNames[slot]);
+    }
+
+    private JsonArray segmentAsJsonArray(int slot, JsonObject segmentParams, long entryTimestamp, long exitTimestamp,
+                                         String displayName, long threadId, String threadName) {
+        final JsonArray segment = new JsonArray();
+
+        segment.add(segmentParams);
+        segment.add(SafeJsonPrimitive.factory(entryTimestamp));
+        segment.add(SafeJsonPrimitive.factory(exitTimestamp));
+        segment.add(SafeJsonPrimitive.factory(displayName));
+
+        final JsonArray threadData = new JsonArray();
+        threadData.add(SafeJsonPrimitive.factory(threadId));
+        threadData.add(SafeJsonPrimitive.factory(threadName));
+        segment.add(threadData);
+
+        final JsonArray children = new JsonArray();
+        for (int child = firstChild[slot]; child != NO_SLOT; child = nextSibling[child]) {
+            if (types[child] != null) {
+                children.add(segmentAsJsonArray(child));
+            }
+        }
+        segment.add(children);
+
+        return segment;
+    }
+
+    /**
+     * Rebuild the completed traces as {@link Trace} instances. Only the serialized fields are restored.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized Map<UUID, Trace> asTraceMap(Trace rootTrace) {
+        final Map<UUID, Trace> traces = new HashMap<>();
+        final Trace[] bySlot = new Trace[slots];
+
+        for (int slot = ROOT + 1; slot < slots; slot++) {
+            if (types[slot] == null) {
+                continue;
+            }
+
+            final UUID parentUUID = parents[slot] == ROOT ?
+                    (rootTrace == null ? null : rootTrace.myUUID) :
+                    new UUID(uuids[2 * parents[slot]], uuids[2 * parents[slot] + 1]);
+            final Trace trace = new Trace(new UUID(uuids[2 * slot], uuids[2 * slot + 1]), parentUUID);
+
+            trace.entryTimestamp = timestamps[2 * slot];
+            trace.exitTimestamp = timestamps[2 * slot + 1];
+            trace.displayName = displayNames[slot];
+            trace.threadId = threadIds[slot];
+            trace.threadName = threadNames[slot];
+            trace.setType(types[slot]);
+            if (params[slot] != null) {
+                trace.getParams().putAll((Map<String, Object>) params[slot]);
+            }
+
+            bySlot[slot] = trace;
+            traces.put(trace.myUUID, trace);
+        }
+
+        for (int slot = ROOT + 1; slot < slots; slot++) {
+            if (bySlot[slot] != null && bySlot[parents[slot]] != null) {
+                bySlot[parents[slot]].addChild(bySlot[slot]);
+            }
+        }
+
+        return traces;
+    }
+
+    private String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        final String interned = names.get(name);
+        if (interned != null) {
+            return interned;
+        }
+        names.put(name, name);
+
+        return name;
+    }
+
+    private void allocate(int capacity) {
+        uuids = uuids == null ? new long[2 * capacity] : Arrays.copyOf(uuids, 2 * capacity);
+        timestamps = timestamps == null ? new long[2 * capacity] : Arrays.copyOf(timestamps, 2 * capacity);
+        threadIds = threadIds == null ? new long[capacity] : Arrays.copyOf(threadIds, capacity);
+        displayNames = displayNames == null ? new String[capacity] : Arrays.copyOf(displayNames, capacity);
+        threadNames = threadNames == null ? new String[capacity] : Arrays.copyOf(threadNames, capacity);
+        types = types == null ? new TraceType[capacity] : Arrays.copyOf(types, capacity);
+        params = params == null ? new Object[capacity] : Arrays.copyOf(params, capacity);
+        parents = parents == null ? new int[capacity] : Arrays.copyOf(parents, capacity);
+        firstChild = firstChild == null ? new int[capacity] : Arrays.copyOf(firstChild, capacity);
+        lastChild = lastChild == null ? new int[capacity] : Arrays.copyOf(lastChild, capacity);
+        nextSibling = nextSibling == null ? new int[capacity] : Arrays.copyOf(nextSibling, capacity);
+    }
+}
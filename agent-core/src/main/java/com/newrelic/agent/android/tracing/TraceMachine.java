@@ -51,7 +51,8 @@ public class TraceMachine extends HarvestAdapter {
     // After this timeout (in ms) the trace will automatically be closed regardless of missing children
     public static int UNHEALTHY_TRACE_TIMEOUT = 60000;
 
-    private static TraceMachine traceMachine = null;
+    // volatile so instrumented call sites can check for an active trace without taking the lock
+    private static volatile TraceMachine traceMachine = null;
     private static TraceMachineInterface traceMachineInterface;
 
     private ActivityTrace activityTrace;
@@ -227,7 +228,7 @@ public class TraceMachine extends HarvestAdapter {
         // Create a new trace with the parent id
         Trace childTrace = new Trace(name, parentTrace.myUUID, traceMachine);
         try {
-            traceMachine.activityTrace.addTrace(childTrace);
+            traceMachine.activityTrace.addTrace(parentTrace, childTrace);
         } catch (Exception e) {
             throw new TracingInactiveException();
         }
@@ -298,9 +299,28 @@ public class TraceMachine extends HarvestAdapter {
 
     @SuppressWarnings("unused")
     public static void enterMethod(Trace trace, String name, ArrayList<String> annotationParams) {
+        enterTrace(trace, name, annotationParams);
+    }
+
+    /**
+     * Enter an instrumented call site. When no activity trace is running, this costs a single
+     * read and allocates nothing.
+     *
+     * @return true if a trace was entered, in which case the call must be paired with
+     * {@link #exitMethod(boolean)}
+     */
+    public static boolean enterMethod(TraceSite site) {
+        if (traceMachine == null) {
+            return false;
+        }
+
+        return enterTrace(null, site.getName(), site.getAnnotationParams());
+    }
+
+    private static boolean enterTrace(Trace trace, String name, List<String> annotationParams) {
         try {
             if (isTracingInactive()) {
-                return;
+                return false;
             }
 
             final long currentTime = System.currentTimeMillis();
@@ -313,7 +333,7 @@ public class TraceMachine extends HarvestAdapter {
                 if (isTracingActive()) {
                     traceMachine.completeActivityTrace();
                 }
-                return;
+                return false;
             }
 
             if (inception + UNHEALTHY_TRACE_TIMEOUT < currentTime) {
@@ -321,7 +341,7 @@ public class TraceMachine extends HarvestAdapter {
                 if (isTracingActive()) {
                     traceMachine.completeActivityTrace();
                 }
-                return;
+                return false;
             }
 
             loadTraceContext(trace);
@@ -341,12 +361,27 @@ public class TraceMachine extends HarvestAdapter {
 
             // Set the timestamp last so we're not timing ourselves
             childTrace.entryTimestamp = System.currentTimeMillis();
+
+            return true;
         } catch (TracingInactiveException e) {
             // Nothing to do here, just move along.
         } catch (Exception e) {
             log.error("Caught error while calling enterMethod()", e);
             AgentHealth.noticeException(e);
         }
+
+        return false;
+    }
+
+    /**
+     * Exit an instrumented call site
+     *
+     * @param entered the result of the matching {@link #enterMethod(TraceSite)}
+     */
+    public static void exitMethod(boolean entered) {
+        if (entered) {
+            exitMethod();
+        }
     }
 
     @SuppressWarnings("unused")
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.tracing;
+
+import com.newrelic.agent.android.instrumentation.MetricCategory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An instrumented call site: the name of the traced method and its annotation params,
+ * built once when the instrumentation class is loaded and shared by every call.
+ *
+ * @see TraceMachine#enterMethod(TraceSite)
+ */
+public final class TraceSite {
+    private final String name;
+    private final List<String> annotationParams;
+
+    public TraceSite(String name, MetricCategory category) {
+        this(name, Arrays.asList(Trace.CATEGORY_PARAMETER, MetricCategory.class.getName(), category.name()));
+    }
+
+    public TraceSite(String name, List<String> annotationParams) {
+        this.name = name;
+        this.annotationParams = Collections.unmodifiableList(annotationParams);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getAnnotationParams() {
+        return annotationParams;
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.util;
+
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A small typed key/value store persisted as a single versioned binary file.
+ * <p>
+ * The file is read with one memory mapping, and replaced as a whole when the state is written:
+ * the new contents are written to a temporary file and synced, then renamed over the live file.
+ * A crash or power loss mid-write leaves the previous file intact. A CRC32 of the payload is
+ * also stored in the header, so a file damaged some other way is detected on the next
+ * {@link #load()} rather than half-read.
+ * <p>
+ * Values may be String, Boolean, Integer, Long or Float. Access to the values is not
+ * thread-safe, and callers serialize it; {@link #write(byte[])} may be called from another thread.
+ */
+public class BinaryStateFile {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    static final int MAGIC = 0x4E525354;     // "NRST"
+    static final short VERSION = 1;
+
+    // magic, version, entry count, payload length, payload crc
+    static final int HEADER_SIZE = 4 + 2 + 4 + 4 + 8;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+
+    static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final File file;
+    private final File tempFile;
+    private final Map<String, Object> values = new HashMap<>();
+    private final Object writeLock = new Object();
+    private boolean dirty = false;
+
+    public BinaryStateFile(File file) {
+        this.file = file;
+        this.tempFile = new File(file.getPath() + TEMP_FILE_SUFFIX);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Replace the in-memory state with the contents of the file.
+     *
+     * @return false if the file is missing, of an unknown version, or fails its checksum
+     */
+    public boolean load() {
+        values.clear();
+        dirty = false;
+
+        if (!file.exists() || file.length() < HEADER_SIZE) {
+            return false;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC) {
+                log.warn("BinaryStateFile: [" + file.getName() + "] is not a state file");
+                return false;
+            }
+
+            final short version = buffer.getShort();
+            if (version != VERSION) {
+                log.warn("BinaryStateFile: [" + file.getName() + "] has unsupported version " + version);
+                return false;
+            }
+
+            final int entryCount = buffer.getInt();
+            final int payloadLength = buffer.getInt();
+            final long checksum = buffer.getLong();
+
+            if (entryCount < 0 || payloadLength < 0 || payloadLength > buffer.remaining()) {
+                log.warn("BinaryStateFile: [" + file.getName() + "] is truncated");
+                return false;
+            }
+
+            final byte[] payload = new byte[payloadLength];
+            buffer.get(payload);
+
+            final CRC32 crc = new CRC32();
+            crc.update(payload, 0, payload.length);
+            if (crc.getValue() != checksum) {
+                log.warn("BinaryStateFile: [" + file.getName() + "] failed checksum, discarding");
+                return false;
+            }
+
+            final Map<String, Object> decoded = decode(ByteBuffer.wrap(payload), entryCount);
+            values.putAll(decoded);
+
+            return true;
+
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.error("BinaryStateFile: failed to load [" + file.getName() + "]: " + e);
+        }
+
+        values.clear();
+        return false;
+    }
+
+    /**
+     * Write the in-memory state to the file if it has changed since the last load or commit.
+     *
+     * @return false if the write failed
+     */
+    public boolean commit() {
+        if (!dirty) {
+            return true;
+        }
+
+        try {
+            return write(snapshot());
+        } catch (IOException e) {
+            log.error("BinaryStateFile: failed to encode [" + file.getName() + "]: " + e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Encode the in-memory state as the complete contents of the file, and mark it clean.
+     * The snapshot can then be written with {@link #write(byte[])}, on another thread.
+     */
+    public byte[] snapshot() throws IOException {
+        final byte[] payload = encode();
+        final CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .putInt(values.size())
+                .putInt(payload.length)
+                .putLong(crc.getValue())
+                .put(payload);
+
+        dirty = false;
+
+        return buffer.array();
+    }
+
+    /**
+     * Replace the file with a snapshot of the state. The snapshot is written to a temporary
+     * file and synced, then renamed over the live file.
+     *
+     * @return false if the write failed, leaving the previous file in place
+     */
+    public boolean write(byte[] snapshot) {
+        synchronized (writeLock) {
+            try {
+                final File parent = file.getParentFile();
+                if (parent != null && !parent.exists()) {
+                    parent.mkdirs();
+                }
+
+                try (FileOutputStream out = new FileOutputStream(tempFile)) {
+                    out.write(snapshot);
+                    out.getFD().sync();
+                }
+
+                if (!tempFile.renameTo(file)) {
+                    throw new IOException("rename of " + tempFile.getName() + " failed");
+                }
+
+                return true;
+
+            } catch (IOException e) {
+                log.error("BinaryStateFile: failed to write [" + file.getName() + "]: " + e);
+                tempFile.delete();
+            }
+
+            return false;
+        }
+    }
+
+    public boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    public Object get(String key) {
+        return values.get(key);
+    }
+
+    public Map<String, Object> getAll() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Set a value. Null values remove the key.
+     */
+    public void put(String key, Object value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+
+        if (!(value instanceof String || value instanceof Boolean || value instanceof Integer
+                || value instanceof Long || value instanceof Float)) {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getName());
+        }
+
+        final Object previous = values.put(key, value);
+        if (!value.equals(previous)) {
+            dirty = true;
+        }
+    }
+
+    public void remove(String key) {
+        if (values.remove(key) != null) {
+            dirty = true;
+        }
+    }
+
+    public void clear() {
+        if (!values.isEmpty()) {
+            values.clear();
+            dirty = true;
+        }
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public boolean delete() {
+        values.clear();
+        dirty = false;
+        synchronized (writeLock) {
+            tempFile.delete();
+            return !file.exists() || file.delete();
+        }
+    }
+
+    private byte[] encode() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                final Object value = entry.getValue();
+
+                writeString(out, entry.getKey());
+                if (value instanceof String) {
+                    out.writeByte(TYPE_STRING);
+                    writeString(out, (String) value);
+                } else if (value instanceof Boolean) {
+                    out.writeByte(TYPE_BOOLEAN);
+                    out.writeBoolean((Boolean) value);
+                } else if (value instanceof Integer) {
+                    out.writeByte(TYPE_INT);
+                    out.writeInt((Integer) value);
+                } else if (value instanceof Long) {
+                    out.writeByte(TYPE_LONG);
+                    out.writeLong((Long) value);
+                } else {
+                    out.writeByte(TYPE_FLOAT);
+                    out.writeFloat((Float) value);
+                }
+            }
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, Object> decode(ByteBuffer buffer, int entryCount) {
+        final Map<String, Object> decoded = new HashMap<>();
+
+        for (int i = 0; i < entryCount; i++) {
+            final String key = readString(buffer);
+            final byte type = buffer.get();
+
+            switch (type) {
+                case TYPE_STRING:
+                    decoded.put(key, readString(buffer));
+                    break;
+                case TYPE_BOOLEAN:
+                    decoded.put(key, buffer.get() != 0);
+                    break;
+                case TYPE_INT:
+                    decoded.put(key, buffer.getInt());
+                    break;
+                case TYPE_LONG:
+                    decoded.put(key, buffer.getLong());
+                    break;
+                case TYPE_FLOAT:
+                    decoded.put(key, buffer.getFloat());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown value type " + type + " for key [" + key + "]");
+            }
+        }
+
+        return decoded;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+
+        final byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -86,6 +86,7 @@ public final class Constants {
         public static final String CONTENT_TYPE_HEADER = "Content-Type";
         public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
         public static final String CONTENT_LENGTH_HEADER = "Content-Length";
+        public static final String RETRY_AFTER_HEADER = "Retry-After";
         public static final String USER_AGENT_HEADER = "User-Agent";
         public static final String HOST_HEADER = "Host";
 
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.function.Supplier;
+
+/**
+ * Helpers for streaming JSON with a {@link JsonWriter}, producing the same output as building a
+ * tree of JsonElements and calling {@code toString()} on it.
+ */
+public final class JsonStreams {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    /**
+     * Writes JsonElements exactly as {@code JsonElement.toString()} does: nulls are written,
+     * and HTML characters are not escaped.
+     */
+    public static final Gson ELEMENT_WRITER = new GsonBuilder()
+            .serializeNulls()
+            .disableHtmlEscaping()
+            .create();
+
+    /**
+     * Writes objects exactly as {@code new Gson().toJsonTree(value).toString()} does: null members
+     * are dropped, and HTML characters are not escaped.
+     */
+    public static final Gson TREE_WRITER = new GsonBuilder()
+            .disableHtmlEscaping()
+            .create();
+
+    public interface JsonBody {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    private JsonStreams() {
+    }
+
+    /**
+     * @return a lenient writer, which like {@code JsonElement.toString()} accepts any top-level value
+     */
+    public static JsonWriter newWriter(Writer out) {
+        final JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        return writer;
+    }
+
+    /**
+     * Streams a JSON body to a string.
+     */
+    public static String toJsonString(JsonBody body, int initialCapacity) throws IOException {
+        final StringWriter buffer = new StringWriter(initialCapacity);
+        final JsonWriter writer = newWriter(buffer);
+
+        body.write(writer);
+        writer.flush();
+
+        return buffer.toString();
+    }
+
+    /**
+     * Streams a JSON body to a string, or returns the fallback (usually built from the JsonElement tree)
+     * if the body could not be written.
+     */
+    public static String toJsonString(JsonBody body, Supplier<String> fallback) {
+        try {
+            return toJsonString(body, 8192);
+        } catch (IOException e) {
+            // StringWriter does not throw, but fall back to the tree if anything goes wrong
+            log.error("JsonStreams: streaming serialization failed: " + e);
+            return fallback.get();
+        }
+    }
+}
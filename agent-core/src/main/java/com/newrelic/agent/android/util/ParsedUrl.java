@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.util;
+
+/**
+ * The components of a sanitized request URL, as cached by {@link UrlCache}. Instances are
+ * immutable and shared between requests.
+ */
+public final class ParsedUrl {
+    private final String scheme;
+    private final String host;
+    private final int port;
+    private final String path;
+    private final String url;
+    private String template;
+
+    ParsedUrl(String scheme, String host, int port, String path, String url) {
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.url = url;
+    }
+
+    public String getScheme() {
+        return scheme;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the explicit port, or -1 if the URL doesn't specify one
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the sanitized URL: scheme, host, port and path, without user info, query or fragment
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return the {@link UrlTemplate} of the URL
+     */
+    public String getTemplate() {
+        // computed at most a few times, if raced
+        if (template == null) {
+            template = UrlTemplate.of(url);
+        }
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -52,12 +52,16 @@ public class SafeJsonPrimitive {
     }
 
     public static JsonPrimitive factory(Double number) {
+        return new JsonPrimitive(checkNumber(number));
+    }
+
+    public static Number checkNumber(Double number) {
         // Large Long values stored in attributes as Double do not transfer
         // well to Dirac, so covert the Json type to Long and avoid the conversion
         if ((number.floatValue() > Integer.MAX_VALUE) && (number.longValue() == number)) {
-            return new JsonPrimitive(Long.valueOf(number.longValue()));
+            return Long.valueOf(number.longValue());
         }
 
-        return new JsonPrimitive(checkNull(number));
+        return checkNull(number);
     }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.util;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of sanitized request URLs, so that repeated requests to the same endpoint
+ * aren't parsed again.
+ * <p>
+ * URLs of the common form {@code http[s]://host[:port][/path][?query][#fragment]} are parsed in
+ * place. Their sanitized form is a prefix of the URL, so a cached URL without a query or fragment
+ * is found without allocating. Entries are grouped by host, with each host and the hosts
+ * themselves kept in least recently used order, so one host with many distinct paths can't
+ * evict the others. Other URLs are parsed with {@link URL} and aren't cached.
+ */
+public final class UrlCache {
+    static final int MAX_HOSTS = 32;
+    static final int MAX_URLS_PER_HOST = 64;
+
+    static final class Host {
+        final String prefix;    // scheme://authority
+        final String scheme;
+        final String host;
+        final int port;
+        final Map<String, ParsedUrl> urls = new LinkedHashMap<String, ParsedUrl>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParsedUrl> eldest) {
+                return size() > MAX_URLS_PER_HOST;
+            }
+        };
+
+        Host(String prefix, String scheme, String host, int port) {
+            this.prefix = prefix;
+            this.scheme = scheme;
+            this.host = host;
+            this.port = port;
+        }
+    }
+
+    // most recently used first
+    private static final List<Host> hosts = new ArrayList<>();
+
+    private UrlCache() {
+    }
+
+    /**
+     * @return the components of the URL, or null if the URL is malformed
+     */
+    public static ParsedUrl parse(String url) {
+        if (url == null) {
+            return null;
+        }
+
+        final int authorityStart;
+        if (url.startsWith("https://")) {
+            authorityStart = 8;
+        } else if (url.startsWith("http://")) {
+            authorityStart = 7;
+        } else {
+            return parseUrl(url);
+        }
+
+        final int length = url.length();
+        int authorityEnd = length;
+        int portStart = -1;
+        for (int i = authorityStart; i < length; i++) {
+            final char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                authorityEnd = i;
+                break;
+            }
+            if (c == ':' && portStart == -1) {
+                portStart = i + 1;
+            } else if (c == '@' || c == '[' || c == ']' || c == '\\' || c == ':'
+                    || (portStart != -1 && (c < '0' || c > '9'))) {
+                // user info, IPv6 literals and odd ports are left to java.net.URL
+                return parseUrl(url);
+            }
+        }
+
+        final int hostEnd = portStart == -1 ? authorityEnd : portStart - 1;
+        if (hostEnd == authorityStart || portStart == authorityEnd
+                || (portStart != -1 && (url.charAt(portStart) == '0' || authorityEnd - portStart > 5))) {
+            return parseUrl(url);
+        }
+
+        int end = authorityEnd;
+        while (end < length && url.charAt(end) != '?' && url.charAt(end) != '#') {
+            end++;
+        }
+
+        synchronized (hosts) {
+            Host host = findHost(url, authorityEnd);
+            if (host != null) {
+                final ParsedUrl parsed = host.urls.get(end == length ? url : url.substring(0, end));
+                if (parsed != null) {
+                    return parsed;
+                }
+            } else {
+                final int port = portStart == -1 ? -1 : Integer.parseInt(url.substring(portStart, authorityEnd));
+                host = new Host(url.substring(0, authorityEnd), url.substring(0, authorityStart - 3),
+                        url.substring(authorityStart, hostEnd), port);
+                hosts.add(0, host);
+                if (hosts.size() > MAX_HOSTS) {
+                    hosts.remove(hosts.size() - 1);
+                }
+            }
+
+            final String sanitized = url.substring(0, end);
+            final ParsedUrl parsed = new ParsedUrl(host.scheme, host.host, host.port,
+                    url.substring(authorityEnd, end), sanitized);
+            host.urls.put(sanitized, parsed);
+
+            return parsed;
+        }
+    }
+
+    /**
+     * @return the cached host whose prefix matches the URL up to its path, moved to the front
+     */
+    private static Host findHost(String url, int authorityEnd) {
+        for (int i = 0; i < hosts.size(); i++) {
+            final Host host = hosts.get(i);
+            if (host.prefix.length() == authorityEnd && url.regionMatches(0, host.prefix, 0, authorityEnd)) {
+                if (i > 0) {
+                    hosts.remove(i);
+                    hosts.add(0, host);
+                }
+                return host;
+            }
+        }
+        return null;
+    }
+
+    static ParsedUrl parseUrl(String urlString) {
+        final URL url;
+        try {
+            url = new URL(urlString);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+
+        final StringBuilder sanitizedUrl = new StringBuilder();
+        sanitizedUrl.append(url.getProtocol());
+        sanitizedUrl.append("://");
+        sanitizedUrl.append(url.getHost());
+        if (url.getPort() != -1) {
+            sanitizedUrl.append(":");
+            sanitizedUrl.append(url.getPort());
+        }
+        sanitizedUrl.append(url.getPath());
+
+        return new ParsedUrl(url.getProtocol(), url.getHost(), url.getPort(), url.getPath(), sanitizedUrl.toString());
+    }
+
+    static int size() {
+        synchronized (hosts) {
+            int size = 0;
+            for (Host host : hosts) {
+                size += host.urls.size();
+            }
+            return size;
+        }
+    }
+
+    public static void clear() {
+        synchronized (hosts) {
+            hosts.clear();
+        }
+    }
+}
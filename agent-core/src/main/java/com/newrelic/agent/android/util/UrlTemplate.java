@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.util;
+
+/**
+ * Reduces a request URL to a template of its host and path, so requests to the same endpoint
+ * can be counted together. The scheme, user info, port, query and fragment are dropped, and path
+ * segments that look like identifiers (numbers, UUIDs, long hex strings or tokens) are replaced
+ * with {@value #ID_PLACEHOLDER}.
+ * <p>
+ * For example, {@code https://api.example.com:8443/v1/users/12345/orders?page=2} becomes
+ * {@code api.example.com/v1/users/{id}/orders}.
+ */
+public final class UrlTemplate {
+    public static final String ID_PLACEHOLDER = "{id}";
+    public static final String UNKNOWN_HOST = "unknownhost";
+
+    private static final int MIN_HEX_ID_LENGTH = 16;
+    private static final int MIN_TOKEN_LENGTH = 20;
+
+    private UrlTemplate() {
+    }
+
+    public static String of(String url) {
+        if (url == null || url.isEmpty()) {
+            return UNKNOWN_HOST;
+        }
+
+        int start = url.indexOf("://");
+        start = (start == -1) ? 0 : start + 3;
+
+        int end = url.length();
+        for (int i = start; i < url.length(); i++) {
+            final char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+
+        int pathStart = url.indexOf('/', start);
+        if (pathStart == -1 || pathStart > end) {
+            pathStart = end;
+        }
+
+        final StringBuilder template = new StringBuilder(end - start);
+        appendHost(template, url, start, pathStart);
+
+        int segmentStart = pathStart;
+        while (segmentStart < end) {
+            int segmentEnd = url.indexOf('/', segmentStart + 1);
+            if (segmentEnd == -1 || segmentEnd > end) {
+                segmentEnd = end;
+            }
+
+            // segmentStart is at the slash
+            template.append('/');
+            if (isIdentifier(url, segmentStart + 1, segmentEnd)) {
+                template.append(ID_PLACEHOLDER);
+            } else {
+                template.append(url, segmentStart + 1, segmentEnd);
+            }
+            segmentStart = segmentEnd;
+        }
+
+        return template.toString();
+    }
+
+    private static void appendHost(StringBuilder template, String url, int start, int end) {
+        final int userInfo = url.lastIndexOf('@', end - 1);
+        if (userInfo >= start) {
+            start = userInfo + 1;
+        }
+
+        int hostEnd = end;
+        if (start < end && url.charAt(start) == '[') {
+            // IPv6 literal
+            final int bracket = url.indexOf(']', start);
+            if (bracket != -1 && bracket < end) {
+                hostEnd = bracket + 1;
+            }
+        } else {
+            final int port = url.indexOf(':', start);
+            if (port != -1 && port < end) {
+                hostEnd = port;
+            }
+        }
+
+        if (hostEnd <= start) {
+            template.append(UNKNOWN_HOST);
+            return;
+        }
+
+        for (int i = start; i < hostEnd; i++) {
+            template.append(Character.toLowerCase(url.charAt(i)));
+        }
+    }
+
+    static boolean isIdentifier(String s, int start, int end) {
+        final int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+
+        boolean digits = true;
+        boolean hex = true;
+        boolean hasDigit = false;
+        boolean token = true;
+        int dashes = 0;
+
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            final boolean isDigit = c >= '0' && c <= '9';
+            final boolean isHexLetter = (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+
+            hasDigit |= isDigit;
+            digits &= isDigit;
+            if (c == '-') {
+                dashes++;
+            } else {
+                hex &= isDigit || isHexLetter;
+            }
+            token &= isDigit || Character.isLetter(c) || c == '-' || c == '_' || c == '=';
+        }
+
+        if (digits) {
+            return true;
+        }
+
+        // UUIDs, and hashes or object ids in hex
+        if (hex && hasDigit && ((length == 36 && dashes == 4) || (dashes == 0 && length >= MIN_HEX_ID_LENGTH))) {
+            return true;
+        }
+
+        // opaque tokens, such as base64 ids
+        return token && hasDigit && length >= MIN_TOKEN_LENGTH;
+    }
+}
@@ -5,8 +5,6 @@
 
 package com.newrelic.agent.android.util;
 
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.security.SecureRandom;
 import java.util.Random;
 
@@ -14,29 +12,9 @@ public class Util {
     private static final Random random = new SecureRandom();
 
     public static String sanitizeUrl(String urlString) {
-        if (urlString == null) {
-            return null;
-        }
+        final ParsedUrl url = UrlCache.parse(urlString);
 
-        final URL url;
-        try {
-            url = new URL(urlString);
-        } catch (MalformedURLException e) {
-            return null;
-        }
-
-        final StringBuffer sanitizedUrl = new StringBuffer();
-
-        sanitizedUrl.append(url.getProtocol());
-        sanitizedUrl.append("://");
-        sanitizedUrl.append(url.getHost());
-        if (url.getPort() != -1) {
-            sanitizedUrl.append(":");
-            sanitizedUrl.append(url.getPort());
-        }
-        sanitizedUrl.append(url.getPath());
-
-        return sanitizedUrl.toString();
+        return url == null ? null : url.getUrl();
     }
 
     public static Random getRandom() {
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android;
+
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AgentStartupTest {
+
+    private AgentStartup startup;
+
+    @Before
+    public void setUp() throws Exception {
+        StatsEngine.reset();
+        startup = AgentStartup.initialize();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        AgentStartup.shutdown();
+    }
+
+    @Test
+    public void testInitialize() {
+        Assert.assertSame(startup, AgentStartup.initialize());
+        Assert.assertTrue(AgentStartup.isPending());
+
+        startup.complete();
+        Assert.assertTrue(startup.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(AgentStartup.isPending());
+        Assert.assertNotSame("A completed startup should be replaced", startup, AgentStartup.initialize());
+    }
+
+    @Test
+    public void testStagesRunInOrder() {
+        final List<String> stages = Collections.synchronizedList(new ArrayList<>());
+
+        startup.runStage(AgentStartup.STAGE_CRASH_HANDLER, () -> stages.add(AgentStartup.STAGE_CRASH_HANDLER));
+        startup.stage(AgentStartup.STAGE_STORES, () -> stages.add(AgentStartup.STAGE_STORES));
+        startup.stage(AgentStartup.STAGE_SERVICES, () -> stages.add(AgentStartup.STAGE_SERVICES));
+        startup.complete();
+
+        Assert.assertTrue(startup.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(3, stages.size());
+        Assert.assertEquals(AgentStartup.STAGE_CRASH_HANDLER, stages.get(0));
+        Assert.assertEquals(AgentStartup.STAGE_STORES, stages.get(1));
+        Assert.assertEquals(AgentStartup.STAGE_SERVICES, stages.get(2));
+    }
+
+    @Test
+    public void testStageTimings() {
+        startup.stage(AgentStartup.STAGE_STORES, () -> sleep(50));
+        startup.complete();
+        Assert.assertTrue(startup.await(5, TimeUnit.SECONDS));
+
+        Map<String, Long> stageTimes = startup.getStageTimes();
+        Assert.assertTrue(stageTimes.get(AgentStartup.STAGE_STORES) >= 50);
+
+        Map<String, ?> metrics = StatsEngine.SUPPORTABILITY.getStatsMap();
+        Assert.assertTrue(metrics.containsKey(MetricNames.SUPPORTABILITY_STARTUP_STAGE
+                .replace(MetricNames.TAG_NAME, AgentStartup.STAGE_STORES)));
+        Assert.assertTrue(metrics.containsKey(MetricNames.SUPPORTABILITY_STARTUP_TOTAL));
+    }
+
+    @Test
+    public void testFailedStageDoesNotBlockStartup() {
+        final List<String> stages = Collections.synchronizedList(new ArrayList<>());
+
+        startup.stage(AgentStartup.STAGE_STORES, () -> {
+            throw new IllegalStateException("stores");
+        });
+        startup.stage(AgentStartup.STAGE_SERVICES, () -> stages.add(AgentStartup.STAGE_SERVICES));
+        startup.complete();
+
+        Assert.assertTrue(startup.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, stages.size());
+    }
+
+    @Test
+    public void testDeferredCallsReplayAfterStages() {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch stageStarted = new CountDownLatch(1);
+        final CountDownLatch releaseStage = new CountDownLatch(1);
+
+        startup.stage(AgentStartup.STAGE_SERVICES, () -> {
+            stageStarted.countDown();
+            await(releaseStage);
+            calls.add(AgentStartup.STAGE_SERVICES);
+        });
+        startup.complete();
+        await(stageStarted);
+
+        Assert.assertTrue(AgentStartup.defer(() -> calls.add("first")));
+        Assert.assertTrue(AgentStartup.defer(() -> calls.add("second")));
+        Assert.assertEquals(2, startup.getDeferredCallCount());
+
+        releaseStage.countDown();
+        Assert.assertTrue(startup.await(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals(3, calls.size());
+        Assert.assertEquals(AgentStartup.STAGE_SERVICES, calls.get(0));
+        Assert.assertEquals("first", calls.get(1));
+        Assert.assertEquals("second", calls.get(2));
+        Assert.assertEquals(2, (int) StatsEngine.SUPPORTABILITY.getStatsMap()
+                .get(MetricNames.SUPPORTABILITY_STARTUP_DEFERRED).getCount());
+
+        Assert.assertFalse("Calls are not deferred once complete", AgentStartup.defer(() -> calls.add("late")));
+        Assert.assertEquals(3, calls.size());
+    }
+
+    @Test
+    public void testCallsFromStartupThreadAreNotDeferred() {
+        final List<Boolean> deferred = Collections.synchronizedList(new ArrayList<>());
+
+        startup.stage(AgentStartup.STAGE_SERVICES, () -> deferred.add(AgentStartup.defer(() -> {
+        })));
+        startup.complete();
+
+        Assert.assertTrue(startup.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, deferred.size());
+        Assert.assertFalse(deferred.get(0));
+    }
+
+    @Test
+    public void testDeferredCallOverflow() {
+        for (int i = 0; i < AgentStartup.MAX_DEFERRED_CALLS; i++) {
+            Assert.assertTrue(AgentStartup.defer(() -> {
+            }));
+        }
+
+        // overflowing calls are dropped, not run out of order
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        Assert.assertEquals(AgentStartup.Deferral.DROPPED, AgentStartup.deferCall(() -> calls.add("overflow")));
+        Assert.assertTrue("dropped calls are not run", AgentStartup.defer(() -> calls.add("overflow")));
+        Assert.assertEquals(AgentStartup.MAX_DEFERRED_CALLS, startup.getDeferredCallCount());
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_STARTUP_DEFERRED_OVERFLOW));
+
+        startup.complete();
+        Assert.assertTrue(startup.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void testPendingStartupExpires() throws Exception {
+        AgentStartup.shutdown();
+        AgentStartup.instance.set(new AgentStartup(100));
+
+        final CountDownLatch replayed = new CountDownLatch(1);
+        Assert.assertTrue(AgentStartup.defer(replayed::countDown));
+
+        // start() is never called
+        Assert.assertTrue(replayed.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && AgentStartup.isPending(); i++) {
+            sleep(10);
+        }
+        Assert.assertFalse(AgentStartup.isPending());
+        Assert.assertFalse(AgentStartup.defer(() -> {
+        }));
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_STARTUP_EXPIRED));
+    }
+
+    @Test
+    public void testShutdownFromStartupThread() {
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+        startup.stage(AgentStartup.STAGE_SERVICES, () -> calls.add(AgentStartup.STAGE_SERVICES));
+        Assert.assertTrue(AgentStartup.defer(AgentStartup::shutdown));
+        Assert.assertTrue(AgentStartup.defer(() -> calls.add("after shutdown")));
+        startup.complete();
+
+        // calls already queued still run
+        Assert.assertTrue(startup.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, calls.size());
+        Assert.assertNull(AgentStartup.getInstance());
+    }
+
+    @Test
+    public void testNoDeferralWithoutStartup() {
+        AgentStartup.shutdown();
+        Assert.assertFalse(AgentStartup.isPending());
+        Assert.assertFalse(AgentStartup.defer(() -> {
+        }));
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2024. New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.aei;
+
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.logging.ConsoleAgentLog;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class AEIRecordIndexTest {
+
+    private static File reportsDir;
+    private File indexFile;
+    private AEIRecordIndex index;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        reportsDir = Files.createTempDirectory("AEIRecordIndex-").toFile();
+        reportsDir.mkdirs();
+
+        AgentLogManager.setAgentLog(new ConsoleAgentLog());
+        AgentLogManager.getAgentLog().setLevel(AgentLog.DEBUG);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        indexFile = new File(reportsDir, "recordIndex");
+        index = new AEIRecordIndex(indexFile);
+
+        index.add(123, 1000L);
+        index.add(234, 2000L);
+        index.add(345, 3000L);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        indexFile.delete();
+    }
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+        Assert.assertTrue(reportsDir.delete());
+    }
+
+    @Test
+    public void contains() {
+        Assert.assertTrue(index.contains(123, 1000L));
+        Assert.assertFalse(index.contains(123, 1001L));
+        Assert.assertFalse(index.contains(456, 1000L));
+    }
+
+    @Test
+    public void highWaterMark() {
+        Assert.assertEquals(3000L, index.getHighWaterMark());
+
+        index.add(456, 2500L);
+        Assert.assertEquals(3000L, index.getHighWaterMark());
+
+        index.add(567, 4000L);
+        Assert.assertEquals(4000L, index.getHighWaterMark());
+    }
+
+    @Test
+    public void isNew() {
+        Assert.assertFalse(index.isNew(345, 3000L));
+        Assert.assertFalse("Older than the high-water mark", index.isNew(456, 2999L));
+        Assert.assertTrue("Same time as the high-water mark", index.isNew(456, 3000L));
+        Assert.assertTrue(index.isNew(456, 3001L));
+        Assert.assertTrue("Recycled pid", index.isNew(123, 3001L));
+    }
+
+    @Test
+    public void retain() {
+        Set<Integer> removed = index.retain(new HashSet<>(Arrays.asList(123, 345, 999)));
+
+        Assert.assertEquals(1, removed.size());
+        Assert.assertTrue(removed.contains(234));
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(3000L, index.getHighWaterMark());
+
+        removed = index.retain(new HashSet<>());
+        Assert.assertEquals(2, removed.size());
+        Assert.assertEquals(0, index.size());
+        Assert.assertEquals("High-water mark is retained", 3000L, index.getHighWaterMark());
+    }
+
+    @Test
+    public void flushAndLoad() {
+        Assert.assertFalse(index.exists());
+        Assert.assertTrue(index.flush());
+        Assert.assertTrue(indexFile.length() > 0);
+
+        AEIRecordIndex loaded = new AEIRecordIndex(indexFile);
+        Assert.assertEquals(3, loaded.size());
+        Assert.assertEquals(3000L, loaded.getHighWaterMark());
+        Assert.assertTrue(loaded.contains(234, 2000L));
+    }
+
+    @Test
+    public void flushEmptyIndex() {
+        index.retain(new HashSet<>());
+        Assert.assertTrue(index.flush());
+
+        AEIRecordIndex loaded = new AEIRecordIndex(indexFile);
+        Assert.assertEquals(0, loaded.size());
+        Assert.assertEquals(3000L, loaded.getHighWaterMark());
+    }
+
+    @Test
+    public void loadCorruptIndex() throws Exception {
+        try (FileWriter writer = new FileWriter(indexFile)) {
+            writer.write("{ not json");
+        }
+
+        AEIRecordIndex loaded = new AEIRecordIndex(indexFile);
+        Assert.assertEquals(0, loaded.size());
+        Assert.assertEquals(0, loaded.getHighWaterMark());
+    }
+
+    @Test
+    public void clearAndDelete() {
+        index.flush();
+        index.clear();
+        Assert.assertEquals(0, index.size());
+        Assert.assertEquals(0, index.getHighWaterMark());
+
+        index.delete();
+        Assert.assertFalse(indexFile.exists());
+    }
+}
@@ -11,6 +11,17 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
 public class AEITraceTest {
 
     private String sysTrace;
@@ -37,4 +48,94 @@ public class AEITraceTest {
         Assert.assertEquals(0, aeiTrace.threads.size());
         Assert.assertEquals("", aeiTrace.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void decomposeMatchesRegexDecomposition() {
+        aeiTrace.decomposeFromSystemTrace(sysTrace);
+        Assert.assertEquals(decomposeWithRegex(sysTrace), aeiTrace.threads);
+        Assert.assertEquals(32, aeiTrace.getThreadCnt());
+    }
+
+    @Test
+    public void decomposeFromFile() throws Exception {
+        File traceFile = File.createTempFile("systrace-", ".txt");
+        Files.write(traceFile.toPath(), sysTrace.getBytes(StandardCharsets.UTF_8));
+
+        aeiTrace.decomposeFromSystemTrace(traceFile);
+        Assert.assertEquals("6295", aeiTrace.getPid());
+        Assert.assertEquals(33, aeiTrace.getThreads().size());
+        Assert.assertTrue(traceFile.delete());
+    }
+
+    @Test
+    public void decomposeWithLimits() {
+        aeiTrace.setMaxThreads(5).setMaxFrames(3).decomposeFromSystemTrace(new StringReader(sysTrace));
+        Assert.assertEquals(5, aeiTrace.threads.size());
+        for (String thread : aeiTrace.threads) {
+            String[] lines = thread.split("\n");
+            Assert.assertTrue(lines[0].startsWith("\""));
+            Assert.assertTrue(lines.length <= 4);
+        }
+
+        List<String> unlimited = new AEITrace().decomposeFromSystemTrace(sysTrace).getThreads();
+        Assert.assertEquals(unlimited.get(0).split("\n")[0], aeiTrace.threads.get(0).split("\n")[0]);
+    }
+
+    @Test
+    public void decomposeTruncatedTrace() {
+        String truncated = sysTrace.substring(0, sysTrace.indexOf("\"main\""));
+        aeiTrace.decomposeFromSystemTrace(truncated);
+        Assert.assertEquals("6295", aeiTrace.pid);
+        Assert.assertEquals(1, aeiTrace.threads.size());
+        Assert.assertTrue(aeiTrace.threads.get(0).startsWith("\"Signal Catcher\""));
+    }
+
+    @Test
+    public void decomposeLargeTrace() {
+        // real ANR dumps range from a few hundred KB to several MB
+        final String largeTrace = generateTrace(1024 * 1024);
+
+        aeiTrace.decomposeFromSystemTrace(largeTrace);
+        Assert.assertEquals("6295", aeiTrace.pid);
+        Assert.assertTrue(aeiTrace.threads.size() > 33);
+        Assert.assertEquals(decomposeWithRegex(largeTrace), aeiTrace.threads);
+        for (String thread : aeiTrace.threads) {
+            Assert.assertTrue(thread.startsWith("\""));
+        }
+    }
+
+    private String generateTrace(int size) {
+        final int threadsStart = sysTrace.indexOf("DALVIK THREADS");
+        final int threadsEnd = sysTrace.indexOf("----- end");
+        final String header = sysTrace.substring(0, sysTrace.indexOf('\n', threadsStart) + 1);
+        final String threads = sysTrace.substring(header.length(), threadsEnd);
+        final StringBuilder trace = new StringBuilder(size + sysTrace.length());
+
+        trace.append(header);
+        while (trace.length() < size) {
+            trace.append(threads);
+        }
+        trace.append(sysTrace.substring(threadsEnd));
+
+        return trace.toString();
+    }
+
+    /**
+     * Whole-trace regular expression decomposition, used to verify the line parser
+     */
+    private List<String> decomposeWithRegex(String sysTrace) {
+        final Pattern threadsRegexp = Pattern.compile(".*DALVIK THREADS \\((?<threadCnt>\\d+)\\):\\s(.*)----- end (\\d+) -----", Pattern.MULTILINE);
+        final List<String> threads = new ArrayList<>();
+
+        Matcher threadsMatcher = threadsRegexp.matcher(sysTrace.strip().replace('\n', '\t'));
+        if (threadsMatcher.matches()) {
+            threads.addAll(List.of(threadsMatcher.group(2).strip().split("\t\t")));
+            threads.removeIf(s -> !AEITrace.TRACE_THREAD_ID_REGEXP.matcher(s).matches());
+            threads.replaceAll(s -> Arrays.stream(s.split("\t"))
+                    .filter(s1 -> !s1.trim().matches("[(|-].*"))
+                    .collect(Collectors.joining("\n")));
+        }
+
+        return threads;
+    }
+}
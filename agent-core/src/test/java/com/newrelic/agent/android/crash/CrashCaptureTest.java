@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.crash;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.newrelic.agent.android.Agent;
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.analytics.AnalyticsAttribute;
+import com.newrelic.agent.android.analytics.AnalyticsEvent;
+import com.newrelic.agent.android.analytics.SessionEvent;
+import com.newrelic.agent.android.test.stub.StubAgentImpl;
+import com.newrelic.agent.android.util.Streams;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class CrashCaptureTest {
+    private File crashDir;
+    private Set<AnalyticsAttribute> sessionAttributes;
+    private Collection<AnalyticsEvent> events;
+    private Throwable throwable;
+
+    @Before
+    public void setUp() throws Exception {
+        Agent.setImpl(new StubAgentImpl());
+
+        AgentConfiguration agentConfiguration = new AgentConfiguration();
+        agentConfiguration.setApplicationToken(CrashCaptureTest.class.getSimpleName());
+        agentConfiguration.setCrashStore(new TestCrashStore());
+        CrashReporter.initialize(agentConfiguration);
+
+        crashDir = Files.createTempDirectory("CrashCapture-").toFile();
+
+        sessionAttributes = new HashSet<>();
+        sessionAttributes.add(new AnalyticsAttribute(AnalyticsAttribute.SESSION_DURATION_ATTRIBUTE, 1.5f));
+        sessionAttributes.add(new AnalyticsAttribute("unicode", "é中😀"));
+        sessionAttributes.add(new AnalyticsAttribute("escaped", "quote\" slash\\ newline\n"));
+
+        AnalyticsEvent event = new SessionEvent();
+        event.addAttributes(sessionAttributes);
+        events = new ArrayList<>();
+        events.add(event);
+
+        throwable = new RuntimeException("testCrashCapture", new IllegalStateException("cause"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        CrashReporter.shutdown();
+        for (File file : crashDir.listFiles()) {
+            file.delete();
+        }
+        crashDir.delete();
+    }
+
+    @Test
+    public void testReserve() {
+        CrashCapture capture = CrashCapture.reserve(crashDir, CrashCapture.DEFAULT_BUDGET);
+
+        Assert.assertNotNull(capture);
+        Assert.assertTrue(capture.isReserved());
+        Assert.assertTrue(new File(crashDir, capture.getUuid() + CrashCapture.RESERVED_SUFFIX).exists());
+        Assert.assertFalse(capture.getRecordFile().exists());
+
+        capture.release();
+        Assert.assertFalse(capture.isReserved());
+        Assert.assertEquals(0, crashDir.listFiles().length);
+    }
+
+    @Test
+    public void testReserveWithoutFileStore() {
+        Assert.assertNull(CrashCapture.reserve(new TestCrashStore()));
+        Assert.assertNull(CrashCapture.reserve(null));
+        Assert.assertNull(CrashCapture.reserve(new File(crashDir, "missing"), CrashCapture.DEFAULT_BUDGET));
+    }
+
+    @Test
+    public void testCapture() throws Exception {
+        CrashCapture capture = CrashCapture.reserve(crashDir, CrashCapture.DEFAULT_BUDGET);
+
+        Assert.assertTrue(capture.capture(Thread.currentThread(), throwable, sessionAttributes, events));
+        Assert.assertFalse(capture.isReserved());
+        Assert.assertTrue(capture.getRecordFile().exists());
+        Assert.assertFalse(new File(crashDir, capture.getUuid() + CrashCapture.RESERVED_SUFFIX).exists());
+
+        JsonObject json = readRecord(capture);
+        Assert.assertEquals(Crash.PROTOCOL_VERSION, json.get("protocolVersion").getAsInt());
+        Assert.assertEquals(CrashCaptureTest.class.getSimpleName(), json.get("appToken").getAsString());
+        Assert.assertTrue(json.get("threads").getAsJsonArray().size() > 1);
+        Assert.assertTrue(json.get("threads").getAsJsonArray().get(0).getAsJsonObject().get("crashed").getAsBoolean());
+
+        Crash crash = Crash.crashFromJsonString(json.toString());
+        Assert.assertEquals(capture.getUuid(), crash.getUuid());
+        Assert.assertEquals(RuntimeException.class.getName(), crash.getExceptionInfo().getClassName());
+        Assert.assertEquals("testCrashCapture", crash.getExceptionInfo().getMessage());
+        Assert.assertTrue(crash.getSessionAttributes().containsAll(sessionAttributes));
+        Assert.assertTrue(json.get("sessionAttributes").getAsJsonObject().has("obfuscated"));
+        Assert.assertEquals(1, json.get("analyticsEvents").getAsJsonArray().size());
+        Assert.assertEquals("quote\" slash\\ newline\n",
+                json.get("analyticsEvents").getAsJsonArray().get(0).getAsJsonObject().get("escaped").getAsString());
+    }
+
+    @Test
+    public void testCaptureMatchesCrash() throws Exception {
+        CrashCapture capture = CrashCapture.reserve(crashDir, CrashCapture.DEFAULT_BUDGET);
+        Assert.assertTrue(capture.capture(Thread.currentThread(), throwable, sessionAttributes, events));
+
+        JsonObject captured = readRecord(capture);
+        JsonObject expected = new Crash(capture.getUuid(), throwable, sessionAttributes, events, true).asJsonObject();
+
+        for (String key : expected.keySet()) {
+            Assert.assertTrue("Captured crash should contain " + key, captured.has(key));
+        }
+        Assert.assertEquals(expected.get("exception"), captured.get("exception"));
+        Assert.assertEquals(expected.get("appInfo"), captured.get("appInfo"));
+        Assert.assertEquals(expected.get("sessionAttributes"), captured.get("sessionAttributes"));
+        Assert.assertEquals(expected.get("analyticsEvents"), captured.get("analyticsEvents"));
+        Assert.assertEquals(expected.get("dataToken"), captured.get("dataToken"));
+    }
+
+    @Test
+    public void testCaptureOnlyOnce() {
+        CrashCapture capture = CrashCapture.reserve(crashDir, CrashCapture.DEFAULT_BUDGET);
+
+        Assert.assertTrue(capture.capture(Thread.currentThread(), throwable, sessionAttributes, events));
+        Assert.assertFalse(capture.capture(Thread.currentThread(), throwable, sessionAttributes, events));
+
+        // a used capture leaves the record in place
+        capture.release();
+        Assert.assertTrue(capture.getRecordFile().exists());
+    }
+
+    @Test
+    public void testCaptureOverBudget() throws Exception {
+        List<AnalyticsEvent> manyEvents = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            AnalyticsEvent event = new SessionEvent();
+            event.addAttributes(sessionAttributes);
+            manyEvents.add(event);
+        }
+
+        CrashCapture capture = CrashCapture.reserve(crashDir, 16 * 1024);
+        byte[] buffer = capture.getBuffer();
+
+        Assert.assertTrue(capture.capture(Thread.currentThread(), throwable, sessionAttributes, manyEvents));
+        Assert.assertSame("Should not grow the reserved buffer", buffer, capture.getBuffer());
+
+        JsonObject json = readRecord(capture);
+        Assert.assertEquals(1, json.get("threads").getAsJsonArray().size());
+        Assert.assertEquals(0, json.get("analyticsEvents").getAsJsonArray().size());
+        Assert.assertEquals(0, json.get("sessionAttributes").getAsJsonObject().size());
+
+        Crash crash = Crash.crashFromJsonString(json.toString());
+        Assert.assertEquals(capture.getUuid(), crash.getUuid());
+        Assert.assertEquals(RuntimeException.class.getName(), crash.getExceptionInfo().getClassName());
+    }
+
+    @Test
+    public void testCaptureUnderHeapPressure() throws Exception {
+        CrashCapture capture = Mockito.spy(CrashCapture.reserve(crashDir, CrashCapture.DEFAULT_BUDGET));
+
+        // heap is exhausted while collecting the full record
+        Mockito.doThrow(new OutOfMemoryError("testCaptureUnderHeapPressure")).when(capture).writeCrash(
+                ArgumentMatchers.any(), ArgumentMatchers.any(Thread.class), ArgumentMatchers.any(Throwable.class),
+                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+
+        Assert.assertTrue(capture.capture(Thread.currentThread(), throwable, sessionAttributes, events));
+        Mockito.verify(capture).writeMinimalCrash(ArgumentMatchers.any(), ArgumentMatchers.any(Thread.class),
+                ArgumentMatchers.eq(throwable), ArgumentMatchers.anyLong());
+
+        JsonObject json = readRecord(capture);
+        Assert.assertEquals(1, json.get("threads").getAsJsonArray().size());
+        Assert.assertEquals("testCrashCapture", json.get("exception").getAsJsonObject().get("cause").getAsString());
+    }
+
+    @Test
+    public void testMinimalCrashIsBounded() throws Exception {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < CrashCapture.MAX_MINIMAL_MESSAGE_LENGTH * 2; i++) {
+            message.append('x');
+        }
+
+        Throwable deepThrowable = new RuntimeException(message.toString());
+        StackTraceElement[] stack = new StackTraceElement[CrashCapture.MAX_MINIMAL_FRAMES * 4];
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = new StackTraceElement("Class" + i, "method", "File.java", i);
+        }
+        deepThrowable.setStackTrace(stack);
+
+        CrashCapture capture = CrashCapture.reserve(crashDir, 16 * 1024);
+        Assert.assertTrue(capture.capture(Thread.currentThread(), deepThrowable, sessionAttributes, events));
+
+        JsonObject json = readRecord(capture);
+        JsonObject thread = json.get("threads").getAsJsonArray().get(0).getAsJsonObject();
+        Assert.assertEquals(CrashCapture.MAX_MINIMAL_FRAMES, thread.get("stack").getAsJsonArray().size());
+        Assert.assertEquals(CrashCapture.MAX_MINIMAL_MESSAGE_LENGTH,
+                json.get("exception").getAsJsonObject().get("cause").getAsString().length());
+    }
+
+    @Test
+    public void testCaptureFailure() {
+        CrashCapture capture = CrashCapture.reserve(crashDir, 64);
+
+        Assert.assertFalse(capture.capture(Thread.currentThread(), throwable, sessionAttributes, events));
+        Assert.assertFalse(capture.isReserved());
+        Assert.assertEquals(0, crashDir.listFiles().length);
+    }
+
+    @Test
+    public void testBufferWriter() throws IOException {
+        String text = "ascii é 中 😀";
+        CrashCapture.BufferWriter writer = new CrashCapture.BufferWriter(64);
+
+        writer.write(text);
+        Assert.assertEquals(text, new String(writer.buffer, 0, writer.size(), StandardCharsets.UTF_8));
+
+        writer.reset();
+        Assert.assertEquals(0, writer.size());
+
+        try {
+            writer.write(new char[65], 0, 65);
+            Assert.fail("Should throw when the budget is exceeded");
+        } catch (CrashCapture.BudgetExceededException e) {
+            Assert.assertEquals(64, writer.size());
+        }
+    }
+
+    private JsonObject readRecord(CrashCapture capture) throws IOException {
+        String json = Streams.slurpString(capture.getRecordFile(), StandardCharsets.UTF_8.name());
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+}
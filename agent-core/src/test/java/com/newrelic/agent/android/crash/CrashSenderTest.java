@@ -13,6 +13,7 @@ import static org.mockito.internal.verification.VerificationModeFactory.atLeastO
 import com.newrelic.agent.android.Agent;
 import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.payload.StreamingPayload;
 import com.newrelic.agent.android.stats.StatsEngine;
 import com.newrelic.agent.android.test.stub.StubAnalyticsAttributeStore;
 
@@ -21,8 +22,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -64,6 +67,21 @@ public class CrashSenderTest {
         Assert.assertEquals("Should set read timeout", connection.getReadTimeout(), CrashSender.CRASH_COLLECTOR_TIMEOUT);
     }
 
+    @Test
+    public void testStreamedPayload() throws Exception {
+        final int crashLength = crash.toJsonString().getBytes(StandardCharsets.UTF_8).length;
+
+        Assert.assertTrue(crashSender.getPayload() instanceof StreamingPayload);
+        Assert.assertEquals(crashLength, crashSender.getCrashLength());
+        Assert.assertEquals(crashLength, crashSender.getPayload().contentLength());
+        Assert.assertEquals(crashLength, crashSender.getPayloadSize());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        crashSender.getPayload().writeTo(out);
+        Assert.assertEquals(crash.toJsonString(), out.toString(StandardCharsets.UTF_8.name()));
+        Assert.assertEquals(out.size(), crashSender.getPayloadSize());
+    }
+
     @Test
     public void call() throws Exception {
         int preUploadCount = crash.getUploadCount();
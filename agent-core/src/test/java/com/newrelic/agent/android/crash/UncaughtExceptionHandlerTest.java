@@ -24,6 +24,9 @@ import org.junit.Test;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
+import java.io.File;
+import java.nio.file.Files;
+
 public class UncaughtExceptionHandlerTest {
     private CrashReporter crashReporter;
     private UncaughtExceptionHandler uncaughtExceptionHandler;
@@ -147,6 +150,75 @@ public class UncaughtExceptionHandlerTest {
         AnalyticsControllerImpl.shutdown();
     }
 
+    @Test
+    public void testUncaughtExceptionWithCrashCapture() throws Exception {
+        File crashDir = Files.createTempDirectory("CrashCapture-").toFile();
+        Mockito.doReturn(crashDir.getAbsolutePath()).when(crashStore).getRootPath();
+
+        crashReporter = Mockito.spy(CrashReporter.initialize(agentConfiguration));
+        crashReporter.setEnabled(true);
+        uncaughtExceptionHandler = Mockito.spy(new UncaughtExceptionHandler(crashReporter));
+        uncaughtExceptionHandler.reserveCrashCapture(crashStore);
+
+        final CrashCapture capture = uncaughtExceptionHandler.getCrashCapture();
+        Assert.assertNotNull("Should reserve crash capture in the crash store", capture);
+
+        uncaughtExceptionHandler.uncaughtException(Thread.currentThread(), new RuntimeException("Throwable"));
+
+        Assert.assertTrue("Should write the captured crash", capture.getRecordFile().exists());
+        Mockito.verify(crashStore, Mockito.times(1)).store(ArgumentMatchers.argThat(crash -> capture.getUuid().equals(crash.getUuid())));
+
+        capture.getRecordFile().delete();
+        crashDir.delete();
+    }
+
+    @Test
+    public void testUncaughtExceptionOutOfMemory() throws Exception {
+        File crashDir = Files.createTempDirectory("CrashCapture-").toFile();
+        Mockito.doReturn(crashDir.getAbsolutePath()).when(crashStore).getRootPath();
+
+        crashReporter = Mockito.spy(CrashReporter.initialize(agentConfiguration));
+        crashReporter.setEnabled(true);
+        Mockito.doThrow(new OutOfMemoryError()).when(crashReporter).storeAndReportCrash(ArgumentMatchers.any(Crash.class), ArgumentMatchers.eq(false));
+
+        uncaughtExceptionHandler = Mockito.spy(new UncaughtExceptionHandler(crashReporter));
+        uncaughtExceptionHandler.reserveCrashCapture(crashStore);
+
+        final Thread.UncaughtExceptionHandler previousHandler = Mockito.mock(Thread.UncaughtExceptionHandler.class);
+        UncaughtExceptionHandler.previousExceptionHandler = previousHandler;
+
+        final CrashCapture capture = uncaughtExceptionHandler.getCrashCapture();
+        final Throwable throwable = new RuntimeException("Throwable");
+        uncaughtExceptionHandler.uncaughtException(Thread.currentThread(), throwable);
+
+        Assert.assertTrue("Captured crash should survive heap exhaustion", capture.getRecordFile().exists());
+        Mockito.verify(previousHandler, Mockito.times(1)).uncaughtException(Thread.currentThread(), throwable);
+
+        capture.getRecordFile().delete();
+        crashDir.delete();
+    }
+
+    @Test
+    public void testChainsUncapturedOutOfMemory() throws Exception {
+        final Thread.UncaughtExceptionHandler previousHandler = Mockito.mock(Thread.UncaughtExceptionHandler.class);
+        UncaughtExceptionHandler.previousExceptionHandler = previousHandler;
+
+        crashReporter = Mockito.spy(CrashReporter.initialize(agentConfiguration));
+        crashReporter.setEnabled(true);
+        Mockito.doThrow(new OutOfMemoryError()).when(crashReporter).storeAndReportCrash(ArgumentMatchers.any(Crash.class), ArgumentMatchers.eq(false));
+        uncaughtExceptionHandler = Mockito.spy(new UncaughtExceptionHandler(crashReporter));
+
+        final Throwable throwable = new RuntimeException("Throwable");
+        try {
+            uncaughtExceptionHandler.uncaughtException(Thread.currentThread(), throwable);
+            Assert.fail("Should rethrow when no crash was captured");
+        } catch (OutOfMemoryError e) {
+            // expected
+        }
+
+        Mockito.verify(previousHandler, Mockito.times(1)).uncaughtException(Thread.currentThread(), throwable);
+    }
+
     @Test
     public void testUncaughtIAException() {
         Throwable throwable = new RuntimeException("Throwable");
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.harvest;
+
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveHarvestPolicyTest {
+    private static final long PERIOD = HarvestTimer.DEFAULT_HARVEST_PERIOD;
+
+    private AdaptiveHarvestPolicy policy;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        StatsEngine.reset();
+        policy = new AdaptiveHarvestPolicy();
+        now = System.currentTimeMillis();
+        policy.onHarvest(true, now);
+    }
+
+    @Test
+    public void testEarlyHarvestOnThreshold() {
+        final AdaptiveHarvestPolicy.Buffer buffer = AdaptiveHarvestPolicy.Buffer.HTTP_TRANSACTIONS;
+        now += AdaptiveHarvestPolicy.MIN_HARVEST_INTERVAL_MS;
+
+        Assert.assertFalse(policy.onBuffered(buffer, buffer.getThresholdBytes() - 1, now));
+        Assert.assertTrue(policy.onBuffered(buffer, 1, now));
+        Assert.assertFalse("Should request one harvest at a time", policy.onBuffered(buffer, 1024, now));
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(
+                MetricNames.SUPPORTABILITY_HARVEST_ADAPTIVE_EARLY.replace(MetricNames.TAG_NAME, buffer.getBufferName())));
+
+        policy.onHarvest(true, now);
+        Assert.assertEquals(0, policy.getBufferedBytes(buffer));
+    }
+
+    @Test
+    public void testBuffersAreTrackedSeparately() {
+        now += AdaptiveHarvestPolicy.MIN_HARVEST_INTERVAL_MS;
+        Assert.assertFalse(policy.onBuffered(AdaptiveHarvestPolicy.Buffer.EVENTS,
+                AdaptiveHarvestPolicy.Buffer.EVENTS.getThresholdBytes() - 1, now));
+        Assert.assertFalse(policy.onBuffered(AdaptiveHarvestPolicy.Buffer.ACTIVITY_TRACES,
+                AdaptiveHarvestPolicy.Buffer.ACTIVITY_TRACES.getThresholdBytes() - 1, now));
+    }
+
+    @Test
+    public void testNoEarlyHarvestWithinMinimumInterval() {
+        final AdaptiveHarvestPolicy.Buffer buffer = AdaptiveHarvestPolicy.Buffer.EVENTS;
+
+        Assert.assertFalse(policy.onBuffered(buffer, buffer.getThresholdBytes() * 2, now + 1000));
+        Assert.assertTrue(policy.onBuffered(buffer, 0, now + AdaptiveHarvestPolicy.MIN_HARVEST_INTERVAL_MS));
+    }
+
+    @Test
+    public void testIdleHarvestsStretchPeriod() {
+        Assert.assertEquals(PERIOD * 2, policy.getEffectivePeriod(PERIOD));
+
+        policy.onHarvest(true, now += PERIOD);
+        Assert.assertEquals(PERIOD * 4, policy.getEffectivePeriod(PERIOD));
+
+        policy.onHarvest(true, now += PERIOD);
+        Assert.assertEquals("Stretch should be capped", PERIOD * AdaptiveHarvestPolicy.MAX_PERIOD_STRETCH, policy.getEffectivePeriod(PERIOD));
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_HARVEST_ADAPTIVE_STRETCHED));
+
+        policy.onBuffered(AdaptiveHarvestPolicy.Buffer.EVENTS, 100, now);
+        Assert.assertEquals("New data should end the stretch", PERIOD, policy.getEffectivePeriod(PERIOD));
+
+        policy.onHarvest(true, now += PERIOD);
+        Assert.assertEquals(PERIOD, policy.getEffectivePeriod(PERIOD));
+    }
+
+    @Test
+    public void testNoStretchWhileDisconnected() {
+        policy = new AdaptiveHarvestPolicy();
+        policy.onHarvest(false, now);
+        policy.onHarvest(false, now + PERIOD);
+        Assert.assertEquals(PERIOD, policy.getEffectivePeriod(PERIOD));
+    }
+
+    @Test
+    public void testCoalesceWithUpload() {
+        Assert.assertFalse("Too soon after the last harvest", policy.onUpload(PERIOD, now + AdaptiveHarvestPolicy.MIN_HARVEST_INTERVAL_MS));
+
+        policy.onBuffered(AdaptiveHarvestPolicy.Buffer.EVENTS, 100, now);
+        Assert.assertTrue(policy.onUpload(PERIOD, now + (long) (PERIOD * AdaptiveHarvestPolicy.COALESCE_WINDOW)));
+        Assert.assertFalse("Should request one harvest at a time", policy.onUpload(PERIOD, now + PERIOD));
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_HARVEST_ADAPTIVE_COALESCED));
+    }
+
+    @Test
+    public void testNoCoalesceBeforeFirstHarvest() {
+        policy = new AdaptiveHarvestPolicy();
+        Assert.assertFalse(policy.onUpload(PERIOD, now));
+    }
+}
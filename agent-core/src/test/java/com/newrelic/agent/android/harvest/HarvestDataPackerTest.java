@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.harvest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.newrelic.agent.android.Agent;
+import com.newrelic.agent.android.FeatureFlag;
+import com.newrelic.agent.android.NullAgentImpl;
+import com.newrelic.agent.android.analytics.AnalyticsAttribute;
+import com.newrelic.agent.android.analytics.AnalyticsEvent;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.test.mock.Providers;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class HarvestDataPackerTest {
+
+    private HarvestData harvestData;
+
+    @BeforeClass
+    public static void classSetUp() {
+        Agent.setImpl(NullAgentImpl.instance);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        FeatureFlag.resetFeatures();
+        StatsEngine.reset();
+
+        harvestData = new HarvestData();
+        harvestData.setAnalyticsEnabled(true);
+        harvestData.setDataToken(Providers.provideDataToken());
+        harvestData.setDeviceInformation(Providers.provideDeviceInformation());
+        harvestData.setMachineMeasurements(Providers.provideMachineMeasurements());
+        harvestData.setSessionAttributes(Providers.provideSessionAttributes());
+
+        for (int i = 0; i < 200; i++) {
+            HttpTransaction transaction = Providers.provideHttpTransaction();
+            transaction.setUrl("https://httpstat.us/200/" + i);
+            harvestData.getHttpTransactions().add(transaction);
+        }
+
+        List<AnalyticsEvent> events = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            AnalyticsEvent event = new AnalyticsEvent("event" + i);
+            event.getMutableAttributeSet().add(new AnalyticsAttribute("index", i));
+            event.getMutableAttributeSet().add(new AnalyticsAttribute("uuid", UUID.randomUUID().toString()));
+            events.add(event);
+        }
+        harvestData.setAnalyticsEvents(events);
+    }
+
+    @Test
+    public void testHarvestThatFitsIsSentWhole() {
+        List<HarvestDataPacker.Payload> payloads = new HarvestDataPacker().pack(harvestData);
+
+        Assert.assertEquals(1, payloads.size());
+        Assert.assertEquals(harvestData.toJsonString(), payloads.get(0).toJsonString());
+        Assert.assertFalse(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_HARVEST_SPLIT));
+    }
+
+    @Test
+    public void testOversizeHarvestIsSplit() {
+        final HarvestDataPacker packer = new HarvestDataPacker(8 * 1024);
+        final String whole = harvestData.toJsonString();
+        Assert.assertFalse(packer.fits(whole));
+
+        List<HarvestDataPacker.Payload> payloads = packer.pack(harvestData);
+        Assert.assertTrue(payloads.size() > 1);
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_HARVEST_SPLIT));
+
+        int transactions = 0;
+        int events = 0;
+        for (int i = 0; i < payloads.size(); i++) {
+            final String json = payloads.get(i).toJsonString();
+            Assert.assertTrue(packer.fits(json));
+
+            final JsonArray array = JsonParser.parseString(json).getAsJsonArray();
+            Assert.assertEquals(harvestData.getDataToken().asJson(), array.get(0));
+            Assert.assertEquals(harvestData.getSessionAttributes().size(), array.get(8).getAsJsonObject().size());
+            if (i == 0) {
+                Assert.assertEquals(harvestData.getMachineMeasurements().asJson(), array.get(4));
+            } else {
+                Assert.assertEquals("Metrics are sent once", 0, array.get(4).getAsJsonArray().size());
+            }
+
+            transactions += array.get(3).getAsJsonArray().size();
+            events += array.get(9).getAsJsonArray().size();
+        }
+
+        Assert.assertEquals(200, transactions);
+        Assert.assertEquals(500, events);
+    }
+
+    @Test
+    public void testPartsReuseSerializedItems() {
+        List<HarvestDataPacker.Payload> payloads = new HarvestDataPacker(8 * 1024).pack(harvestData);
+        Assert.assertTrue(payloads.size() > 1);
+
+        for (HarvestDataPacker.Payload payload : payloads) {
+            Assert.assertEquals(payload.asJsonArray(), JsonParser.parseString(payload.toJsonString()));
+        }
+    }
+
+    @Test
+    public void testUnsplittablePayloadIsSentAnyway() {
+        harvestData.getHttpTransactions().clear();
+        harvestData.getAnalyticsEvents().clear();
+
+        StringBuilder random = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            random.append(UUID.randomUUID());
+        }
+
+        AnalyticsEvent event = new AnalyticsEvent("large");
+        event.getMutableAttributeSet().add(new AnalyticsAttribute("random", random.toString()));
+        harvestData.getAnalyticsEvents().add(event);
+
+        List<HarvestDataPacker.Payload> payloads = new HarvestDataPacker(1024).pack(harvestData);
+        Assert.assertEquals(1, payloads.size());
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_HARVEST_SPLIT_OVERSIZE));
+    }
+
+    @Test
+    public void testAcceptedPayloadsAreRemoved() {
+        List<HarvestDataPacker.Payload> payloads = new HarvestDataPacker(8 * 1024).pack(harvestData);
+        Assert.assertTrue(payloads.size() > 1);
+
+        payloads.get(0).removeFrom(harvestData);
+        Assert.assertTrue(harvestData.getMachineMeasurements().isEmpty());
+        Assert.assertEquals(200 - payloads.get(0).getHttpTransactions().count(), harvestData.getHttpTransactions().count());
+        Assert.assertEquals(500 - payloads.get(0).getAnalyticsEvents().size(), harvestData.getAnalyticsEvents().size());
+
+        for (HarvestDataPacker.Payload payload : payloads.subList(1, payloads.size())) {
+            payload.removeFrom(harvestData);
+        }
+        Assert.assertEquals(0, harvestData.getHttpTransactions().count());
+        Assert.assertEquals(0, harvestData.getAnalyticsEvents().size());
+        Assert.assertEquals(Providers.provideSessionAttributes().size(), harvestData.getSessionAttributes().size());
+    }
+}
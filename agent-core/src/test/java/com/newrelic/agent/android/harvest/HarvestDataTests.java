@@ -228,6 +228,56 @@ public class HarvestDataTests {
 
     }
 
+    @Test
+    public void testStreamedJsonMatchesTree() throws Exception {
+        TestHarvest harvest = new TestHarvest();
+        HarvestData harvestData = new HarvestData();
+        harvest.createHarvester();
+        harvest.setHarvestData(harvestData);
+        Harvest.setInstance(harvest);
+
+        harvestData.setAnalyticsEnabled(true);
+        harvestData.setDataToken(Providers.provideDataToken());
+        harvestData.setDeviceInformation(Providers.provideDeviceInformation());
+        harvestData.setHarvestTimeDelta(59.96653896570206);
+        harvestData.setMachineMeasurements(Providers.provideMachineMeasurements());
+        harvestData.setActivityTraces(Providers.provideActivityTraces());
+
+        HttpTransactions transactions = new HttpTransactions();
+        HttpTransaction transaction = Providers.provideHttpTransaction();
+        transaction.setTotalTime(0.2556343);
+        transactions.add(transaction);
+        transaction = Providers.provideHttpTransaction();
+        transaction.setUrl("https://httpstat.us/<escaped>?a=b&c=\"d\"");
+        transaction.setAppData("appData");
+        transaction.setCarrier(null);
+        transaction.setTotalTime(3000000000.0);
+        transactions.add(transaction);
+        harvestData.setHttpTransactions(transactions);
+
+        Set<AnalyticsAttribute> sessionAttributes = Providers.provideSessionAttributes();
+        sessionAttributes.add(new AnalyticsAttribute("largeDouble", 3000000000.0));
+        sessionAttributes.add(new AnalyticsAttribute("unicode", "été ☃  "));
+        harvestData.setSessionAttributes(sessionAttributes);
+
+        Set<AnalyticsEvent> events = Providers.provideSessionEvents();
+        AnalyticsEvent event = new AnalyticsEvent("streamed");
+        event.getMutableAttributeSet().add(new AnalyticsAttribute("largeDouble", 3000000000.0));
+        event.getMutableAttributeSet().add(new AnalyticsAttribute("flag", true));
+        events.add(event);
+        harvestData.setAnalyticsEvents(events);
+
+        Assert.assertEquals(harvestData.asJsonArray().toString(), harvestData.toJsonString());
+
+        harvestData.setAnalyticsEnabled(false);
+        Assert.assertEquals(harvestData.asJsonArray().toString(), harvestData.toJsonString());
+
+        FeatureFlag.disableFeature(FeatureFlag.DefaultInteractions);
+        Assert.assertEquals(harvestData.asJsonArray().toString(), harvestData.toJsonString());
+
+        Assert.assertEquals(new HarvestData().asJsonArray().toString(), new HarvestData().toJsonString());
+    }
+
     @Test
     public void testBuildHarvestHttpTransactions() {
         HttpTransactions transactions = new HttpTransactions();
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.harvest;
+
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HarvestListenerDispatcherTest {
+
+    private HarvestListenerDispatcher dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        StatsEngine.reset();
+        dispatcher = new HarvestListenerDispatcher(500);
+    }
+
+    @Test
+    public void testInlineListenersRunOnCallerThread() {
+        final RecordingListener listener = new RecordingListener(false, 0);
+
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.HARVEST, Collections.singletonList(listener));
+        Assert.assertEquals(Collections.singletonList("onHarvest"), listener.callbacks);
+        Assert.assertEquals(Thread.currentThread(), listener.thread);
+    }
+
+    @Test
+    public void testInlineListenersHaveNoExecutor() {
+        final RecordingListener listener = new RecordingListener(false, 0);
+
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.HARVEST, Collections.singletonList(listener));
+        Assert.assertFalse(dispatcher.getListenerState(listener).hasExecutor());
+    }
+
+    @Test
+    public void testConcurrentDispatchDisabled() {
+        final RecordingListener listener = new RecordingListener(true, 0);
+
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.COMPLETE, Collections.singletonList(listener), false);
+        Assert.assertEquals(Collections.singletonList("onHarvestComplete"), listener.callbacks);
+        Assert.assertEquals(Thread.currentThread(), listener.thread);
+        Assert.assertFalse(dispatcher.getListenerState(listener).hasExecutor());
+
+        // timing is still recorded
+        final String metricName = MetricNames.SUPPORTABILITY_HARVEST_LISTENER
+                .replace(MetricNames.TAG_NAME, HarvestListenerDispatcher.getListenerName(listener)) + "onHarvestComplete";
+        Assert.assertEquals(1, StatsEngine.SUPPORTABILITY.getStatsMap().get(metricName).getCount());
+    }
+
+    @Test
+    public void testConcurrentListenersRunInParallel() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final List<HarvestLifecycleAware> listeners = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            listeners.add(new HarvestLifecycleAware() {
+                @Override
+                public void onHarvest() {
+                    latch.countDown();
+                    try {
+                        // each listener only completes if the other is running at the same time
+                        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public boolean isConcurrentHarvestListener() {
+                    return true;
+                }
+            });
+        }
+
+        dispatcher = new HarvestListenerDispatcher(5000);
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.HARVEST, listeners);
+        Assert.assertEquals(0, latch.getCount());
+    }
+
+    @Test
+    public void testPhaseWaitsForConcurrentListeners() {
+        final RecordingListener listener = new RecordingListener(true, 100);
+
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.HARVEST, Collections.singletonList(listener));
+        Assert.assertEquals(Collections.singletonList("onHarvest"), listener.callbacks);
+        Assert.assertNotEquals(Thread.currentThread(), listener.thread);
+    }
+
+    @Test
+    public void testDeadlineExceeded() throws Exception {
+        final RecordingListener slow = new RecordingListener(true, 800);
+        final RecordingListener inline = new RecordingListener(false, 0);
+
+        final long start = System.currentTimeMillis();
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.HARVEST, Arrays.asList(slow, inline));
+        Assert.assertTrue(System.currentTimeMillis() - start < 800);
+        Assert.assertEquals(Collections.singletonList("onHarvest"), inline.callbacks);
+
+        final String name = HarvestListenerDispatcher.getListenerName(slow);
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(
+                MetricNames.SUPPORTABILITY_HARVEST_LISTENER_DEADLINE.replace(MetricNames.TAG_NAME, name)));
+
+        // the next callback is queued behind the overrunning one
+        slow.delayMs = 0;
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.FINALIZE, Collections.singletonList(slow));
+        Assert.assertEquals(Arrays.asList("onHarvest", "onHarvestFinalize"), slow.callbacks);
+        Assert.assertEquals("Callbacks should not overlap", 1, slow.maxOverlap.get());
+    }
+
+    @Test
+    public void testListenerTimingIsRecorded() {
+        final RecordingListener listener = new RecordingListener(true, 0);
+
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.COMPLETE, Collections.singletonList(listener));
+
+        final String metricName = MetricNames.SUPPORTABILITY_HARVEST_LISTENER
+                .replace(MetricNames.TAG_NAME, HarvestListenerDispatcher.getListenerName(listener)) + "onHarvestComplete";
+        Assert.assertEquals(1, StatsEngine.SUPPORTABILITY.getStatsMap().get(metricName).getCount());
+    }
+
+    @Test
+    public void testListenerExceptionsAreContained() {
+        final HarvestLifecycleAware failing = new HarvestLifecycleAware() {
+            @Override
+            public void onHarvestBefore() {
+                throw new RuntimeException("listener failure");
+            }
+        };
+        final RecordingListener listener = new RecordingListener(false, 0);
+
+        dispatcher.dispatch(HarvestListenerDispatcher.Phase.BEFORE, Arrays.asList(failing, listener));
+        Assert.assertEquals(Collections.singletonList("onHarvestBefore"), listener.callbacks);
+    }
+
+    @Test
+    public void testListenerNames() {
+        Assert.assertEquals("HarvestListenerDispatcherTest$RecordingListener",
+                HarvestListenerDispatcher.getListenerName(new RecordingListener(false, 0)));
+    }
+
+    static class RecordingListener implements HarvestLifecycleAware {
+        final boolean concurrent;
+        final List<String> callbacks = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxOverlap = new AtomicInteger(0);
+        volatile long delayMs;
+        volatile Thread thread;
+
+        RecordingListener(boolean concurrent, long delayMs) {
+            this.concurrent = concurrent;
+            this.delayMs = delayMs;
+        }
+
+        void record(String callback) {
+            maxOverlap.accumulateAndGet(running.incrementAndGet(), Math::max);
+            thread = Thread.currentThread();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            callbacks.add(callback);
+            running.decrementAndGet();
+        }
+
+        @Override
+        public void onHarvestBefore() {
+            record("onHarvestBefore");
+        }
+
+        @Override
+        public void onHarvest() {
+            record("onHarvest");
+        }
+
+        @Override
+        public void onHarvestFinalize() {
+            record("onHarvestFinalize");
+        }
+
+        @Override
+        public void onHarvestComplete() {
+            record("onHarvestComplete");
+        }
+
+        @Override
+        public boolean isConcurrentHarvestListener() {
+            return concurrent;
+        }
+    }
+}
@@ -186,6 +186,41 @@ public class HarvestTimerTests {
 
     }
 
+    @Test
+    public void testAdaptivePolicyRequestsEarlyHarvest() throws Exception {
+        TestHarvestTimer timer = new TestHarvestTimer();
+        timer.setAdaptivePolicy(new AdaptiveHarvestPolicy() {
+            @Override
+            public boolean onBuffered(Buffer buffer, long bytes, long nowMs) {
+                return true;
+            }
+        });
+
+        timer.onDataBuffered(AdaptiveHarvestPolicy.Buffer.EVENTS, 1024);
+        Thread.sleep(100);
+        Assert.assertEquals("Should not tick while stopped", 0, timer.getTicks());
+
+        timer.start();
+        Thread.sleep(100);
+        final long ticks = timer.getTicks();
+
+        timer.onDataBuffered(AdaptiveHarvestPolicy.Buffer.EVENTS, 1024);
+        Thread.sleep(100);
+        Assert.assertEquals(ticks + 1, timer.getTicks());
+        timer.stop();
+    }
+
+    @Test
+    public void testAdaptivePolicyStretchesTickPeriod() {
+        TestHarvestTimer timer = new TestHarvestTimer();
+        Assert.assertEquals(timer.getPeriod(), timer.getTickPeriod());
+
+        AdaptiveHarvestPolicy policy = new AdaptiveHarvestPolicy();
+        timer.setAdaptivePolicy(policy);
+        policy.onHarvest(true, System.currentTimeMillis());
+        Assert.assertEquals(timer.getPeriod() * 2, timer.getTickPeriod());
+    }
+
     class TestHarvestTimer extends HarvestTimer {
         private long runs = 0;
         private long ticks = 0;
@@ -22,8 +22,11 @@ import org.junit.Assert;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -619,6 +622,79 @@ public class HarvesterTest {
         Mockito.verify(mockHarvestTimer, Mockito.never()).tickNow(Mockito.any(Runnable.class));
     }
 
+    @Test
+    public void testRejectedPartIsDroppedAlone() {
+        final HarvestData harvestData = provideOversizeHarvest();
+
+        harvester.setHarvestDataPacker(new HarvestDataPacker(1024));
+        Mockito.doReturn(provideDataResponse(HarvestResponse.Code.OK))
+                .doReturn(provideDataResponse(HarvestResponse.Code.ENTITY_TOO_LARGE))
+                .doReturn(provideDataResponse(HarvestResponse.Code.OK))
+                .when(harvester.getHarvestConnection()).sendData(Mockito.any(HarvestData.class));
+
+        harvester.transition(Harvester.State.CONNECTED);
+        harvester.execute();
+
+        // the parts after the rejected one are still sent
+        final List<HarvestData> sent = captureSentData();
+        Assert.assertTrue(sent.size() > 2);
+
+        int transactions = 0;
+        for (HarvestData payload : sent) {
+            transactions += payload.getHttpTransactions().count();
+        }
+        Assert.assertEquals(200, transactions);
+
+        Assert.assertTrue(testAdapter.didError());
+        Assert.assertTrue(testAdapter.didComplete());
+        Assert.assertEquals(Harvester.State.CONNECTED, harvester.getCurrentState());
+        Assert.assertEquals(0, harvestData.getHttpTransactions().count());
+    }
+
+    @Test
+    public void testFailedPartRetainsUndeliveredParts() {
+        final HarvestData harvestData = provideOversizeHarvest();
+
+        harvester.setHarvestDataPacker(new HarvestDataPacker(1024));
+        Mockito.doReturn(provideDataResponse(HarvestResponse.Code.OK))
+                .doReturn(provideDataResponse(HarvestResponse.Code.ENTITY_TOO_LARGE))
+                .doReturn(provideDataResponse(HarvestResponse.Code.REQUEST_TIMEOUT))
+                .when(harvester.getHarvestConnection()).sendData(Mockito.any(HarvestData.class));
+
+        harvester.transition(Harvester.State.CONNECTED);
+        harvester.execute();
+
+        // the rejected part is dropped; the part that timed out, and those not yet sent, are retained
+        final List<HarvestData> sent = captureSentData();
+        Assert.assertEquals(3, sent.size());
+        Assert.assertEquals(200 - sent.get(0).getHttpTransactions().count() - sent.get(1).getHttpTransactions().count(),
+                harvestData.getHttpTransactions().count());
+    }
+
+    private List<HarvestData> captureSentData() {
+        final ArgumentCaptor<HarvestData> captor = ArgumentCaptor.forClass(HarvestData.class);
+        Mockito.verify(harvester.getHarvestConnection(), Mockito.atLeastOnce()).sendData(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private HarvestData provideOversizeHarvest() {
+        final HarvestData harvestData = harvester.getHarvestData();
+        harvestData.setDataToken(Providers.provideDataToken());
+        for (int i = 0; i < 200; i++) {
+            HttpTransaction transaction = Providers.provideHttpTransaction();
+            transaction.setUrl("https://httpstat.us/200/" + UUID.randomUUID());
+            transaction.setTimestamp(System.currentTimeMillis());
+            harvestData.getHttpTransactions().add(transaction);
+        }
+        return harvestData;
+    }
+
+    private HarvestResponse provideDataResponse(HarvestResponse.Code code) {
+        HarvestResponse response = new HarvestResponse();
+        response.setStatusCode(code.getStatusCode());
+        return response;
+    }
+
     private Harvest setupMockHarvestWithSessionTime(long sessionTimeMs) {
         HarvestTimer mockHarvestTimer = Mockito.spy(new HarvestTimer(harvester));
         Mockito.doReturn(sessionTimeMs).when(mockHarvestTimer).sessionTimeSinceStart();
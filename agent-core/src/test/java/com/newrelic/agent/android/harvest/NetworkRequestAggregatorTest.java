@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.harvest;
+
+import com.newrelic.agent.android.metric.Metric;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+public class NetworkRequestAggregatorTest {
+
+    private NetworkRequestAggregator aggregator;
+
+    @Before
+    public void setUp() throws Exception {
+        StatsEngine.reset();
+        aggregator = new NetworkRequestAggregator(5, 3);
+    }
+
+    private static HttpTransaction transaction(String url, String method, int statusCode, int errorCode, double totalTime) {
+        HttpTransaction txn = new HttpTransaction();
+        txn.setUrl(url);
+        txn.setHttpMethod(method);
+        txn.setStatusCode(statusCode);
+        txn.setErrorCode(errorCode);
+        txn.setTotalTime(totalTime);
+        txn.setBytesSent(100);
+        txn.setBytesReceived(1000);
+        return txn;
+    }
+
+    private static Map<String, Metric> byName(Collection<Metric> metrics) {
+        Map<String, Metric> map = new HashMap<>();
+        for (Metric metric : metrics) {
+            map.put(metric.getName(), metric);
+        }
+        return map;
+    }
+
+    @Test
+    public void testRequestsAreAggregatedByEndpoint() {
+        for (int i = 0; i < 4; i++) {
+            aggregator.aggregate(transaction("https://api.example.com/users/" + i + "?q=1", "GET", 200, 0, 0.1 * (i + 1)));
+        }
+        aggregator.aggregate(transaction("https://api.example.com/users/9", "POST", 201, 0, 0.2));
+
+        Assert.assertEquals(2, aggregator.getEndpointCount());
+
+        Map<String, Metric> metrics = byName(aggregator.drain());
+        Metric get = metrics.get(MetricNames.METRIC_NETWORK_AGGREGATE + "api.example.com/users/{id}/GET/2xx");
+        Assert.assertNotNull(get);
+        Assert.assertEquals(4, get.getCount());
+        Assert.assertEquals(1.0, get.getTotal(), 0.0001);
+        Assert.assertEquals(0.1, get.getMin(), 0.0001);
+        Assert.assertEquals(0.4, get.getMax(), 0.0001);
+        Assert.assertEquals(400, metrics.get(get.getName() + "/BytesSent").getTotal(), 0);
+        Assert.assertEquals(4000, metrics.get(get.getName() + "/BytesReceived").getTotal(), 0);
+        Assert.assertNotNull(metrics.get(MetricNames.METRIC_NETWORK_AGGREGATE + "api.example.com/users/{id}/POST/2xx"));
+
+        Assert.assertEquals(0, aggregator.getEndpointCount());
+        Assert.assertTrue(aggregator.drain().isEmpty());
+    }
+
+    @Test
+    public void testHistogram() {
+        final String name = NetworkRequestAggregator.endpointName("host/path", "GET", "2xx");
+
+        aggregator.aggregate(transaction("https://host/path", "GET", 200, 0, 0.05));
+        aggregator.aggregate(transaction("https://host/path", "GET", 200, 0, 0.08));
+        aggregator.aggregate(transaction("https://host/path", "GET", 200, 0, 0.3));
+        aggregator.aggregate(transaction("https://host/path", "GET", 200, 0, 30));
+
+        Map<String, Metric> metrics = byName(aggregator.drain());
+        Assert.assertEquals(2, metrics.get(name + "/Histogram/100").getCount());
+        Assert.assertEquals(1, metrics.get(name + "/Histogram/500").getCount());
+        Assert.assertEquals(1, metrics.get(name + "/Histogram/Inf").getCount());
+        Assert.assertNull(metrics.get(name + "/Histogram/250"));
+    }
+
+    @Test
+    public void testSuccessfulRequestsAreSampled() {
+        int kept = 0;
+        for (int i = 0; i < 12; i++) {
+            if (aggregator.aggregate(transaction("https://host/path", "GET", 200, 0, 0.1))) {
+                kept++;
+            }
+        }
+
+        // the 1st, 6th and 11th
+        Assert.assertEquals(3, kept);
+        Assert.assertEquals(9, StatsEngine.SUPPORTABILITY.getStatsMap()
+                .get(MetricNames.SUPPORTABILITY_NETWORK_AGGREGATED).getCount());
+
+        // the first request of the next harvest is kept
+        aggregator.drain();
+        Assert.assertTrue(aggregator.aggregate(transaction("https://host/path", "GET", 200, 0, 0.1)));
+    }
+
+    @Test
+    public void testFailuresAreAlwaysKept() {
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(aggregator.aggregate(transaction("https://host/path", "GET", 500, 0, 0.1)));
+            Assert.assertTrue(aggregator.aggregate(transaction("https://host/path", "GET", 0, -1009, 0.1)));
+        }
+
+        Map<String, Metric> metrics = byName(aggregator.drain());
+        Assert.assertEquals(10, metrics.get(NetworkRequestAggregator.endpointName("host/path", "GET", "5xx")).getCount());
+        Assert.assertEquals(10, metrics.get(NetworkRequestAggregator.endpointName("host/path", "GET",
+                NetworkRequestAggregator.STATUS_FAILED)).getCount());
+    }
+
+    @Test
+    public void testEndpointsAreCapped() {
+        for (int i = 0; i < 10; i++) {
+            aggregator.aggregate(transaction("https://host/path" + (char) ('a' + i), "GET", 200, 0, 0.1));
+        }
+
+        Assert.assertEquals(4, aggregator.getEndpointCount());
+        Map<String, Metric> metrics = byName(aggregator.drain());
+        Assert.assertEquals(7, metrics.get(NetworkRequestAggregator.endpointName(
+                NetworkRequestAggregator.OTHER_ENDPOINT, "GET", "2xx")).getCount());
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap()
+                .containsKey(MetricNames.SUPPORTABILITY_NETWORK_AGGREGATE_OVERFLOW));
+    }
+}
@@ -8,15 +8,22 @@ package com.newrelic.agent.android.instrumentation.httpclient;
 import com.newrelic.agent.android.harvest.HttpTransaction;
 import com.newrelic.agent.android.harvest.HttpTransactions;
 import com.newrelic.agent.android.instrumentation.TransactionState;
+import com.newrelic.agent.android.instrumentation.io.CountingInputStream;
 import com.newrelic.agent.android.test.mock.Providers;
 import com.newrelic.agent.android.test.mock.TestHarvest;
 
 import org.apache.http.HttpEntity;
+import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.net.UnknownHostException;
 
 import static com.newrelic.agent.android.harvest.type.HarvestErrorCodes.NSURLErrorDNSLookupFailed;
@@ -45,4 +52,41 @@ public class HttpResponseEntityImplTest {
         Assert.assertEquals(NSURLErrorDNSLookupFailed, transactionState.getErrorCode());
         Assert.assertEquals(666, transaction.getBytesReceived());
     }
+
+    @Test
+    public void testContentIsBufferedUnlessChunked() throws Exception {
+        final InputStream buffered = httpResponseEntity.getContent();
+        Assert.assertTrue(buffered instanceof CountingInputStream);
+        Assert.assertEquals("ByteArrayEntity", ((CountingInputStream) buffered).getBufferAsString());
+
+        final BasicHttpEntity chunkedEntity = new BasicHttpEntity();
+        chunkedEntity.setContent(new ByteArrayInputStream("chunked".getBytes()));
+        chunkedEntity.setChunked(true);
+
+        final HttpResponseEntityImpl chunked = new HttpResponseEntityImpl(new HttpEntityWrapper(chunkedEntity), Providers.provideTransactionState(), -1);
+        final CountingInputStream captured = (CountingInputStream) chunked.getContent();
+        Assert.assertEquals("Chunked content is not read ahead of the app", "", captured.getBufferAsString());
+
+        Assert.assertEquals('c', captured.read());
+        Assert.assertEquals("c", captured.getBufferAsString());
+    }
+
+    @Test
+    public void testErrorBodyIsCapturedOnWrite() throws Exception {
+        transactionState = new TransactionState();
+        transactionState.setUrl("http://httpstat.us/500");
+        transactionState.setStatusCode(500);
+
+        final HttpEntity errorEntity = new ByteArrayEntity("Internal Server Error".getBytes(), ContentType.TEXT_PLAIN);
+        httpResponseEntity = new HttpResponseEntityImpl(errorEntity, transactionState, -1);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        httpResponseEntity.writeTo(out);
+        Assert.assertEquals("Internal Server Error", out.toString());
+
+        HttpTransactions transactions = testHarvest.verifyQueuedTransactions(1);
+        HttpTransaction transaction = transactions.getHttpTransactions().iterator().next();
+        Assert.assertEquals(500, transaction.getStatusCode());
+        Assert.assertEquals("Internal Server Error", transaction.getResponseBody());
+    }
 }
\ No newline at end of file
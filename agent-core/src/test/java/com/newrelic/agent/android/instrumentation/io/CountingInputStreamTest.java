@@ -15,6 +15,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -172,6 +176,99 @@ public class CountingInputStreamTest {
 
     }
 
+    @Test
+    public void testCaptureDoesNotReadAhead() throws Exception {
+        final ByteArrayInputStream bis = new ByteArrayInputStream("winken blinken and nod".getBytes());
+        final CountingInputStream cis = new CountingInputStream(bis, StandardCharsets.UTF_8);
+
+        Assert.assertEquals(22, bis.available());
+        Assert.assertEquals("", cis.getBufferAsString());
+
+        byte[] b = new byte[6];
+        Assert.assertEquals(6, cis.read(b));
+        Assert.assertEquals('w', b[0]);
+        Assert.assertEquals(16, bis.available());
+        Assert.assertEquals("winken", cis.getBufferAsString());
+    }
+
+    @Test
+    public void testCaptureIsBounded() throws Exception {
+        final String data = "winken\nblinken\n\nand\n\n\nnod";
+        final CountingInputStream cis = new CountingInputStream(new ByteArrayInputStream(data.getBytes()), StandardCharsets.UTF_8, 8);
+
+        Assert.assertEquals(data, TestUtil.slurp(cis));
+        Assert.assertEquals(data.substring(0, 8), cis.getBufferAsString());
+    }
+
+    @Test
+    public void testCaptureAllReads() throws Exception {
+        final CountingInputStream cis = new CountingInputStream(new ByteArrayInputStream("abcdefgh".getBytes()), StandardCharsets.UTF_8);
+        final byte[] b = new byte[8];
+
+        Assert.assertEquals('a', cis.read());
+        Assert.assertEquals(3, cis.read(b, 2, 3));
+        Assert.assertEquals("abcd", cis.getBufferAsString());
+
+        // bytes read again after a reset aren't captured twice
+        cis.mark(8);
+        Assert.assertEquals(2, cis.read(b, 0, 2));
+        cis.reset();
+        Assert.assertEquals(4, cis.read(b));
+        Assert.assertEquals("abcdefgh", cis.getBufferAsString());
+    }
+
+    @Test
+    public void testCaptureUsesCharset() throws Exception {
+        final String data = "gr\u00fc\u00dfe \u4e16\u754c";
+        CountingInputStream cis = new CountingInputStream(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)),
+                CountingInputStream.charsetOf("application/json; charset=utf-8"));
+        TestUtil.slurp(cis);
+        Assert.assertEquals(data, cis.getBufferAsString());
+
+        cis = new CountingInputStream(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_16BE)),
+                CountingInputStream.charsetOf("text/plain;charset=\"UTF-16BE\""));
+        TestUtil.slurp(cis);
+        Assert.assertEquals(data, cis.getBufferAsString());
+    }
+
+    @Test
+    public void testCaptureCompletes() throws Exception {
+        final List<String> bodies = new ArrayList<>();
+        final StreamCompleteListener listener = new StreamCompleteListener() {
+            @Override
+            public void streamComplete(StreamCompleteEvent e) {
+                bodies.add(((CountingInputStream) e.getSource()).getBufferAsString());
+            }
+
+            @Override
+            public void streamError(StreamCompleteEvent e) {
+            }
+        };
+
+        // at EOF
+        CountingInputStream cis = new CountingInputStream(new ByteArrayInputStream("winken".getBytes()), StandardCharsets.UTF_8);
+        cis.addStreamCompleteListener(listener);
+        TestUtil.slurp(cis);
+
+        // on close, with only part of the body read
+        cis = new CountingInputStream(new ByteArrayInputStream("blinken".getBytes()), StandardCharsets.UTF_8);
+        cis.addStreamCompleteListener(listener);
+        cis.read(new byte[5]);
+        cis.close();
+
+        Assert.assertEquals(Arrays.asList("winken", "blink"), bodies);
+        Assert.assertSame(cis.getBufferAsString(), cis.getBufferAsString());
+    }
+
+    @Test
+    public void testCharsetOf() {
+        Assert.assertEquals(StandardCharsets.UTF_8, CountingInputStream.charsetOf(null));
+        Assert.assertEquals(StandardCharsets.UTF_8, CountingInputStream.charsetOf("application/json"));
+        Assert.assertEquals(StandardCharsets.UTF_8, CountingInputStream.charsetOf("text/html; charset=bogus-charset"));
+        Assert.assertEquals(StandardCharsets.ISO_8859_1, CountingInputStream.charsetOf("text/html; Charset=ISO-8859-1"));
+        Assert.assertEquals(StandardCharsets.UTF_16LE, CountingInputStream.charsetOf("text/plain; charset=\"utf-16le\"; format=flowed"));
+    }
+
     private class TestInputStream extends InputStream {
 
         @Override
@@ -16,6 +16,7 @@ import org.mockito.Mockito;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 public class CountingOutputStreamTest {
 
@@ -75,4 +76,19 @@ public class CountingOutputStreamTest {
             Assert.fail(e.getLocalizedMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCapture() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CountingOutputStream capturing = new CountingOutputStream(out, 8);
+
+        capturing.write('a');
+        capturing.write("bcd".getBytes());
+        capturing.write("--efghijk--".getBytes(), 2, 7);
+
+        Assert.assertEquals(11, capturing.getCount());
+        Assert.assertEquals("abcdefghijk", out.toString());
+        Assert.assertEquals("abcdefgh", capturing.getCaptureAsString(StandardCharsets.UTF_8));
+        Assert.assertEquals("Nothing is captured by default", "", cos.getCaptureAsString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.instrumentation.okhttp3;
+
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.instrumentation.TransactionState;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+public class CountingResponseBodyTest {
+    private static final int BODY_SIZE = 64 * 1024;
+    private static final MediaType TEXT_PLAIN = MediaType.parse("text/plain");
+
+    private TransactionState transactionState;
+
+    @Before
+    public void setUp() throws Exception {
+        AgentConfiguration.getInstance().setOkHttpResponseBodyMeasurement(true);
+        transactionState = new TransactionState();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        AgentConfiguration.getInstance().setOkHttpResponseBodyMeasurement(false);
+    }
+
+    @Test
+    public void testStreamsUnknownLengthBody() throws IOException {
+        ResponseBody impl = ResponseBody.create(TEXT_PLAIN, -1, provideContent(BODY_SIZE));
+        CountingResponseBody body = new CountingResponseBody(impl, transactionState, provideResponse(200, impl));
+
+        Assert.assertEquals("Should not buffer to discover the length", -1, body.contentLength());
+
+        body.source().readByteArray(100);
+        Assert.assertFalse(transactionState.isComplete());
+        Assert.assertTrue("Should not read ahead of the app", body.getBytesRead() < BODY_SIZE);
+
+        body.source().readByteArray();
+        Assert.assertTrue(transactionState.isComplete());
+        Assert.assertEquals(BODY_SIZE, transactionState.getBytesReceived());
+        Assert.assertEquals(BODY_SIZE, body.getBytesRead());
+    }
+
+    @Test
+    public void testCompletesWhenClosed() throws IOException {
+        ResponseBody impl = ResponseBody.create(TEXT_PLAIN, BODY_SIZE, provideContent(BODY_SIZE));
+        CountingResponseBody body = new CountingResponseBody(impl, transactionState, provideResponse(200, impl));
+
+        body.source().readByteArray(10);
+        Assert.assertFalse(transactionState.isComplete());
+
+        body.close();
+        Assert.assertTrue(transactionState.isComplete());
+        Assert.assertEquals("Should report the declared length", BODY_SIZE, transactionState.getBytesReceived());
+    }
+
+    @Test
+    public void testCompletesOnce() throws IOException {
+        ResponseBody impl = ResponseBody.create(TEXT_PLAIN, -1, provideContent(BODY_SIZE));
+        CountingResponseBody body = new CountingResponseBody(impl, transactionState, provideResponse(200, impl));
+
+        Assert.assertEquals(BODY_SIZE, body.string().length());
+        Assert.assertTrue(body.isComplete());
+        Assert.assertEquals(BODY_SIZE, transactionState.getBytesReceived());
+
+        body.close();
+        body.complete(false);
+        Assert.assertEquals(BODY_SIZE, transactionState.getBytesReceived());
+    }
+
+    @Test
+    public void testStreamError() {
+        BufferedSource failingSource = Okio.buffer(new ForwardingSource(provideContent(BODY_SIZE)) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                throw new IOException("testStreamError");
+            }
+        });
+        ResponseBody impl = ResponseBody.create(TEXT_PLAIN, -1, failingSource);
+        CountingResponseBody body = new CountingResponseBody(impl, transactionState, provideResponse(200, impl));
+
+        try {
+            body.source().readByteArray();
+            Assert.fail("Should rethrow the stream error");
+        } catch (IOException e) {
+            Assert.assertTrue(transactionState.isComplete());
+            Assert.assertTrue(transactionState.isErrorOrFailure());
+        }
+    }
+
+    @Test
+    public void testDeferredResponse() throws IOException {
+        ResponseBody impl = ResponseBody.create(TEXT_PLAIN, -1, provideContent(BODY_SIZE));
+        Response response = OkHttp3TransactionStateUtil.inspectAndInstrumentResponse(transactionState, provideResponse(200, impl));
+
+        Assert.assertTrue(response.body() instanceof CountingResponseBody);
+        Assert.assertFalse(transactionState.isComplete());
+
+        response.body().string();
+        Assert.assertTrue(transactionState.isComplete());
+        Assert.assertEquals(BODY_SIZE, transactionState.getBytesReceived());
+    }
+
+    @Test
+    public void testErrorResponseIsNotDeferred() {
+        ResponseBody impl = ResponseBody.create(TEXT_PLAIN, -1, provideContent(BODY_SIZE));
+        Response response = OkHttp3TransactionStateUtil.inspectAndInstrumentResponse(transactionState, provideResponse(500, impl));
+
+        Assert.assertFalse(response.body() instanceof CountingResponseBody);
+        Assert.assertTrue(transactionState.isComplete());
+    }
+
+    @Test
+    public void testNotDeferredWhenDisabled() {
+        AgentConfiguration.getInstance().setOkHttpResponseBodyMeasurement(false);
+
+        ResponseBody impl = ResponseBody.create(TEXT_PLAIN, -1, provideContent(BODY_SIZE));
+        Response response = OkHttp3TransactionStateUtil.inspectAndInstrumentResponse(transactionState, provideResponse(200, impl));
+
+        Assert.assertFalse(response.body() instanceof CountingResponseBody);
+        Assert.assertTrue(transactionState.isComplete());
+    }
+
+    private Buffer provideContent(int size) {
+        Buffer buffer = new Buffer();
+        for (int i = 0; i < size; i++) {
+            buffer.writeByte('a' + (i % 26));
+        }
+        return buffer;
+    }
+
+    private Response provideResponse(int code, ResponseBody body) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("https://www.newrelic.com/stream").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("")
+                .body(body)
+                .build();
+    }
+}
@@ -17,6 +17,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -101,6 +102,16 @@ public class FileBackedPayloadTest {
         Assert.assertEquals(dataFile.length(), payload.size());
     }
 
+    @Test
+    public void writeTo() throws IOException {
+        seedData(dataFile);
+        Assert.assertEquals(dataFile.length(), payload.contentLength());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payload.writeTo(out);
+        Assert.assertArrayEquals(Streams.readAllBytes(dataFile), out.toByteArray());
+    }
+
     @Test
     public void compress() throws IOException {
         seedData(dataFile);
@@ -12,8 +12,10 @@ import static com.newrelic.agent.android.payload.PayloadController.queueExecutor
 
 import com.newrelic.agent.android.Agent;
 import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.FeatureFlag;
 import com.newrelic.agent.android.agentdata.AgentDataReporter;
 import com.newrelic.agent.android.agentdata.AgentDataSender;
+import com.newrelic.agent.android.api.common.WanType;
 import com.newrelic.agent.android.crash.CrashReporter;
 import com.newrelic.agent.android.crash.CrashReporterTest;
 import com.newrelic.agent.android.logging.AgentLog;
@@ -42,7 +44,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -98,9 +99,9 @@ public class PayloadControllerTest {
 
         PayloadController.queueExecutor = Mockito.mock(PayloadController.ThrottledScheduledThreadPoolExecutor.class,
                 AdditionalAnswers.delegatesTo(PayloadController.queueExecutor));
-        PayloadController.payloadReaperQueue = Mockito.mock(ConcurrentLinkedQueue.class,
+        PayloadController.payloadReaperQueue = Mockito.mock(PayloadReaperQueue.class,
                 AdditionalAnswers.delegatesTo(PayloadController.payloadReaperQueue));
-        PayloadController.payloadReaperRetryQueue = Mockito.mock(ConcurrentLinkedQueue.class,
+        PayloadController.payloadReaperRetryQueue = Mockito.mock(PayloadReaperQueue.class,
                 AdditionalAnswers.delegatesTo(PayloadController.payloadReaperRetryQueue));
 
         Mockito.doReturn(opportunisticUploads).when(payloadController).uploadOpportunistically();
@@ -267,7 +268,7 @@ public class PayloadControllerTest {
         } else {
             order.verify(PayloadController.payloadReaperQueue).offer(Mockito.any(PayloadReaper.class));
         }
-        order.verify(PayloadController.payloadReaperRetryQueue).offer(Mockito.any(PayloadReaper.class));
+        order.verify(PayloadController.payloadReaperRetryQueue).offer(Mockito.any(PayloadReaper.class), Mockito.anyLong());
 
         Mockito.verify(PayloadController.payloadReaperRetryQueue, Mockito.atLeastOnce()).remove(Mockito.any(PayloadReaper.class));
         Mockito.verify(PayloadController.payloadReaperQueue, Mockito.atLeastOnce()).remove(Mockito.any(PayloadReaper.class));
@@ -277,7 +278,41 @@ public class PayloadControllerTest {
         } else {
             Mockito.verify(PayloadController.payloadReaperQueue, Mockito.times(1)).offer(Mockito.any(PayloadReaper.class));
         }
-        Mockito.verify(PayloadController.payloadReaperRetryQueue, Mockito.times(2)).offer(Mockito.any(PayloadReaper.class));
+        Mockito.verify(PayloadController.payloadReaperRetryQueue, Mockito.times(1)).offer(Mockito.any(PayloadReaper.class));
+        Mockito.verify(PayloadController.payloadReaperRetryQueue, Mockito.times(1)).offer(Mockito.any(PayloadReaper.class), Mockito.anyLong());
+    }
+
+    @Test
+    public void testQueuedPayloadDoesNotClaimProbe() throws Exception {
+        final long[] now = {System.currentTimeMillis()};
+        PayloadController.retryScheduler = new PayloadRetryScheduler() {
+            @Override
+            long now() {
+                return now[0];
+            }
+        };
+
+        final String destination = payloadSender.getDestination();
+        for (int i = 0; i < PayloadRetryScheduler.CIRCUIT_BREAKER_THRESHOLD; i++) {
+            now[0] = PayloadController.retryScheduler.onResponse(destination, HttpURLConnection.HTTP_UNAVAILABLE, 0);
+        }
+
+        final PayloadSender otherSender = Mockito.spy(providePayloadSender("the coffee's too cold".getBytes()));
+        Mockito.doReturn(false).when(payloadSender).shouldUploadOpportunistically();
+        Mockito.doReturn(false).when(otherSender).shouldUploadOpportunistically();
+        PayloadController.submitPayload(payloadSender);
+        PayloadController.submitPayload(otherSender);
+
+        Mockito.verify(payloadReaperQueue, Mockito.times(2)).offer(Mockito.any(PayloadReaper.class));
+        Mockito.verify(queueExecutor, Mockito.never()).submit(Mockito.any(PayloadReaper.class));
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.OPEN, PayloadController.retryScheduler.getCircuitState(destination));
+
+        // the dequeue pass sends a single probe, and holds the other payload until it resolves
+        PayloadController.dequeueRunnable.run();
+
+        Mockito.verify(queueExecutor, Mockito.times(1)).submit(Mockito.any(PayloadReaper.class));
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.HALF_OPEN, PayloadController.retryScheduler.getCircuitState(destination));
+        Assert.assertEquals(1, payloadReaperRetryQueue.size());
     }
 
     @Test
@@ -296,20 +331,86 @@ public class PayloadControllerTest {
 
     @Test
     public void testDequeueRunnable() throws Exception {
-        payloadReaperQueue.add(new PayloadReaper(providePayloadSender("Payload #1".getBytes()), null));
-        payloadReaperQueue.add(new PayloadReaper(providePayloadSender("Payload #2".getBytes()), null));
-        payloadReaperQueue.add(new PayloadReaper(providePayloadSender("Payload #3".getBytes()), null));
+        payloadReaperQueue.offer(new PayloadReaper(providePayloadSender("Payload #1".getBytes()), null));
+        payloadReaperQueue.offer(new PayloadReaper(providePayloadSender("Payload #2".getBytes()), null));
+        payloadReaperQueue.offer(new PayloadReaper(providePayloadSender("Payload #3".getBytes()), null));
         Assert.assertEquals(payloadReaperQueue.size(), 3);
         PayloadController.dequeueRunnable.run();
         Mockito.verify(queueExecutor, Mockito.times(3)).submit(Mockito.any(PayloadReaper.class));
         Assert.assertEquals(payloadReaperQueue.size(), 0);
     }
 
+    @Test
+    public void testDeferBulkPayloadsOnMeteredNetwork() throws Exception {
+        final String[] wanType = {WanType.LTE};
+        Agent.setImpl(new StubAgentImpl() {
+            @Override
+            public String getNetworkWanType() {
+                return wanType[0];
+            }
+        });
+
+        FeatureFlag.enableFeature(FeatureFlag.NetworkAwareUploads);
+        try {
+            PayloadSender replaySender = Mockito.spy(providePayloadSender("Replay".getBytes()));
+            Mockito.doReturn(PayloadSender.Priority.SESSION_REPLAY).when(replaySender).getPriority();
+
+            payloadReaperQueue.offer(new PayloadReaper(replaySender, null));
+            payloadReaperQueue.offer(new PayloadReaper(providePayloadSender("Payload #1".getBytes()), null));
+            PayloadController.dequeueRunnable.run();
+
+            Mockito.verify(queueExecutor, Mockito.times(1)).submit(Mockito.any(PayloadReaper.class));
+            Assert.assertEquals(1, PayloadController.payloadReaperDeferredQueue.size());
+            Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_PAYLOAD_UPLOAD_DEFERRED));
+
+            // released once the device is on an unmetered network
+            wanType[0] = WanType.WIFI;
+            PayloadController.uploadPolicy.invalidate();
+            PayloadController.dequeueRunnable.run();
+
+            Mockito.verify(queueExecutor, Mockito.times(2)).submit(Mockito.any(PayloadReaper.class));
+            Assert.assertEquals(0, PayloadController.payloadReaperDeferredQueue.size());
+        } finally {
+            FeatureFlag.disableFeature(FeatureFlag.NetworkAwareUploads);
+        }
+    }
+
+    @Test
+    public void testBatchUploadsOnMeteredNetwork() throws Exception {
+        Agent.setImpl(new StubAgentImpl() {
+            @Override
+            public String getNetworkWanType() {
+                return WanType.LTE;
+            }
+        });
+
+        FeatureFlag.enableFeature(FeatureFlag.NetworkAwareUploads);
+        try {
+            Mockito.doReturn(true).when(payloadSender).shouldUploadOpportunistically();
+
+            Assert.assertNull(PayloadController.submitPayload(payloadSender));
+            Mockito.verify(payloadReaperQueue, Mockito.times(1)).offer(Mockito.any(PayloadReaper.class));
+            Mockito.verify(queueExecutor, Mockito.never()).submit(Mockito.any(PayloadReaper.class));
+            Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_PAYLOAD_UPLOAD_BATCHED));
+
+            // a crash wakes the radio, and the batched payload is sent with it
+            PayloadSender crashSender = Mockito.spy(providePayloadSender("Crash".getBytes()));
+            Mockito.doReturn(PayloadSender.Priority.CRASH).when(crashSender).getPriority();
+            Mockito.doReturn(true).when(crashSender).shouldUploadOpportunistically();
+
+            Assert.assertNotNull(PayloadController.submitPayload(crashSender));
+            Mockito.verify(queueExecutor, Mockito.times(1)).submit(PayloadController.dequeueRunnable);
+            Mockito.verify(queueExecutor, Mockito.timeout(5000).times(2)).submit(Mockito.any(PayloadReaper.class));
+        } finally {
+            FeatureFlag.disableFeature(FeatureFlag.NetworkAwareUploads);
+        }
+    }
+
     @Test
     public void testRequeueRunnable() throws Exception {
-        payloadReaperRetryQueue.add(new PayloadReaper(providePayloadSender("Payload #1".getBytes()), null));
-        payloadReaperRetryQueue.add(new PayloadReaper(providePayloadSender("Payload #2".getBytes()), null));
-        payloadReaperRetryQueue.add(new PayloadReaper(providePayloadSender("Payload #3".getBytes()), null));
+        payloadReaperRetryQueue.offer(new PayloadReaper(providePayloadSender("Payload #1".getBytes()), null));
+        payloadReaperRetryQueue.offer(new PayloadReaper(providePayloadSender("Payload #2".getBytes()), null));
+        payloadReaperRetryQueue.offer(new PayloadReaper(providePayloadSender("Payload #3".getBytes()), null));
         Assert.assertEquals(payloadReaperRetryQueue.size(), 3);
         PayloadController.requeueRunnable.run();
         Mockito.verify(queueExecutor, Mockito.atLeastOnce()).submit(Mockito.any(PayloadReaper.class));
@@ -318,9 +419,9 @@ public class PayloadControllerTest {
 
     @Test
     public void expireStaleCacheItems() throws Exception {
-        payloadReaperRetryQueue.add(new PayloadReaper(new AgentDataSender("Payload #1".getBytes(), agentConfiguration), null));
-        payloadReaperRetryQueue.add(new PayloadReaper(new AgentDataSender("Payload #2".getBytes(), agentConfiguration), null));
-        payloadReaperRetryQueue.add(new PayloadReaper(new AgentDataSender("Payload #3".getBytes(), agentConfiguration), null));
+        payloadReaperRetryQueue.offer(new PayloadReaper(new AgentDataSender("Payload #1".getBytes(), agentConfiguration), null));
+        payloadReaperRetryQueue.offer(new PayloadReaper(new AgentDataSender("Payload #2".getBytes(), agentConfiguration), null));
+        payloadReaperRetryQueue.offer(new PayloadReaper(new AgentDataSender("Payload #3".getBytes(), agentConfiguration), null));
         Assert.assertEquals(payloadReaperRetryQueue.size(), 3);
         Mockito.doReturn(1).when(agentConfiguration).getPayloadTTL();
         Thread.sleep(100);
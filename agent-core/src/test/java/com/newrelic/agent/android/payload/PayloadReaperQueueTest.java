@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.payload;
+
+import com.newrelic.agent.android.AgentConfiguration;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.util.List;
+
+public class PayloadReaperQueueTest {
+    private AgentConfiguration agentConfiguration;
+    private PayloadReaperQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        agentConfiguration = new AgentConfiguration();
+        queue = new PayloadReaperQueue();
+    }
+
+    @Test
+    public void testOfferReplacesDuplicates() {
+        Payload payload = new Payload("the tea's too hot".getBytes());
+        PayloadReaper first = provideReaper(payload, PayloadSender.Priority.DEFAULT);
+        PayloadReaper second = provideReaper(payload, PayloadSender.Priority.DEFAULT);
+
+        queue.offer(first);
+        queue.offer(second);
+        Assert.assertEquals(1, queue.size());
+        Assert.assertTrue(queue.contains(payload.getUuid()));
+
+        List<PayloadReaper> drained = queue.drain();
+        Assert.assertEquals(1, drained.size());
+        Assert.assertSame(second, drained.get(0));
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        PayloadReaper reaper = provideReaper(new Payload("the coffee's just right".getBytes()), PayloadSender.Priority.DEFAULT);
+
+        queue.offer(reaper);
+        Assert.assertTrue(queue.remove(reaper));
+        Assert.assertFalse(queue.remove(reaper));
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertTrue(queue.drain().isEmpty());
+        Assert.assertEquals(-1, queue.nextDueTime());
+    }
+
+    @Test
+    public void testDrainInPriorityOrder() {
+        PayloadReaper replay = provideReaper(new Payload(), PayloadSender.Priority.SESSION_REPLAY);
+        PayloadReaper hex = provideReaper(new Payload(), PayloadSender.Priority.HANDLED_EXCEPTION);
+        PayloadReaper other = provideReaper(new Payload(), PayloadSender.Priority.DEFAULT);
+        PayloadReaper crash = provideReaper(new Payload(), PayloadSender.Priority.CRASH);
+        PayloadReaper hex2 = provideReaper(new Payload(), PayloadSender.Priority.HANDLED_EXCEPTION);
+
+        queue.offer(replay);
+        queue.offer(hex);
+        queue.offer(other);
+        queue.offer(crash);
+        queue.offer(hex2);
+
+        List<PayloadReaper> drained = queue.drain();
+        Assert.assertEquals(5, drained.size());
+        Assert.assertSame(crash, drained.get(0));
+        Assert.assertSame(hex, drained.get(1));
+        Assert.assertSame(hex2, drained.get(2));
+        Assert.assertSame(other, drained.get(3));
+        Assert.assertSame(replay, drained.get(4));
+    }
+
+    @Test
+    public void testDrainOnlyDueReapers() {
+        long now = System.currentTimeMillis();
+        PayloadReaper due = provideReaper(new Payload(), PayloadSender.Priority.DEFAULT);
+        PayloadReaper later = provideReaper(new Payload(), PayloadSender.Priority.CRASH);
+
+        queue.offer(later, now + 60000);
+        queue.offer(due, now - 1);
+        Assert.assertEquals(now - 1, queue.nextDueTime());
+
+        List<PayloadReaper> drained = queue.drain(now);
+        Assert.assertEquals(1, drained.size());
+        Assert.assertSame(due, drained.get(0));
+        Assert.assertEquals(1, queue.size());
+        Assert.assertEquals(now + 60000, queue.nextDueTime());
+
+        drained = queue.drain(now + 60000);
+        Assert.assertEquals(1, drained.size());
+        Assert.assertSame(later, drained.get(0));
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRescheduleSupersedesPreviousDueTime() {
+        long now = System.currentTimeMillis();
+        Payload payload = new Payload();
+        PayloadReaper reaper = provideReaper(payload, PayloadSender.Priority.DEFAULT);
+
+        queue.offer(reaper, now);
+        queue.offer(reaper, now + 60000);
+        Assert.assertTrue(queue.drain(now).isEmpty());
+        Assert.assertEquals(now + 60000, queue.nextDueTime());
+        Assert.assertEquals(1, queue.drain(now + 60000).size());
+    }
+
+    private PayloadReaper provideReaper(Payload payload, final PayloadSender.Priority priority) {
+        return new PayloadReaper(new PayloadSender(payload, agentConfiguration) {
+            @Override
+            protected HttpURLConnection getConnection() {
+                return null;
+            }
+
+            @Override
+            public Priority getPriority() {
+                return priority;
+            }
+        }, null);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.payload;
+
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+
+public class PayloadRetrySchedulerTest {
+    private static final String DESTINATION = "mobile-collector.newrelic.com/mobile/logs";
+
+    private PayloadRetryScheduler scheduler;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        now = System.currentTimeMillis();
+        scheduler = new PayloadRetryScheduler() {
+            @Override
+            long now() {
+                return now;
+            }
+        };
+        StatsEngine.reset();
+    }
+
+    @Test
+    public void testHealthyDestination() {
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+        Assert.assertEquals(0, scheduler.nextAttemptTime(DESTINATION));
+        Assert.assertEquals(0, scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_OK, 0));
+        Assert.assertEquals(0, scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_FORBIDDEN, 0));
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+    }
+
+    @Test
+    public void testDestinationFailures() {
+        Assert.assertTrue(PayloadRetryScheduler.isDestinationFailure(0));
+        Assert.assertTrue(PayloadRetryScheduler.isDestinationFailure(HttpURLConnection.HTTP_CLIENT_TIMEOUT));
+        Assert.assertTrue(PayloadRetryScheduler.isDestinationFailure(429));
+        Assert.assertTrue(PayloadRetryScheduler.isDestinationFailure(HttpURLConnection.HTTP_UNAVAILABLE));
+        Assert.assertFalse(PayloadRetryScheduler.isDestinationFailure(HttpURLConnection.HTTP_OK));
+        Assert.assertFalse(PayloadRetryScheduler.isDestinationFailure(HttpURLConnection.HTTP_BAD_REQUEST));
+        Assert.assertFalse(PayloadRetryScheduler.isDestinationFailure(HttpURLConnection.HTTP_ENTITY_TOO_LARGE));
+    }
+
+    @Test
+    public void testExponentialBackoff() {
+        Assert.assertEquals(PayloadRetryScheduler.BASE_BACKOFF_MS, PayloadRetryScheduler.getBackoffCeiling(1));
+        Assert.assertEquals(PayloadRetryScheduler.BASE_BACKOFF_MS * 2, PayloadRetryScheduler.getBackoffCeiling(2));
+        Assert.assertEquals(PayloadRetryScheduler.BASE_BACKOFF_MS * 8, PayloadRetryScheduler.getBackoffCeiling(4));
+        Assert.assertEquals(PayloadRetryScheduler.MAX_BACKOFF_MS, PayloadRetryScheduler.getBackoffCeiling(100));
+    }
+
+    @Test
+    public void testFullJitter() {
+        long ceiling = PayloadRetryScheduler.BASE_BACKOFF_MS * 4;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+
+        for (int i = 0; i < 1000; i++) {
+            long delay = PayloadRetryScheduler.jitter(ceiling);
+            Assert.assertTrue(delay >= PayloadRetryScheduler.MIN_BACKOFF_MS && delay < ceiling);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+
+        // delays should be spread over the whole window
+        Assert.assertTrue(min < ceiling / 4);
+        Assert.assertTrue(max > (ceiling * 3) / 4);
+    }
+
+    @Test
+    public void testBackoffOnThrottle() {
+        long retryTime = scheduler.onResponse(DESTINATION, 429, 0);
+        Assert.assertTrue(retryTime > now);
+        Assert.assertTrue(retryTime <= now + PayloadRetryScheduler.BASE_BACKOFF_MS);
+        Assert.assertFalse(scheduler.allowRequest(DESTINATION));
+        Assert.assertEquals(retryTime, scheduler.nextAttemptTime(DESTINATION));
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_PAYLOAD_THROTTLED));
+
+        now = retryTime;
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+    }
+
+    @Test
+    public void testHonorRetryAfter() {
+        long retryAfter = 10 * 60 * 1000;
+        long retryTime = scheduler.onResponse(DESTINATION, 429, retryAfter);
+        Assert.assertTrue(retryTime >= now + retryAfter);
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_PAYLOAD_RETRY_AFTER));
+
+        now += retryAfter - 1;
+        Assert.assertFalse(scheduler.allowRequest(DESTINATION));
+
+        // unreasonable values are capped
+        retryTime = scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_UNAVAILABLE, Long.MAX_VALUE / 2);
+        Assert.assertTrue(retryTime <= now + PayloadRetryScheduler.MAX_RETRY_AFTER_MS);
+    }
+
+    @Test
+    public void testConnectivityLossDoesNotPenalizeDestination() {
+        for (int i = 0; i < PayloadRetryScheduler.CIRCUIT_BREAKER_THRESHOLD * 2; i++) {
+            long retryTime = scheduler.onResponse(DESTINATION, 0, 0);
+            Assert.assertTrue(retryTime > now && retryTime <= now + PayloadRetryScheduler.BASE_BACKOFF_MS);
+        }
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.CLOSED, scheduler.getCircuitState(DESTINATION));
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        for (int i = 0; i < PayloadRetryScheduler.CIRCUIT_BREAKER_THRESHOLD; i++) {
+            Assert.assertEquals(PayloadRetryScheduler.CircuitState.CLOSED, scheduler.getCircuitState(DESTINATION));
+            now = scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_UNAVAILABLE, 0);
+        }
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.OPEN, scheduler.getCircuitState(DESTINATION));
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_PAYLOAD_CIRCUIT_OPEN));
+
+        // a single probe is allowed once the backoff expires
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.HALF_OPEN, scheduler.getCircuitState(DESTINATION));
+        Assert.assertFalse(scheduler.allowRequest(DESTINATION));
+        Assert.assertTrue(scheduler.nextAttemptTime(DESTINATION) > now);
+
+        // failed probe reopens the circuit
+        now = scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_UNAVAILABLE, 0);
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.OPEN, scheduler.getCircuitState(DESTINATION));
+
+        // successful probe closes it
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+        scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_ACCEPTED, 0);
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.CLOSED, scheduler.getCircuitState(DESTINATION));
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_PAYLOAD_CIRCUIT_CLOSED));
+    }
+
+    @Test
+    public void testUnansweredProbe() {
+        for (int i = 0; i < PayloadRetryScheduler.CIRCUIT_BREAKER_THRESHOLD; i++) {
+            now = scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_UNAVAILABLE, 0);
+        }
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+
+        now = scheduler.onResponse(DESTINATION, 0, 0);
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.OPEN, scheduler.getCircuitState(DESTINATION));
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+    }
+
+    @Test
+    public void testAvailabilityDoesNotClaimProbe() {
+        for (int i = 0; i < PayloadRetryScheduler.CIRCUIT_BREAKER_THRESHOLD; i++) {
+            now = scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_UNAVAILABLE, 0);
+        }
+
+        Assert.assertTrue(scheduler.isAvailable(DESTINATION));
+        Assert.assertTrue(scheduler.isAvailable(DESTINATION));
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.OPEN, scheduler.getCircuitState(DESTINATION));
+
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+        Assert.assertFalse(scheduler.isAvailable(DESTINATION));
+    }
+
+    @Test
+    public void testAbandonedProbe() {
+        for (int i = 0; i < PayloadRetryScheduler.CIRCUIT_BREAKER_THRESHOLD; i++) {
+            now = scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_UNAVAILABLE, 0);
+        }
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+
+        now += PayloadRetryScheduler.PROBE_TIMEOUT_MS - 1;
+        Assert.assertFalse(scheduler.allowRequest(DESTINATION));
+
+        // the probe never completed, so another is allowed
+        now += 1;
+        Assert.assertTrue(scheduler.isAvailable(DESTINATION));
+        Assert.assertTrue(scheduler.allowRequest(DESTINATION));
+        Assert.assertEquals(PayloadRetryScheduler.CircuitState.HALF_OPEN, scheduler.getCircuitState(DESTINATION));
+        Assert.assertFalse(scheduler.allowRequest(DESTINATION));
+    }
+
+    @Test
+    public void testDestinationsAreIndependent() {
+        for (int i = 0; i < PayloadRetryScheduler.CIRCUIT_BREAKER_THRESHOLD; i++) {
+            scheduler.onResponse(DESTINATION, HttpURLConnection.HTTP_UNAVAILABLE, 0);
+        }
+        Assert.assertFalse(scheduler.allowRequest(DESTINATION));
+        Assert.assertTrue(scheduler.allowRequest("mobile-crash.newrelic.com/mobile_crash"));
+    }
+}
@@ -26,6 +26,10 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -249,6 +253,57 @@ public class PayloadSenderTest {
         Mockito.verify(payloadSender, atLeastOnce()).onFailedUpload(anyString());
     }
 
+    @Test
+    public void testStreamingMode() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Mockito.doReturn(true).when(connection).getDoOutput();
+        Mockito.doReturn(out).when(connection).getOutputStream();
+
+        payloadSender.call();
+        Mockito.verify(connection).setFixedLengthStreamingMode((long) payload.getBytes().length);
+        Assert.assertArrayEquals(payload.getBytes(), out.toByteArray());
+
+        payload = new StreamingPayload(stream -> stream.write("the tea's too hot".getBytes()));
+        resetPayloadSender();
+        out = new ByteArrayOutputStream();
+        Mockito.doReturn(true).when(connection).getDoOutput();
+        Mockito.doReturn(out).when(connection).getOutputStream();
+
+        payloadSender.call();
+        Mockito.verify(connection).setChunkedStreamingMode(Mockito.anyInt());
+        Mockito.verify(connection, Mockito.never()).setFixedLengthStreamingMode(Mockito.anyLong());
+        Assert.assertEquals("the tea's too hot", out.toString());
+        Assert.assertEquals(out.size(), payloadSender.getPayloadSize());
+    }
+
+    @Test
+    public void testRetryAfter() throws Exception {
+        Mockito.doReturn(429).when(connection).getResponseCode();
+        Mockito.doReturn("120").when(connection).getHeaderField("Retry-After");
+        payloadSender.call();
+        Assert.assertEquals(120 * 1000, payloadSender.getRetryAfter());
+
+        resetPayloadSender();
+        Mockito.doReturn(null).when(connection).getHeaderField("Retry-After");
+        payloadSender.call();
+        Assert.assertEquals(0, payloadSender.getRetryAfter());
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        Assert.assertEquals(0, PayloadSender.parseRetryAfter(null));
+        Assert.assertEquals(0, PayloadSender.parseRetryAfter(" "));
+        Assert.assertEquals(0, PayloadSender.parseRetryAfter("soon"));
+        Assert.assertEquals(0, PayloadSender.parseRetryAfter("-5"));
+        Assert.assertEquals(30 * 1000, PayloadSender.parseRetryAfter(" 30 "));
+        Assert.assertEquals(0, PayloadSender.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+
+        SimpleDateFormat httpDate = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        httpDate.setTimeZone(TimeZone.getTimeZone("GMT"));
+        long retryAfter = PayloadSender.parseRetryAfter(httpDate.format(new Date(System.currentTimeMillis() + 60 * 1000)));
+        Assert.assertTrue(retryAfter > 55 * 1000 && retryAfter <= 60 * 1000);
+    }
+
     @Test
     public void testEquals() {
         PayloadSender thisSender = new PayloadSender(payload, agentConfiguration) {
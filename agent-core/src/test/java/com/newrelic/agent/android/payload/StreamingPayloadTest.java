@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.payload;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class StreamingPayloadTest {
+    private static final String DATA = "the tea's too hot";
+
+    private AtomicInteger writes;
+    private StreamingPayload payload;
+
+    @Before
+    public void setUp() throws Exception {
+        writes = new AtomicInteger(0);
+        payload = new StreamingPayload(out -> {
+            writes.incrementAndGet();
+            out.write(DATA.getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    @Test
+    public void testUnknownLength() throws Exception {
+        Assert.assertEquals(-1, payload.contentLength());
+        Assert.assertEquals(0, payload.size());
+        Assert.assertFalse(payload.isPersisted());
+        Assert.assertEquals(0, writes.get());
+    }
+
+    @Test
+    public void testKnownLength() throws Exception {
+        payload = new StreamingPayload(out -> out.write(DATA.getBytes(StandardCharsets.UTF_8)), DATA.length());
+        Assert.assertEquals(DATA.length(), payload.contentLength());
+        Assert.assertEquals(DATA.length(), payload.size());
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payload.writeTo(out);
+        Assert.assertEquals(DATA, out.toString(StandardCharsets.UTF_8.name()));
+        Assert.assertEquals(DATA.length(), payload.size());
+        Assert.assertEquals(1, writes.get());
+    }
+
+    @Test
+    public void testWriterMayCloseStream() throws Exception {
+        final byte[] data = DATA.getBytes(StandardCharsets.UTF_8);
+        payload = new StreamingPayload(out -> {
+            try (GZIPOutputStream gzOut = new GZIPOutputStream(out)) {
+                gzOut.write(data);
+            }
+        });
+
+        final boolean[] closed = {false};
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+            }
+        };
+
+        payload.writeTo(out);
+        Assert.assertFalse(closed[0]);
+        Assert.assertEquals(out.size(), payload.size());
+
+        try (GZIPInputStream gzIn = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            Assert.assertArrayEquals(data, gzIn.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testMeasure() throws Exception {
+        Assert.assertEquals(DATA.length(), payload.measure());
+        Assert.assertEquals(DATA.length(), payload.contentLength());
+        Assert.assertEquals(1, writes.get());
+    }
+
+    @Test
+    public void testBufferedLength() throws Exception {
+        payload = new StreamingPayload(out -> {
+            writes.incrementAndGet();
+            out.write(DATA.getBytes(StandardCharsets.UTF_8));
+        }, -1, 1024);
+
+        Assert.assertEquals(DATA.length(), payload.contentLength());
+        Assert.assertEquals(DATA.length(), payload.size());
+        Assert.assertEquals(1, writes.get());
+
+        // the buffer is sent without running the writer again
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payload.writeTo(out);
+        Assert.assertEquals(DATA, out.toString(StandardCharsets.UTF_8.name()));
+        Assert.assertEquals(1, writes.get());
+
+        // but only once
+        Assert.assertEquals(DATA.length(), payload.contentLength());
+        Assert.assertEquals(2, writes.get());
+    }
+
+    @Test
+    public void testBufferLimitExceeded() throws Exception {
+        payload = new StreamingPayload(out -> {
+            writes.incrementAndGet();
+            out.write(DATA.getBytes(StandardCharsets.UTF_8));
+        }, -1, DATA.length() - 1);
+
+        Assert.assertEquals(-1, payload.contentLength());
+        Assert.assertEquals(-1, payload.contentLength());
+        Assert.assertEquals(1, writes.get());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payload.writeTo(out);
+        Assert.assertEquals(DATA, out.toString(StandardCharsets.UTF_8.name()));
+        Assert.assertEquals(DATA.length(), payload.size());
+        Assert.assertEquals(2, writes.get());
+    }
+
+    @Test
+    public void testGetBytes() throws Exception {
+        Assert.assertArrayEquals(DATA.getBytes(StandardCharsets.UTF_8), payload.getBytes());
+    }
+
+    @Test
+    public void testPutBytes() throws Exception {
+        payload.putBytes("the coffee's just right".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("the coffee's just right".length(), payload.contentLength());
+        Assert.assertEquals("the coffee's just right", new String(payload.getBytes(), StandardCharsets.UTF_8));
+        Assert.assertEquals(0, writes.get());
+    }
+
+    @Test
+    public void testWriterFailure() throws Exception {
+        payload = new StreamingPayload(out -> {
+            throw new IOException("borked");
+        });
+
+        try {
+            payload.writeTo(new ByteArrayOutputStream());
+            Assert.fail("Should propagate writer exceptions");
+        } catch (IOException e) {
+            Assert.assertEquals("borked", e.getMessage());
+        }
+
+        Assert.assertEquals(0, payload.getBytes().length);
+    }
+}
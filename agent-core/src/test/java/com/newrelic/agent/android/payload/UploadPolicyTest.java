@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.payload;
+
+import com.newrelic.agent.android.Agent;
+import com.newrelic.agent.android.AgentImpl;
+import com.newrelic.agent.android.FeatureFlag;
+import com.newrelic.agent.android.api.common.WanType;
+import com.newrelic.agent.android.test.stub.StubAgentImpl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UploadPolicyTest {
+    private static final long MAX_AGE = 10 * 60 * 1000;
+
+    private AgentImpl previousAgentImpl;
+    private UploadPolicy policy;
+    private String wanType;
+    private boolean reachable;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        wanType = WanType.LTE;
+        reachable = true;
+        now = System.currentTimeMillis();
+
+        previousAgentImpl = Agent.getImpl();
+        Agent.setImpl(new StubAgentImpl() {
+            @Override
+            public String getNetworkWanType() {
+                return wanType;
+            }
+
+            @Override
+            public boolean hasReachableNetworkConnection(String reachableHost) {
+                return reachable;
+            }
+        });
+
+        policy = new UploadPolicy(MAX_AGE) {
+            @Override
+            long now() {
+                return now;
+            }
+        };
+
+        FeatureFlag.enableFeature(FeatureFlag.NetworkAwareUploads);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FeatureFlag.disableFeature(FeatureFlag.NetworkAwareUploads);
+        Agent.setImpl(previousAgentImpl);
+    }
+
+    @Test
+    public void testClassifyNetwork() {
+        Assert.assertEquals(UploadPolicy.NetworkClass.UNMETERED, UploadPolicy.classify(WanType.WIFI));
+        Assert.assertEquals(UploadPolicy.NetworkClass.UNMETERED, UploadPolicy.classify(WanType.ETHERNET));
+        Assert.assertEquals(UploadPolicy.NetworkClass.UNMETERED, UploadPolicy.classify(WanType.UNKNOWN));
+        Assert.assertEquals(UploadPolicy.NetworkClass.UNMETERED, UploadPolicy.classify(null));
+        Assert.assertEquals(UploadPolicy.NetworkClass.METERED, UploadPolicy.classify(WanType.LTE));
+        Assert.assertEquals(UploadPolicy.NetworkClass.METERED, UploadPolicy.classify(WanType.HSPAP));
+        Assert.assertEquals(UploadPolicy.NetworkClass.CONSTRAINED, UploadPolicy.classify(WanType.EDGE));
+        Assert.assertEquals(UploadPolicy.NetworkClass.CONSTRAINED, UploadPolicy.classify(WanType.GPRS));
+        Assert.assertEquals(UploadPolicy.NetworkClass.OFFLINE, UploadPolicy.classify(WanType.NONE));
+    }
+
+    @Test
+    public void testPriorities() {
+        Assert.assertTrue(UploadPolicy.isUrgent(PayloadSender.Priority.CRASH));
+        Assert.assertTrue(UploadPolicy.isUrgent(PayloadSender.Priority.HANDLED_EXCEPTION));
+        Assert.assertFalse(UploadPolicy.isUrgent(PayloadSender.Priority.DEFAULT));
+
+        Assert.assertFalse(UploadPolicy.isDeferrable(PayloadSender.Priority.DEFAULT));
+        Assert.assertTrue(UploadPolicy.isDeferrable(PayloadSender.Priority.SESSION_REPLAY));
+        Assert.assertTrue(UploadPolicy.isDeferrable(PayloadSender.Priority.LOG_DATA));
+        Assert.assertTrue(UploadPolicy.isDeferrable(PayloadSender.Priority.OFFLINE_DATA));
+    }
+
+    @Test
+    public void testDeferBulkDataOnMeteredNetwork() {
+        Assert.assertTrue(policy.isDeferring());
+        Assert.assertTrue(policy.shouldDefer(PayloadSender.Priority.SESSION_REPLAY, now));
+        Assert.assertTrue(policy.shouldDefer(PayloadSender.Priority.LOG_DATA, now - MAX_AGE + 1));
+        Assert.assertFalse(policy.shouldDefer(PayloadSender.Priority.DEFAULT, now));
+        Assert.assertFalse(policy.shouldDefer(PayloadSender.Priority.CRASH, now));
+
+        // held for no longer than the max age
+        Assert.assertFalse(policy.shouldDefer(PayloadSender.Priority.SESSION_REPLAY, now - MAX_AGE));
+        Assert.assertEquals(now + MAX_AGE, policy.deferredUntil(now));
+    }
+
+    @Test
+    public void testBatchNonUrgentDataOnMeteredNetwork() {
+        Assert.assertTrue(policy.shouldBatch(PayloadSender.Priority.DEFAULT));
+        Assert.assertTrue(policy.shouldBatch(PayloadSender.Priority.SESSION_REPLAY));
+        Assert.assertFalse(policy.shouldBatch(PayloadSender.Priority.CRASH));
+        Assert.assertFalse(policy.shouldBatch(PayloadSender.Priority.HANDLED_EXCEPTION));
+    }
+
+    @Test
+    public void testNothingHeldOnUnmeteredNetwork() {
+        wanType = WanType.WIFI;
+
+        Assert.assertFalse(policy.isDeferring());
+        Assert.assertFalse(policy.shouldDefer(PayloadSender.Priority.SESSION_REPLAY, now));
+        Assert.assertFalse(policy.shouldBatch(PayloadSender.Priority.DEFAULT));
+    }
+
+    @Test
+    public void testNothingHeldWhenDisabled() {
+        FeatureFlag.disableFeature(FeatureFlag.NetworkAwareUploads);
+
+        Assert.assertFalse(policy.isDeferring());
+        Assert.assertFalse(policy.shouldDefer(PayloadSender.Priority.SESSION_REPLAY, now));
+        Assert.assertFalse(policy.shouldBatch(PayloadSender.Priority.DEFAULT));
+    }
+
+    @Test
+    public void testNetworkClassIsCached() {
+        Assert.assertEquals(UploadPolicy.NetworkClass.METERED, policy.getNetworkClass());
+
+        wanType = WanType.WIFI;
+        Assert.assertEquals(UploadPolicy.NetworkClass.METERED, policy.getNetworkClass());
+
+        now += UploadPolicy.NETWORK_REFRESH_MS;
+        Assert.assertEquals(UploadPolicy.NetworkClass.UNMETERED, policy.getNetworkClass());
+
+        wanType = WanType.EDGE;
+        policy.invalidate();
+        Assert.assertEquals(UploadPolicy.NetworkClass.CONSTRAINED, policy.getNetworkClass());
+
+        // reachability is always current
+        reachable = false;
+        Assert.assertEquals(UploadPolicy.NetworkClass.OFFLINE, policy.getNetworkClass());
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.scheduler;
+
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AgentSchedulerTest {
+
+    private AgentScheduler scheduler;
+
+    @Before
+    public void setUp() throws Exception {
+        StatsEngine.reset();
+        scheduler = new AgentScheduler(AgentScheduler.DEFAULT_POOL_SIZE);
+    }
+
+    @Test
+    public void testSerialExecutorPreservesOrder() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(scheduler, Lane.LIFECYCLE, 1);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < 100; i++) {
+            final int task = i;
+            executor.execute(() -> order.add(task));
+        }
+        executor.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(100, order.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void testLaneConcurrencyLimit() throws Exception {
+        final LaneExecutor first = new LaneExecutor(scheduler, Lane.STORAGE, 1);
+        final LaneExecutor second = new LaneExecutor(scheduler, Lane.STORAGE, 1);
+        final AtomicInteger active = new AtomicInteger(0);
+        final AtomicInteger maxActive = new AtomicInteger(0);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            for (LaneExecutor executor : new LaneExecutor[]{first, second}) {
+                futures.add(executor.submit(() -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    sleep(5);
+                    active.decrementAndGet();
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        Assert.assertEquals("Storage lane runs one task at a time", 1, maxActive.get());
+    }
+
+    @Test
+    public void testExecutorConcurrencyIsBoundedByLane() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(scheduler, Lane.MEASUREMENT, 10);
+        final AtomicInteger active = new AtomicInteger(0);
+        final AtomicInteger maxActive = new AtomicInteger(0);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(() -> {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                sleep(5);
+                active.decrementAndGet();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        Assert.assertTrue(maxActive.get() <= Lane.MEASUREMENT.getMaxConcurrency());
+        Assert.assertTrue(scheduler.getWorkerCount() <= scheduler.getPoolSize());
+    }
+
+    @Test
+    public void testHigherPriorityLanesRunFirst() throws Exception {
+        final AgentScheduler singleWorker = new AgentScheduler(1);
+        final LaneExecutor background = new LaneExecutor(singleWorker, Lane.BACKGROUND, 1);
+        final LaneExecutor sampler = new LaneExecutor(singleWorker, Lane.SAMPLER, 1);
+        final LaneExecutor harvest = new LaneExecutor(singleWorker, Lane.HARVEST, 1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Lane> order = Collections.synchronizedList(new ArrayList<>());
+
+        // occupy the only worker while the other lanes queue up
+        background.execute(() -> {
+            blocked.countDown();
+            await(release);
+        });
+        Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        background.execute(() -> order.add(Lane.BACKGROUND));
+        sampler.execute(() -> order.add(Lane.SAMPLER));
+        final Future<?> last = harvest.submit(() -> order.add(Lane.HARVEST));
+        release.countDown();
+
+        last.get(5, TimeUnit.SECONDS);
+        background.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(Lane.HARVEST, order.get(0));
+        Assert.assertEquals(Lane.SAMPLER, order.get(1));
+        Assert.assertEquals(Lane.BACKGROUND, order.get(2));
+    }
+
+    @Test
+    public void testWaitingOnQueuedTaskFromWorker() throws Exception {
+        final AgentScheduler singleWorker = new AgentScheduler(1);
+        final LaneExecutor harvest = new LaneExecutor(singleWorker, Lane.HARVEST, 1);
+        final LaneExecutor taskQueue = new LaneExecutor(singleWorker, Lane.TASK_QUEUE, 1);
+
+        // with one worker, waiting on a queued task would deadlock unless it runs inline
+        final Future<String> result = harvest.submit(() -> taskQueue.submit(() -> "dequeued").get());
+        Assert.assertEquals("dequeued", result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWaitingOnSerialTaskFromWorker() throws Exception {
+        final LaneExecutor serial = new LaneExecutor(scheduler, Lane.TASK_QUEUE, 1);
+        final LaneExecutor harvest = new LaneExecutor(scheduler, Lane.HARVEST, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        serial.execute(() -> {
+            started.countDown();
+            await(release);
+            order.add("first");
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        serial.execute(() -> order.add("second"));
+        final Future<?> third = serial.submit(() -> order.add("third"));
+
+        // a worker waiting on the serial executor's last task must not run it ahead of the others
+        final Future<?> waiter = harvest.submit(() -> {
+            third.get();
+            order.add("waited");
+            return null;
+        });
+        sleep(20);
+        release.countDown();
+
+        waiter.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(Arrays.asList("first", "second", "third", "waited"), order);
+    }
+
+    @Test
+    public void testSchedule() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(scheduler, Lane.BACKGROUND, 1);
+        final long tStart = System.nanoTime();
+
+        final ScheduledFuture<String> future = executor.schedule(() -> "scheduled", 50, TimeUnit.MILLISECONDS);
+        Assert.assertEquals("scheduled", future.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(future.isDone());
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - tStart) >= 50);
+    }
+
+    @Test
+    public void testCancelScheduled() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(scheduler, Lane.BACKGROUND, 1);
+        final AtomicBoolean ran = new AtomicBoolean(false);
+
+        final ScheduledFuture<?> future = executor.schedule(() -> ran.set(true), 1, TimeUnit.HOURS);
+        Assert.assertTrue(future.getDelay(TimeUnit.MILLISECONDS) > 0);
+        Assert.assertFalse(future.isDone());
+
+        Assert.assertTrue(future.cancel(false));
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertTrue(future.isDone());
+        Assert.assertFalse(ran.get());
+    }
+
+    @Test
+    public void testScheduleWithFixedDelay() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(scheduler, Lane.HARVEST, 1);
+        final CountDownLatch ticks = new CountDownLatch(3);
+
+        final ScheduledFuture<?> future = executor.scheduleWithFixedDelay(ticks::countDown, 0, 10, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(ticks.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(future.isDone());
+
+        Assert.assertTrue(future.cancel(false));
+        Assert.assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testScheduleAtFixedRate() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(scheduler, Lane.SAMPLER, 1);
+        final CountDownLatch ticks = new CountDownLatch(5);
+
+        executor.scheduleAtFixedRate(ticks::countDown, 0, 10, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(ticks.await(5, TimeUnit.SECONDS));
+
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(scheduler, Lane.LOGS, 1);
+        final LaneExecutor other = new LaneExecutor(scheduler, Lane.LOGS, 1);
+        final AtomicInteger completed = new AtomicInteger(0);
+
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                sleep(1);
+                completed.incrementAndGet();
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.isShutdown());
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertTrue(executor.isTerminated());
+        Assert.assertEquals("Queued tasks run after shutdown", 10, completed.get());
+
+        try {
+            executor.execute(completed::incrementAndGet);
+            Assert.fail("Should reject tasks after shutdown");
+        } catch (RejectedExecutionException e) {
+            Assert.assertEquals(10, completed.get());
+        }
+
+        Assert.assertEquals("Other executors in the lane are unaffected", "ok", other.submit(() -> "ok").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdownNow() throws Exception {
+        final AgentScheduler singleWorker = new AgentScheduler(1);
+        final LaneExecutor executor = new LaneExecutor(singleWorker, Lane.SESSION_REPLAY, 1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            blocked.countDown();
+            await(release);
+        });
+        Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 5; i++) {
+            executor.execute(() -> Assert.fail("Should have been drained"));
+        }
+        executor.schedule(() -> Assert.fail("Should have been cancelled"), 1, TimeUnit.HOURS);
+
+        Assert.assertEquals(6, executor.shutdownNow().size());
+        Assert.assertFalse(executor.isTerminated());
+
+        release.countDown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, singleWorker.getQueueDepth(Lane.SESSION_REPLAY));
+    }
+
+    @Test
+    public void testLaneMetrics() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(scheduler, Lane.STORAGE, 1);
+
+        executor.submit(() -> {
+        }).get(5, TimeUnit.SECONDS);
+
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_SCHEDULER_QUEUE_TIME
+                .replace(MetricNames.TAG_NAME, Lane.STORAGE.getLaneName())));
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_SCHEDULER_QUEUE_DEPTH
+                .replace(MetricNames.TAG_NAME, Lane.STORAGE.getLaneName())));
+    }
+
+    @Test
+    public void testSharedInstance() {
+        Assert.assertSame(AgentScheduler.getInstance(), AgentScheduler.getInstance());
+        Assert.assertEquals(Lane.TASK_QUEUE, AgentScheduler.newExecutor(Lane.TASK_QUEUE).getLane());
+        Assert.assertEquals(Lane.LOGS.getMaxConcurrency(), AgentScheduler.newExecutor(Lane.LOGS, 10).getMaxConcurrency());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2026-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.sessionReplay;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TouchPathTest {
+
+    @Test
+    public void testSamplesWithinIntervalAreDropped() {
+        TouchPath path = new TouchPath(16, 0f, 0f, 0);
+
+        for (int i = 0; i < 10; i++) {
+            path.add(1, i * 10f, 0f, i * 4L);
+        }
+
+        // kept at 0, 16 and 32ms, plus the held back sample at 36ms
+        Assert.assertEquals(4, path.size());
+        Assert.assertEquals(0L, path.getTimestamp(0));
+        Assert.assertEquals(16L, path.getTimestamp(1));
+        Assert.assertEquals(32L, path.getTimestamp(2));
+        Assert.assertEquals(36L, path.getTimestamp(3));
+    }
+
+    @Test
+    public void testSamplesWithinDistanceAreDropped() {
+        TouchPath path = new TouchPath(0, 5f, 0f, 0);
+
+        path.add(1, 0f, 0f, 0);
+        path.add(1, 1f, 1f, 10);
+        path.add(1, 2f, 2f, 20);
+        path.add(1, 10f, 0f, 30);
+
+        Assert.assertEquals(2, path.size());
+        Assert.assertEquals(10f, path.getX(1), 0f);
+    }
+
+    @Test
+    public void testLastSampleIsKept() {
+        TouchPath path = new TouchPath();
+
+        path.add(1, 0f, 0f, 0);
+        path.add(1, 50f, 0f, 20);
+        path.add(1, 50.5f, 0f, 25);
+
+        int[] moves = path.simplify();
+        Assert.assertEquals(50.5f, path.getX(moves[moves.length - 1]), 0f);
+        Assert.assertEquals(25L, path.getTimestamp(moves[moves.length - 1]));
+    }
+
+    @Test
+    public void testStraightLineIsSimplifiedToEnds() {
+        TouchPath path = new TouchPath(0, 0f, 1f, 0);
+
+        for (int i = 0; i <= 100; i++) {
+            path.add(1, i, 2f * i, i);
+        }
+
+        int[] moves = path.simplify();
+        Assert.assertArrayEquals(new int[]{0, 100}, moves);
+    }
+
+    @Test
+    public void testCornerIsKept() {
+        TouchPath path = new TouchPath(0, 0f, 1f, 0);
+
+        for (int i = 0; i <= 50; i++) {
+            path.add(1, i, 0f, i);
+        }
+        for (int i = 1; i <= 50; i++) {
+            path.add(1, 50f, i, 50 + i);
+        }
+
+        int[] moves = path.simplify();
+        Assert.assertArrayEquals(new int[]{0, 50, 100}, moves);
+    }
+
+    @Test
+    public void testZeroToleranceKeepsEverySample() {
+        TouchPath path = new TouchPath(0, 0f, 0f, 0);
+
+        for (int i = 0; i < 10; i++) {
+            path.add(1, i, i, i);
+        }
+
+        Assert.assertEquals(10, path.simplify().length);
+    }
+
+    @Test
+    public void testPositionsAreCapped() {
+        TouchPath path = new TouchPath(0, 0f, 0f, 10);
+
+        for (int i = 0; i < 30; i++) {
+            path.add(1, i, (i % 2) * 10f, i);
+        }
+
+        int[] moves = path.simplify();
+        Assert.assertEquals(10, moves.length);
+        Assert.assertEquals(0, moves[0]);
+        Assert.assertEquals(path.size() - 1, moves[moves.length - 1]);
+        for (int i = 1; i < moves.length; i++) {
+            Assert.assertTrue(moves[i] > moves[i - 1]);
+        }
+    }
+
+    @Test
+    public void testLongGestureIsBounded() {
+        TouchPath path = new TouchPath(0, 0f, 0f, 20);
+
+        for (int i = 0; i < 10_000; i++) {
+            path.add(1, i, (i % 2) * 10f, i);
+        }
+
+        Assert.assertTrue(path.size() <= 4 * 20);
+        Assert.assertEquals(0L, path.getTimestamp(0));
+        Assert.assertEquals(9_999L, path.getTimestamp(path.size() - 1));
+        Assert.assertEquals(20, path.simplify().length);
+    }
+
+    @Test
+    public void testConfiguration() {
+        SessionReplayLocalConfiguration configuration = new SessionReplayLocalConfiguration();
+        configuration.setTouchMoveIntervalMs(100);
+        configuration.setTouchMoveDistance(0f);
+
+        TouchPath path = new TouchPath(configuration);
+        for (int i = 0; i < 10; i++) {
+            path.add(1, i * 10f, 0f, i * 10L);
+        }
+
+        // kept at 0ms, plus the held back sample at 90ms
+        Assert.assertEquals(2, path.size());
+    }
+
+    @Test
+    public void testEmptyPath() {
+        TouchPath path = new TouchPath();
+
+        Assert.assertTrue(path.isEmpty());
+        Assert.assertEquals(0, path.simplify().length);
+    }
+}
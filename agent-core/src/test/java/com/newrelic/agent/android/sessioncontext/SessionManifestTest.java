@@ -95,4 +95,21 @@ public class SessionManifestTest {
         Assert.assertNull(restored.getIsFirstChunk());
         Assert.assertNull(restored.getExitReason());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sameContextIgnoresLastUpdateOnly() {
+        Set<AnalyticsAttribute> attrs = new HashSet<>();
+        attrs.add(new AnalyticsAttribute("checkout_step", "review"));
+        SessionManifest original = new SessionManifest("S_A", 1234, 1000L, 2000L, attrs);
+
+        Assert.assertTrue(original.hasSameContextAs(new SessionManifest("S_A", 1234, 1000L, 9000L, attrs)));
+
+        Set<AnalyticsAttribute> changed = new HashSet<>();
+        changed.add(new AnalyticsAttribute("checkout_step", "paid"));
+        Assert.assertFalse(original.hasSameContextAs(new SessionManifest("S_A", 1234, 1000L, 2000L, changed)));
+        Assert.assertFalse(original.hasSameContextAs(new SessionManifest("S_A", 4321, 1000L, 2000L, attrs)));
+        Assert.assertFalse(original.hasSameContextAs(new SessionManifest(SessionManifest.CURRENT_SCHEMA_VERSION,
+                "S_A", 1234, 1000L, 2000L, attrs, null, null, 6)));
+        Assert.assertFalse(original.hasSameContextAs(null));
+    }
+}
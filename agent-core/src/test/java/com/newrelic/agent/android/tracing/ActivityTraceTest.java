@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.tracing;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.newrelic.agent.android.harvest.ActivitySighting;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class ActivityTraceTest {
+
+    private Trace rootTrace;
+    private ActivityTrace activityTrace;
+
+    @Before
+    public void setUp() throws Exception {
+        rootTrace = new Trace();
+        // activity names must be unique to the measurement engine
+        rootTrace.displayName = "Display MainActivity#" + rootTrace.myUUID;
+        rootTrace.entryTimestamp = 1000;
+        rootTrace.exitTimestamp = 1000;
+        activityTrace = new ActivityTrace(rootTrace);
+    }
+
+    @Test
+    public void testChildrenAreSerializedInRegistrationOrder() {
+        final Trace first = addTrace(rootTrace, "MainActivity#onCreate", 1000, 1100);
+        final Trace nested = addTrace(first, "MainActivity#loadData", 1010, 1090);
+        final Trace second = addTrace(rootTrace, "MainActivity#onResume", 1100, 1200);
+
+        complete(nested);
+        complete(second);
+        complete(first);
+        activityTrace.complete();
+
+        final JsonArray root = segments().get(1).getAsJsonArray();
+        Assert.assertEquals(rootTrace.displayName, root.get(3).getAsString());
+        Assert.assertEquals(1200, root.get(2).getAsLong());
+
+        final JsonArray children = root.get(5).getAsJsonArray();
+        Assert.assertEquals(2, children.size());
+        Assert.assertEquals("MainActivity#onCreate", children.get(0).getAsJsonArray().get(3).getAsString());
+        Assert.assertEquals("MainActivity#onResume", children.get(1).getAsJsonArray().get(3).getAsString());
+
+        final JsonArray grandChildren = children.get(0).getAsJsonArray().get(5).getAsJsonArray();
+        Assert.assertEquals(1, grandChildren.size());
+        Assert.assertEquals("MainActivity#loadData", grandChildren.get(0).getAsJsonArray().get(3).getAsString());
+    }
+
+    @Test
+    public void testTraceWithoutParentIsAddedToRoot() {
+        final Trace trace = new Trace("MainActivity#onStart", rootTrace.myUUID, null);
+        trace.entryTimestamp = 1000;
+        trace.exitTimestamp = 1100;
+        activityTrace.addTrace(trace);
+        rootTrace.addChild(trace);
+
+        complete(trace);
+        activityTrace.complete();
+
+        final JsonArray children = segments().get(1).getAsJsonArray().get(5).getAsJsonArray();
+        Assert.assertEquals(1, children.size());
+        Assert.assertEquals("MainActivity#onStart", children.get(0).getAsJsonArray().get(3).getAsString());
+    }
+
+    @Test
+    public void testMissingChildrenAreSkipped() {
+        final Trace completed = addTrace(rootTrace, "completed", 1000, 1100);
+        addTrace(rootTrace, "running", 1000, 0);
+
+        complete(completed);
+        Assert.assertTrue(activityTrace.hasMissingChildren());
+        activityTrace.complete();
+
+        final JsonArray children = segments().get(1).getAsJsonArray().get(5).getAsJsonArray();
+        Assert.assertEquals(1, children.size());
+        Assert.assertEquals(1, activityTrace.getTraceCount());
+    }
+
+    @Test
+    public void testStreamedJsonMatchesTree() {
+        final Trace network = addTrace(rootTrace, "External/httpstat.us", 1000, 1200);
+        network.setType(TraceType.NETWORK);
+        network.getParams().put("uri", "https://httpstat.us/200?a=<b>&c='d'");
+        network.getParams().put("status_code", 200);
+        complete(network);
+
+        for (int i = 0; i < 10; i++) {
+            final Trace trace = addTrace(rootTrace, "MainActivity#method" + (i % 3), 1200 + i, 1300 + i);
+            complete(addTrace(trace, "MainActivity#nested", 1200 + i, 1250 + i));
+            complete(trace);
+        }
+
+        final Map<Sample.SampleType, Collection<Sample>> vitals = new HashMap<>();
+        final List<Sample> cpu = new ArrayList<>();
+        cpu.add(new Sample(1100, new SampleValue(12.5)));
+        cpu.add(new Sample(99999, new SampleValue(50.0)));
+        vitals.put(Sample.SampleType.CPU, cpu);
+        final List<Sample> memory = new ArrayList<>();
+        memory.add(new Sample(1100, new SampleValue(4096L)));
+        vitals.put(Sample.SampleType.MEMORY, memory);
+        activityTrace.setVitals(vitals);
+        activityTrace.previousActivity = new ActivitySighting(900, "Display SplashActivity");
+
+        activityTrace.complete();
+
+        final String json = activityTrace.toJsonString();
+        Assert.assertEquals(activityTrace.asJson().toString(), json);
+        Assert.assertTrue(json.contains("'d'"));
+    }
+
+    @Test
+    public void testIncompleteTraceIsNotSerialized() {
+        Assert.assertNull(activityTrace.asJson());
+        Assert.assertEquals("null", activityTrace.toJsonString());
+    }
+
+    @Test
+    public void testTraceLimit() {
+        for (int i = 0; i < ActivityTrace.MAX_TRACES + 10; i++) {
+            complete(addTrace(rootTrace, "trace", 1000 + i, 1001 + i));
+        }
+        activityTrace.complete();
+
+        Assert.assertEquals(ActivityTrace.MAX_TRACES, activityTrace.getTraceCount());
+        Assert.assertEquals(ActivityTrace.MAX_TRACES, segments().get(1).getAsJsonArray().get(5).getAsJsonArray().size());
+    }
+
+    @Test
+    public void testTracesSnapshot() {
+        final Trace parent = addTrace(rootTrace, "parent", 1000, 1100);
+        final Trace child = addTrace(parent, "child", 1010, 1020);
+        complete(child);
+        complete(parent);
+
+        final Map<UUID, Trace> traces = activityTrace.getTraces();
+        Assert.assertEquals(2, traces.size());
+
+        final Trace restoredParent = traces.get(parent.myUUID);
+        Assert.assertEquals("parent", restoredParent.displayName);
+        Assert.assertEquals(rootTrace.myUUID, restoredParent.parentUUID);
+        Assert.assertTrue(restoredParent.getChildren().contains(child.myUUID));
+
+        final Trace restoredChild = traces.get(child.myUUID);
+        Assert.assertEquals(parent.myUUID, restoredChild.parentUUID);
+        Assert.assertEquals(10, restoredChild.getDurationAsMilliseconds());
+    }
+
+    private Trace addTrace(Trace parent, String name, long entryTimestamp, long exitTimestamp) {
+        final Trace trace = new Trace(name, parent.myUUID, null);
+        trace.entryTimestamp = entryTimestamp;
+        trace.exitTimestamp = exitTimestamp;
+        activityTrace.addTrace(parent, trace);
+        parent.addChild(trace);
+        return trace;
+    }
+
+    private Trace complete(Trace trace) {
+        activityTrace.addCompletedTrace(trace);
+        return trace;
+    }
+
+    private JsonArray segments() {
+        return JsonParser.parseString(activityTrace.toJsonString()).getAsJsonArray().get(4).getAsJsonArray();
+    }
+}
@@ -8,6 +8,7 @@ package com.newrelic.agent.android.tracing;
 import com.newrelic.agent.android.FeatureFlag;
 import com.newrelic.agent.android.api.v2.TraceFieldInterface;
 import com.newrelic.agent.android.api.v2.TraceMachineInterface;
+import com.newrelic.agent.android.instrumentation.MetricCategory;
 import com.newrelic.agent.android.stats.StatsEngine;
 
 import org.junit.Assert;
@@ -115,6 +116,33 @@ public class TraceMachineTests {
         Assert.assertTrue(TraceMachine.isTracingInactive());
     }
 
+    @Test
+    public void testEnterTraceSite() throws Exception {
+        TraceSite site = new TraceSite("testSite", MetricCategory.JSON);
+
+        Assert.assertTrue(TraceMachine.isTracingInactive());
+        Assert.assertFalse(TraceMachine.enterMethod(site));
+        TraceMachine.exitMethod(false);
+
+        TraceMachine.startTracing("testActivityTrace");
+        Trace rootTrace = TraceMachine.getCurrentTrace();
+
+        Assert.assertTrue(TraceMachine.enterMethod(site));
+        Trace childTrace = TraceMachine.getCurrentTrace();
+        Assert.assertEquals("testSite", childTrace.displayName);
+        Assert.assertEquals(MetricCategory.JSON, childTrace.getCategory());
+
+        TraceMachine.exitMethod(true);
+        Assert.assertEquals(rootTrace.myUUID, TraceMachine.getCurrentTrace().myUUID);
+
+        // a site entered while tracing was inactive doesn't exit the current trace
+        TraceMachine.exitMethod(false);
+        Assert.assertEquals(rootTrace.myUUID, TraceMachine.getCurrentTrace().myUUID);
+
+        TraceMachine.haltTracing();
+        Assert.assertTrue(TraceMachine.isTracingInactive());
+    }
+
     @Test
     public void testEnterNetworkSegment() throws Exception {
         TraceMachine.startTracing("testActivityTrace");
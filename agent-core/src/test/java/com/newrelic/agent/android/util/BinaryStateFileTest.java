@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+public class BinaryStateFileTest {
+
+    private File file;
+    private BinaryStateFile stateFile;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("binaryStateFile", ".state");
+        file.delete();
+        stateFile = new BinaryStateFile(file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void testLoadMissingFile() {
+        Assert.assertFalse(stateFile.load());
+        Assert.assertTrue(stateFile.isEmpty());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final StringBuilder largeValue = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            largeValue.append("{\"k\":").append(i).append("}");
+        }
+
+        stateFile.put("string", "string");
+        stateFile.put("unicode", "été ☃");
+        stateFile.put("large", largeValue.toString());
+        stateFile.put("boolean", true);
+        stateFile.put("int", 9999);
+        stateFile.put("long", 9876543210L);
+        stateFile.put("float", 0.3333f);
+        Assert.assertTrue(stateFile.commit());
+        Assert.assertFalse(stateFile.isDirty());
+
+        final BinaryStateFile reloaded = new BinaryStateFile(file);
+        Assert.assertTrue(reloaded.load());
+        Assert.assertEquals(7, reloaded.getAll().size());
+        Assert.assertEquals("string", reloaded.get("string"));
+        Assert.assertEquals("été ☃", reloaded.get("unicode"));
+        Assert.assertEquals(largeValue.toString(), reloaded.get("large"));
+        Assert.assertEquals(true, reloaded.get("boolean"));
+        Assert.assertEquals(9999, reloaded.get("int"));
+        Assert.assertEquals(9876543210L, reloaded.get("long"));
+        Assert.assertEquals(0.3333f, (Float) reloaded.get("float"), 0f);
+    }
+
+    @Test
+    public void testCommitOnlyWhenChanged() {
+        stateFile.put("key", "value");
+        Assert.assertTrue(stateFile.isDirty());
+        Assert.assertTrue(stateFile.commit());
+
+        stateFile.put("key", "value");
+        Assert.assertFalse("Unchanged values should not dirty the state", stateFile.isDirty());
+
+        stateFile.remove("missing");
+        Assert.assertFalse(stateFile.isDirty());
+    }
+
+    @Test
+    public void testShrinkingState() {
+        final StringBuilder largeValue = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            largeValue.append(i);
+        }
+        stateFile.put("large", largeValue.toString());
+        stateFile.put("small", 1);
+        Assert.assertTrue(stateFile.commit());
+        final long largeSize = file.length();
+
+        stateFile.remove("large");
+        Assert.assertTrue(stateFile.commit());
+        Assert.assertTrue(file.length() < largeSize);
+
+        final BinaryStateFile reloaded = new BinaryStateFile(file);
+        Assert.assertTrue(reloaded.load());
+        Assert.assertFalse(reloaded.contains("large"));
+        Assert.assertEquals(1, reloaded.get("small"));
+    }
+
+    @Test
+    public void testNullValueRemovesKey() {
+        stateFile.put("key", "value");
+        stateFile.put("key", null);
+        Assert.assertFalse(stateFile.contains("key"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedValueType() {
+        stateFile.put("key", new Object());
+    }
+
+    @Test
+    public void testTornWriteIsDiscarded() throws Exception {
+        stateFile.put("deviceId", "device-id");
+        stateFile.put("harvestIntervalInSeconds", 60L);
+        Assert.assertTrue(stateFile.commit());
+
+        // flip a payload byte, as a partial write would leave it
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(BinaryStateFile.HEADER_SIZE + 4);
+            final int b = raf.read();
+            raf.seek(BinaryStateFile.HEADER_SIZE + 4);
+            raf.write(b ^ 0xff);
+        }
+
+        final BinaryStateFile reloaded = new BinaryStateFile(file);
+        Assert.assertFalse(reloaded.load());
+        Assert.assertTrue(reloaded.isEmpty());
+    }
+
+    @Test
+    public void testTruncatedFileIsDiscarded() throws Exception {
+        stateFile.put("deviceId", "device-id");
+        Assert.assertTrue(stateFile.commit());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 3);
+        }
+
+        Assert.assertFalse(new BinaryStateFile(file).load());
+    }
+
+    @Test
+    public void testUnknownVersionIsDiscarded() throws Exception {
+        stateFile.put("deviceId", "device-id");
+        Assert.assertTrue(stateFile.commit());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeShort(BinaryStateFile.VERSION + 1);
+        }
+
+        Assert.assertFalse(new BinaryStateFile(file).load());
+    }
+
+    @Test
+    public void testFailedWriteKeepsPreviousState() {
+        stateFile.put("dataToken", "[1,2]");
+        Assert.assertTrue(stateFile.commit());
+
+        // the temporary file can't be created
+        final File tempFile = new File(file.getPath() + BinaryStateFile.TEMP_FILE_SUFFIX);
+        Assert.assertTrue(tempFile.mkdir());
+        try {
+            stateFile.put("dataToken", "[3,4]");
+            Assert.assertFalse(stateFile.commit());
+        } finally {
+            tempFile.delete();
+        }
+
+        final BinaryStateFile reloaded = new BinaryStateFile(file);
+        Assert.assertTrue(reloaded.load());
+        Assert.assertEquals("[1,2]", reloaded.get("dataToken"));
+    }
+
+    @Test
+    public void testSnapshotIsWrittenLater() throws Exception {
+        stateFile.put("int", 1);
+        final byte[] snapshot = stateFile.snapshot();
+        Assert.assertFalse(stateFile.isDirty());
+
+        // later changes aren't part of the snapshot
+        stateFile.put("int", 2);
+        Assert.assertTrue(stateFile.write(snapshot));
+        Assert.assertFalse(new File(file.getPath() + BinaryStateFile.TEMP_FILE_SUFFIX).exists());
+
+        final BinaryStateFile reloaded = new BinaryStateFile(file);
+        Assert.assertTrue(reloaded.load());
+        Assert.assertEquals(1, reloaded.get("int"));
+    }
+
+    @Test
+    public void testClearAndDelete() {
+        stateFile.put("key", "value");
+        Assert.assertTrue(stateFile.commit());
+
+        stateFile.clear();
+        Assert.assertTrue(stateFile.commit());
+        final BinaryStateFile reloaded = new BinaryStateFile(file);
+        Assert.assertTrue(reloaded.load());
+        Assert.assertTrue(reloaded.isEmpty());
+
+        Assert.assertTrue(stateFile.delete());
+        Assert.assertFalse(file.exists());
+    }
+}
@@ -36,6 +36,7 @@ import com.newrelic.agent.android.api.v2.TraceMachineInterface;
 import com.newrelic.agent.android.background.ApplicationStateEvent;
 import com.newrelic.agent.android.background.ApplicationStateListener;
 import com.newrelic.agent.android.background.ApplicationStateMonitor;
+import com.newrelic.agent.android.crash.CrashReporter;
 import com.newrelic.agent.android.distributedtracing.UserActionFacade;
 import com.newrelic.agent.android.distributedtracing.UserActionType;
 import com.newrelic.agent.android.harvest.AgentHealth;
@@ -61,7 +62,7 @@ import com.newrelic.agent.android.metric.MetricNames;
 import com.newrelic.agent.android.metric.MetricUnit;
 import com.newrelic.agent.android.ndk.NativeReporting;
 import com.newrelic.agent.android.hybrid.FileJSErrorStore;
-import com.newrelic.agent.android.sessioncontext.FileSessionContextStore;
+import com.newrelic.agent.android.sessioncontext.JournalSessionContextStore;
 import com.newrelic.agent.android.sessioncontext.SessionContextManager;
 import com.newrelic.agent.android.payload.FilePayloadStore;
 import com.newrelic.agent.android.payload.PayloadController;
@@ -143,6 +144,10 @@ public class AndroidAgentImpl implements
     // Producers and consumers that are tightly coupled to Android implementations
     private MachineMeasurementConsumer machineMeasurementConsumer;
     private OfflineStorage offlineStorageInstance;
+
+    // Non-null while a staged startup is waiting for start()
+    private AgentStartup startup;
+
     public AndroidAgentImpl(final Context context, final AgentConfiguration agentConfiguration) throws AgentInitializationException {
         // We want an Application context, not an Activity context.
         this.context = appContext(context);
@@ -150,8 +155,10 @@ public class AndroidAgentImpl implements
 
         resolveBuildId(this.context);
 
+        // The saved state is read on the caller's thread, even for staged startups: it decides whether
+        // this agent version is disabled, and seeds the configuration used by every later stage.
+        // It is a single small file read; saves are written on a background thread.
         this.savedState = new SavedState(this.context);
-        this.offlineStorageInstance = new OfflineStorage(context);
 
         if (isDisabled()) {
             throw new AgentInitializationException("This version of the agent has been disabled");
@@ -165,28 +172,16 @@ public class AndroidAgentImpl implements
         // Register ourselves with the TraceMachine
         TraceMachine.setTraceMachineInterface(this);
 
-        FileCrashStore crashStore = new FileCrashStore(context, agentConfiguration);
-        crashStore.migrateFromSharedPrefs(context, FileCrashStore.LEGACY_PREFS_NAME);
-        context.deleteSharedPreferences(FileCrashStore.LEGACY_PREFS_NAME);
-        agentConfiguration.setCrashStore(crashStore);
-
-        agentConfiguration.setPayloadStore(new FilePayloadStore(context, agentConfiguration));
-        context.deleteSharedPreferences("NRPayloadStore");
-
-        agentConfiguration.setAnalyticsAttributeStore(new SharedPrefsAnalyticsAttributeStore(context));
-
-        agentConfiguration.setEventStore(new FileEventStore(context, agentConfiguration));
-        context.deleteSharedPreferences("NREventStore");
-
-        agentConfiguration.setSessionReplayStore(new FileSessionReplayStore(context));
-        context.deleteSharedPreferences("NRSessionReplayStore");
-
-        agentConfiguration.setOfflineSessionReplayStore(new FileOfflineSessionReplayStore(context));
-
-        agentConfiguration.setJsErrorStore(new FileJSErrorStore(context, agentConfiguration));
-        context.deleteSharedPreferences("NRJSErrorStore");
-
-        agentConfiguration.setSessionContextStore(new FileSessionContextStore(context, agentConfiguration));
+        if (agentConfiguration.getStagedStartup()) {
+            // Only the crash handler is installed on the caller's thread. The remaining
+            // stores are opened, and agent services started, on the startup thread.
+            startup = AgentStartup.initialize();
+            startup.runStage(AgentStartup.STAGE_CRASH_HANDLER, this::startCrashReporter);
+            startup.stage(AgentStartup.STAGE_STORES, this::openStores);
+        } else {
+            agentConfiguration.setCrashStore(new FileCrashStore(context, agentConfiguration));
+            openStores();
+        }
 
         ApplicationStateMonitor.getInstance().addApplicationStateListener(this);
         // used to determine when app backgrounds
@@ -216,6 +211,49 @@ public class AndroidAgentImpl implements
         setupSession();
     }
 
+    /**
+     * Open the crash store and install the uncaught exception handler ahead of the other stores.
+     * Crashes stored by a previous version of the agent are migrated when the stores are opened.
+     */
+    private void startCrashReporter() {
+        agentConfiguration.setCrashStore(new FileCrashStore(context, agentConfiguration));
+
+        StatsEngine.get().inc(MetricNames.SUPPORTABILITY_CRASH_UNCAUGHT_HANDLER
+                .replace(MetricNames.TAG_NAME, getUnhandledExceptionHandlerName()));
+        CrashReporter.initialize(agentConfiguration).start();
+    }
+
+    /**
+     * Open the file-backed stores and offline storage, removing any shared preferences left by earlier
+     * agent versions. Expects the crash store to have already been created.
+     */
+    private void openStores() {
+        if (agentConfiguration.getCrashStore() instanceof FileCrashStore) {
+            ((FileCrashStore) agentConfiguration.getCrashStore()).migrateFromSharedPrefs(context, FileCrashStore.LEGACY_PREFS_NAME);
+        }
+        context.deleteSharedPreferences(FileCrashStore.LEGACY_PREFS_NAME);
+
+        agentConfiguration.setPayloadStore(new FilePayloadStore(context, agentConfiguration));
+        context.deleteSharedPreferences("NRPayloadStore");
+
+        agentConfiguration.setAnalyticsAttributeStore(new SharedPrefsAnalyticsAttributeStore(context));
+
+        agentConfiguration.setEventStore(new FileEventStore(context, agentConfiguration));
+        context.deleteSharedPreferences("NREventStore");
+
+        agentConfiguration.setSessionReplayStore(new FileSessionReplayStore(context));
+        context.deleteSharedPreferences("NRSessionReplayStore");
+
+        agentConfiguration.setOfflineSessionReplayStore(new FileOfflineSessionReplayStore(context));
+
+        agentConfiguration.setJsErrorStore(new FileJSErrorStore(context, agentConfiguration));
+        context.deleteSharedPreferences("NRJSErrorStore");
+
+        agentConfiguration.setSessionContextStore(new JournalSessionContextStore(context, agentConfiguration));
+
+        offlineStorageInstance = new OfflineStorage(context);
+    }
+
     /**
      * The build ID is generated at build time by NewRelicConfigTask and injected as a
      * generated Android string resource (not compiled Java source, so it doesn't bust
@@ -287,8 +325,11 @@ public class AndroidAgentImpl implements
         machineMeasurementConsumer = new MachineMeasurementConsumer();
         Measurements.addMeasurementConsumer(machineMeasurementConsumer);
 
-        StatsEngine.get().inc(MetricNames.SUPPORTABILITY_CRASH_UNCAUGHT_HANDLER
-                .replace(MetricNames.TAG_NAME, getUnhandledExceptionHandlerName()));
+        if (!agentConfiguration.getStagedStartup()) {
+            // staged startups record the handler before installing the crash reporter
+            StatsEngine.get().inc(MetricNames.SUPPORTABILITY_CRASH_UNCAUGHT_HANDLER
+                    .replace(MetricNames.TAG_NAME, getUnhandledExceptionHandlerName()));
+        }
         PayloadController.initialize(agentConfiguration);
 
         SessionContextManager.initialize();
@@ -622,6 +663,23 @@ public class AndroidAgentImpl implements
 
     @Override
     public void start() {
+        if (startup != null) {
+            // staged startup: start agent services on the startup thread once the stores are open
+            final AgentStartup pendingStartup = startup;
+            startup = null;
+            pendingStartup.stage(AgentStartup.STAGE_SERVICES, this::startAgent);
+            pendingStartup.complete();
+            return;
+        }
+
+        if (AgentStartup.defer(this::start)) {
+            return;
+        }
+
+        startAgent();
+    }
+
+    private void startAgent() {
         if (!isDisabled()) {
             initialize();
             Harvest.start();
@@ -655,6 +713,9 @@ public class AndroidAgentImpl implements
     }
 
     void stop(boolean finalSendData) {
+        if (AgentStartup.defer(() -> stop(finalSendData))) {
+            return;
+        }
 
 
         // assume some user action caused the agent to go to background
@@ -736,6 +797,8 @@ public class AndroidAgentImpl implements
         if (LogReporting.isRemoteLoggingEnabled()) {
             LogReporting.shutdown();
         }
+
+        AgentStartup.shutdown();
     }
 
     @Override
@@ -933,10 +996,19 @@ public class AndroidAgentImpl implements
             sessionReplayConfiguration.processCustomMaskingRules();
             AnalyticsControllerImpl.getInstance().setAttribute(AnalyticsAttribute.SESSION_REPLAY_ENABLED, true);
             Handler uiHandler = new Handler(Looper.getMainLooper());
-            SessionReplay.initialize(((Application) context.getApplicationContext()), uiHandler, agentConfiguration, mode);
+            Runnable recorder = () -> {
+                SessionReplay.initialize(((Application) context.getApplicationContext()), uiHandler, agentConfiguration, mode);
+
+                if(mode != SessionReplayMode.OFF) {
+                    SessionReplay.initSessionReplay(mode);
+                }
+            };
 
-            if(mode != SessionReplayMode.OFF) {
-                SessionReplay.initSessionReplay(mode);
+            // the recorder is bound to the UI thread, which staged startups are not on
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                recorder.run();
+            } else {
+                uiHandler.post(recorder);
             }
         } else {
             AnalyticsControllerImpl.getInstance().removeAttribute(AnalyticsAttribute.SESSION_REPLAY_ENABLED);
@@ -12,6 +12,7 @@ import android.text.TextUtils;
 import com.newrelic.agent.android.agentdata.AgentDataController;
 import com.newrelic.agent.android.analytics.AnalyticsAttribute;
 import com.newrelic.agent.android.analytics.AnalyticsControllerImpl;
+import com.newrelic.agent.android.analytics.AnalyticsValidator;
 import com.newrelic.agent.android.analytics.EventListener;
 import com.newrelic.agent.android.analytics.EventManager;
 import com.newrelic.agent.android.analytics.EventManagerImpl;
@@ -62,6 +63,7 @@ public final class NewRelic {
     private static final String UNKNOWN_HTTP_REQUEST_TYPE = "unknown";
 
     private static final AgentLog log = AgentLogManager.getAgentLog();
+    private static final AnalyticsValidator validator = new AnalyticsValidator();
     protected static final AgentConfiguration agentConfiguration = AgentConfiguration.getInstance();
     protected static boolean started = false;
     protected static boolean isShutdown = false;
@@ -188,6 +190,82 @@ public final class NewRelic {
         return this;
     }
 
+    /**
+     * Complete OkHttp3 network requests when the response body has been consumed or closed, rather
+     * than when the response headers arrive. Reported byte counts and durations then include the
+     * response body, without buffering streamed responses. Responses must be closed, as OkHttp
+     * requires: a response whose body is never read or closed is not recorded.
+     * <p>
+     * Default is disabled.
+     *
+     * @param enabled Whether to defer OkHttp3 response measurement
+     **/
+    public NewRelic withOkHttpResponseBodyMeasurement(boolean enabled) {
+        StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
+                .replace(MetricNames.TAG_NAME, "withOkHttpResponseBodyMeasurement/" + MetricNames.TAG_STATE)
+                .replace(MetricNames.TAG_STATE, Boolean.toString(enabled)));
+
+        agentConfiguration.setOkHttpResponseBodyMeasurement(enabled);
+
+        return this;
+    }
+
+    /**
+     * Start the agent in stages. Only the crash handler is installed on the calling thread; agent
+     * stores and services are started on a background thread. API calls made before startup
+     * completes are buffered, and replayed in order once it has.
+     * <p>
+     * Default is disabled.
+     *
+     * @param enabled Whether to start the agent in stages
+     **/
+    public NewRelic withStagedStartup(boolean enabled) {
+        StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
+                .replace(MetricNames.TAG_NAME, "withStagedStartup/" + MetricNames.TAG_STATE)
+                .replace(MetricNames.TAG_STATE, Boolean.toString(enabled)));
+
+        agentConfiguration.setStagedStartup(enabled);
+
+        return this;
+    }
+
+    /**
+     * Adapt the harvest period to the data being collected. Harvests run early when buffered
+     * events, network requests or activity traces grow large, are spaced out while there is
+     * nothing to send, and are brought forward to share the radio with other agent uploads.
+     * <p>
+     * Default is disabled.
+     *
+     * @param enabled Whether to adapt the harvest period
+     **/
+    public NewRelic withAdaptiveHarvest(boolean enabled) {
+        StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
+                .replace(MetricNames.TAG_NAME, "withAdaptiveHarvest/" + MetricNames.TAG_STATE)
+                .replace(MetricNames.TAG_STATE, Boolean.toString(enabled)));
+
+        agentConfiguration.setAdaptiveHarvest(enabled);
+
+        return this;
+    }
+
+    /**
+     * Run the harvest callbacks of subsystems that upload their own data, such as log reporting
+     * and session replay, in parallel rather than ahead of the harvest request.
+     * <p>
+     * Default is disabled.
+     *
+     * @param enabled Whether to dispatch independent harvest listeners concurrently
+     **/
+    public NewRelic withConcurrentHarvestListeners(boolean enabled) {
+        StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
+                .replace(MetricNames.TAG_NAME, "withConcurrentHarvestListeners/" + MetricNames.TAG_STATE)
+                .replace(MetricNames.TAG_STATE, Boolean.toString(enabled)));
+
+        agentConfiguration.setConcurrentHarvestListeners(enabled);
+
+        return this;
+    }
+
     /**
      * Set app launch time target activity
      */
@@ -494,7 +572,8 @@ public final class NewRelic {
         checkEmpty(name, "recordMetric: name must not be empty.");
 
         if (!checkNegative(count, "recordMetric: count must not be negative.")) {
-            Measurements.addCustomMetric(name, category, count, totalValue, exclusiveValue, countUnit, valueUnit);
+            // arguments are validated immediately, but recording waits for a staged startup
+            runOrDefer(() -> Measurements.addCustomMetric(name, category, count, totalValue, exclusiveValue, countUnit, valueUnit));
         }
     }
 
@@ -607,7 +686,7 @@ public final class NewRelic {
                     totalTime, statusCode, 0, bytesSent, bytesReceived, appData, Agent.getActiveNetworkWanType(), null,
                     responseBody, params, traceAttributes);
 
-            TaskQueue.queue(new HttpTransactionMeasurement(transactionData));
+            runOrDefer(() -> TaskQueue.queue(new HttpTransactionMeasurement(transactionData)));
         }
     }
 
@@ -694,7 +773,7 @@ public final class NewRelic {
                     totalTime, NetworkFailure.Unknown.getErrorCode(), failure.getErrorCode(),
                     0, 0, null, Agent.getActiveNetworkWanType(), null, message, params, traceAttributes);
 
-            TaskQueue.queue(new HttpTransactionMeasurement(transactionData));
+            runOrDefer(() -> TaskQueue.queue(new HttpTransactionMeasurement(transactionData)));
         }
     }
 
@@ -727,6 +806,13 @@ public final class NewRelic {
 
     /* Utility methods */
 
+    // run the call now, or once a staged startup completes
+    private static void runOrDefer(Runnable call) {
+        if (!AgentStartup.defer(call)) {
+            call.run();
+        }
+    }
+
     private static void checkNull(Object object, String message) {
         if (object == null) {
             throw new IllegalArgumentException(message);
@@ -783,6 +869,16 @@ public final class NewRelic {
      * @return true if successful, false if the operation did not complete as anticipated.
      */
     public static boolean setAttribute(String name, String value) {
+        // invalid attributes are rejected now, rather than reported as deferred
+        if (!validator.isValidAttributeName(name) || !validator.isValidAttributeValue(name, value)) {
+            return false;
+        }
+
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> setAttribute(name, value));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "setAttribute(String,String)"));
         return AnalyticsControllerImpl.getInstance().setAttribute(name, value);
@@ -796,6 +892,15 @@ public final class NewRelic {
      * @return true if successful, false if the operation did not complete as anticipated.
      */
     public static boolean setAttribute(String name, double value) {
+        if (!validator.isValidAttributeName(name)) {
+            return false;
+        }
+
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> setAttribute(name, value));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "setAttribute(String,double)"));
         return AnalyticsControllerImpl.getInstance().setAttribute(name, value);
@@ -809,6 +914,15 @@ public final class NewRelic {
      * @return true if successful, false if the operation did not complete as anticipated.
      */
     public static boolean setAttribute(String name, boolean value) {
+        if (!validator.isValidAttributeName(name)) {
+            return false;
+        }
+
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> setAttribute(name, value));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "setAttribute(String,boolean)"));
         return AnalyticsControllerImpl.getInstance().setAttribute(name, value);
@@ -821,6 +935,15 @@ public final class NewRelic {
      * @return true if successful, false if the operation did not complete as anticipated.
      */
     public static boolean incrementAttribute(String name) {
+        if (!validator.isValidAttributeName(name)) {
+            return false;
+        }
+
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> incrementAttribute(name));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "incrementAttribute(String)"));
         return AnalyticsControllerImpl.getInstance().incrementAttribute(name, 1.00f);
@@ -834,6 +957,15 @@ public final class NewRelic {
      * @return true if successful, false if the operation did not complete as anticipated.
      */
     public static boolean incrementAttribute(String name, double value) {
+        if (!validator.isValidAttributeName(name)) {
+            return false;
+        }
+
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> incrementAttribute(name, value));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "incrementAttribute(String, double)"));
         return AnalyticsControllerImpl.getInstance().incrementAttribute(name, value);
@@ -846,6 +978,11 @@ public final class NewRelic {
      * @return true if successful, false if the operation did not complete as anticipated.
      */
     public static boolean removeAttribute(String name) {
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> removeAttribute(name));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "removeAttribute"));
         return AnalyticsControllerImpl.getInstance().removeAttribute(name);
@@ -858,6 +995,11 @@ public final class NewRelic {
      */
 
     public static boolean removeAllAttributes() {
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> removeAllAttributes());
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "removeAllAttribute"));
 
@@ -871,6 +1013,11 @@ public final class NewRelic {
      * @return true if userId attribute as created or updated.
      */
     public static boolean setUserId(String userId) {
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> setUserId(userId));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "setUserId"));
         final AnalyticsControllerImpl controller = AnalyticsControllerImpl.getInstance();
@@ -924,6 +1071,16 @@ public final class NewRelic {
             customEventAttributes = new HashMap<>(eventAttributes);
         }
 
+        if (!validator.isValidEventType(eventType) || validator.isReservedEventType(eventType)) {
+            return false;
+        }
+
+        // attributes are copied when called, so buffered events are not affected by later changes
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> AnalyticsControllerImpl.getInstance().recordCustomEvent(eventType, customEventAttributes));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         return AnalyticsControllerImpl.getInstance().recordCustomEvent(eventType, customEventAttributes);
     }
 
@@ -984,6 +1141,11 @@ public final class NewRelic {
         if (breadcrumbName != null && !breadcrumbName.isEmpty()) {
             breadcrumbAttributes.put(AnalyticsAttribute.EVENT_NAME_ATTRIBUTE, breadcrumbName);
         }
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> AnalyticsControllerImpl.getInstance().recordBreadcrumb(breadcrumbName, breadcrumbAttributes));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         return AnalyticsControllerImpl.getInstance().recordBreadcrumb(breadcrumbName, breadcrumbAttributes);
     }
 
@@ -1048,6 +1210,20 @@ public final class NewRelic {
             handledExceptionAttributes = new HashMap<>(attributes);
         }
 
+        if (null == throwable) {
+            log.error("recordHandledException: throwable cannot be null");
+            return false;
+        }
+
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> sendHandledException(throwable, handledExceptionAttributes));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
+        return sendHandledException(throwable, handledExceptionAttributes);
+    }
+
+    private static boolean sendHandledException(Throwable throwable, Map<String, Object> handledExceptionAttributes) {
         boolean accepted = AgentDataController.sendAgentData(throwable, handledExceptionAttributes);
 
         // Only notify SessionReplay once the exception has been accepted — gating on
@@ -1138,6 +1314,17 @@ public final class NewRelic {
      * the JSError feature is disabled or the input is invalid.
      */
     public static boolean recordJavaScriptError(String name, String message, String stackTrace, boolean isFatal, Map<String, Object> additionalAttributes) {
+        if (name == null || name.trim().isEmpty()) {
+            log.warn("JSError: error name cannot be null or empty");
+            return false;
+        }
+
+        // the JS error store is opened by a staged startup
+        final AgentStartup.Deferral deferral = AgentStartup.deferCall(() -> recordJavaScriptError(name, message, stackTrace, isFatal, additionalAttributes));
+        if (deferral != AgentStartup.Deferral.NONE) {
+            return deferral == AgentStartup.Deferral.DEFERRED;
+        }
+
         boolean accepted = JSErrorDataController.getInstance().sendJSErrorData(name, message, stackTrace, isFatal, additionalAttributes);
 
         // Only notify SessionReplay once the JS error has been accepted — gating on
@@ -1170,7 +1357,7 @@ public final class NewRelic {
                 .replace(MetricNames.TAG_NAME, "log/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, LogLevel.INFO.name()));
 
-        LogReporting.getLogger().log(LogLevel.INFO, message);
+        runOrDefer(() -> LogReporting.getLogger().log(LogLevel.INFO, message));
     }
 
     public static void logWarning(String message) {
@@ -1178,7 +1365,7 @@ public final class NewRelic {
                 .replace(MetricNames.TAG_NAME, "log/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, LogLevel.WARN.name()));
 
-        LogReporting.getLogger().log(LogLevel.WARN, message);
+        runOrDefer(() -> LogReporting.getLogger().log(LogLevel.WARN, message));
     }
 
     public static void logDebug(String message) {
@@ -1186,7 +1373,7 @@ public final class NewRelic {
                 .replace(MetricNames.TAG_NAME, "log/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, LogLevel.DEBUG.name()));
 
-        LogReporting.getLogger().log(LogLevel.DEBUG, message);
+        runOrDefer(() -> LogReporting.getLogger().log(LogLevel.DEBUG, message));
     }
 
     public static void logVerbose(String message) {
@@ -1194,7 +1381,7 @@ public final class NewRelic {
                 .replace(MetricNames.TAG_NAME, "log/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, LogLevel.VERBOSE.name()));
 
-        LogReporting.getLogger().log(LogLevel.VERBOSE, message);
+        runOrDefer(() -> LogReporting.getLogger().log(LogLevel.VERBOSE, message));
     }
 
     public static void logError(String message) {
@@ -1202,11 +1389,13 @@ public final class NewRelic {
                 .replace(MetricNames.TAG_NAME, "log/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, LogLevel.ERROR.name()));
 
-        if (agentConfiguration.getSessionReplayConfiguration().isSessionReplayEnabled()) {
-            AndroidAgentImpl.activateLoggingForSessionReplay();
-            SessionReplay.onError();
-        }
-        LogReporting.getLogger().log(LogLevel.ERROR, message);
+        runOrDefer(() -> {
+            if (agentConfiguration.getSessionReplayConfiguration().isSessionReplayEnabled()) {
+                AndroidAgentImpl.activateLoggingForSessionReplay();
+                SessionReplay.onError();
+            }
+            LogReporting.getLogger().log(LogLevel.ERROR, message);
+        });
     }
 
     /**
@@ -1220,13 +1409,15 @@ public final class NewRelic {
                 .replace(MetricNames.TAG_NAME, "log/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, logLevel.name()));
 
-        if (logLevel.equals(LogLevel.ERROR) && agentConfiguration.getSessionReplayConfiguration().isSessionReplayEnabled()) {
-            AndroidAgentImpl.activateLoggingForSessionReplay();
-            SessionReplay.onError();
-        }
-        if (LogReporting.isLevelEnabled(logLevel)) {
-            LogReporting.getLogger().log(logLevel, message);
-        }
+        runOrDefer(() -> {
+            if (logLevel.equals(LogLevel.ERROR) && agentConfiguration.getSessionReplayConfiguration().isSessionReplayEnabled()) {
+                AndroidAgentImpl.activateLoggingForSessionReplay();
+                SessionReplay.onError();
+            }
+            if (LogReporting.isLevelEnabled(logLevel)) {
+                LogReporting.getLogger().log(logLevel, message);
+            }
+        });
     }
 
     /**
@@ -1241,9 +1432,11 @@ public final class NewRelic {
                 .replace(MetricNames.TAG_NAME, "logThrowable/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, logLevel.name()));
 
-        if (LogReporting.isLevelEnabled(logLevel)) {
-            LogReporting.getLogger().logThrowable(logLevel, message, throwable);
-        }
+        runOrDefer(() -> {
+            if (LogReporting.isLevelEnabled(logLevel)) {
+                LogReporting.getLogger().logThrowable(logLevel, message, throwable);
+            }
+        });
     }
 
     /**
@@ -1258,18 +1451,20 @@ public final class NewRelic {
      *                   }
      */
     public static void logAttributes(Map<String, Object> attributes) {
-        attributes = LogReporting.validator.validate(attributes);
+        final Map<String, Object> validatedAttributes = LogReporting.validator.validate(attributes);
 
-        final String level = String.valueOf(attributes.getOrDefault("level", LogLevel.NONE.toString()));
+        final String level = String.valueOf(validatedAttributes.getOrDefault("level", LogLevel.NONE.toString()));
         final LogLevel logLevel = LogLevel.valueOf(level.toUpperCase());
 
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "logAttributes/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, logLevel.name()));
 
-        if (LogReporting.isLevelEnabled(LogLevel.valueOf(level.toUpperCase()))) {
-            LogReporting.getLogger().logAttributes(attributes);
-        }
+        runOrDefer(() -> {
+            if (LogReporting.isLevelEnabled(logLevel)) {
+                LogReporting.getLogger().logAttributes(validatedAttributes);
+            }
+        });
     }
 
     /**
@@ -1283,19 +1478,20 @@ public final class NewRelic {
      *                   }
      */
     public static void logAll(Throwable throwable, Map<String, Object> attributes) {
-        attributes = LogReporting.validator.validate(attributes);
+        final Map<String, Object> validatedAttributes = LogReporting.validator.validate(attributes);
 
-        final String level = String.valueOf(attributes.getOrDefault("level", LogLevel.NONE.toString()));
+        final String level = String.valueOf(validatedAttributes.getOrDefault("level", LogLevel.NONE.toString()));
         final LogLevel logLevel = LogLevel.valueOf(level.toUpperCase());
 
         StatsEngine.notice().inc(MetricNames.SUPPORTABILITY_API
                 .replace(MetricNames.TAG_NAME, "logAll/" + MetricNames.TAG_STATE)
                 .replace(MetricNames.TAG_STATE, logLevel.name()));
 
-        if (LogReporting.isLevelEnabled(logLevel)) {
-            throwable = LogReporting.validator.validate(throwable);
-            LogReporting.getLogger().logAll(throwable, attributes);
-        }
+        runOrDefer(() -> {
+            if (LogReporting.isLevelEnabled(logLevel)) {
+                LogReporting.getLogger().logAll(LogReporting.validator.validate(throwable), validatedAttributes);
+            }
+        });
     }
 
     /**
@@ -5,7 +5,6 @@
 
 package com.newrelic.agent.android;
 
-import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.SharedPreferences;
 
@@ -24,23 +23,39 @@ import com.newrelic.agent.android.harvest.HarvestConfiguration;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
 import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 import com.newrelic.agent.android.stats.StatsEngine;
+import com.newrelic.agent.android.util.BinaryStateFile;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONTokener;
 
+import java.io.File;
 import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Harvest configuration and connect information persisted across app launches.
+ * <p>
+ * State is kept in a single binary file under the app's files directory, read with one mapping
+ * at startup and replaced once per change. As with {@code SharedPreferences.apply()}, changes are
+ * visible immediately and written to disk on a background thread; only the latest state is
+ * written if several changes are pending. Values saved by earlier agents in shared preferences
+ * are migrated into the file the first time it is missing.
+ */
 public class SavedState extends HarvestAdapter {
     private static final AgentLog log = AgentLogManager.getAgentLog();
 
     private final String PREFERENCE_FILE_PREFIX = "com.newrelic.android.agent.v1_";
+    private final String STATE_FILE_SUFFIX = ".state";
     private final Gson gson = new GsonBuilder().create();
 
     // Harvest configuration
@@ -88,21 +103,68 @@ public class SavedState extends HarvestAdapter {
     private final HarvestConfiguration configuration = new HarvestConfiguration();
     private final ConnectInformation connectInformation = new ConnectInformation(new ApplicationInformation(), new DeviceInformation());
 
-    private final SharedPreferences prefs;
-    private final SharedPreferences.Editor editor;
+    private final BinaryStateFile stateFile;
     private final Lock lock = new ReentrantLock();
+    private final ExecutorService writeExecutor = AgentScheduler.newExecutor(Lane.STORAGE);
+    private final AtomicReference<byte[]> pendingWrite = new AtomicReference<>(null);
+    private final Runnable writeRunnable = this::writePendingState;
+
+    // nested save() calls within a batch are written once, when the outermost batch ends
+    private int batchDepth = 0;
 
     // refresh the data token every 2 weeks
     private final long DATA_TOKEN_TTL_MS = TimeUnit.MILLISECONDS.convert(14, TimeUnit.DAYS);
 
-    @SuppressLint("CommitPrefEdits")
     public SavedState(Context context) {
-        prefs = context.getSharedPreferences(getPreferenceFileName(context.getPackageName()), 0);
-        editor = prefs.edit();
+        stateFile = new BinaryStateFile(new File(context.getFilesDir(), getStateFileName(context.getPackageName())));
+        loadState(context);
         loadHarvestConfiguration();
         loadConnectInformation();
     }
 
+    /**
+     * Load the state file. If it is missing or damaged, fall back to any values
+     * saved in shared preferences by an earlier agent, then remove those preferences.
+     */
+    private void loadState(Context context) {
+        lock.lock();
+        try {
+            final boolean exists = stateFile.getFile().exists();
+            if (stateFile.load()) {
+                return;
+            }
+
+            if (exists) {
+                log.warn("SavedState: discarding damaged state file " + stateFile.getFile().getName());
+                StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_SAVED_STATE_CORRUPTED);
+                stateFile.delete();
+            }
+
+            final SharedPreferences prefs = context.getSharedPreferences(getPreferenceFileName(context.getPackageName()), 0);
+            final Map<String, ?> legacyValues = prefs.getAll();
+            if (legacyValues == null || legacyValues.isEmpty()) {
+                return;
+            }
+
+            for (Map.Entry<String, ?> entry : legacyValues.entrySet()) {
+                final Object value = entry.getValue();
+                if (value instanceof String || value instanceof Boolean || value instanceof Integer
+                        || value instanceof Long || value instanceof Float) {
+                    stateFile.put(entry.getKey(), value);
+                }
+            }
+
+            // written synchronously, so the preferences are only removed once the state file is durable
+            if (stateFile.commit()) {
+                prefs.edit().clear().apply();
+                log.info("SavedState: migrated " + legacyValues.size() + " preferences to " + stateFile.getFile().getName());
+                StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_SAVED_STATE_MIGRATED);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public void saveHarvestConfiguration(HarvestConfiguration newConfiguration) {
 
         DataToken dataToken = newConfiguration.getDataToken();
@@ -116,7 +178,19 @@ public class SavedState extends HarvestAdapter {
 
         log.info("Saving configuration: " + newConfiguration);
 
-        dataToken = newConfiguration.getDataToken();
+        beginUpdate();
+        try {
+            saveHarvestConfigurationValues(newConfiguration);
+        } finally {
+            endUpdate();
+        }
+
+        // Reload the configuration(s)
+        loadHarvestConfiguration();
+    }
+
+    private void saveHarvestConfigurationValues(HarvestConfiguration newConfiguration) {
+        final DataToken dataToken = newConfiguration.getDataToken();
         if (dataToken.isValid()) {
             final String newDataTokenStr = dataToken.toJsonString();
             log.info("Saving data token: " + newDataTokenStr);
@@ -143,9 +217,6 @@ public class SavedState extends HarvestAdapter {
         save(PREF_ENTITY_GUID, newConfiguration.getEntity_guid());
 
         saveActivityTraceMinUtilization((float) newConfiguration.getActivity_trace_min_utilization());
-
-        // Reload the configuration(s)
-        loadHarvestConfiguration();
     }
 
     public void loadHarvestConfiguration() {
@@ -224,8 +295,13 @@ public class SavedState extends HarvestAdapter {
             return;
         }
 
-        saveApplicationInformation(newConnectInformation.getApplicationInformation());
-        saveDeviceInformation(newConnectInformation.getDeviceInformation());
+        beginUpdate();
+        try {
+            saveApplicationInformation(newConnectInformation.getApplicationInformation());
+            saveDeviceInformation(newConnectInformation.getDeviceInformation());
+        } finally {
+            endUpdate();
+        }
 
         // Reload the connect information
         loadConnectInformation();
@@ -340,7 +416,21 @@ public class SavedState extends HarvestAdapter {
     }
 
     boolean has(String key) {
-        return prefs.contains(key);
+        lock.lock();
+        try {
+            return stateFile.contains(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object get(String key) {
+        lock.lock();
+        try {
+            return stateFile.get(key);
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -380,8 +470,8 @@ public class SavedState extends HarvestAdapter {
     public void save(String key, String value) {
         lock.lock();
         try {
-            editor.putString(key, value);
-            editor.apply();
+            stateFile.put(key, value);
+            commit();
         } finally {
             lock.unlock();
         }
@@ -390,8 +480,8 @@ public class SavedState extends HarvestAdapter {
     public void save(String key, boolean value) {
         lock.lock();
         try {
-            editor.putBoolean(key, value);
-            editor.apply();
+            stateFile.put(key, value);
+            commit();
         } finally {
             lock.unlock();
         }
@@ -400,8 +490,8 @@ public class SavedState extends HarvestAdapter {
     public void save(String key, int value) {
         lock.lock();
         try {
-            editor.putInt(key, value);
-            editor.apply();
+            stateFile.put(key, value);
+            commit();
         } finally {
             lock.unlock();
         }
@@ -410,8 +500,8 @@ public class SavedState extends HarvestAdapter {
     public void save(String key, long value) {
         lock.lock();
         try {
-            editor.putLong(key, value);
-            editor.apply();
+            stateFile.put(key, value);
+            commit();
         } finally {
             lock.unlock();
         }
@@ -420,37 +510,39 @@ public class SavedState extends HarvestAdapter {
     public void save(String key, float value) {
         lock.lock();
         try {
-            editor.putFloat(key, value);
-            editor.apply();
+            stateFile.put(key, value);
+            commit();
         } finally {
             lock.unlock();
         }
     }
 
     public String getString(String key) {
-        if (!prefs.contains(key))
-            return null;
-
-        return prefs.getString(key, null);
+        final Object value = get(key);
+        return (value instanceof String) ? (String) value : null;
     }
 
     public boolean getBoolean(String key) {
-        return prefs.getBoolean(key, false);
+        final Object value = get(key);
+        return (value instanceof Boolean) && (Boolean) value;
     }
 
     public long getLong(String key) {
-        return prefs.getLong(key, 0);
+        final Object value = get(key);
+        return (value instanceof Number) ? ((Number) value).longValue() : 0;
     }
 
     public int getInt(String key) {
-        return prefs.getInt(key, 0);
+        final Object value = get(key);
+        return (value instanceof Number) ? ((Number) value).intValue() : 0;
     }
 
     public Float getFloat(String key) {
-        if (!prefs.contains(key))
+        final Object value = get(key);
+        if (!(value instanceof Number))
             return null;
 
-        float f = prefs.getFloat(key, 0.0f);
+        float f = ((Number) value).floatValue();
 
         // Round the float value to 2 decimal places. Float values read from prefs have float noise in the low bits.
         return ((int) (f * 100)) / 100.0f;
@@ -648,11 +740,15 @@ public class SavedState extends HarvestAdapter {
         return PREFERENCE_FILE_PREFIX + packageName;
     }
 
+    private String getStateFileName(final String packageName) {
+        return getPreferenceFileName(packageName) + STATE_FILE_SUFFIX;
+    }
+
     public void clear() {
         lock.lock();
         try {
-            editor.clear();
-            editor.apply();
+            stateFile.clear();
+            commit();
             configuration.setDefaultValues();
         } finally {
             lock.unlock();
@@ -662,13 +758,63 @@ public class SavedState extends HarvestAdapter {
     public void remove(final String key) {
         lock.lock();
         try {
-            editor.remove(key).apply();
+            stateFile.remove(key);
+            commit();
         } catch (Exception ignored) {
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Group the saves that follow into a single write to the state file.
+     */
+    private void beginUpdate() {
+        lock.lock();
+        batchDepth++;
+    }
+
+    private void endUpdate() {
+        try {
+            batchDepth--;
+            commit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held
+    private void commit() {
+        if (batchDepth == 0 && stateFile.isDirty()) {
+            try {
+                // a write already queued will pick up this snapshot instead
+                if (pendingWrite.getAndSet(stateFile.snapshot()) == null) {
+                    writeExecutor.execute(writeRunnable);
+                }
+            } catch (Exception e) {
+                log.error("SavedState: failed to save state: " + e);
+            }
+        }
+    }
+
+    /**
+     * Wait for pending changes to be written to the state file
+     */
+    void flush() {
+        try {
+            writeExecutor.submit(writeRunnable).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.error("SavedState: failed to flush state: " + e);
+        }
+    }
+
+    private void writePendingState() {
+        final byte[] snapshot = pendingWrite.getAndSet(null);
+        if (snapshot != null) {
+            stateFile.write(snapshot);
+        }
+    }
+
     public boolean hasConnectionToken(final String appToken) {
         return getInt(PREF_CONNECT_HASH) == appToken.hashCode();
     }
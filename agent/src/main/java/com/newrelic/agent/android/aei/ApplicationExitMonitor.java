@@ -30,10 +30,11 @@ import com.newrelic.agent.android.util.Streams;
 import com.newrelic.agent.android.error.Error;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -54,11 +55,13 @@ public class ApplicationExitMonitor {
     private static final AgentLog log = AgentLogManager.getAgentLog();
 
     static final String SESSION_ID_MAPPING_STORE = "sessionMeta.map";
-    static final String ARTIFACT_NAME = "aei-%s.dat";
+    static final String RECORD_INDEX_STORE = "aeiRecords.idx";
+    static final String ARTIFACT_NAME = "aei-%s.dat";      // pre-index record markers
 
     protected final File reportsDir;
     protected final String packageName;
     protected final AEISessionMapper sessionMapper;
+    protected final AEIRecordIndex recordIndex;
     protected final ActivityManager am;
     protected final AEITraceReporter traceReporter;
 
@@ -100,6 +103,7 @@ public class ApplicationExitMonitor {
         this.reportsDir = new File(context.getCacheDir(), "newrelic/applicationExitInfo");
         this.packageName = context.getPackageName();
         this.sessionMapper = new AEISessionMapper(new File(reportsDir, SESSION_ID_MAPPING_STORE));
+        this.recordIndex = new AEIRecordIndex(new File(reportsDir, RECORD_INDEX_STORE));
         this.am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
 
         reportsDir.mkdirs();
@@ -135,6 +139,7 @@ public class ApplicationExitMonitor {
     @SuppressWarnings("deprecation")
     public void harvestApplicationExitInfo() {
         sessionMapper.load();
+        recordIndex.load();
 
         // Only supported in Android 11+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
@@ -147,17 +152,25 @@ public class ApplicationExitMonitor {
                 return;
             }
 
-            // we are reporting all reasons
-            final List<android.app.ApplicationExitInfo> applicationExitInfoList =
-                    am.getHistoricalProcessExitReasons(packageName, 0, 0);
+            migrateArtifacts();
+
+            // a single record probe is enough to tell if anything has exited since the last harvest
+            final List<ApplicationExitInfo> latestExitInfo = am.getHistoricalProcessExitReasons(packageName, 0, 1);
+            final ApplicationExitInfo latest = latestExitInfo.isEmpty() ? null : latestExitInfo.get(0);
+
+            final List<android.app.ApplicationExitInfo> applicationExitInfoList;
+            if (latest == null || !recordIndex.isNew(latest.getPid(), latest.getTimestamp())) {
+                // nothing new, so don't fetch the full record set
+                applicationExitInfoList = latestExitInfo;
+            } else {
+                // we are reporting all reasons
+                applicationExitInfoList = am.getHistoricalProcessExitReasons(packageName, 0, 0);
+            }
 
             // the set may contain more than one report for this package name
             for (ApplicationExitInfo exitInfo : applicationExitInfoList) {
-                File artifact = new File(reportsDir, String.format(Locale.getDefault(), ARTIFACT_NAME,
-                        exitInfo.getPid()));
-
-                // If an artifact for this pid exists, it's been recorded already
-                if (artifact.exists() && (artifact.length() > 0)) {
+                // records that were indexed or predate the last harvest have been recorded already
+                if (!recordIndex.isNew(exitInfo.getPid(), exitInfo.getTimestamp())) {
                     log.debug("ApplicationExitMonitor: skipping exit info for pid[" +
                             exitInfo.getPid() + "]: already recorded.");
                     recordsSkipped.incrementAndGet();
@@ -171,34 +184,9 @@ public class ApplicationExitMonitor {
                     log.debug("ApplicationExitMonitor: Found session id [" + aeiSessionId + "] for AEI pid[" + exitInfo.getPid() + "]");
                 }
 
-                String traceReport = exitInfo.toString();
-
-                // remove any empty files
-                if (artifact.exists() && artifact.length() == 0) {
-                    artifact.delete();
-                }
-
-                // write a marker so we don't inspect this record again (over-reporting)
-                try (OutputStream artifactOs = new FileOutputStream(artifact, false)) {
-
-                    if (null != exitInfo.getTraceInputStream()) {
-                        try (InputStream traceIs = exitInfo.getTraceInputStream()) {
-                            traceReport = Streams.slurpString(traceIs);
-                        } catch (IOException e) {
-                            log.info("ApplicationExitMonitor: " + e);
-                        }
-                    }
-
-                    artifactOs.write(traceReport.getBytes(StandardCharsets.UTF_8));
-                    artifactOs.flush();
-                    artifactOs.close();
-                    artifact.setReadOnly();
-
-                    recordsVisited.incrementAndGet();
-
-                } catch (IOException e) {
-                    log.debug("harvestApplicationExitInfo: AppExitInfo artifact error. " + e);
-                }
+                // index the record so we don't inspect it again (over-reporting)
+                recordIndex.add(exitInfo.getPid(), exitInfo.getTimestamp());
+                recordsVisited.incrementAndGet();
 
                 // try to map the AEI with the session it occurred in
                 AEISessionMapper.AEISessionMeta sessionMeta = sessionMapper.get(exitInfo.getPid());
@@ -226,9 +214,9 @@ public class ApplicationExitMonitor {
 
                 // finally, emit an event for the record
                 final HashMap<String, Object> eventAttributes;
-                try {
-                    eventAttributes = getEventAttributesForAEI(exitInfo, sessionMeta, traceReport);
-                } catch (UnsupportedEncodingException e) {
+                try (Reader traceReader = getTraceReader(exitInfo)) {
+                    eventAttributes = getEventAttributesForAEI(exitInfo, sessionMeta, traceReader);
+                } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
 
@@ -249,8 +237,12 @@ public class ApplicationExitMonitor {
             sessionMapper.put(getCurrentProcessId(), model);
             sessionMapper.flush();
 
-            // sync the cache dir and session mapper
-            reconcileMetadata(applicationExitInfoList);
+            // sync the record index and session mapper with a complete record set
+            if (latest == null || applicationExitInfoList != latestExitInfo) {
+                reconcileMetadata(applicationExitInfoList);
+            } else {
+                recordIndex.flush();
+            }
 
         } else {
             log.warn("ApplicationExitMonitor: exit info reporting was enabled, but not supported by the current OS");
@@ -291,11 +283,34 @@ public class ApplicationExitMonitor {
     }
 
     /**
-     * Create an event for the AEI record and return the attributes
+     * Read the system trace directly from the exit info, or fall back to the exit info
+     * description if no trace was recorded.
      **/
+    @RequiresApi(api = Build.VERSION_CODES.R)
+    Reader getTraceReader(ApplicationExitInfo exitInfo) {
+        try {
+            InputStream traceIs = exitInfo.getTraceInputStream();
+            if (null != traceIs) {
+                return new InputStreamReader(traceIs, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            log.info("ApplicationExitMonitor: " + e);
+        }
+        return new StringReader(exitInfo.toString());
+    }
+
     @RequiresApi(api = Build.VERSION_CODES.R)
     @NonNull
     protected HashMap<String, Object> getEventAttributesForAEI(ApplicationExitInfo exitInfo, AEISessionMapper.AEISessionMeta sessionMeta, String traceReport) throws UnsupportedEncodingException {
+        return getEventAttributesForAEI(exitInfo, sessionMeta, new StringReader(traceReport));
+    }
+
+    /**
+     * Create an event for the AEI record and return the attributes
+     **/
+    @RequiresApi(api = Build.VERSION_CODES.R)
+    @NonNull
+    protected HashMap<String, Object> getEventAttributesForAEI(ApplicationExitInfo exitInfo, AEISessionMapper.AEISessionMeta sessionMeta, Reader traceReader) throws UnsupportedEncodingException {
         final HashMap<String, Object> eventAttributes = new HashMap<>();
 
         eventAttributes.put(AnalyticsAttribute.APP_EXIT_TIMESTAMP_ATTRIBUTE, exitInfo.getTimestamp());
@@ -333,7 +348,7 @@ public class ApplicationExitMonitor {
         // Add the reason for the exit
         if (exitInfo.getReason() == ApplicationExitInfo.REASON_ANR) {
             AEITrace aeiTrace = new AEITrace();
-            aeiTrace.decomposeFromSystemTrace(traceReport);
+            aeiTrace.decomposeFromSystemTrace(traceReader);
             eventAttributes.put(AnalyticsAttribute.APP_EXIT_THREADS_ATTRIBUTE, URLEncoder.encode(aeiTrace.toString(), StandardCharsets.UTF_8.toString()));
         }
         return eventAttributes;
@@ -348,31 +363,53 @@ public class ApplicationExitMonitor {
     }
 
     /**
-     * For each existing artifact, if the pid contained in the filename doesn't exist in
-     * the passed AEI record set, delete the artifact.
+     * Remove any indexed record whose pid doesn't exist in the passed AEI record set,
+     * along with its session mapping.
      *
      * @param applicationExitInfoList List of records reported from ART
      **/
     @RequiresApi(api = Build.VERSION_CODES.R)
     void reconcileMetadata(List<ApplicationExitInfo> applicationExitInfoList) {
-        List<File> artifacts = getArtifacts();
-        Pattern regexp = Pattern.compile(String.format(Locale.getDefault(), ARTIFACT_NAME, "(\\d+)"));
         Set<Integer> currentPids = currentPidSet(applicationExitInfoList);
 
-        artifacts.forEach(aeiArtifact -> {
-            Matcher matcher = regexp.matcher(aeiArtifact.getName());
-            if (matcher.matches()) {
-                int pid = Integer.parseInt(Objects.requireNonNull(matcher.group(1)));
-                if (!currentPids.contains(pid)) {
-                    aeiArtifact.delete();
-                    sessionMapper.erase(pid);
-                }
-            }
-        });
+        recordIndex.retain(currentPids).forEach(sessionMapper::erase);
+        recordIndex.flush();
 
         sessionMapper.flush();
     }
 
+    /**
+     * Prior agents wrote a copy of the system trace for each recorded pid as a marker. Index those pids
+     * against the exit records still reported by ART, and remove the artifacts.
+     **/
+    @RequiresApi(api = Build.VERSION_CODES.R)
+    void migrateArtifacts() {
+        if (recordIndex.exists()) {
+            return;
+        }
+
+        List<File> artifacts = getArtifacts();
+        if (!artifacts.isEmpty()) {
+            Pattern regexp = Pattern.compile(String.format(Locale.getDefault(), ARTIFACT_NAME, "(\\d+)"));
+            Map<Integer, Long> timestamps = am.getHistoricalProcessExitReasons(packageName, 0, 0).stream()
+                    .collect(Collectors.toMap(ApplicationExitInfo::getPid, ApplicationExitInfo::getTimestamp, Math::max));
+
+            artifacts.forEach(aeiArtifact -> {
+                Matcher matcher = regexp.matcher(aeiArtifact.getName());
+                // empty artifacts were never recorded
+                if (matcher.matches() && aeiArtifact.length() > 0) {
+                    int pid = Integer.parseInt(Objects.requireNonNull(matcher.group(1)));
+                    Long timestamp = timestamps.get(pid);
+                    if (timestamp != null) {
+                        recordIndex.add(pid, timestamp);
+                    }
+                }
+                aeiArtifact.delete();
+            });
+        }
+
+        recordIndex.flush();
+    }
 
     public void resetSessionMap() {
         sessionMapper.delete();
@@ -9,11 +9,11 @@ import com.newrelic.agent.android.FeatureFlag;
 import com.newrelic.agent.android.analytics.AnalyticsControllerImpl;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
-import com.newrelic.agent.android.util.NamedThreadFactory;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 public class InstrumentationDelegate {
@@ -25,7 +25,7 @@ public class InstrumentationDelegate {
     protected static final Set<FeatureFlag> enabledFeatures = FeatureFlag.enabledFeatures;
 
     static {
-        InstrumentationDelegate.executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("instrumentationDelegateWorker"));
+        InstrumentationDelegate.executor = AgentScheduler.newExecutor(Lane.BACKGROUND);
         InstrumentationDelegate.analyticsController = AnalyticsControllerImpl.getInstance();
     }
 
@@ -6,16 +6,15 @@
 package com.newrelic.agent.android.instrumentation;
 
 import com.newrelic.agent.android.tracing.TraceMachine;
+import com.newrelic.agent.android.tracing.TraceSite;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-
 @SuppressWarnings("unused")
 public class JSONArrayInstrumentation {
-    private static final ArrayList<String> categoryParams = new ArrayList<String>(Arrays.asList("category", MetricCategory.class.getName(), "JSON"));
+    private static final TraceSite initSite = new TraceSite("JSONArray#<init>", MetricCategory.JSON);
+    private static final TraceSite toStringSite = new TraceSite("JSONArray#toString", MetricCategory.JSON);
 
     JSONArrayInstrumentation () {}
 
@@ -26,12 +25,12 @@ public class JSONArrayInstrumentation {
         }
         final JSONArray jsonArray;
 
+        final boolean traced = TraceMachine.enterMethod(initSite);
         try {
-            TraceMachine.enterMethod("JSONArray#<init>", categoryParams);
             jsonArray = new JSONArray(json);
-            TraceMachine.exitMethod();
+            TraceMachine.exitMethod(traced);
         } catch (JSONException e) {
-            TraceMachine.exitMethod();
+            TraceMachine.exitMethod(traced);
             throw e;
         }
 
@@ -40,9 +39,9 @@ public class JSONArrayInstrumentation {
 
     @ReplaceCallSite(scope = "org.json.JSONArray")
     public static String toString(JSONArray jsonArray) {
-        TraceMachine.enterMethod("JSONArray#toString", categoryParams);
+        final boolean traced = TraceMachine.enterMethod(toStringSite);
         final String jsonString = jsonArray.toString();
-        TraceMachine.exitMethod();
+        TraceMachine.exitMethod(traced);
 
         return jsonString;
     }
@@ -51,12 +50,12 @@ public class JSONArrayInstrumentation {
     public static String toString(JSONArray jsonArray, int indentFactor) throws JSONException {
         final String jsonString;
 
+        final boolean traced = TraceMachine.enterMethod(toStringSite);
         try {
-            TraceMachine.enterMethod("JSONArray#toString", categoryParams);
             jsonString = jsonArray.toString(indentFactor);
-            TraceMachine.exitMethod();
+            TraceMachine.exitMethod(traced);
         } catch (JSONException e) {
-            TraceMachine.exitMethod();
+            TraceMachine.exitMethod(traced);
             throw e;
         }
 
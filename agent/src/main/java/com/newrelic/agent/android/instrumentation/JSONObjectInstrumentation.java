@@ -6,16 +6,15 @@
 package com.newrelic.agent.android.instrumentation;
 
 import com.newrelic.agent.android.tracing.TraceMachine;
+import com.newrelic.agent.android.tracing.TraceSite;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-
 @SuppressWarnings("unused")
 public class JSONObjectInstrumentation {
-    private static final ArrayList<String> categoryParams = new ArrayList<String>(Arrays.asList("category", MetricCategory.class.getName(), "JSON"));
+    private static final TraceSite initSite = new TraceSite("JSONObject#<init>", MetricCategory.JSON);
+    private static final TraceSite toStringSite = new TraceSite("JSONObject#toString", MetricCategory.JSON);
 
     JSONObjectInstrumentation () {}
 
@@ -27,12 +26,12 @@ public class JSONObjectInstrumentation {
 
         final JSONObject jsonObject;
 
+        final boolean traced = TraceMachine.enterMethod(initSite);
         try {
-            TraceMachine.enterMethod(null, "JSONObject#<init>", categoryParams);
             jsonObject = new JSONObject(json);
-            TraceMachine.exitMethod();
+            TraceMachine.exitMethod(traced);
         } catch (JSONException e) {
-            TraceMachine.exitMethod();
+            TraceMachine.exitMethod(traced);
             throw e;
         }
 
@@ -41,9 +40,9 @@ public class JSONObjectInstrumentation {
 
     @ReplaceCallSite(scope = "org.json.JSONObject")
     public static String toString(JSONObject jsonObject) {
-        TraceMachine.enterMethod(null, "JSONObject#toString", categoryParams);
+        final boolean traced = TraceMachine.enterMethod(toStringSite);
         final String jsonString = jsonObject.toString();
-        TraceMachine.exitMethod();
+        TraceMachine.exitMethod(traced);
 
         return jsonString;
     }
@@ -51,12 +50,12 @@ public class JSONObjectInstrumentation {
     @ReplaceCallSite(scope = "org.json.JSONObject")
     public static String toString(JSONObject jsonObject, int indentFactor) throws JSONException {
         final String jsonString;
+        final boolean traced = TraceMachine.enterMethod(toStringSite);
         try {
-            TraceMachine.enterMethod(null, "JSONObject#toString", categoryParams);
             jsonString = jsonObject.toString(indentFactor);
-            TraceMachine.exitMethod();
+            TraceMachine.exitMethod(traced);
         } catch (JSONException e) {
-            TraceMachine.exitMethod();
+            TraceMachine.exitMethod(traced);
             throw e;
         }
 
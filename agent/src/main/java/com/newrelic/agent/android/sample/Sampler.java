@@ -14,12 +14,13 @@ import com.newrelic.agent.android.harvest.AgentHealth;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
 import com.newrelic.agent.android.metric.Metric;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 import com.newrelic.agent.android.stats.TicToc;
 import com.newrelic.agent.android.tracing.ActivityTrace;
 import com.newrelic.agent.android.tracing.Sample;
 import com.newrelic.agent.android.tracing.TraceLifecycleAware;
 import com.newrelic.agent.android.tracing.TraceMachine;
-import com.newrelic.agent.android.util.NamedThreadFactory;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
@@ -29,7 +30,6 @@ import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -43,7 +43,7 @@ public class Sampler implements TraceLifecycleAware, Runnable {
     private static final int KB_IN_MB = 1024;
     private static final AgentLog log = AgentLogManager.getAgentLog();
     private static final ReentrantLock samplerLock = new ReentrantLock();
-    protected static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Sampler"));
+    protected static final ScheduledExecutorService scheduler = AgentScheduler.newExecutor(Lane.SAMPLER);
 
 
     protected static Sampler sampler;
@@ -13,6 +13,7 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.AgentStartup;
 import com.newrelic.agent.android.sessioncontext.SessionContextStore;
 import com.newrelic.agent.android.analytics.AnalyticsControllerImpl;
 import com.newrelic.agent.android.analytics.AnalyticsEvent;
@@ -26,6 +27,8 @@ import com.newrelic.agent.android.harvest.HarvestLifecycleAware;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
 import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 import com.newrelic.agent.android.sessionReplay.capture.SessionReplayFileManager;
 import com.newrelic.agent.android.sessionReplay.recovery.SessionReplayOrphanRecoverer;
 
@@ -50,7 +53,6 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import curtains.Curtains;
@@ -76,6 +78,10 @@ public class SessionReplay implements OnFrameTakenListener, HarvestLifecycleAwar
     private static final AtomicBoolean isInitialized = new AtomicBoolean(false);
     private static final AtomicBoolean orphanRecoveryDone = new AtomicBoolean(false);
 
+    // Orphan recovery waits for the app to settle after launch
+    static final long ORPHAN_RECOVERY_DELAY_MS = TimeUnit.SECONDS.toMillis(10);
+    private static final ScheduledExecutorService orphanRecoveryExecutor = AgentScheduler.newExecutor(Lane.BACKGROUND);
+
     // Buffer for queuing frames and touch data that arrive during harvest
     private static final AtomicBoolean isHarvesting = new AtomicBoolean(false);
     private final List<List<RRWebEvent>> frameBufferDuringHarvest =
@@ -168,6 +174,12 @@ public class SessionReplay implements OnFrameTakenListener, HarvestLifecycleAwar
         log.debug("Session replay deinitialized");
     }
 
+    @Override
+    public boolean isConcurrentHarvestListener() {
+        // replay data is uploaded by SessionReplayReporter, not with the harvest payload
+        return true;
+    }
+
     @Override
     public void onHarvestBefore() {
         // Only prepare for harvest when in FULL mode
@@ -487,11 +499,7 @@ public class SessionReplay implements OnFrameTakenListener, HarvestLifecycleAwar
      */
     private static void startSlidingWindowTimer() {
         if (slidingWindowExecutor == null) {
-            slidingWindowExecutor = Executors.newScheduledThreadPool(1, r -> {
-                Thread t = new Thread(r, "SessionReplaySlidingWindow");
-                t.setDaemon(true);
-                return t;
-            });
+            slidingWindowExecutor = AgentScheduler.newExecutor(Lane.SESSION_REPLAY);
         }
 
         if (slidingWindowTask != null) {
@@ -579,17 +587,39 @@ public class SessionReplay implements OnFrameTakenListener, HarvestLifecycleAwar
      * crash, OOM) and re-report eligible ones for upload. Runs once per launch. Must be invoked
      * after both {@code SessionReplayReporter} is initialized and the prior session's exit reasons
      * have been recorded into the manifests (i.e. after the AEI harvest on harvest-connect).
+     * <p>
+     * Recovery is deferred to the background lane, and runs once staged startup has completed
+     * and the app has had {@link #ORPHAN_RECOVERY_DELAY_MS} to settle.
      */
     public static void recoverOrphans() {
         if (!orphanRecoveryDone.compareAndSet(false, true)) {
             return;
         }
+        scheduleOrphanRecovery();
+    }
+
+    private static void scheduleOrphanRecovery() {
+        try {
+            orphanRecoveryExecutor.schedule(() -> {
+                if (AgentStartup.isPending()) {
+                    // startup is still running; try again once it has had time to finish
+                    scheduleOrphanRecovery();
+                    return;
+                }
+                runOrphanRecovery();
+            }, ORPHAN_RECOVERY_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.error("SessionReplay: failed to schedule orphan recovery: " + e);
+        }
+    }
+
+    static void runOrphanRecovery() {
         try {
             File srDir = SessionReplayFileManager.getSessionReplayDataStore();
             AgentConfiguration cfg = AgentConfiguration.getInstance();
             new SessionReplayOrphanRecoverer(
                     srDir, cfg.getSessionContextStore(),
-                    SessionReplayReporter::reportSessionReplayData, cfg.getSessionID(),
+                    new SessionReplayOrphanRecoverer.ReporterUploader(), cfg.getSessionID(),
                     cfg.getPayloadTTL())
                     .recover();
         } catch (Exception e) {
@@ -142,8 +142,7 @@ public class SessionReplayActivityLifecycleCallbacks implements Application.Acti
                 }
             } else if (motionEvent.getActionMasked() == MotionEvent.ACTION_MOVE) {
                 if (SessionReplayActivityLifecycleCallbacks.this.currentTouchTracker != null) {
-                    moveTouch = new RecordedTouchData(2, currentTouchId, getPixel(pointerCoords.x), SessionReplayActivityLifecycleCallbacks.this.getPixel(pointerCoords.y), timestamp);
-                    SessionReplayActivityLifecycleCallbacks.this.currentTouchTracker.addMoveTouch(moveTouch);
+                    SessionReplayActivityLifecycleCallbacks.this.currentTouchTracker.addMoveTouch(currentTouchId, getPixel(pointerCoords.x), SessionReplayActivityLifecycleCallbacks.this.getPixel(pointerCoords.y), timestamp);
                 }
             } else if (motionEvent.getActionMasked() == MotionEvent.ACTION_UP && currentTouchTracker != null) {
                 log.audit("Adding End Event");
@@ -14,8 +14,9 @@ import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.sessionReplay.touch.TouchTracker;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 import com.newrelic.agent.android.sessionReplay.models.RRWebEvent;
-import com.newrelic.agent.android.util.NamedThreadFactory;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -25,9 +26,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.Callable;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -48,14 +47,8 @@ public class SessionReplayFileManager {
 
     // Gson for serialization
     private static Gson gson;
-    // ThreadPoolExecutor for file operations
-    private static final ThreadPoolExecutor fileWriteExecutor = new ThreadPoolExecutor(
-            2, // Core pool size
-            POOL_SIZE, // Maximum pool size
-            30, TimeUnit.SECONDS, // Keep alive time
-            new LinkedBlockingQueue<>(), // Work queue
-            new NamedThreadFactory("SessionReplayFileWriter") // Thread factory
-    );
+    // Executor for file operations, in the scheduler's session replay lane
+    private static final ExecutorService fileWriteExecutor = AgentScheduler.newExecutor(Lane.SESSION_REPLAY, POOL_SIZE);
 
     private final SessionReplayProcessor processor;
 
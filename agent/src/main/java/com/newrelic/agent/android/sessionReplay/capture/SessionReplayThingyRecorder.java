@@ -43,6 +43,10 @@ public class SessionReplayThingyRecorder {
         this.agentConfiguration = agentConfiguration;
     }
 
+    public AgentConfiguration getAgentConfiguration() {
+        return agentConfiguration;
+    }
+
     public SessionReplayViewThingyInterface recordBlockedView(View view) {
         ViewDetails viewDetails = new ViewDetails(view);
         return new SessionReplayBlockedViewThingy(viewDetails);
@@ -0,0 +1,83 @@
+package com.newrelic.agent.android.sessionReplay.compose;
+
+import com.newrelic.agent.android.sessionReplay.viewMapper.SessionReplayViewThingyInterface;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The thingies recorded for one AndroidComposeView on previous frames, keyed by semantics node id.
+ *
+ * <p>Each entry holds a fingerprint of the node's whole subtree: its bounds, size, semantics,
+ * modifiers and effective privacy tag, folded together with its children's fingerprints in order.
+ * When a node's fingerprint is unchanged on the next frame, its previously recorded thingy (and
+ * with it the subviews below it) is reused as is. Thingies are never modified once recorded, so a
+ * reused subtree is identical in the old and new frames and diffs as unchanged.
+ *
+ * <p>Entries for nodes that were not visited on the last frame are dropped by {@link #sweep()}.
+ */
+class ComposeCaptureCache {
+
+    static class Entry {
+        long fingerprint;
+        boolean reusable;    // false if anything in the subtree can't be fingerprinted
+        int frame;
+        SessionReplayViewThingyInterface thingy;
+    }
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private float density;
+    private int configuration;
+    private int frame;
+
+    /**
+     * Start a new frame. A change of density or of the masking configuration, which thingies
+     * apply when recorded, invalidates every entry.
+     */
+    void beginFrame(float density, int configuration) {
+        if (this.density != density || this.configuration != configuration) {
+            entries.clear();
+            this.density = density;
+            this.configuration = configuration;
+        }
+        frame++;
+    }
+
+    /**
+     * @return the entry for a node visited on this frame, created if needed
+     */
+    Entry visit(int nodeId) {
+        Entry entry = entries.get(nodeId);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(nodeId, entry);
+        }
+        entry.frame = frame;
+        return entry;
+    }
+
+    Entry get(int nodeId) {
+        return entries.get(nodeId);
+    }
+
+    /**
+     * Drop the entries of nodes that were not visited on this frame.
+     */
+    void sweep() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().frame != frame) {
+                iterator.remove();
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    static long mix(long hash, long value) {
+        return (hash ^ value) * 0x9E3779B97F4A7C15L;
+    }
+}
@@ -3,6 +3,8 @@ package com.newrelic.agent.android.sessionReplay.compose;
 
 import static com.newrelic.agent.android.sessionReplay.compose.NewRelicSemanticsPropertiesKt.NewRelicPrivacyKey;
 
+import android.view.View;
+
 import androidx.annotation.OptIn;
 import androidx.compose.ui.InternalComposeUiApi;
 import androidx.compose.ui.node.LayoutNode;
@@ -11,19 +13,33 @@ import androidx.compose.ui.semantics.SemanticsConfiguration;
 import androidx.compose.ui.semantics.SemanticsNode;
 import androidx.compose.ui.semantics.SemanticsOwner;
 
+import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.sessionReplay.capture.SessionReplayThingyRecorder;
 import com.newrelic.agent.android.sessionReplay.viewMapper.SessionReplayViewThingyInterface;
 import com.newrelic.agent.android.sessionReplay.internal.ReflectionUtils;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Captures Compose UI tree structure for session replay recording.
  * Recursively traverses the semantics tree and converts nodes to replay format.
+ *
+ * <p>Each AndroidComposeView keeps a {@link ComposeCaptureCache} of the thingies recorded on
+ * previous frames. The tree is still walked on every frame, but only subtrees whose fingerprint
+ * changed are recorded again; unchanged subtrees reuse their thingies. Recorded thingies refer
+ * back to their view through its semantics nodes, so a view's cache is dropped when the view is
+ * detached from its window.
  */
 public class ComposeTreeCapture {
 
+    private static final long BLOCKED_SEED = 0x426C6F636B6564L;
+    private static final long NODE_SEED = 0x4E6F6465L;
+
     private final SessionReplayThingyRecorder recorder;
+    private final Map<View, ComposeCaptureCache> caches = new WeakHashMap<>();
 
     public ComposeTreeCapture(SessionReplayThingyRecorder recorder) {
         this.recorder = recorder;
@@ -54,20 +70,54 @@ public class ComposeTreeCapture {
             return null;
         }
 
-        // Check if root node has privacy tags
-        // Optimization: Check contains() once and reuse the result
-        SemanticsConfiguration rootConfig = rootNode.getConfig();
-        String rootTag = rootConfig.contains(NewRelicPrivacyKey) ? rootConfig.get(NewRelicPrivacyKey) : "";
+        ComposeCaptureCache cache = getCache(view);
+        AgentConfiguration agentConfiguration = recorder.getAgentConfiguration();
+        cache.beginFrame(density, agentConfiguration == null || agentConfiguration.getSessionReplayConfiguration() == null
+                ? 0 : agentConfiguration.getSessionReplayConfiguration().hashCode());
 
-        // If root is blocked, return a black rectangle immediately — no children
-        if (ComposeSessionReplayConstants.PrivacyTags.BLOCK.equals(rootTag)) {
-            return recorder.recordBlockedComposeView(rootNode, density);
-        }
+        try {
+            // Check if root node has privacy tags
+            // Optimization: Check contains() once and reuse the result
+            SemanticsConfiguration rootConfig = rootNode.getConfig();
+            String rootTag = rootConfig.contains(NewRelicPrivacyKey) ? rootConfig.get(NewRelicPrivacyKey) : "";
 
-        boolean rootHasMask = ComposeSessionReplayConstants.PrivacyTags.MASK.equals(rootTag);
-        boolean rootHasUnmask = ComposeSessionReplayConstants.PrivacyTags.UNMASK.equals(rootTag);
+            // If root is blocked, return a black rectangle immediately — no children
+            if (ComposeSessionReplayConstants.PrivacyTags.BLOCK.equals(rootTag)) {
+                return captureBlocked(rootNode, density, cache).thingy;
+            }
+
+            boolean rootHasMask = ComposeSessionReplayConstants.PrivacyTags.MASK.equals(rootTag);
+            boolean rootHasUnmask = ComposeSessionReplayConstants.PrivacyTags.UNMASK.equals(rootTag);
 
-        return captureChildren(rootNode, density, rootHasMask, rootHasUnmask);
+            return captureChildren(rootNode, density, rootHasMask, rootHasUnmask, cache).thingy;
+        } finally {
+            cache.sweep();
+        }
+    }
+
+    /**
+     * Returns the view's capture cache. Caches are only kept for attached views, until they are detached.
+     */
+    ComposeCaptureCache getCache(View view) {
+        ComposeCaptureCache cache = caches.get(view);
+        if (cache == null) {
+            cache = new ComposeCaptureCache();
+            if (view.isAttachedToWindow()) {
+                caches.put(view, cache);
+                view.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+                    @Override
+                    public void onViewAttachedToWindow(View v) {
+                    }
+
+                    @Override
+                    public void onViewDetachedFromWindow(View v) {
+                        v.removeOnAttachStateChangeListener(this);
+                        caches.remove(v);
+                    }
+                });
+            }
+        }
+        return cache;
     }
 
     /**
@@ -107,13 +157,19 @@ public class ComposeTreeCapture {
      * @param density Display density for coordinate conversion (dp to px)
      * @param parentHasMask If true, parent has MASK tag (will force descendants to MASK)
      * @param parentHasUnmask If true, parent has UNMASK tag (will propagate unless overridden)
-     * @return Captured node with children, or null if node should be skipped
+     * @param cache Thingies recorded on previous frames
+     * @return The node's cache entry, holding the captured node with children
      */
     @OptIn(markerClass = InternalComposeUiApi.class)
-    private SessionReplayViewThingyInterface captureChildren(SemanticsNode node, float density, boolean parentHasMask, boolean parentHasUnmask) {
+    private ComposeCaptureCache.Entry captureChildren(SemanticsNode node, float density, boolean parentHasMask,
+                                                      boolean parentHasUnmask, ComposeCaptureCache cache) {
+
+        List<SemanticsNode> children = node.getChildren();
+        long fingerprint = NODE_SEED;
+        boolean reusable = true;
 
-        ArrayList<SessionReplayViewThingyInterface> childThingies = new ArrayList<>();
-        for (SemanticsNode child : node.getChildren()) {
+        for (SemanticsNode child : children) {
+            ComposeCaptureCache.Entry childEntry;
 
             SemanticsConfiguration childConfig = child.getConfig();
 
@@ -122,7 +178,9 @@ public class ComposeTreeCapture {
 
             // Block: render as a single black rectangle, skip entire subtree (no propagation)
             if (ComposeSessionReplayConstants.PrivacyTags.BLOCK.equals(childTag)) {
-                childThingies.add(recorder.recordBlockedComposeView(child, density));
+                childEntry = captureBlocked(child, density, cache);
+                fingerprint = ComposeCaptureCache.mix(fingerprint, childEntry.fingerprint);
+                reusable &= childEntry.reusable;
                 continue;
             }
 
@@ -164,11 +222,72 @@ public class ComposeTreeCapture {
             }
 
             // Recurse with effective tag flags to propagate to all descendants
-            childThingies.add(captureChildren(child, density, effectiveMask, effectiveUnmask));
+            childEntry = captureChildren(child, density, effectiveMask, effectiveUnmask, cache);
+            fingerprint = ComposeCaptureCache.mix(fingerprint, childEntry.fingerprint);
+            reusable &= childEntry.reusable;
+        }
+
+        LayoutNode layoutNode = ReflectionUtils.getLayoutNode(node);
+
+        // Views embedded in compose are recorded as views, which can change without the node changing
+        reusable &= layoutNode != null && layoutNode.getInteropView() == null;
+
+        fingerprint = ComposeCaptureCache.mix(fingerprint, children.size());
+        fingerprint = ComposeCaptureCache.mix(fingerprint, parentHasMask ? 1 : parentHasUnmask ? 2 : 0);
+        fingerprint = ComposeCaptureCache.mix(fingerprint, fingerprint(node, layoutNode));
+
+        ComposeCaptureCache.Entry entry = cache.visit(node.getId());
+        if (reusable && entry.reusable && entry.thingy != null && entry.fingerprint == fingerprint) {
+            return entry;
+        }
+
+        ArrayList<SessionReplayViewThingyInterface> childThingies = new ArrayList<>(children.size());
+        for (SemanticsNode child : children) {
+            childThingies.add(cache.get(child.getId()).thingy);
         }
+
         SessionReplayViewThingyInterface replayView = recorder.recordView(node, density);
         replayView.setSubviews(childThingies);
-        return replayView;
+
+        entry.thingy = replayView;
+        entry.fingerprint = fingerprint;
+        entry.reusable = reusable;
+        return entry;
+    }
+
+    /**
+     * Captures a blocked node as a single black rectangle. Its subtree is not visited.
+     */
+    @OptIn(markerClass = InternalComposeUiApi.class)
+    private ComposeCaptureCache.Entry captureBlocked(SemanticsNode node, float density, ComposeCaptureCache cache) {
+        long fingerprint = ComposeCaptureCache.mix(BLOCKED_SEED, fingerprint(node, ReflectionUtils.getLayoutNode(node)));
+
+        ComposeCaptureCache.Entry entry = cache.visit(node.getId());
+        if (entry.reusable && entry.thingy != null && entry.fingerprint == fingerprint) {
+            return entry;
+        }
+
+        entry.thingy = recorder.recordBlockedComposeView(node, density);
+        entry.fingerprint = fingerprint;
+        entry.reusable = true;
+        return entry;
+    }
+
+    /**
+     * A cheap fingerprint of what a node's thingy is recorded from: its semantics (text, role,
+     * state and privacy tag), bounds, size and modifiers (padding and background).
+     */
+    @OptIn(markerClass = InternalComposeUiApi.class)
+    private static long fingerprint(SemanticsNode node, LayoutNode layoutNode) {
+        long fingerprint = ComposeCaptureCache.mix(node.getId(), node.getConfig().hashCode());
+        fingerprint = ComposeCaptureCache.mix(fingerprint, node.getBoundsInRoot().hashCode());
+        if (layoutNode != null) {
+            fingerprint = ComposeCaptureCache.mix(fingerprint, layoutNode.getWidth());
+            fingerprint = ComposeCaptureCache.mix(fingerprint, layoutNode.getHeight());
+            fingerprint = ComposeCaptureCache.mix(fingerprint, layoutNode.isPlaced() ? 1 : 0);
+            fingerprint = ComposeCaptureCache.mix(fingerprint, layoutNode.getModifier().hashCode());
+        }
+        return fingerprint;
     }
 
     /**
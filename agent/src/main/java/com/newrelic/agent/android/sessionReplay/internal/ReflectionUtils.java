@@ -19,6 +19,8 @@ import com.newrelic.agent.android.logging.AgentLogManager;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for reflection-based operations
@@ -69,6 +71,18 @@ public class ReflectionUtils {
         }
     }
 
+    // Compose fields are looked up once and cached, as they are read for every node of every frame
+    private static volatile Field layoutNodeField = null;
+    private static volatile Field innerLayerCoordinatorField = null;
+    private static volatile Class<?> paddingClass = null;
+    private static final Map<String, Field> paddingFields = new ConcurrentHashMap<>();
+
+    private static Field getAccessibleField(Class<?> clazz, String fieldName) throws NoSuchFieldException {
+        Field field = clazz.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field;
+    }
+
     /**
      * Gets the LayoutNode from a SemanticsNode using reflection
      * @param semanticsNode The SemanticsNode to extract the LayoutNode from
@@ -77,9 +91,12 @@ public class ReflectionUtils {
     @androidx.compose.ui.InternalComposeUiApi
     public static LayoutNode getLayoutNode(SemanticsNode semanticsNode) {
         try {
-            Field layoutNodeField = SemanticsNode.class.getDeclaredField("layoutNode");
-            layoutNodeField.setAccessible(true);
-            return (LayoutNode) layoutNodeField.get(semanticsNode);
+            Field field = layoutNodeField;
+            if (field == null) {
+                field = getAccessibleField(SemanticsNode.class, "layoutNode");
+                layoutNodeField = field;
+            }
+            return (LayoutNode) field.get(semanticsNode);
         } catch (NoSuchFieldException | IllegalAccessException e) {
             log.debug(TAG + ": Failed to get LayoutNode from SemanticsNode: " + e.getMessage());
             return null;
@@ -94,9 +111,12 @@ public class ReflectionUtils {
     @androidx.compose.ui.InternalComposeUiApi
     public static Placeable getPlaceable(LayoutNode layoutNode) {
         try {
-            Field innerLayerCoordinatorField = LayoutNode.class.getDeclaredField("_innerLayerCoordinator");
-            innerLayerCoordinatorField.setAccessible(true);
-            return (Placeable) innerLayerCoordinatorField.get(layoutNode);
+            Field field = innerLayerCoordinatorField;
+            if (field == null) {
+                field = getAccessibleField(LayoutNode.class, "_innerLayerCoordinator");
+                innerLayerCoordinatorField = field;
+            }
+            return (Placeable) field.get(layoutNode);
         } catch (NoSuchFieldException | IllegalAccessException e) {
             log.debug(TAG + ": Failed to get Placeable from LayoutNode: " + e.getMessage());
             return null;
@@ -111,10 +131,17 @@ public class ReflectionUtils {
      * @throws ClassNotFoundException if PaddingElement class is not found
      */
     private static float getPaddingField(Modifier modifier, String fieldName) throws ClassNotFoundException {
-        Class<?> paddingClass = Class.forName("androidx.compose.foundation.layout.PaddingElement");
+        Class<?> clazz = paddingClass;
+        if (clazz == null) {
+            clazz = Class.forName("androidx.compose.foundation.layout.PaddingElement");
+            paddingClass = clazz;
+        }
         try {
-            Field field = paddingClass.getDeclaredField(fieldName);
-            field.setAccessible(true);
+            Field field = paddingFields.get(fieldName);
+            if (field == null) {
+                field = getAccessibleField(clazz, fieldName);
+                paddingFields.put(fieldName, field);
+            }
             Object value = field.get(modifier);
             return value != null ? (float) value : 0;
         } catch (NoSuchFieldException | IllegalAccessException e) {
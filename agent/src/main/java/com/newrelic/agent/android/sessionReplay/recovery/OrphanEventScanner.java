@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2026-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.newrelic.agent.android.sessionReplay.recovery;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads a Session Replay {@code .tmp} buffer, one JSON event object per line, without parsing the
+ * events into a tree.
+ *
+ * <p>{@link #scan(File)} tokenizes the file just far enough to find the top-level {@code timestamp}
+ * of each event and to reject truncated or malformed lines. {@link #writeEvents(File, OutputStream)}
+ * copies the event bytes into a JSON array, the upload format, by replacing line breaks with commas.
+ */
+class OrphanEventScanner {
+    private static final byte[] TIMESTAMP = {'t', 'i', 'm', 'e', 's', 't', 'a', 'm', 'p'};
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Thrown when a line is not a complete JSON object. */
+    static class MalformedEventException extends IOException {
+        MalformedEventException(String message) {
+            super(message);
+        }
+    }
+
+    /** What a scan found. */
+    static class Summary {
+        long firstTimestamp = 0L;
+        long lastTimestamp = 0L;
+        int eventCount = 0;
+        long contentLength = 0L;    // bytes writeEvents() will write
+    }
+
+    private final Summary summary = new Summary();
+    private final OutputStream out;
+
+    // line state
+    private boolean lineStarted;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+
+    // top-level key and timestamp state
+    private boolean expectKey;
+    private boolean inKey;
+    private boolean keyMatches;
+    private int keyPos;
+    private boolean timestampValue;
+    private boolean inNumber;
+    private boolean negative;
+    private boolean fraction;
+    private long number;
+
+    private OrphanEventScanner(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Find the event count and timestamp bounds of an orphan
+     *
+     * @throws MalformedEventException if a line is not a complete JSON object
+     */
+    static Summary scan(File file) throws IOException {
+        final OrphanEventScanner scanner = new OrphanEventScanner(null);
+        try (InputStream in = new FileInputStream(file)) {
+            scanner.run(in);
+        }
+        return scanner.summary;
+    }
+
+    /**
+     * Write an orphan's events as a JSON array. The stream is flushed but not closed.
+     */
+    static void writeEvents(File file, OutputStream out) throws IOException {
+        final BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        final OrphanEventScanner scanner = new OrphanEventScanner(buffered);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+            scanner.run(in);
+        }
+        buffered.flush();
+    }
+
+    private void run(InputStream in) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        write('[');
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            for (int i = 0; i < count; i++) {
+                accept(buffer[i]);
+            }
+        }
+        endLine();
+        write(']');
+    }
+
+    private void accept(byte b) throws IOException {
+        if (b == '\n' || b == '\r') {
+            endLine();
+            return;
+        }
+
+        if (!lineStarted) {
+            if (b == ' ' || b == '\t') {
+                return; // blank lines and leading whitespace are dropped
+            }
+            if (b != '{') {
+                throw new MalformedEventException("event " + summary.eventCount + " is not an object");
+            }
+            if (summary.eventCount > 0) {
+                write(',');
+            }
+            lineStarted = true;
+            summary.eventCount++;
+        }
+
+        write(b);
+
+        if (inString) {
+            acceptString(b);
+            return;
+        }
+
+        if (inNumber) {
+            if (b >= '0' && b <= '9') {
+                if (!fraction) {
+                    number = number * 10 + (b - '0');
+                }
+                return;
+            }
+            if (b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+                fraction = true;    // truncated, as JsonElement.getAsLong() does
+                return;
+            }
+            endNumber();
+        }
+
+        switch (b) {
+            case '"':
+                inString = true;
+                if (depth == 1 && expectKey) {
+                    inKey = true;
+                    keyMatches = true;
+                    keyPos = 0;
+                    expectKey = false;
+                } else {
+                    timestampValue = false;
+                }
+                break;
+            case '{':
+            case '[':
+                depth++;
+                expectKey = (b == '{' && depth == 1);
+                timestampValue = false;
+                break;
+            case '}':
+            case ']':
+                depth--;
+                if (depth < 0) {
+                    throw new MalformedEventException("event " + summary.eventCount + " is unbalanced");
+                }
+                break;
+            case ',':
+                if (depth == 1) {
+                    expectKey = true;
+                    timestampValue = false;
+                }
+                break;
+            default:
+                if (depth == 1 && timestampValue && (b == '-' || (b >= '0' && b <= '9'))) {
+                    inNumber = true;
+                    negative = (b == '-');
+                    fraction = false;
+                    number = negative ? 0 : (b - '0');
+                    timestampValue = false;
+                }
+                break;
+        }
+    }
+
+    private void acceptString(byte b) {
+        if (escaped) {
+            escaped = false;
+        } else if (b == '\\') {
+            escaped = true;
+            keyMatches = false;
+        } else if (b == '"') {
+            inString = false;
+            if (inKey) {
+                inKey = false;
+                timestampValue = keyMatches && keyPos == TIMESTAMP.length;
+            }
+        } else if (inKey && keyMatches) {
+            keyMatches = keyPos < TIMESTAMP.length && b == TIMESTAMP[keyPos];
+            keyPos++;
+        }
+    }
+
+    private void endNumber() {
+        final long timestamp = negative ? -number : number;
+        if (summary.firstTimestamp == 0L || timestamp < summary.firstTimestamp) {
+            summary.firstTimestamp = timestamp;
+        }
+        if (timestamp > summary.lastTimestamp) {
+            summary.lastTimestamp = timestamp;
+        }
+        inNumber = false;
+    }
+
+    private void endLine() throws MalformedEventException {
+        if (lineStarted && (depth != 0 || inString)) {
+            throw new MalformedEventException("event " + summary.eventCount + " is truncated");
+        }
+
+        lineStarted = false;
+        depth = 0;
+        inString = false;
+        escaped = false;
+        expectKey = false;
+        inKey = false;
+        timestampValue = false;
+        inNumber = false;
+    }
+
+    private void write(int b) throws IOException {
+        summary.contentLength++;
+        if (out != null) {
+            out.write(b);
+        }
+    }
+}
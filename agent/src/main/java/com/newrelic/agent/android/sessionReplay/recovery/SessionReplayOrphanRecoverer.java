@@ -7,23 +7,27 @@ package com.newrelic.agent.android.sessionReplay.recovery;
 import android.app.ApplicationExitInfo;
 import android.os.Build;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import com.newrelic.agent.android.logging.AgentLog;
 import com.newrelic.agent.android.logging.AgentLogManager;
 import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.payload.PayloadSender;
+import com.newrelic.agent.android.payload.StreamingPayload;
+import com.newrelic.agent.android.sessionReplay.SessionReplayReporter;
 import com.newrelic.agent.android.sessioncontext.SessionContextStore;
 import com.newrelic.agent.android.sessioncontext.SessionManifest;
 import com.newrelic.agent.android.stats.StatsEngine;
 import com.newrelic.agent.android.util.Constants;
-import com.newrelic.agent.android.util.Streams;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Scans for Session Replay {@code .tmp} files left behind by a prior session that died
@@ -31,24 +35,98 @@ import java.util.Map;
  * upload path so they are uploaded on the next launch. Runs once at SR init.
  *
  * <p>Recovered data is uploaded directly (not via the offline store) so it is sent regardless
- * of whether the {@code OfflineStorage} feature flag is enabled. Reporting is fire-and-forget:
- * an orphan is removed as soon as its events are submitted. The dead session's {@code sessionId}
+ * of whether the {@code OfflineStorage} feature flag is enabled. Reporting is asynchronous: an
+ * orphan is removed only once its upload has succeeded, and is retained while the upload is
+ * batched, backing off or retried, or if it never completes. The dead session's {@code sessionId}
  * is preserved so the replay is attributed to the session that actually produced it.
+ *
+ * <p>Orphans are not parsed: the timestamps are found with a streaming scan, and the events are
+ * streamed from disk into the compressed request body. Eligible orphans are recovered oldest first,
+ * within a per-launch budget of files and bytes; the rest are retained for a later launch.
  */
 public class SessionReplayOrphanRecoverer {
     private static final AgentLog log = AgentLogManager.getAgentLog();
 
+    /** Orphans recovered per launch. */
+    public static final int DEFAULT_MAX_RECOVERIES = 4;
+
+    /** Orphan bytes recovered per launch. Always allows at least one orphan. */
+    public static final long DEFAULT_MAX_RECOVERY_BYTES = Constants.Network.MAX_PAYLOAD_SIZE * 4L;
+
     /** Sink for recovered replay bytes — defaults to {@code SessionReplayReporter::reportSessionReplayData}. */
     public interface ReplayUploader {
         /** @return true if the payload was submitted (reporter ready), false otherwise. */
         boolean upload(byte[] rawEventBytes, Map<String, Object> attributes);
+
+        /**
+         * Upload events written by {@code events}, without holding them in memory. {@code onUploaded}
+         * is run once the events are no longer needed, and may be called on another thread, or never.
+         * By default the events are collected into a byte array and passed to {@link #upload(byte[], Map)},
+         * so they are no longer needed once that has been submitted.
+         *
+         * @return true if the payload was submitted (reporter ready), false otherwise.
+         */
+        default boolean upload(StreamingPayload.BodyWriter events, long contentLength, Map<String, Object> attributes,
+                               Runnable onUploaded) throws IOException {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream((int) contentLength);
+            events.writeTo(out);
+            if (upload(out.toByteArray(), attributes)) {
+                onUploaded.run();
+                return true;
+            }
+            return false;
+        }
     }
 
+    /**
+     * Uploads through {@link SessionReplayReporter}. Streamed events are read from disk when the
+     * request is written, which may be long after submission (or on a retry), so the events are
+     * only released after a successful response.
+     */
+    public static class ReporterUploader implements ReplayUploader {
+
+        @Override
+        public boolean upload(byte[] rawEventBytes, Map<String, Object> attributes) {
+            return SessionReplayReporter.reportSessionReplayData(rawEventBytes, attributes);
+        }
+
+        @Override
+        public boolean upload(StreamingPayload.BodyWriter events, long contentLength, Map<String, Object> attributes,
+                              final Runnable onUploaded) throws IOException {
+            final SessionReplayReporter reporter = SessionReplayReporter.getInstance();
+            if (reporter == null || attributes == null) {
+                log.error("SessionReplayDataReporter not initialized");
+                return false;
+            }
+
+            reporter.reportSessionReplayData(new StreamingPayload(events, contentLength), attributes,
+                    new PayloadSender.CompletionHandler() {
+                        @Override
+                        public void onResponse(PayloadSender payloadSender) {
+                            if (payloadSender.isSuccessfulResponse()) {
+                                onUploaded.run();
+                            }
+                        }
+                    });
+
+            return true;
+        }
+    }
+
+    /** Orphans submitted by this process and not yet uploaded, so a later pass won't submit them again. */
+    private static final Set<String> uploading = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
     private final File srDir;
     private final SessionContextStore contextStore;
     private final ReplayUploader uploader;
     private final String currentSessionId;
     private final long payloadTtlMs;
+    private int maxRecoveries = DEFAULT_MAX_RECOVERIES;
+    private long maxRecoveryBytes = DEFAULT_MAX_RECOVERY_BYTES;
+
+    // work done by this recovery pass
+    private int recoveries = 0;
+    private long recoveryBytes = 0;
 
     public SessionReplayOrphanRecoverer(File srDir, SessionContextStore contextStore,
                                         ReplayUploader uploader, String currentSessionId,
@@ -60,6 +138,15 @@ public class SessionReplayOrphanRecoverer {
         this.payloadTtlMs = payloadTtlMs;
     }
 
+    /**
+     * Limit the work done by one recovery pass. Orphans beyond the budget are retained.
+     */
+    public SessionReplayOrphanRecoverer withBudget(int maxRecoveries, long maxRecoveryBytes) {
+        this.maxRecoveries = maxRecoveries;
+        this.maxRecoveryBytes = maxRecoveryBytes;
+        return this;
+    }
+
     /** Reasons whose buffered replay we want to upload. */
     private static boolean isAbnormal(Integer reason) {
         if (reason == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
@@ -85,6 +172,10 @@ public class SessionReplayOrphanRecoverer {
         if (files == null) {
             return;
         }
+
+        // oldest first, so a steady stream of new orphans can't starve older ones
+        Arrays.sort(files, (lhs, rhs) -> Long.compare(lhs.lastModified(), rhs.lastModified()));
+
         for (File file : files) {
             try {
                 recoverOne(file);
@@ -100,10 +191,11 @@ public class SessionReplayOrphanRecoverer {
             return; // not an orphan
         }
 
-        // Read events; derive timestamps.
-        JsonArray events = new JsonArray();
-        long[] bounds = {0L, 0L}; // first, last
-        if (!readEvents(file, events, bounds) || events.isEmpty()) {
+        if (uploading.contains(file.getAbsolutePath())) {
+            return; // already submitted
+        }
+
+        if (file.length() == 0) {
             delete(file);
             return;
         }
@@ -123,18 +215,35 @@ public class SessionReplayOrphanRecoverer {
             return;
         }
 
+        // Only eligible orphans are read, and only within this launch's budget
+        if (recoveries > 0 && (recoveries >= maxRecoveries || recoveryBytes + file.length() > maxRecoveryBytes)) {
+            StatsEngine.get().inc(MetricNames.SUPPORTABILITY_SESSION_REPLAY_RECOVER_SKIPPED);
+            log.debug("SessionReplayOrphanRecoverer: recovery budget spent, retaining [" + file.getName() + "]");
+            return;
+        }
+        recoveries++;
+        recoveryBytes += file.length();
+
+        // Scan events; derive timestamps.
+        OrphanEventScanner.Summary summary = scanEvents(file);
+        if (summary == null) {
+            return;
+        }
+        if (summary.eventCount == 0) {
+            delete(file);
+            return;
+        }
+
         boolean isFirstChunk = manifest == null || manifest.getIsFirstChunk() == null
                 || Boolean.TRUE.equals(manifest.getIsFirstChunk());
 
+        long[] bounds = {summary.firstTimestamp, summary.lastTimestamp};
         Map<String, Object> attrs = buildRecoveredAttributes(sessionId, bounds, isFirstChunk);
 
-        // Fire-and-forget direct report (not OfflineStorage-gated). Submitted → orphan removed;
-        // when OfflineStorage is enabled the reporter itself re-caches on a failed send.
-        boolean submitted = uploader.upload(events.toString().getBytes(), attrs);
-        if (submitted) {
-            StatsEngine.get().inc(MetricNames.SUPPORTABILITY_SESSION_REPLAY_RECOVERED);
-            delete(file);
-        } else {
+        // Direct report (not OfflineStorage-gated). The orphan is read when the request is written,
+        // so it is only removed once uploaded; until then it is retained for a later launch.
+        boolean submitted = upload(file, summary.contentLength, attrs);
+        if (!submitted) {
             // Reporter not ready yet — keep the orphan so a later launch can retry.
             log.debug("SessionReplayOrphanRecoverer: reporter not ready, retaining [" + file.getName() + "]");
         }
@@ -153,27 +262,33 @@ public class SessionReplayOrphanRecoverer {
         return attrs;
     }
 
-    private boolean readEvents(File file, JsonArray out, long[] bounds) {
-        Gson gson = new Gson();
-        try (BufferedReader reader = Streams.newBufferedFileReader(file)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                JsonObject frame = gson.fromJson(line, JsonObject.class);
-                if (frame.has("timestamp")) {
-                    long t = frame.get("timestamp").getAsLong();
-                    if (bounds[0] == 0L || t < bounds[0]) bounds[0] = t;
-                    if (t > bounds[1]) bounds[1] = t;
-                }
-                out.add(frame);
-            }
-            return true;
+    private OrphanEventScanner.Summary scanEvents(File file) {
+        try {
+            return OrphanEventScanner.scan(file);
         } catch (Exception e) {
             log.error("SessionReplayOrphanRecoverer: corrupt orphan [" + file.getName() + "]: " + e);
             StatsEngine.get().inc(MetricNames.SUPPORTABILITY_SESSION_REPLAY_RECOVER_CORRUPT);
             delete(file);
-            return false;
+            return null;
+        }
+    }
+
+    private boolean upload(File file, long contentLength, Map<String, Object> attrs) {
+        final String path = file.getAbsolutePath();
+        uploading.add(path);
+        try {
+            if (uploader.upload(out -> OrphanEventScanner.writeEvents(file, out), contentLength, attrs, () -> {
+                StatsEngine.get().inc(MetricNames.SUPPORTABILITY_SESSION_REPLAY_RECOVERED);
+                delete(file);
+                uploading.remove(path);
+            })) {
+                return true;
+            }
+        } catch (IOException e) {
+            log.error("SessionReplayOrphanRecoverer: failed to read orphan [" + file.getName() + "]: " + e);
         }
+        uploading.remove(path);
+        return false;
     }
 
     private boolean isStale(File file) {
@@ -1,5 +1,8 @@
 package com.newrelic.agent.android.sessionReplay.touch;
 
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.sessionReplay.SessionReplayLocalConfiguration;
+import com.newrelic.agent.android.sessionReplay.TouchPath;
 import com.newrelic.agent.android.sessionReplay.models.RRWebRRWebTouchUpDownData;
 import com.newrelic.agent.android.sessionReplay.models.RRWebTouch;
 import com.newrelic.agent.android.sessionReplay.models.RRWebTouchMoveData;
@@ -10,14 +13,29 @@ import java.util.ArrayList;
 public class TouchTracker {
     private RecordedTouchData startTouch;
     private RecordedTouchData endTouch;
-    private ArrayList<RecordedTouchData> moveTouches = new ArrayList<>();
+    // move samples are coalesced as they arrive, see TouchPath
+    private final TouchPath moveTouches;
 
     public TouchTracker(RecordedTouchData startTouch) {
+        this(startTouch, newTouchPath());
+    }
+
+    public TouchTracker(RecordedTouchData startTouch, TouchPath moveTouches) {
         this.startTouch = startTouch;
+        this.moveTouches = moveTouches;
+    }
+
+    private static TouchPath newTouchPath() {
+        SessionReplayLocalConfiguration configuration = AgentConfiguration.getInstance().getSessionReplayLocalConfiguration();
+        return configuration == null ? new TouchPath() : new TouchPath(configuration);
     }
 
     public void addMoveTouch(RecordedTouchData touch) {
-        moveTouches.add(touch);
+        addMoveTouch(touch.originatingViewId, touch.xCoordinate, touch.yCoordinate, touch.timestamp);
+    }
+
+    public void addMoveTouch(int originatingViewId, float xCoordinate, float yCoordinate, long timestamp) {
+        moveTouches.add(originatingViewId, xCoordinate, yCoordinate, timestamp);
     }
 
     public void addEndTouch(RecordedTouchData touch) {
@@ -31,11 +49,11 @@ public class TouchTracker {
         touches.add(new RRWebTouch(startTouch.timestamp, 3, downTouch));
 
         if(!moveTouches.isEmpty()) {
-            RecordedTouchData lastTouch = moveTouches.get(moveTouches.size()-1);
-            long lastTimestamp = lastTouch.timestamp;
-            ArrayList<RRWebTouchMoveData.Position> movePositions = new ArrayList<>();
-            for(RecordedTouchData moveTouch : moveTouches) {
-                RRWebTouchMoveData.Position position = new RRWebTouchMoveData.Position(moveTouch.originatingViewId, moveTouch.xCoordinate, moveTouch.yCoordinate, (moveTouch.timestamp - lastTimestamp));
+            int[] moves = moveTouches.simplify();
+            long lastTimestamp = moveTouches.getTimestamp(moves[moves.length - 1]);
+            ArrayList<RRWebTouchMoveData.Position> movePositions = new ArrayList<>(moves.length);
+            for(int move : moves) {
+                RRWebTouchMoveData.Position position = new RRWebTouchMoveData.Position(moveTouches.getId(move), moveTouches.getX(move), moveTouches.getY(move), (moveTouches.getTimestamp(move) - lastTimestamp));
                 movePositions.add(position);
             }
 
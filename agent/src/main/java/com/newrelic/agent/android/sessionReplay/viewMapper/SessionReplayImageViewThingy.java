@@ -21,6 +21,8 @@ import androidx.annotation.WorkerThread;
 
 import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.R;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 
 import com.newrelic.agent.android.sessionReplay.internal.ImageCompressionUtils;
 import com.newrelic.agent.android.sessionReplay.SessionReplayConfiguration;
@@ -29,7 +31,6 @@ import com.newrelic.agent.android.sessionReplay.models.Attributes;
 import com.newrelic.agent.android.sessionReplay.models.IncrementalEvent.MutationRecord;
 import com.newrelic.agent.android.sessionReplay.models.IncrementalEvent.RRWebMutationData;
 import com.newrelic.agent.android.sessionReplay.models.RRWebElementNode;
-import com.newrelic.agent.android.util.NamedThreadFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -39,7 +40,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 public class SessionReplayImageViewThingy implements SessionReplayViewThingyInterface {
     private static final AgentLog log = AgentLogManager.getAgentLog();
@@ -57,11 +57,11 @@ public class SessionReplayImageViewThingy implements SessionReplayViewThingyInte
     };
 
     /**
-     * Single-thread executor for off-main bitmap compression. Single-thread keeps cache
+     * Serial executor for off-main bitmap compression. Serial execution keeps cache
      * writes ordered and avoids races between concurrent fills on the same key.
      * Package-private and non-final so tests can substitute a deterministic executor.
      */
-    static volatile Executor compressionExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("nr-sr-image-compress"));
+    static volatile Executor compressionExecutor = AgentScheduler.newExecutor(Lane.SESSION_REPLAY);
 
     private List<? extends SessionReplayViewThingyInterface> subviews = new ArrayList<>();
     private final ViewDetails viewDetails;
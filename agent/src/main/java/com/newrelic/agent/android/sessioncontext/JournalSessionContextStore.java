@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2026-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.newrelic.agent.android.sessioncontext;
+
+import android.content.Context;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Journal-backed {@link SessionContextStore}. All sessions share one append-only file,
+ * {@code filesDir/nr_session_context.journal}, holding one JSON record per line:
+ *
+ * <ul>
+ *   <li>{@code put}: a complete {@link SessionManifest}</li>
+ *   <li>{@code replay}: the Session Replay fields of one session</li>
+ *   <li>{@code exit}: the exit reason of one session</li>
+ *   <li>{@code delete}: removes one session</li>
+ * </ul>
+ *
+ * <p>The journal is replayed once, on first use, into an in-memory index keyed by
+ * {@code sessionId}, so reads never touch the disk and writes append a single line. An
+ * {@link #upsert(SessionManifest)} that would not change the stored context (only
+ * {@code lastUpdateMs} differs) is not written at all, so the once-per-harvest snapshot of an
+ * unchanged session costs no IO. The persisted {@code lastUpdateMs} is therefore the time of
+ * the last change, not of the last snapshot.
+ *
+ * <p>Once the journal holds more than {@link #COMPACTION_RATIO} records per live session, it
+ * is compacted by rewriting one {@code put} per session to a temp file and renaming it into
+ * place. A torn trailing record left by a crash mid-append is skipped and counted as corrupt.
+ *
+ * <p>Manifests written by {@link FileSessionContextStore} (one file per session) are migrated
+ * into the journal on first use, and the legacy directory is removed.
+ */
+public class JournalSessionContextStore implements SessionContextStore {
+    private static final AgentLog log = AgentLogManager.getAgentLog();
+
+    public static final String FILE_NAME = "nr_session_context.journal";
+
+    static final String KEY_OP = "op";
+    static final String KEY_MANIFEST = "manifest";
+    static final String OP_PUT = "put";
+    static final String OP_REPLAY_STATE = "replay";
+    static final String OP_EXIT_REASON = "exit";
+    static final String OP_DELETE = "delete";
+
+    static final int COMPACTION_RATIO = 4;
+    static final int MIN_COMPACTION_RECORDS = 64;
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private final Context context;
+    private final AgentConfiguration config;
+    private final File journal;
+    private final int maxCount;
+
+    // insertion order is write order, oldest first
+    private final LinkedHashMap<String, SessionManifest> index = new LinkedHashMap<>();
+    private int records = 0;
+    private boolean loaded = false;
+    private boolean dirty = false;     // the journal no longer matches the index
+
+    public JournalSessionContextStore(Context context, AgentConfiguration config) {
+        this.context = context;
+        this.config = config;
+        this.journal = new File(context.getFilesDir(), FILE_NAME);
+
+        final int configured = config.getMaxCachedSessionContextCount();
+        this.maxCount = configured > 0 ? configured : AgentConfiguration.DEFAULT_MAX_CACHED_SESSION_CONTEXT_COUNT;
+    }
+
+    @Override
+    public synchronized boolean upsert(SessionManifest manifest) {
+        if (manifest == null || !manifest.isValid()) {
+            log.warn("JournalSessionContextStore.upsert: null or invalid manifest");
+            return false;
+        }
+        ensureLoaded();
+
+        final SessionManifest existing = index.get(manifest.getSessionId());
+        final SessionManifest merged = (existing == null) ? manifest : new SessionManifest(
+                SessionManifest.CURRENT_SCHEMA_VERSION,
+                manifest.getSessionId(), manifest.getRealAgentId(),
+                manifest.getSessionStartMs(), manifest.getLastUpdateMs(),
+                manifest.getAttributes(),
+                manifest.getReachedFullMode() != null ? manifest.getReachedFullMode() : existing.getReachedFullMode(),
+                manifest.getIsFirstChunk() != null ? manifest.getIsFirstChunk() : existing.getIsFirstChunk(),
+                manifest.getExitReason() != null ? manifest.getExitReason() : existing.getExitReason());
+
+        if (merged.hasSameContextAs(existing)) {
+            return true;
+        }
+
+        final JsonObject record = new JsonObject();
+        record.addProperty(KEY_OP, OP_PUT);
+        record.add(KEY_MANIFEST, merged.toJson());
+        if (!append(record)) {
+            return false;
+        }
+
+        put(merged);
+        maybeCompact();
+
+        return true;
+    }
+
+    @Override
+    public synchronized void updateSessionReplayState(String sessionId, boolean reachedFullMode, boolean isFirstChunk) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            return;
+        }
+        ensureLoaded();
+
+        final SessionManifest existing = index.get(sessionId);
+        if (existing != null
+                && Boolean.valueOf(reachedFullMode).equals(existing.getReachedFullMode())
+                && Boolean.valueOf(isFirstChunk).equals(existing.getIsFirstChunk())) {
+            return;
+        }
+
+        final JsonObject record = new JsonObject();
+        record.addProperty(KEY_OP, OP_REPLAY_STATE);
+        record.addProperty(SessionManifest.KEY_SESSION_ID, sessionId);
+        record.addProperty(SessionManifest.KEY_REACHED_FULL_MODE, reachedFullMode);
+        record.addProperty(SessionManifest.KEY_IS_FIRST_CHUNK, isFirstChunk);
+        if (append(record)) {
+            put(applyReplayState(existing, sessionId, reachedFullMode, isFirstChunk));
+            maybeCompact();
+        }
+    }
+
+    @Override
+    public synchronized void updateExitReason(String sessionId, int exitReason) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            return;
+        }
+        ensureLoaded();
+
+        final SessionManifest existing = index.get(sessionId);
+        if (existing != null && Integer.valueOf(exitReason).equals(existing.getExitReason())) {
+            return;
+        }
+
+        final JsonObject record = new JsonObject();
+        record.addProperty(KEY_OP, OP_EXIT_REASON);
+        record.addProperty(SessionManifest.KEY_SESSION_ID, sessionId);
+        record.addProperty(SessionManifest.KEY_EXIT_REASON, exitReason);
+        if (append(record)) {
+            put(applyExitReason(existing, sessionId, exitReason));
+            maybeCompact();
+        }
+    }
+
+    @Override
+    public synchronized SessionManifest get(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            return null;
+        }
+        ensureLoaded();
+
+        return index.get(sessionId);
+    }
+
+    @Override
+    public synchronized List<SessionManifest> fetchAll() {
+        ensureLoaded();
+
+        return new ArrayList<>(index.values());
+    }
+
+    @Override
+    public synchronized void delete(String sessionId) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            return;
+        }
+        ensureLoaded();
+
+        if (!index.containsKey(sessionId)) {
+            return;
+        }
+
+        final JsonObject record = new JsonObject();
+        record.addProperty(KEY_OP, OP_DELETE);
+        record.addProperty(SessionManifest.KEY_SESSION_ID, sessionId);
+        if (append(record)) {
+            index.remove(sessionId);
+            maybeCompact();
+        }
+    }
+
+    @Override
+    public synchronized int count() {
+        ensureLoaded();
+
+        return index.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        index.clear();
+        records = 0;
+        loaded = true;
+        dirty = false;
+        if (journal.exists() && !journal.delete()) {
+            log.debug("JournalSessionContextStore.clear: failed to delete journal");
+        }
+    }
+
+    /**
+     * @return the number of records in the journal, live or not
+     */
+    synchronized int getRecordCount() {
+        ensureLoaded();
+
+        return records;
+    }
+
+    File getJournalFile() {
+        return journal;
+    }
+
+    private void put(SessionManifest manifest) {
+        final String sessionId = manifest.getSessionId();
+
+        // re-inserting moves the session to the newest end
+        if (index.remove(sessionId) == null) {
+            evictUntilUnderCap();
+        }
+        index.put(sessionId, manifest);
+    }
+
+    private void evictUntilUnderCap() {
+        // the journal is replayed uncapped, then trimmed once
+        if (loaded) {
+            trimTo(maxCount - 1);
+        }
+    }
+
+    private void trimTo(int count) {
+        final Iterator<String> oldest = index.keySet().iterator();
+        while (index.size() > count && oldest.hasNext()) {
+            final String sessionId = oldest.next();
+            oldest.remove();
+            StatsEngine.get().inc(MetricNames.SUPPORTABILITY_SESSION_CONTEXT_EVICTED);
+
+            // evictions while loading are persisted by the compaction that follows
+            if (loaded) {
+                final JsonObject record = new JsonObject();
+                record.addProperty(KEY_OP, OP_DELETE);
+                record.addProperty(SessionManifest.KEY_SESSION_ID, sessionId);
+                append(record);
+            } else {
+                dirty = true;
+            }
+        }
+    }
+
+    private static SessionManifest applyReplayState(SessionManifest existing, String sessionId,
+                                                    boolean reachedFullMode, boolean isFirstChunk) {
+        return new SessionManifest(
+                SessionManifest.CURRENT_SCHEMA_VERSION, sessionId,
+                existing != null ? existing.getRealAgentId() : 0,
+                existing != null ? existing.getSessionStartMs() : 0L,
+                existing != null ? existing.getLastUpdateMs() : 0L,
+                existing != null ? existing.getAttributes() : null,
+                reachedFullMode, isFirstChunk,
+                existing != null ? existing.getExitReason() : null);
+    }
+
+    private static SessionManifest applyExitReason(SessionManifest existing, String sessionId, int exitReason) {
+        return new SessionManifest(
+                SessionManifest.CURRENT_SCHEMA_VERSION, sessionId,
+                existing != null ? existing.getRealAgentId() : 0,
+                existing != null ? existing.getSessionStartMs() : 0L,
+                existing != null ? existing.getLastUpdateMs() : 0L,
+                existing != null ? existing.getAttributes() : null,
+                existing != null ? existing.getReachedFullMode() : null,
+                existing != null ? existing.getIsFirstChunk() : null,
+                Integer.valueOf(exitReason));
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        new File(journal.getPath() + TMP_SUFFIX).delete();
+
+        if (journal.exists()) {
+            replay();
+        }
+        if (migrateLegacyStore()) {
+            dirty = true;
+        }
+        trimTo(maxCount);
+
+        loaded = true;
+
+        // a torn record must not be appended to, so any corruption forces a rewrite
+        if (dirty) {
+            compact();
+        } else {
+            maybeCompact();
+        }
+    }
+
+    private void replay() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(journal), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                records++;
+                try {
+                    apply(JsonParser.parseString(line).getAsJsonObject());
+                } catch (Exception e) {
+                    log.debug("JournalSessionContextStore: skipping corrupt record: " + e);
+                    StatsEngine.get().inc(MetricNames.SUPPORTABILITY_SESSION_CONTEXT_CORRUPTED);
+                    dirty = true;
+                }
+            }
+        } catch (IOException e) {
+            log.error("JournalSessionContextStore: failed to read journal: " + e);
+            dirty = true;
+        }
+    }
+
+    private void apply(JsonObject record) throws IOException {
+        final String op = record.get(KEY_OP).getAsString();
+
+        if (OP_PUT.equals(op)) {
+            final SessionManifest manifest = SessionManifest.fromJson(record.getAsJsonObject(KEY_MANIFEST));
+            if (!manifest.isValid()) {
+                throw new IOException("missing sessionId field");
+            }
+            put(manifest);
+            return;
+        }
+
+        final String sessionId = record.get(SessionManifest.KEY_SESSION_ID).getAsString();
+        if (OP_REPLAY_STATE.equals(op)) {
+            put(applyReplayState(index.get(sessionId), sessionId,
+                    record.get(SessionManifest.KEY_REACHED_FULL_MODE).getAsBoolean(),
+                    record.get(SessionManifest.KEY_IS_FIRST_CHUNK).getAsBoolean()));
+        } else if (OP_EXIT_REASON.equals(op)) {
+            put(applyExitReason(index.get(sessionId), sessionId,
+                    record.get(SessionManifest.KEY_EXIT_REASON).getAsInt()));
+        } else if (OP_DELETE.equals(op)) {
+            index.remove(sessionId);
+        } else {
+            throw new IOException("unknown op [" + op + "]");
+        }
+    }
+
+    /**
+     * Fold the manifests of a {@link FileSessionContextStore} into the index, oldest first.
+     * Sessions already in the journal are newer and win.
+     *
+     * @return true if a legacy store was found
+     */
+    private boolean migrateLegacyStore() {
+        final File legacyDir = new File(context.getFilesDir(), FileSessionContextStore.DIR_NAME);
+        if (!legacyDir.isDirectory()) {
+            return false;
+        }
+
+        final FileSessionContextStore legacy = new FileSessionContextStore(context, config);
+        for (SessionManifest manifest : legacy.fetchAll()) {
+            if (manifest.isValid() && !index.containsKey(manifest.getSessionId())) {
+                put(manifest);
+            }
+        }
+        legacy.clear();
+        if (!legacyDir.delete()) {
+            log.debug("JournalSessionContextStore: failed to delete legacy store");
+        }
+
+        return true;
+    }
+
+    private boolean append(JsonObject record) {
+        try (OutputStream os = new FileOutputStream(journal, true)) {
+            os.write((record.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+            os.flush();
+            records++;
+            return true;
+        } catch (IOException e) {
+            log.error("JournalSessionContextStore: failed to append to journal: " + e);
+            return false;
+        }
+    }
+
+    private void maybeCompact() {
+        if (records > Math.max(MIN_COMPACTION_RECORDS, COMPACTION_RATIO * index.size())) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrite the journal as one {@code put} per live session. The current journal is
+     * only replaced once the new one is complete.
+     */
+    private void compact() {
+        final File tmp = new File(journal.getPath() + TMP_SUFFIX);
+        try (OutputStream os = new FileOutputStream(tmp, false)) {
+            for (SessionManifest manifest : index.values()) {
+                final JsonObject record = new JsonObject();
+                record.addProperty(KEY_OP, OP_PUT);
+                record.add(KEY_MANIFEST, manifest.toJson());
+                os.write((record.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            os.flush();
+        } catch (IOException e) {
+            log.error("JournalSessionContextStore: failed to compact journal: " + e);
+            tmp.delete();
+            return;
+        }
+
+        if (!tmp.renameTo(journal)) {
+            log.error("JournalSessionContextStore: failed to replace journal");
+            tmp.delete();
+            return;
+        }
+
+        records = index.size();
+        dirty = false;
+        StatsEngine.SUPPORTABILITY.inc(MetricNames.SUPPORTABILITY_SESSION_CONTEXT_COMPACTED);
+    }
+}
@@ -12,12 +12,12 @@ import com.newrelic.agent.android.analytics.AnalyticsEvent;
 import com.newrelic.agent.android.analytics.AnalyticsEventStore;
 import com.newrelic.agent.android.metric.MetricNames;
 import com.newrelic.agent.android.payload.AbstractFileStore;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 import com.newrelic.agent.android.stats.StatsEngine;
-import com.newrelic.agent.android.util.NamedThreadFactory;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -26,10 +26,10 @@ import java.util.concurrent.TimeUnit;
  * {@code event.asJsonObject().toString()}. The UUID is recovered from the filename
  * on deserialize.
  *
- * <p>Writes ({@link #store}/{@link #delete}) are performed on a dedicated single-thread
- * executor so the recording hot path (often the main thread, e.g.
+ * <p>Writes ({@link #store}/{@link #delete}) are performed on a serial executor in the
+ * scheduler's storage lane so the recording hot path (often the main thread, e.g.
  * {@code NewRelic.recordBreadcrumb}) never blocks on disk I/O. Because both run on the
- * same single thread, a write and the harvest-time delete of the same event stay
+ * same serial executor, a write and the harvest-time delete of the same event stay
  * FIFO-ordered — a write can never land after its delete and resurrect the event. Reads
  * ({@link #fetchAll}/{@link #count}) remain synchronous; {@code fetchAll} runs at startup
  * before any writes are queued. Callers that mutate an event around {@code store()} must
@@ -38,8 +38,7 @@ import java.util.concurrent.TimeUnit;
 public class FileEventStore extends AbstractFileStore<AnalyticsEvent> implements AnalyticsEventStore {
     public static final String DIR_NAME = "nr_event_cache";
 
-    private final ExecutorService writeExecutor =
-            Executors.newSingleThreadExecutor(new NamedThreadFactory("EventStoreWriter"));
+    private final ExecutorService writeExecutor = AgentScheduler.newExecutor(Lane.STORAGE);
 
     public FileEventStore(Context context, AgentConfiguration config) {
         super(context, DIR_NAME, resolveCap(config),
@@ -10,17 +10,18 @@ import android.content.ComponentCallbacks2;
 import android.content.res.Configuration;
 
 import com.newrelic.agent.android.background.ApplicationStateMonitor;
+import com.newrelic.agent.android.scheduler.AgentScheduler;
+import com.newrelic.agent.android.scheduler.Lane;
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
 @TargetApi(14)
 public class UiBackgroundListener implements ComponentCallbacks2 {
 
-    protected final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("UiBackgroundListener"));
+    protected final ScheduledExecutorService executor = AgentScheduler.newExecutor(Lane.LIFECYCLE);
 
     public UiBackgroundListener() {
-        // Force the worker thread to start now, at agent init, instead of on the first
+        // Force a scheduler worker thread to start now, at agent init, instead of on the first
         // onTrimMemory call — that fires under memory pressure, where addWorker() on the
         // main thread has caused ANRs.
         executor.submit(() -> { });
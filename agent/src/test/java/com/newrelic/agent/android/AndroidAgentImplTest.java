@@ -58,6 +58,7 @@ import org.robolectric.RobolectricTestRunner;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(RobolectricTestRunner.class)
 public class AndroidAgentImplTest {
@@ -552,6 +553,40 @@ public class AndroidAgentImplTest {
                 bufferedDuringHarvest[0] >= bufferedBeforeShutdown);
     }
 
+    @Test
+    public void testStagedStartup() throws Exception {
+        agentConfig.setStagedStartup(true);
+        final AndroidAgentImpl stagedAgent = new AndroidAgentImpl(spyContext.getContext(), agentConfig);
+        Agent.setImpl(stagedAgent);
+
+        // only the crash handler is installed on the caller's thread
+        final AgentStartup startup = AgentStartup.getInstance();
+        Assert.assertNotNull(startup);
+        Assert.assertTrue(AgentStartup.isPending());
+        Assert.assertNotNull(agentConfig.getCrashStore());
+        Assert.assertTrue(startup.getStageTimes().containsKey(AgentStartup.STAGE_CRASH_HANDLER));
+
+        // API calls made before start() are buffered
+        Assert.assertTrue(NewRelic.setAttribute("stagedStartup", true));
+        Assert.assertEquals(1, startup.getDeferredCallCount());
+
+        stagedAgent.start();
+        Assert.assertTrue(startup.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse(AgentStartup.isPending());
+
+        final Map<String, Long> stageTimes = startup.getStageTimes();
+        Assert.assertTrue(stageTimes.containsKey(AgentStartup.STAGE_STORES));
+        Assert.assertTrue(stageTimes.containsKey(AgentStartup.STAGE_SERVICES));
+        Assert.assertNotNull(agentConfig.getEventStore());
+
+        // buffered calls are replayed once services have started
+        Assert.assertNotNull(AnalyticsControllerImpl.getInstance().getAttribute("stagedStartup"));
+
+        // stopping the agent releases the startup
+        stagedAgent.stop(false);
+        Assert.assertNull(AgentStartup.getInstance());
+    }
+
     private void agentStart() throws InterruptedException {
         Agent.start();
         Thread.sleep(1 * 500);
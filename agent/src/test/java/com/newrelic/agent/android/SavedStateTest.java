@@ -11,6 +11,9 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.content.Context;
+import android.content.SharedPreferences;
+
 import com.newrelic.agent.android.harvest.ApplicationInformation;
 import com.newrelic.agent.android.harvest.ConnectInformation;
 import com.newrelic.agent.android.harvest.DeviceInformation;
@@ -26,6 +29,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
+import java.io.File;
+import java.io.RandomAccessFile;
+
 @RunWith(RobolectricTestRunner.class)
 public class SavedStateTest {
 
@@ -494,4 +500,82 @@ public class SavedStateTest {
         savedState.saveHarvestConfiguration(Providers.provideHarvestConfiguration());
         Assert.assertEquals("Should return request header map", "{\"NR-AgentConfiguration\":\"+cNeWo\",\"NR-Session\":\"AyAAAAC1NxdWFyZVRvb2xz\"}", savedState.getString("requestHeadersMap"));
     }
+
+    @Test
+    public void testStatePersistsAcrossInstances() {
+        savedState.saveHarvestConfiguration(Providers.provideHarvestConfiguration());
+        savedState.saveDeviceId("persisted_device_id");
+        savedState.flush();
+
+        SavedState reloaded = new SavedState(spyContext.getContext());
+        Assert.assertEquals("x-process-id", reloaded.getCrossProcessId());
+        Assert.assertEquals(444, reloaded.getHarvestInterval());
+        Assert.assertEquals("persisted_device_id", reloaded.getDeviceId());
+        Assert.assertArrayEquals(savedState.getDataToken(), reloaded.getDataToken());
+    }
+
+    @Test
+    public void testStateIsReplacedAtomically() {
+        final File stateFile = getStateFile(spyContext.getContext());
+
+        savedState.saveDeviceId("first_device_id");
+        savedState.flush();
+        savedState.saveDeviceId("second_device_id");
+        savedState.flush();
+
+        Assert.assertTrue(stateFile.exists());
+        Assert.assertFalse(new File(stateFile.getPath() + ".tmp").exists());
+        Assert.assertEquals("second_device_id", new SavedState(spyContext.getContext()).getDeviceId());
+    }
+
+    @Test
+    public void testMigrateSharedPreferences() {
+        final Context context = spyContext.getContext();
+        final File stateFile = getStateFile(context);
+        stateFile.delete();
+
+        final SharedPreferences prefs = context.getSharedPreferences("com.newrelic.android.agent.v1_" + context.getPackageName(), 0);
+        prefs.edit()
+                .putString("crossProcessId", "legacy-x-process-id")
+                .putLong("harvestIntervalInSeconds", 123)
+                .putInt("errorLimit", 7)
+                .putBoolean("collectNetworkErrors", true)
+                .putFloat("activityTraceMinUtilization", 0.25f)
+                .commit();
+
+        StatsEngine.SUPPORTABILITY.getStatsMap().clear();
+        SavedState migrated = new SavedState(context);
+        Assert.assertEquals("legacy-x-process-id", migrated.getCrossProcessId());
+        Assert.assertEquals(123, migrated.getHarvestInterval());
+        Assert.assertEquals(7, migrated.getErrorLimit());
+        Assert.assertTrue(migrated.isCollectingNetworkErrors());
+        Assert.assertEquals(0.25f, migrated.getActivityTraceMinUtilization(), 0f);
+        Assert.assertEquals(123, migrated.getHarvestConfiguration().getData_report_period());
+
+        Assert.assertTrue(stateFile.exists());
+        Assert.assertTrue("Should remove migrated preferences", prefs.getAll().isEmpty());
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_SAVED_STATE_MIGRATED));
+    }
+
+    @Test
+    public void testDamagedStateFileIsDiscarded() throws Exception {
+        final Context context = spyContext.getContext();
+        savedState.saveHarvestConfiguration(Providers.provideHarvestConfiguration());
+        savedState.flush();
+
+        final File stateFile = getStateFile(context);
+        try (RandomAccessFile raf = new RandomAccessFile(stateFile, "rw")) {
+            raf.setLength(stateFile.length() / 2);
+        }
+
+        StatsEngine.SUPPORTABILITY.getStatsMap().clear();
+        SavedState reloaded = new SavedState(context);
+        Assert.assertNull(reloaded.getCrossProcessId());
+        Assert.assertEquals(new HarvestConfiguration(), reloaded.getHarvestConfiguration());
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap().containsKey(MetricNames.SUPPORTABILITY_SAVED_STATE_CORRUPTED));
+    }
+
+    private File getStateFile(Context context) {
+        return new File(context.getFilesDir(), "com.newrelic.android.agent.v1_" + context.getPackageName() + ".state");
+    }
 }
@@ -57,16 +57,19 @@ import org.robolectric.annotation.Config;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
@@ -121,33 +124,61 @@ public class ApplicationExitMonitorTest {
 
     @Test
     public void harvestApplicationExitInfo() {
-        List<File> artifacts = applicationExitMonitor.getArtifacts();
-        Assert.assertEquals(0, artifacts.size());
+        Assert.assertEquals(0, applicationExitMonitor.recordIndex.size());
 
         applicationExitMonitor.harvestApplicationExitInfo();
 
-        artifacts = applicationExitMonitor.getArtifacts();
-        Assert.assertEquals(6, artifacts.size());
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
+        Assert.assertTrue("Should not write trace markers", applicationExitMonitor.getArtifacts().isEmpty());
+        Assert.assertTrue(new File(applicationExitMonitor.reportsDir, ApplicationExitMonitor.RECORD_INDEX_STORE).exists());
     }
 
     @Test
     public void shouldNotHarvestRecordedApplicationExitInfo() {
-        List<File> artifacts = applicationExitMonitor.getArtifacts();
-        Assert.assertEquals(0, artifacts.size());
+        Assert.assertEquals(0, applicationExitMonitor.recordIndex.size());
 
         loadSessionMapper();
         applicationExitMonitor.harvestApplicationExitInfo();
 
-        artifacts = applicationExitMonitor.getArtifacts();
-        Assert.assertEquals(6, artifacts.size());
-
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
 
         // call again with same data
         applicationExitMonitor.harvestApplicationExitInfo();
 
-        artifacts = applicationExitMonitor.getArtifacts();
-        Assert.assertEquals(6, artifacts.size());
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
+    }
+
+    @Test
+    public void shouldNotFetchAllRecordsWhenNothingIsNew() {
+        String packageName = spyContext.getContext().getPackageName();
+
+        applicationExitMonitor.harvestApplicationExitInfo();
+        Mockito.verify(applicationExitMonitor.am, times(1)).getHistoricalProcessExitReasons(packageName, 0, 0);
+
+        // a new monitor loads the persisted index, and only probes for the latest record
+        resetMocks();
+        applicationExitMonitor.harvestApplicationExitInfo();
+        Mockito.verify(applicationExitMonitor.am, times(1)).getHistoricalProcessExitReasons(packageName, 0, 1);
+        Mockito.verify(applicationExitMonitor.am, times(1)).getHistoricalProcessExitReasons(packageName, 0, 0);
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
+    }
+
+    @Test
+    public void shouldMigrateLegacyArtifacts() throws IOException {
+        ApplicationExitInfo recorded = applicationExitInfoList.get(1);
+        File artifact = new File(applicationExitMonitor.reportsDir, String.format(Locale.getDefault(),
+                ApplicationExitMonitor.ARTIFACT_NAME, recorded.getPid()));
+        try (FileWriter writer = new FileWriter(artifact)) {
+            writer.write(recorded.toString());
+        }
+
+        StatsEngine.SUPPORTABILITY.getStatsMap().clear();
+        applicationExitMonitor.harvestApplicationExitInfo();
 
+        Assert.assertFalse(artifact.exists());
+        Assert.assertTrue(applicationExitMonitor.recordIndex.contains(recorded.getPid(), recorded.getTimestamp()));
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
+        Assert.assertEquals(5.0, StatsEngine.SUPPORTABILITY.getStatsMap().get(MetricNames.SUPPORTABILITY_AEI_VISITED).getMax(), 0.0);
     }
 
     @Config(sdk = {Build.VERSION_CODES.Q})
@@ -364,33 +395,33 @@ public class ApplicationExitMonitorTest {
     public void reconcileMetadata() throws IOException {
         loadSessionMapper();
 
-        // harvest leaves a set of artifacts
+        // harvest leaves a set of indexed records
         applicationExitMonitor.harvestApplicationExitInfo();
-        int artifactsSize = applicationExitMonitor.getArtifacts().size();
-        Assert.assertEquals("no artifacts are removed", artifactsSize, applicationExitMonitor.getArtifacts().size());
+        int artifactsSize = applicationExitMonitor.recordIndex.size();
+        Assert.assertEquals("no records are removed", artifactsSize, applicationExitMonitor.recordIndex.size());
 
         // ART deletes a few records
         applicationExitInfoList.remove(2);
         applicationExitInfoList.remove(3);
         applicationExitMonitor.reconcileMetadata(applicationExitInfoList);
 
-        Assert.assertEquals(applicationExitInfoList.size(), applicationExitMonitor.getArtifacts().size());
-        Assert.assertTrue(artifactsSize > applicationExitMonitor.getArtifacts().size());
-        Assert.assertEquals(artifactsSize - 2, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(applicationExitInfoList.size(), applicationExitMonitor.recordIndex.size());
+        Assert.assertTrue(artifactsSize > applicationExitMonitor.recordIndex.size());
+        Assert.assertEquals(artifactsSize - 2, applicationExitMonitor.recordIndex.size());
 
         // ART adds a few new records:
-        artifactsSize = applicationExitMonitor.getArtifacts().size();
+        artifactsSize = applicationExitMonitor.recordIndex.size();
 
         applicationExitInfoList.add(provideApplicationExitInfo(ApplicationExitInfo.REASON_ANR));
         applicationExitInfoList.add(provideApplicationExitInfo(ApplicationExitInfo.REASON_CRASH));
         applicationExitInfoList.add(provideApplicationExitInfo(ApplicationExitInfo.REASON_USER_STOPPED));
         applicationExitMonitor.harvestApplicationExitInfo();
 
-        Assert.assertEquals(applicationExitInfoList.size(), applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(applicationExitInfoList.size(), applicationExitMonitor.recordIndex.size());
 
 
-        Assert.assertTrue(artifactsSize < applicationExitMonitor.getArtifacts().size());
-        Assert.assertEquals(artifactsSize + 3, applicationExitMonitor.getArtifacts().size());
+        Assert.assertTrue(artifactsSize < applicationExitMonitor.recordIndex.size());
+        Assert.assertEquals(artifactsSize + 3, applicationExitMonitor.recordIndex.size());
     }
 
 
@@ -403,27 +434,27 @@ public class ApplicationExitMonitorTest {
         applicationExitMonitor.sessionMapper.clear();
 
         Assert.assertEquals(6, applicationExitInfoList.size());
-        Assert.assertTrue(applicationExitMonitor.getArtifacts().isEmpty());
+        Assert.assertEquals(0, applicationExitMonitor.recordIndex.size());
         Assert.assertEquals(0, applicationExitMonitor.sessionMapper.size());
         Assert.assertFalse(applicationExitMonitor.sessionMapper.mapStore.exists());
 
         // session 0: agent is started w/AEI enabled and 6 historic AEI (2 ANR) records reported by ART
         applicationExitMonitor.harvestApplicationExitInfo();
         Assert.assertEquals(1, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(6, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
 
         // session 1: AEI enabled, no new AEI records
         resetMocks();
         applicationExitMonitor.harvestApplicationExitInfo();
         Assert.assertEquals(2, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(6, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
 
 
         // session 2: AEI disabled, no new AEI records
         resetMocks();
         // applicationExitMonitor.harvestApplicationExitInfo(); // not called when disabled
         Assert.assertEquals(2, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(6, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
 
 
         // session 3: AEI disabled, 1 new AEI (1 ANR) records
@@ -431,7 +462,7 @@ public class ApplicationExitMonitorTest {
         applicationExitInfoList.add(provideApplicationExitInfo(ApplicationExitInfo.REASON_ANR, applicationExitMonitor.getCurrentProcessId()));
         // applicationExitMonitor.harvestApplicationExitInfo(); // not called when disabled
         Assert.assertEquals(2, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(6, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
 
 
         // session 4: AEI re-enabled, 1 new (0 ANR) records and 2 removed from ART report
@@ -441,7 +472,7 @@ public class ApplicationExitMonitorTest {
         resetMocks();
         applicationExitMonitor.harvestApplicationExitInfo();
         Assert.assertEquals(3, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(6, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(6, applicationExitMonitor.recordIndex.size());
 
 
         // session 5: AEI enabled, 1 new ANR record and 3 records removed from ART report
@@ -452,34 +483,34 @@ public class ApplicationExitMonitorTest {
         resetMocks();
         applicationExitMonitor.harvestApplicationExitInfo();
         Assert.assertEquals(4, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(4, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(4, applicationExitMonitor.recordIndex.size());
 
 
         // session 6: AEI enabled, ALL records removed from ART report
         Assert.assertEquals(4, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(4, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(4, applicationExitMonitor.recordIndex.size());
         applicationExitInfoList.clear();
         resetMocks();
         applicationExitMonitor.harvestApplicationExitInfo();
         Assert.assertEquals(4, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(0, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(0, applicationExitMonitor.recordIndex.size());
 
 
         // session 7: AEI enabled, 1 new ANR record
         Assert.assertEquals(4, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(0, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(0, applicationExitMonitor.recordIndex.size());
         applicationExitInfoList.add(provideApplicationExitInfo(ApplicationExitInfo.REASON_ANR, applicationExitMonitor.getCurrentProcessId()));
         resetMocks();
         applicationExitMonitor.harvestApplicationExitInfo();
         Assert.assertEquals(5, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(1, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(1, applicationExitMonitor.recordIndex.size());
 
 
         // session 8: AEI enabled and no new AEI records
         resetMocks();
         applicationExitMonitor.harvestApplicationExitInfo();
         Assert.assertEquals(6, applicationExitMonitor.sessionMapper.size());
-        Assert.assertEquals(1, applicationExitMonitor.getArtifacts().size());
+        Assert.assertEquals(1, applicationExitMonitor.recordIndex.size());
 
     }
 
@@ -555,11 +586,23 @@ public class ApplicationExitMonitorTest {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
             // Only supported in Android 11+
             Mockito.when(applicationExitMonitor.am.getHistoricalProcessExitReasons(spyContext.getContext().getPackageName(), 0, 0)).thenReturn(applicationExitInfoList);
+            Mockito.when(applicationExitMonitor.am.getHistoricalProcessExitReasons(spyContext.getContext().getPackageName(), 0, 1)).thenAnswer(invocation -> getLatestApplicationExitInfo());
         }
 
         AgentConfiguration.getInstance().provideSessionId();
     }
 
+    // ART reports the most recent exit first
+    List<ApplicationExitInfo> getLatestApplicationExitInfo() {
+        ApplicationExitInfo latest = null;
+        for (ApplicationExitInfo exitInfo : applicationExitInfoList) {
+            if (latest == null || exitInfo.getTimestamp() >= latest.getTimestamp()) {
+                latest = exitInfo;
+            }
+        }
+        return latest == null ? new ArrayList<>() : new ArrayList<>(Collections.singletonList(latest));
+    }
+
     private ApplicationExitInfo provideApplicationExitInfo(int reasonCode) throws IOException {
         ApplicationExitInfo applicationExitInfo = provideApplicationExitInfo(reasonCode, ActivityManager.RunningAppProcessInfo.IMPORTANCE_FOREGROUND, pidCtr.incrementAndGet());
 
@@ -0,0 +1,58 @@
+package com.newrelic.agent.android.sessionReplay.compose;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ComposeCaptureCacheTest {
+
+    private ComposeCaptureCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ComposeCaptureCache();
+        cache.beginFrame(2.0f, 1);
+    }
+
+    @Test
+    public void entriesSurviveWhileVisited() {
+        ComposeCaptureCache.Entry entry = cache.visit(1);
+        entry.fingerprint = 42L;
+        cache.visit(2);
+        cache.sweep();
+
+        cache.beginFrame(2.0f, 1);
+        Assert.assertSame(entry, cache.visit(1));
+        Assert.assertEquals(42L, cache.get(1).fingerprint);
+        cache.sweep();
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNull(cache.get(2));
+    }
+
+    @Test
+    public void densityChangeInvalidates() {
+        cache.visit(1).fingerprint = 42L;
+        cache.sweep();
+
+        cache.beginFrame(3.0f, 1);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0L, cache.visit(1).fingerprint);
+    }
+
+    @Test
+    public void configurationChangeInvalidates() {
+        cache.visit(1);
+        cache.sweep();
+
+        cache.beginFrame(2.0f, 2);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void mixIsOrderSensitive() {
+        long ab = ComposeCaptureCache.mix(ComposeCaptureCache.mix(0L, 1L), 2L);
+        long ba = ComposeCaptureCache.mix(ComposeCaptureCache.mix(0L, 2L), 1L);
+        Assert.assertNotEquals(ab, ba);
+    }
+}
@@ -0,0 +1,88 @@
+package com.newrelic.agent.android.sessionReplay.compose;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.newrelic.agent.android.sessionReplay.viewMapper.SessionReplayViewThingyInterface;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+
+@RunWith(RobolectricTestRunner.class)
+public class ComposeTreeCaptureTest {
+
+    private Activity activity;
+    private FrameLayout root;
+    private ComposeTreeCapture capture;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        root = new FrameLayout(activity);
+        activity.setContentView(root);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        capture = new ComposeTreeCapture(null);
+    }
+
+    /**
+     * A thingy that refers back to its view, as recorded compose thingies do through their semantics nodes.
+     */
+    private static SessionReplayViewThingyInterface thingyFor(View view) {
+        return (SessionReplayViewThingyInterface) Proxy.newProxyInstance(
+                SessionReplayViewThingyInterface.class.getClassLoader(),
+                new Class<?>[]{SessionReplayViewThingyInterface.class},
+                (proxy, method, args) -> method.getName().equals("toString") ? view.toString() : null);
+    }
+
+    @Test
+    public void cacheIsKeptWhileAttached() {
+        View view = new View(activity);
+        root.addView(view);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        ComposeCaptureCache cache = capture.getCache(view);
+        Assert.assertSame(cache, capture.getCache(view));
+
+        root.removeView(view);
+        Assert.assertNotSame("cache is dropped on detach", cache, capture.getCache(view));
+    }
+
+    @Test
+    public void cacheIsNotKeptForDetachedView() {
+        View view = new View(activity);
+
+        Assert.assertNotSame(capture.getCache(view), capture.getCache(view));
+    }
+
+    @Test
+    public void detachedViewCanBeCollected() throws Exception {
+        View view = new View(activity);
+        root.addView(view);
+        shadowOf(Looper.getMainLooper()).idle();
+
+        capture.getCache(view).visit(1).thingy = thingyFor(view);
+        root.removeView(view);
+
+        WeakReference<View> reference = new WeakReference<>(view);
+        view = null;
+
+        for (int i = 0; i < 20 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        Assert.assertNull("detached view is not retained by the capture cache", reference.get());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2026-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.newrelic.agent.android.sessionReplay.recovery;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class OrphanEventScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeOrphan(String contents) throws IOException {
+        File file = folder.newFile("sessionReplaydataS_DEAD.tmp");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(contents.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private String writeEvents(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrphanEventScanner.writeEvents(file, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void findsTopLevelTimestamps() throws Exception {
+        File file = writeOrphan("{\"type\":4,\"data\":{\"timestamp\":1},\"timestamp\":3000}\n"
+                + "{\"timestamp\" : 1000, \"data\":{\"text\":\"\\\"timestamp\\\":5\"}}\n"
+                + "{\"type\":3,\"data\":[{\"timestamp\":9999}],\"timestamp\":2000.75}\n");
+
+        OrphanEventScanner.Summary summary = OrphanEventScanner.scan(file);
+
+        Assert.assertEquals(3, summary.eventCount);
+        Assert.assertEquals(1000L, summary.firstTimestamp);
+        Assert.assertEquals(3000L, summary.lastTimestamp);
+    }
+
+    @Test
+    public void writesEventsAsJsonArray() throws Exception {
+        File file = writeOrphan("{\"type\":2,\"timestamp\":1000}\n\n  {\"type\":3,\"timestamp\":2000,\"text\":\"caf\u00e9\"}\r\n");
+
+        String events = writeEvents(file);
+
+        Assert.assertEquals("[{\"type\":2,\"timestamp\":1000},{\"type\":3,\"timestamp\":2000,\"text\":\"caf\u00e9\"}]", events);
+        Assert.assertEquals(events.getBytes(StandardCharsets.UTF_8).length, OrphanEventScanner.scan(file).contentLength);
+    }
+
+    @Test
+    public void emptyOrphanHasNoEvents() throws Exception {
+        File file = writeOrphan("\n \n");
+
+        Assert.assertEquals(0, OrphanEventScanner.scan(file).eventCount);
+        Assert.assertEquals("[]", writeEvents(file));
+    }
+
+    @Test(expected = OrphanEventScanner.MalformedEventException.class)
+    public void rejectsTruncatedEvent() throws Exception {
+        OrphanEventScanner.scan(writeOrphan("{\"type\":2,\"timestamp\":1000}\n{\"type\":3,\"data\":{\"text\":\"trunc"));
+    }
+
+    @Test(expected = OrphanEventScanner.MalformedEventException.class)
+    public void rejectsNonObjectEvent() throws Exception {
+        OrphanEventScanner.scan(writeOrphan("[1,2,3]\n"));
+    }
+}
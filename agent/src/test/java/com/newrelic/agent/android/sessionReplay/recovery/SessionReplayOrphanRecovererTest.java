@@ -9,6 +9,7 @@ import android.content.Context;
 
 import com.newrelic.agent.android.AgentConfiguration;
 import com.newrelic.agent.android.SpyContext;
+import com.newrelic.agent.android.payload.StreamingPayload;
 import com.newrelic.agent.android.sessioncontext.FileSessionContextStore;
 import com.newrelic.agent.android.sessioncontext.SessionContextStore;
 
@@ -30,11 +31,13 @@ public class SessionReplayOrphanRecovererTest {
     /** Capturing uploader that records each recovered payload's attributes. */
     static class CapturingUploader implements SessionReplayOrphanRecoverer.ReplayUploader {
         final List<Map<String, Object>> uploads = new ArrayList<>();
+        final List<String> payloads = new ArrayList<>();
         boolean result = true;
 
         @Override
         public boolean upload(byte[] rawEventBytes, Map<String, Object> attributes) {
             uploads.add(attributes);
+            payloads.add(new String(rawEventBytes));
             return result;
         }
     }
@@ -123,4 +126,83 @@ public class SessionReplayOrphanRecovererTest {
         Assert.assertTrue("orphan retained for retry when the report was not submitted",
                 new File(srDir, "sessionReplaydataS_DEAD.tmp").exists());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void retainsOrphanUntilUploaded() throws Exception {
+        final List<Runnable> pending = new ArrayList<>();
+        uploader = new CapturingUploader() {
+            @Override
+            public boolean upload(StreamingPayload.BodyWriter events, long contentLength,
+                                  Map<String, Object> attributes, Runnable onUploaded) {
+                uploads.add(attributes);
+                pending.add(onUploaded);
+                return true;
+            }
+        };
+        File orphan = writeOrphan("S_DEAD");
+        ctxStore.updateExitReason("S_DEAD", ApplicationExitInfo.REASON_ANR);
+
+        new SessionReplayOrphanRecoverer(srDir, ctxStore, uploader, "S_CURRENT", 86_400_000L)
+                .recover();
+
+        Assert.assertEquals(1, uploader.uploads.size());
+        Assert.assertTrue("orphan retained while the upload is pending", orphan.exists());
+
+        new SessionReplayOrphanRecoverer(srDir, ctxStore, uploader, "S_CURRENT", 86_400_000L)
+                .recover();
+        Assert.assertEquals("pending orphan is not submitted again", 1, uploader.uploads.size());
+
+        pending.get(0).run();
+        Assert.assertFalse("orphan removed once uploaded", orphan.exists());
+    }
+
+    @Test
+    public void uploadsOrphanEventsAsJsonArray() throws Exception {
+        writeOrphan("S_DEAD");
+        ctxStore.updateExitReason("S_DEAD", ApplicationExitInfo.REASON_CRASH);
+
+        new SessionReplayOrphanRecoverer(srDir, ctxStore, uploader, "S_CURRENT", 86_400_000L)
+                .recover();
+
+        Assert.assertEquals(1, uploader.payloads.size());
+        Assert.assertEquals("[{\"type\":2,\"timestamp\":1000},{\"type\":3,\"timestamp\":2000}]", uploader.payloads.get(0));
+        Assert.assertEquals(1000L, uploader.uploads.get(0).get("firstTimestamp"));
+        Assert.assertEquals(2000L, uploader.uploads.get(0).get("lastTimestamp"));
+    }
+
+    @Test
+    public void deletesCorruptOrphan() throws Exception {
+        File f = new File(srDir, "sessionReplaydataS_DEAD.tmp");
+        try (FileWriter w = new FileWriter(f)) {
+            w.write("{\"type\":2,\"timestamp\":1000}\n{\"type\":3,\"times");
+        }
+        ctxStore.updateExitReason("S_DEAD", ApplicationExitInfo.REASON_CRASH);
+
+        new SessionReplayOrphanRecoverer(srDir, ctxStore, uploader, "S_CURRENT", 86_400_000L)
+                .recover();
+
+        Assert.assertEquals(0, uploader.uploads.size());
+        Assert.assertFalse(f.exists());
+    }
+
+    @Test
+    public void capsRecoveriesPerLaunch() throws Exception {
+        for (String sessionId : new String[]{"S_DEAD1", "S_DEAD2", "S_DEAD3"}) {
+            writeOrphan(sessionId);
+            ctxStore.updateExitReason(sessionId, ApplicationExitInfo.REASON_ANR);
+        }
+
+        new SessionReplayOrphanRecoverer(srDir, ctxStore, uploader, "S_CURRENT", 86_400_000L)
+                .withBudget(2, Long.MAX_VALUE)
+                .recover();
+
+        Assert.assertEquals(2, uploader.uploads.size());
+        Assert.assertEquals("orphans beyond the budget are retained for a later launch",
+                1, srDir.listFiles((d, name) -> name.endsWith(".tmp")).length);
+
+        new SessionReplayOrphanRecoverer(srDir, ctxStore, uploader, "S_CURRENT", 86_400_000L)
+                .recover();
+
+        Assert.assertEquals(3, uploader.uploads.size());
+    }
+}
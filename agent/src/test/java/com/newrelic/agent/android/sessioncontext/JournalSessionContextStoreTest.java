@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.newrelic.agent.android.sessioncontext;
+
+import android.content.Context;
+
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.SpyContext;
+import com.newrelic.agent.android.analytics.AnalyticsAttribute;
+import com.newrelic.agent.android.metric.MetricNames;
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+public class JournalSessionContextStoreTest {
+
+    private Context context;
+    private AgentConfiguration config;
+    private JournalSessionContextStore store;
+
+    private static Set<AnalyticsAttribute> attrs(String key, String value) {
+        Set<AnalyticsAttribute> s = new HashSet<>();
+        s.add(new AnalyticsAttribute(key, value));
+        return s;
+    }
+
+    @Before
+    public void setUp() {
+        context = new SpyContext().getContext();
+        config = new AgentConfiguration();
+        store = new JournalSessionContextStore(context, config);
+        store.clear();
+        StatsEngine.get().getStatsMap().clear();
+        StatsEngine.SUPPORTABILITY.getStatsMap().clear();
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    private JournalSessionContextStore reopen() {
+        return new JournalSessionContextStore(context, config);
+    }
+
+    @Test
+    public void upsert_then_get_roundTrip() {
+        Assert.assertTrue(store.upsert(new SessionManifest("S_A", 1234, 10L, 20L, attrs("checkout_step", "review"))));
+
+        SessionManifest got = reopen().get("S_A");
+        Assert.assertNotNull(got);
+        Assert.assertEquals(1234, got.getRealAgentId());
+        Assert.assertEquals("review", got.getAttributes().iterator().next().getStringValue());
+    }
+
+    @Test
+    public void unchangedUpsertIsNotWritten() {
+        store.upsert(new SessionManifest("S_A", 1, 0L, 1L, attrs("step", "one")));
+        final long length = store.getJournalFile().length();
+
+        Assert.assertTrue(store.upsert(new SessionManifest("S_A", 1, 0L, 2L, attrs("step", "one"))));
+        Assert.assertEquals(1, store.getRecordCount());
+        Assert.assertEquals(length, store.getJournalFile().length());
+
+        store.upsert(new SessionManifest("S_A", 1, 0L, 3L, attrs("step", "two")));
+        Assert.assertEquals(2, store.getRecordCount());
+        Assert.assertEquals("two", reopen().get("S_A").getAttributes().iterator().next().getStringValue());
+    }
+
+    @Test
+    public void fieldUpdatesAreReplayed() {
+        store.updateSessionReplayState("S_A", true, true);
+        store.upsert(new SessionManifest("S_A", 9, 1L, 2L, attrs("k", "v")));
+        store.updateExitReason("S_A", 6);
+        store.updateExitReason("S_A", 6);
+        Assert.assertEquals(3, store.getRecordCount());
+
+        SessionManifest m = reopen().get("S_A");
+        Assert.assertEquals(Boolean.TRUE, m.getReachedFullMode());
+        Assert.assertEquals(Boolean.TRUE, m.getIsFirstChunk());
+        Assert.assertEquals(Integer.valueOf(6), m.getExitReason());
+        Assert.assertEquals(9, m.getRealAgentId());
+        Assert.assertEquals(1, m.getAttributes().size());
+    }
+
+    @Test
+    public void deleteIsReplayed() {
+        store.upsert(new SessionManifest("S_A", 1, 0L, 1L, attrs("k", "a")));
+        store.upsert(new SessionManifest("S_B", 1, 0L, 1L, attrs("k", "b")));
+        store.delete("S_A");
+
+        JournalSessionContextStore reopened = reopen();
+        Assert.assertEquals(1, reopened.count());
+        Assert.assertNull(reopened.get("S_A"));
+        Assert.assertNotNull(reopened.get("S_B"));
+    }
+
+    @Test
+    public void evictsOldestWhenOverCap() {
+        config.setMaxCachedSessionContextCount(2);
+        store = reopen();
+
+        store.upsert(new SessionManifest("S_1", 1, 0L, 1L, attrs("k", "1")));
+        store.upsert(new SessionManifest("S_2", 1, 0L, 2L, attrs("k", "2")));
+        store.upsert(new SessionManifest("S_3", 1, 0L, 3L, attrs("k", "3")));
+
+        Assert.assertEquals(2, store.count());
+        Assert.assertNull(reopen().get("S_1"));
+        Assert.assertEquals(2, reopen().count());
+        Assert.assertTrue(StatsEngine.get().getStatsMap()
+                .containsKey(MetricNames.SUPPORTABILITY_SESSION_CONTEXT_EVICTED));
+    }
+
+    @Test
+    public void journalIsCompacted() {
+        for (int i = 0; i < JournalSessionContextStore.MIN_COMPACTION_RECORDS + 1; i++) {
+            store.upsert(new SessionManifest("S_A", 1, 0L, i, attrs("k", String.valueOf(i))));
+        }
+
+        Assert.assertEquals(1, store.getRecordCount());
+        Assert.assertTrue(StatsEngine.SUPPORTABILITY.getStatsMap()
+                .containsKey(MetricNames.SUPPORTABILITY_SESSION_CONTEXT_COMPACTED));
+        Assert.assertEquals(String.valueOf(JournalSessionContextStore.MIN_COMPACTION_RECORDS),
+                reopen().get("S_A").getAttributes().iterator().next().getStringValue());
+    }
+
+    @Test
+    public void tornRecordIsSkippedAndCounted() throws Exception {
+        store.upsert(new SessionManifest("S_A", 1, 0L, 1L, attrs("k", "a")));
+        try (OutputStream os = new FileOutputStream(store.getJournalFile(), true)) {
+            os.write("{\"op\":\"put\",\"manifest\":{\"sessionId\":\"S_B\"".getBytes(StandardCharsets.UTF_8));
+        }
+
+        JournalSessionContextStore reopened = reopen();
+        List<SessionManifest> all = reopened.fetchAll();
+        Assert.assertEquals(1, all.size());
+        Assert.assertEquals("S_A", all.get(0).getSessionId());
+        Assert.assertEquals(1, reopened.getRecordCount());
+        Assert.assertTrue(StatsEngine.get().getStatsMap()
+                .containsKey(MetricNames.SUPPORTABILITY_SESSION_CONTEXT_CORRUPTED));
+
+        reopened.upsert(new SessionManifest("S_B", 1, 0L, 1L, attrs("k", "b")));
+        Assert.assertEquals(2, reopen().count());
+    }
+
+    @Test
+    public void migratesLegacyStore() {
+        FileSessionContextStore legacy = new FileSessionContextStore(context, config);
+        legacy.upsert(new SessionManifest("S_OLD", 1, 0L, 1L, attrs("k", "old")));
+        legacy.updateExitReason("S_OLD", 6);
+
+        SessionManifest migrated = reopen().get("S_OLD");
+        Assert.assertNotNull(migrated);
+        Assert.assertEquals(Integer.valueOf(6), migrated.getExitReason());
+        Assert.assertFalse(new File(context.getFilesDir(), FileSessionContextStore.DIR_NAME).exists());
+        Assert.assertNotNull(reopen().get("S_OLD"));
+    }
+}
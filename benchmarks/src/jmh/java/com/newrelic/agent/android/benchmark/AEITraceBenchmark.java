@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.aei.AEITrace;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decomposition of ANR system traces reported through ApplicationExitInfo. Real
+ * dumps range from a few hundred KB to several MB, and time should scale linearly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AEITraceBenchmark {
+
+    @Param({"1048576", "8388608"})
+    int traceSize;
+
+    String trace;
+
+    @Setup
+    public void setUp() {
+        StringBuilder threads = new StringBuilder(traceSize);
+        int threadCnt = 0;
+        while (threads.length() < traceSize) {
+            threadCnt++;
+            threads.append("\"Thread-").append(threadCnt).append("\" prio=5 tid=").append(threadCnt).append(" Waiting\n")
+                    .append("  | group=\"main\" sCount=1 ucsCount=0 flags=1 obj=0x13580b20 self=0xb400007b5aadb2c0\n")
+                    .append("  | sysTid=").append(6295 + threadCnt).append(" nice=0 cgrp=top-app sched=0/0 handle=0x79cdddbcb0\n")
+                    .append("  | state=S schedstat=( 3574417 310374 13 ) utm=0 stm=0 core=0 HZ=100\n");
+            for (int frame = 0; frame < 20; frame++) {
+                threads.append("  at com.newrelic.benchmark.Frame.method").append(frame).append("(Frame.java:").append(frame + 1).append(")\n");
+            }
+            threads.append("\n");
+        }
+
+        trace = "----- pid 6295 at 2024-10-21 15:48:46.263477197-0700 -----\n" +
+                "Cmd line: com.newrelic.android.benchmark\n" +
+                "DALVIK THREADS (" + threadCnt + "):\n" +
+                threads +
+                "----- end 6295 -----\n";
+    }
+
+    @Benchmark
+    public AEITrace decompose() {
+        return new AEITrace().decomposeFromSystemTrace(trace);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.NullAgentImpl;
+import com.newrelic.agent.android.analytics.AnalyticsControllerImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The public custom event API, including event type, name and attribute validation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnalyticsControllerBenchmark {
+
+    AnalyticsControllerImpl controller;
+    Map<String, Object> eventAttributes;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        AgentConfiguration agentConfiguration = new AgentConfiguration();
+        agentConfiguration.setEnableAnalyticsEvents(true);
+        agentConfiguration.setAnalyticsAttributeStore(new InMemoryAttributeStore());
+
+        AnalyticsControllerImpl.initialize(agentConfiguration, new NullAgentImpl());
+        controller = AnalyticsControllerImpl.getInstance();
+
+        eventAttributes = new HashMap<>();
+        eventAttributes.put("name", "BenchmarkEvent");
+        eventAttributes.put("screen", "checkout");
+        eventAttributes.put("items", 3);
+        eventAttributes.put("total", 42.5d);
+        eventAttributes.put("member", true);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        AnalyticsControllerImpl.shutdown();
+    }
+
+    @Benchmark
+    public boolean recordCustomEvent() {
+        return controller.recordCustomEvent("BenchmarkEventType", eventAttributes);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.util.Deflator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload compression prior to upload
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeflatorBenchmark {
+
+    @Param({"1024", "65536"})
+    int payloadSize;
+
+    byte[] payload;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(payloadSize);
+        for (int i = 0; sb.length() < payloadSize; i++) {
+            sb.append("{\"eventType\":\"Mobile\",\"name\":\"benchmark\",\"timestamp\":").append(i).append("},");
+        }
+        payload = sb.substring(0, payloadSize).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] deflate() {
+        return Deflator.deflate(payload);
+    }
+}
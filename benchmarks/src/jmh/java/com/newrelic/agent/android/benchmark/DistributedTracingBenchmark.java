@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.distributedtracing.DistributedTracing;
+import com.newrelic.agent.android.distributedtracing.TraceConfiguration;
+import com.newrelic.agent.android.distributedtracing.TraceContext;
+import com.newrelic.agent.android.distributedtracing.TraceHeader;
+import com.newrelic.agent.android.harvest.HarvestConfiguration;
+import com.newrelic.agent.android.instrumentation.TransactionState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trace headers are created for every instrumented network request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DistributedTracingBenchmark {
+
+    @Setup
+    public void setUp() {
+        HarvestConfiguration harvestConfiguration = new HarvestConfiguration();
+        harvestConfiguration.setAccount_id("1");
+        harvestConfiguration.setApplication_id("11");
+        harvestConfiguration.setTrusted_account_key("1");
+        DistributedTracing.getInstance().setConfiguration(new TraceConfiguration(harvestConfiguration));
+    }
+
+    @Benchmark
+    public Set<TraceHeader> createHeaders() {
+        TransactionState transactionState = new TransactionState();
+        transactionState.setUrl("https://www.newrelic.com/benchmark?page=1");
+        transactionState.setHttpMethod("GET");
+
+        TraceContext traceContext = DistributedTracing.getInstance().startTrace(transactionState);
+        return traceContext.getHeaders();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.analytics.AnalyticsAttribute;
+import com.newrelic.agent.android.analytics.AnalyticsEvent;
+import com.newrelic.agent.android.analytics.CustomEvent;
+import com.newrelic.agent.android.analytics.EventManagerImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event recording while other threads record events. Once the pool is full, each add
+ * also pays for reservoir sampling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventManagerBenchmark {
+
+    @Param({"1000"})
+    int maxEventPoolSize;
+
+    EventManagerImpl eventManager;
+    AnalyticsEvent event;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Set<AnalyticsAttribute> attributes = new HashSet<>();
+        attributes.add(new AnalyticsAttribute("screen", "checkout"));
+        attributes.add(new AnalyticsAttribute("items", 3));
+
+        event = new CustomEvent("BenchmarkEvent", attributes);
+        eventManager = new EventManagerImpl(maxEventPoolSize, EventManagerImpl.DEFAULT_MIN_EVENT_BUFFER_TIME);
+        eventManager.initialize(new AgentConfiguration());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        eventManager.shutdown();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean addEvent() {
+        return eventManager.addEvent(event);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.google.gson.Gson;
+import com.newrelic.agent.android.instrumentation.GsonInstrumentation;
+import com.newrelic.agent.android.tracing.TraceMachine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of an instrumented {@code Gson#toJson} call site when no activity trace is
+ * running, which is where the host app spends almost all of its time. The difference between
+ * the two benchmarks is the cost of the instrumentation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GsonInstrumentationBenchmark {
+
+    static class Model {
+        String name = "benchmark";
+        int count = 42;
+        boolean enabled = true;
+    }
+
+    private final Gson gson = new Gson();
+    private final Model model = new Model();
+
+    @Setup
+    public void setUp() {
+        TraceMachine.haltTracing();
+    }
+
+    @Benchmark
+    public String uninstrumented() {
+        return gson.toJson(model);
+    }
+
+    @Benchmark
+    public String instrumented() {
+        return GsonInstrumentation.toJson(gson, model);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.analytics.AnalyticsAttribute;
+import com.newrelic.agent.android.analytics.AnalyticsEvent;
+import com.newrelic.agent.android.harvest.DeviceInformation;
+import com.newrelic.agent.android.harvest.HarvestData;
+import com.newrelic.agent.android.harvest.HttpTransaction;
+import com.newrelic.agent.android.harvest.HttpTransactions;
+import com.newrelic.agent.android.harvest.MachineMeasurements;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a populated harvest, performed once per harvest cycle. {@code asJsonArrayToString}
+ * builds the Gson tree first, as the harvest did before serialization was streamed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HarvestDataBenchmark {
+
+    @Param({"10", "100"})
+    int transactionCount;
+
+    HarvestData harvestData;
+
+    @Setup
+    public void setUp() {
+        HttpTransactions httpTransactions = new HttpTransactions();
+        for (int i = 0; i < transactionCount; i++) {
+            HttpTransaction transaction = new HttpTransaction();
+            transaction.setUrl("https://www.newrelic.com/benchmark/" + i);
+            transaction.setHttpMethod("GET");
+            transaction.setCarrier("wifi");
+            transaction.setWanType("wifi");
+            transaction.setTotalTime(0.25 + i);
+            transaction.setStatusCode(200);
+            transaction.setBytesSent(256);
+            transaction.setBytesReceived(4096);
+            transaction.setTimestamp(System.currentTimeMillis());
+            httpTransactions.add(transaction);
+        }
+
+        MachineMeasurements machineMeasurements = new MachineMeasurements();
+        for (int i = 0; i < transactionCount; i++) {
+            machineMeasurements.addMetric("Supportability/AgentHealth/Benchmark/" + i, i);
+        }
+
+        DeviceInformation deviceInformation = new DeviceInformation();
+        deviceInformation.setOsName("Android");
+        deviceInformation.setOsVersion("14");
+        deviceInformation.setOsBuild("14");
+        deviceInformation.setManufacturer("Benchmark");
+        deviceInformation.setModel("JMH");
+        deviceInformation.setAgentName("AndroidAgent");
+        deviceInformation.setAgentVersion("7.0.0");
+        deviceInformation.setDeviceId("benchmark-device-id");
+
+        Set<AnalyticsAttribute> sessionAttributes = new HashSet<>();
+        sessionAttributes.add(new AnalyticsAttribute(AnalyticsAttribute.OS_NAME_ATTRIBUTE, "Android"));
+        sessionAttributes.add(new AnalyticsAttribute(AnalyticsAttribute.APP_NAME_ATTRIBUTE, "Benchmark"));
+        sessionAttributes.add(new AnalyticsAttribute("sessionDuration", 123.456));
+        sessionAttributes.add(new AnalyticsAttribute("background", false));
+
+        List<AnalyticsEvent> events = new ArrayList<>();
+        for (int i = 0; i < transactionCount * 10; i++) {
+            AnalyticsEvent event = new AnalyticsEvent("BenchmarkEvent" + i);
+            event.getMutableAttributeSet().add(new AnalyticsAttribute("stringAttribute", "value " + i));
+            event.getMutableAttributeSet().add(new AnalyticsAttribute("doubleAttribute", i * 1.5));
+            event.getMutableAttributeSet().add(new AnalyticsAttribute("booleanAttribute", i % 2 == 0));
+            events.add(event);
+        }
+
+        harvestData = new HarvestData();
+        harvestData.setDeviceInformation(deviceInformation);
+        harvestData.setHttpTransactions(httpTransactions);
+        harvestData.setMachineMeasurements(machineMeasurements);
+        harvestData.setAnalyticsEnabled(true);
+        harvestData.setSessionAttributes(sessionAttributes);
+        harvestData.setAnalyticsEvents(events);
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return harvestData.toJsonString();
+    }
+
+    @Benchmark
+    public String asJsonArrayToString() {
+        return harvestData.asJsonArray().toString();
+    }
+}
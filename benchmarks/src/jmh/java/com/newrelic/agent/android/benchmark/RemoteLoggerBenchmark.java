@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.FeatureFlag;
+import com.newrelic.agent.android.harvest.HarvestLifecycleAware;
+import com.newrelic.agent.android.logging.LogLevel;
+import com.newrelic.agent.android.logging.LogReporter;
+import com.newrelic.agent.android.logging.LogReporting;
+import com.newrelic.agent.android.logging.LogReportingConfiguration;
+import com.newrelic.agent.android.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The caller's cost of a remote log call: validation and hand-off to the logging executor.
+ * Writes to the working log file happen on the executor and are not measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RemoteLoggerBenchmark {
+    static final String MESSAGE = "RemoteLoggerBenchmark: the quick brown fox jumps over the lazy dog";
+
+    File reportsDir;
+    Logger logger;
+
+    @Setup
+    public void setUp() throws IOException {
+        reportsDir = Files.createTempDirectory("RemoteLoggerBenchmark-").toFile();
+
+        AgentConfiguration agentConfiguration = new AgentConfiguration();
+        agentConfiguration.getLogReportingConfiguration().setConfiguration(new LogReportingConfiguration(true, LogLevel.INFO));
+        agentConfiguration.getLogReportingConfiguration().setSamplingOverride(true);
+
+        FeatureFlag.enableFeature(FeatureFlag.LogReporting);
+        LogReporting.setLogLevel(LogLevel.INFO);
+        LogReporter.initialize(reportsDir, agentConfiguration);
+        logger = LogReporting.getLogger();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (logger instanceof HarvestLifecycleAware) {
+            ((HarvestLifecycleAware) logger).onHarvestStop();
+        }
+        FeatureFlag.disableFeature(FeatureFlag.LogReporting);
+    }
+
+    @Benchmark
+    public void log() {
+        logger.log(LogLevel.INFO, MESSAGE);
+    }
+}
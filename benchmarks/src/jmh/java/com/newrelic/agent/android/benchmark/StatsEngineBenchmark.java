@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.stats.StatsEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Supportability metrics are recorded from nearly every agent code path
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StatsEngineBenchmark {
+    static final String METRIC_NAME = "Supportability/AgentHealth/Benchmark/StatsEngine";
+
+    @Setup
+    public void setUp() {
+        StatsEngine.reset();
+        StatsEngine.enable();
+    }
+
+    @TearDown
+    public void tearDown() {
+        StatsEngine.reset();
+    }
+
+    @Benchmark
+    public void inc() {
+        StatsEngine.get().inc(METRIC_NAME);
+    }
+
+    @Benchmark
+    public void sample() {
+        StatsEngine.get().sample(METRIC_NAME, 42f);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void incContended() {
+        StatsEngine.get().inc(METRIC_NAME);
+    }
+
+    @Benchmark
+    public void supportabilityInc() {
+        StatsEngine.SUPPORTABILITY.inc(METRIC_NAME);
+    }
+}
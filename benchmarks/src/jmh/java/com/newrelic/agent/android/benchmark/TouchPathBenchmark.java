@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2026-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.google.gson.Gson;
+import com.newrelic.agent.android.sessionReplay.TouchPath;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording one session replay touch gesture: a drag sampled at 120Hz, from the move samples to
+ * the serialized move positions. {@code everySample} records each sample as an object, as touch
+ * tracking did before coalescing; {@code coalesced} records them through a default
+ * {@link TouchPath}. The {@code payloadBytes} counter is the size of the serialized positions
+ * per gesture.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TouchPathBenchmark {
+
+    private static final Gson gson = new Gson();
+
+    @Param({"1000", "5000"})
+    int gestureMs;
+
+    float[] xs;
+    float[] ys;
+    long[] timestamps;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+        }
+    }
+
+    // the fields of RRWebTouchMoveData.Position
+    static class Position {
+        final int id;
+        final float x;
+        final float y;
+        final long timeOffset;
+
+        Position(int id, float x, float y, long timeOffset) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+            this.timeOffset = timeOffset;
+        }
+    }
+
+    static class Sample {
+        final int id;
+        final float x;
+        final float y;
+        final long timestamp;
+
+        Sample(int id, float x, float y, long timestamp) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+            this.timestamp = timestamp;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final int count = gestureMs * 120 / 1000;
+        xs = new float[count];
+        ys = new float[count];
+        timestamps = new long[count];
+
+        // a slow scroll that curves and wobbles, as a finger does
+        for (int i = 0; i < count; i++) {
+            final double t = i / 120.0;
+            xs[i] = (float) (180 + 60 * Math.sin(t) + 0.3 * Math.sin(37 * t));
+            ys[i] = (float) (600 - 90 * t + 0.3 * Math.cos(41 * t));
+            timestamps[i] = 1_700_000_000_000L + (i * 1000L) / 120;
+        }
+    }
+
+    @Benchmark
+    public String everySample(Payload payload) {
+        final List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < xs.length; i++) {
+            samples.add(new Sample(42, xs[i], ys[i], timestamps[i]));
+        }
+
+        final long lastTimestamp = samples.get(samples.size() - 1).timestamp;
+        final List<Position> positions = new ArrayList<>();
+        for (Sample sample : samples) {
+            positions.add(new Position(sample.id, sample.x, sample.y, sample.timestamp - lastTimestamp));
+        }
+
+        final String json = gson.toJson(positions);
+        payload.payloadBytes += json.length();
+        return json;
+    }
+
+    @Benchmark
+    public String coalesced(Payload payload) {
+        final TouchPath path = new TouchPath();
+        for (int i = 0; i < xs.length; i++) {
+            path.add(42, xs[i], ys[i], timestamps[i]);
+        }
+
+        final int[] moves = path.simplify();
+        final long lastTimestamp = path.getTimestamp(moves[moves.length - 1]);
+        final List<Position> positions = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            positions.add(new Position(path.getId(move), path.getX(move), path.getY(move), path.getTimestamp(move) - lastTimestamp));
+        }
+
+        final String json = gson.toJson(positions);
+        payload.payloadBytes += json.length();
+        return json;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.FeatureFlag;
+import com.newrelic.agent.android.tracing.TraceMachine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of a single instrumented method (enter and exit) while an interaction trace is active.
+ * Traces beyond the activity trace limit are discarded, which reflects a long-lived interaction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TraceMachineBenchmark {
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        FeatureFlag.enableFeature(FeatureFlag.InteractionTracing);
+        TraceMachine.startTracing("BenchmarkInteraction", true, true);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        TraceMachine.haltTracing();
+    }
+
+    @Benchmark
+    public void enterAndExitMethod() {
+        TraceMachine.enterMethod("TraceMachineBenchmark#enterAndExitMethod");
+        TraceMachine.exitMethod();
+    }
+}
@@ -0,0 +1,578 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.newrelic.agent.android.util.Constants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * A local stand-in for the mobile collector, Vortex log ingest, session replay and crash endpoints.
+ * <p>
+ * The collector serves TLS on the loopback interface using a self-signed certificate (for
+ * {@code localhost} and {@code 127.0.0.1}) generated once per JVM. Call {@link #installTrust()} before the agent uploads anything, then point
+ * the agent's collector hosts at {@link #getHost()}.
+ * <p>
+ * Responses can be degraded per endpoint with {@link Fault faults}: error status codes (429, 413, 500, ...),
+ * optionally with a Retry-After header, or delayed responses that trip client read timeouts.
+ */
+public class FakeCollector implements AutoCloseable {
+    static final String KEYSTORE_ALIAS = "fake-collector";
+    static final char[] KEYSTORE_PASSWORD = "fakecollector".toCharArray();
+    static final int DEFAULT_THREAD_COUNT = 8;
+
+    private static KeyStore keyStore;
+
+    public enum Endpoint {
+        CONNECT("/mobile/v5/connect", 200),
+        DATA("/mobile/v3/data", 200),
+        LOGS("/mobile/logs", 202),
+        SESSION_REPLAY("/mobile/blobs", 202),
+        CRASH("/mobile_crash", 200),
+        ERRORS("/mobile/errors", 202),
+        AGENT_DATA("/mobile/f", 200);
+
+        final String path;
+        final int statusCode;
+
+        Endpoint(String path, int statusCode) {
+            this.path = path;
+            this.statusCode = statusCode;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    /**
+     * Receives the decoded (inflated) request body of every accepted request.
+     * Called on a collector thread.
+     */
+    public interface PayloadListener {
+        void onPayload(Endpoint endpoint, String payload);
+    }
+
+    /**
+     * A degraded response. Faults apply to a fraction of requests ({@link #rate(double)}),
+     * and optionally only to the next {@code n} requests ({@link #times(int)}).
+     */
+    public static class Fault {
+        final int statusCode;
+        final long delayMs;
+        int retryAfterSeconds = -1;
+        double rate = 1.0;
+        final AtomicInteger remaining = new AtomicInteger(-1);
+
+        Fault(int statusCode, long delayMs) {
+            this.statusCode = statusCode;
+            this.delayMs = delayMs;
+        }
+
+        public static Fault status(int statusCode) {
+            return new Fault(statusCode, 0);
+        }
+
+        /**
+         * Hold the response for {@code delayMs} before answering normally. Delays longer than
+         * the client's read timeout will surface as timeouts in the agent.
+         */
+        public static Fault delay(long delayMs) {
+            return new Fault(0, delayMs);
+        }
+
+        public Fault retryAfter(int seconds) {
+            this.retryAfterSeconds = seconds;
+            return this;
+        }
+
+        public Fault rate(double rate) {
+            this.rate = Math.min(1.0, Math.max(0.0, rate));
+            return this;
+        }
+
+        public Fault times(int times) {
+            remaining.set(times);
+            return this;
+        }
+
+        boolean applies() {
+            if (remaining.get() == 0 || ThreadLocalRandom.current().nextDouble() >= rate) {
+                return false;
+            }
+            return remaining.get() < 0 || remaining.getAndDecrement() > 0;
+        }
+
+        @Override
+        public String toString() {
+            return (statusCode > 0 ? "status " + statusCode : "delay " + delayMs + "ms")
+                    + (retryAfterSeconds >= 0 ? ", Retry-After " + retryAfterSeconds : "")
+                    + ", rate " + rate;
+        }
+    }
+
+    public static class EndpointStats {
+        final AtomicLong requests = new AtomicLong(0);
+        final AtomicLong bytesReceived = new AtomicLong(0);
+        final AtomicLong bytesDecoded = new AtomicLong(0);
+        final AtomicLong bytesSent = new AtomicLong(0);
+        final AtomicLong faults = new AtomicLong(0);
+        final Map<Integer, AtomicLong> responseCodes = new ConcurrentHashMap<>();
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        /**
+         * @return request body bytes as sent on the wire (compressed)
+         */
+        public long getBytesReceived() {
+            return bytesReceived.get();
+        }
+
+        public long getBytesDecoded() {
+            return bytesDecoded.get();
+        }
+
+        public long getBytesSent() {
+            return bytesSent.get();
+        }
+
+        public long getFaults() {
+            return faults.get();
+        }
+
+        public long getResponseCount(int statusCode) {
+            AtomicLong count = responseCodes.get(statusCode);
+            return count == null ? 0 : count.get();
+        }
+
+        public Map<Integer, AtomicLong> getResponseCodes() {
+            return responseCodes;
+        }
+    }
+
+    private final Map<Endpoint, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final Map<Endpoint, CopyOnWriteArrayList<Fault>> faults = new ConcurrentHashMap<>();
+    private final Set<Long> collectorThreadIds = ConcurrentHashMap.newKeySet();
+    private final int threadCount;
+    private volatile PayloadListener payloadListener;
+    private volatile int dataReportPeriod = 60;
+    private HttpsServer server;
+    private ExecutorService executor;
+
+    public FakeCollector() {
+        this(DEFAULT_THREAD_COUNT);
+    }
+
+    public FakeCollector(int threadCount) {
+        this.threadCount = threadCount;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+            faults.put(endpoint, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    public FakeCollector start() throws IOException {
+        server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(getSSLContext()));
+
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "FakeCollector-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            collectorThreadIds.add(thread.getId());
+            return thread;
+        });
+        server.setExecutor(executor);
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            server.createContext(endpoint.path, exchange -> handle(endpoint, exchange));
+        }
+        server.createContext("/", exchange -> {
+            drain(exchange.getRequestBody());
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+
+        server.start();
+
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * @return host:port of the collector, suitable for {@code AgentConfiguration.setCollectorHost()}
+     */
+    public String getHost() {
+        return server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public EndpointStats getStats(Endpoint endpoint) {
+        return stats.get(endpoint);
+    }
+
+    public long getTotalBytesOnWire() {
+        long total = 0;
+        for (EndpointStats endpointStats : stats.values()) {
+            total += endpointStats.getBytesReceived() + endpointStats.getBytesSent();
+        }
+        return total;
+    }
+
+    public void inject(Endpoint endpoint, Fault fault) {
+        faults.get(endpoint).add(fault);
+    }
+
+    public void clearFaults() {
+        faults.values().forEach(CopyOnWriteArrayList::clear);
+    }
+
+    public void setPayloadListener(PayloadListener payloadListener) {
+        this.payloadListener = payloadListener;
+    }
+
+    /**
+     * Sets the harvest period (in seconds) returned from connect
+     */
+    public void setDataReportPeriod(int dataReportPeriod) {
+        this.dataReportPeriod = dataReportPeriod;
+    }
+
+    /**
+     * @return CPU time consumed by the collector's request threads, so it can be excluded from agent overhead
+     */
+    public long getCpuTimeNanos() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long cpuTime = 0;
+        for (Long threadId : collectorThreadIds) {
+            cpuTime += Math.max(0, threadMXBean.getThreadCpuTime(threadId));
+        }
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("HTTP-Dispatcher")) {
+                cpuTime += Math.max(0, threadMXBean.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return cpuTime;
+    }
+
+    public boolean isCollectorThread(long threadId) {
+        return collectorThreadIds.contains(threadId);
+    }
+
+    /**
+     * Trust the collector's certificate for all subsequent {@link HttpsURLConnection HttpsURLConnections}
+     * made from this JVM. This replaces the default socket factory: use it only in tests and load runs.
+     */
+    public static void installTrust() throws IOException {
+        try {
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(loadKeyStore());
+
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+            HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
+
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("FakeCollector: unable to install trust: " + e, e);
+        }
+    }
+
+    void handle(Endpoint endpoint, HttpExchange exchange) throws IOException {
+        final EndpointStats endpointStats = stats.get(endpoint);
+
+        try {
+            byte[] body = drain(exchange.getRequestBody());
+
+            endpointStats.requests.incrementAndGet();
+            endpointStats.bytesReceived.addAndGet(body.length);
+
+            Fault fault = null;
+            for (Fault candidate : faults.get(endpoint)) {
+                if (candidate.applies()) {
+                    fault = candidate;
+                    break;
+                }
+            }
+
+            if (fault != null) {
+                endpointStats.faults.incrementAndGet();
+                if (fault.delayMs > 0) {
+                    TimeUnit.MILLISECONDS.sleep(fault.delayMs);
+                }
+                if (fault.statusCode > 0) {
+                    if (fault.retryAfterSeconds >= 0) {
+                        exchange.getResponseHeaders().set("Retry-After", String.valueOf(fault.retryAfterSeconds));
+                    }
+                    respond(endpointStats, exchange, fault.statusCode, null);
+                    return;
+                }
+            }
+
+            final PayloadListener listener = payloadListener;
+            if (listener != null || endpoint == Endpoint.CONNECT) {
+                String payload = decode(body, exchange.getRequestHeaders().getFirst(Constants.Network.CONTENT_ENCODING_HEADER));
+                endpointStats.bytesDecoded.addAndGet(payload.length());
+                if (listener != null) {
+                    listener.onPayload(endpoint, payload);
+                }
+            }
+
+            respond(endpointStats, exchange, endpoint.statusCode, endpoint == Endpoint.CONNECT ? getConnectResponse() : null);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    void respond(EndpointStats endpointStats, HttpExchange exchange, int statusCode, String body) throws IOException {
+        endpointStats.responseCodes.computeIfAbsent(statusCode, code -> new AtomicLong(0)).incrementAndGet();
+
+        if (body == null || body.isEmpty()) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            return;
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(Constants.Network.CONTENT_TYPE_HEADER, Constants.Network.ContentType.JSON);
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        endpointStats.bytesSent.addAndGet(bytes.length);
+    }
+
+    String getConnectResponse() {
+        JsonObject response = new JsonObject();
+
+        JsonArray dataToken = new JsonArray();
+        dataToken.add(1);
+        dataToken.add(1);
+        response.add("data_token", dataToken);
+        response.addProperty("account_id", "1");
+        response.addProperty("application_id", "1");
+        response.addProperty("trusted_account_key", "1");
+        response.addProperty("entity_guid", "RmFrZUNvbGxlY3Rvcg");
+        response.addProperty("data_report_period", dataReportPeriod);
+        response.addProperty("server_timestamp", TimeUnit.SECONDS.convert(System.currentTimeMillis(), TimeUnit.MILLISECONDS));
+
+        JsonObject logs = new JsonObject();
+        logs.addProperty("enabled", true);
+        logs.addProperty("level", "DEBUG");
+        logs.addProperty("sampling_rate", 100.0);
+
+        JsonObject configuration = new JsonObject();
+        configuration.add("logs", logs);
+        response.add("configuration", configuration);
+
+        return response.toString();
+    }
+
+    static String decode(byte[] body, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.equalsIgnoreCase(Constants.Network.Encoding.IDENTITY)) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+
+        InputStream in = new ByteArrayInputStream(body);
+        if (contentEncoding.equalsIgnoreCase(Constants.Network.Encoding.DEFLATE)) {
+            in = new InflaterInputStream(in);
+        } else if (contentEncoding.equalsIgnoreCase("gzip")) {
+            in = new GZIPInputStream(in);
+        }
+
+        try (InputStream decoded = in) {
+            return new String(drain(decoded), StandardCharsets.UTF_8);
+        }
+    }
+
+    static byte[] drain(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the collector's keystore, generating its key pair and self-signed certificate on first use.
+     * The server and {@link #installTrust()} must share it, so it lives for the life of the JVM.
+     */
+    static synchronized KeyStore loadKeyStore() throws IOException {
+        if (keyStore == null) {
+            try {
+                KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+                keyPairGenerator.initialize(2048);
+                KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+                KeyStore generated = KeyStore.getInstance("PKCS12");
+                generated.load(null, null);
+                generated.setKeyEntry(KEYSTORE_ALIAS, keyPair.getPrivate(), KEYSTORE_PASSWORD,
+                        new Certificate[]{createCertificate(keyPair)});
+                keyStore = generated;
+
+            } catch (Exception e) {
+                throw new IOException("FakeCollector: unable to generate keystore: " + e, e);
+            }
+        }
+        return keyStore;
+    }
+
+    /**
+     * Builds a minimal X.509 v3 certificate for localhost, signed by its own key. The JDK offers no
+     * public API for this, so the DER is assembled by hand.
+     */
+    static Certificate createCertificate(KeyPair keyPair) throws Exception {
+        final byte[] sha256WithRsa = der(0x30, der(0x06, bytes(0x2a, 0x86, 0x48, 0x86, 0xf7, 0x0d, 0x01, 0x01, 0x0b)), der(0x05));
+        final byte[] name = der(0x30, der(0x31, der(0x30,
+                der(0x06, bytes(0x55, 0x04, 0x03)),                                   // commonName
+                der(0x0c, "localhost".getBytes(StandardCharsets.UTF_8)))));
+        final byte[] subjectAltName = der(0x30,
+                der(0x06, bytes(0x55, 0x1d, 0x11)),                                   // subjectAltName
+                der(0x04, der(0x30,
+                        der(0x82, "localhost".getBytes(StandardCharsets.US_ASCII)),   // dNSName
+                        der(0x87, InetAddress.getLoopbackAddress().getAddress()))));  // iPAddress
+
+        final long now = System.currentTimeMillis();
+        final byte[] tbsCertificate = der(0x30,
+                der(0xa0, der(0x02, bytes(0x02))),                                    // v3
+                der(0x02, bytes(0x01)),                                               // serial number
+                sha256WithRsa,
+                name,
+                der(0x30, time(now - TimeUnit.DAYS.toMillis(1)), time(now + TimeUnit.DAYS.toMillis(365))),
+                name,
+                keyPair.getPublic().getEncoded(),
+                der(0xa3, der(0x30, subjectAltName)));
+
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(tbsCertificate);
+
+        byte[] signed = signature.sign();
+        byte[] bitString = new byte[signed.length + 1];      // leading byte: no unused bits
+        System.arraycopy(signed, 0, bitString, 1, signed.length);
+
+        byte[] certificate = der(0x30, tbsCertificate, sha256WithRsa, der(0x03, bitString));
+
+        return CertificateFactory.getInstance("X.509").generateCertificate(new ByteArrayInputStream(certificate));
+    }
+
+    static byte[] time(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyMMddHHmmss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return der(0x17, format.format(new Date(millis)).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * Encodes a DER tag-length-value, with the concatenation of {@code contents} as the value
+     */
+    static byte[] der(int tag, byte[]... contents) {
+        ByteArrayOutputStream value = new ByteArrayOutputStream();
+        for (byte[] content : contents) {
+            value.write(content, 0, content.length);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(tag);
+        int length = value.size();
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int lengthBytes = (32 - Integer.numberOfLeadingZeros(length) + 7) / 8;
+            out.write(0x80 | lengthBytes);
+            for (int i = lengthBytes - 1; i >= 0; i--) {
+                out.write(length >>> (i * 8));
+            }
+        }
+        out.write(value.toByteArray(), 0, value.size());
+        return out.toByteArray();
+    }
+
+    static SSLContext getSSLContext() throws IOException {
+        try {
+            KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(loadKeyStore(), KEYSTORE_PASSWORD);
+
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+            return sslContext;
+
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("FakeCollector: unable to create SSL context: " + e, e);
+        }
+    }
+}
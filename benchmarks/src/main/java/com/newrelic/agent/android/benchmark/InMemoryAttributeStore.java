@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.analytics.AnalyticsAttribute;
+import com.newrelic.agent.android.analytics.AnalyticsAttributeStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Non-persistent attribute store, in place of the shared preferences store used on device
+ */
+public class InMemoryAttributeStore implements AnalyticsAttributeStore {
+    private final List<AnalyticsAttribute> attributes = new ArrayList<>();
+
+    @Override
+    public synchronized boolean store(AnalyticsAttribute attribute) {
+        attributes.remove(attribute);
+        return attributes.add(attribute);
+    }
+
+    @Override
+    public synchronized List<AnalyticsAttribute> fetchAll() {
+        return new ArrayList<>(attributes);
+    }
+
+    @Override
+    public synchronized int count() {
+        return attributes.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        attributes.clear();
+    }
+
+    @Override
+    public synchronized void delete(AnalyticsAttribute attribute) {
+        attributes.remove(attribute);
+    }
+
+    @Override
+    public String getRootPath() {
+        return "";
+    }
+}
@@ -0,0 +1,478 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.Agent;
+import com.newrelic.agent.android.AgentConfiguration;
+import com.newrelic.agent.android.FeatureFlag;
+import com.newrelic.agent.android.Measurements;
+import com.newrelic.agent.android.NullAgentImpl;
+import com.newrelic.agent.android.TaskQueue;
+import com.newrelic.agent.android.analytics.AnalyticsControllerImpl;
+import com.newrelic.agent.android.api.common.TransactionData;
+import com.newrelic.agent.android.harvest.Harvest;
+import com.newrelic.agent.android.instrumentation.TransactionState;
+import com.newrelic.agent.android.logging.AgentLog;
+import com.newrelic.agent.android.logging.AgentLogManager;
+import com.newrelic.agent.android.logging.ConsoleAgentLog;
+import com.newrelic.agent.android.logging.LogLevel;
+import com.newrelic.agent.android.logging.LogReporter;
+import com.newrelic.agent.android.logging.LogReporting;
+import com.newrelic.agent.android.logging.LogReportingConfiguration;
+import com.newrelic.agent.android.measurement.HttpTransactionMeasurement;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drives the agent-core pipeline (events, remote logs and network requests) at fixed rates
+ * against a {@link FakeCollector}, and reports agent overhead and delivery latency.
+ * <p>
+ * Every generated item carries a sequence token (e.g. {@code loadEvent=42}) that the collector
+ * recognizes in the decoded payload, which gives the end-to-end latency from the API call
+ * to the item arriving at the collector.
+ * <p>
+ * Usage:
+ * <pre>
+ *   LoadDriver [--events N] [--logs N] [--requests N] [--duration SECONDS] [--harvestPeriod SECONDS]
+ *              [--drain SECONDS] [--fault ENDPOINT:STATUS[:RETRY_AFTER[:RATE]]] [--delay ENDPOINT:MILLIS[:RATE]]
+ *              [--report FILE] [--verbose]
+ * </pre>
+ * Rates are per second. Faults and delays may be repeated; endpoints are named as in {@link FakeCollector.Endpoint}.
+ */
+public class LoadDriver {
+    static final long TICK_MS = 10;
+    static final Pattern SEQUENCE_TOKEN = Pattern.compile("load(Event|Log|Request)\\W{1,3}(\\d+)");
+    static final String THREAD_PREFIX = "LoadDriver-";
+
+    public enum Kind {
+        EVENT("Event"),
+        LOG("Log"),
+        REQUEST("Request");
+
+        final String token;
+
+        Kind(String token) {
+            this.token = token;
+        }
+
+        static Kind of(String token) {
+            for (Kind kind : values()) {
+                if (kind.token.equals(token)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static class Options {
+        final Map<Kind, Integer> rates = new EnumMap<>(Kind.class);
+        int durationSeconds = 60;
+        int harvestPeriodSeconds = 10;
+        int drainSeconds = 15;
+        final List<String> faults = new ArrayList<>();
+        final List<String> delays = new ArrayList<>();
+        String reportFile = null;
+        boolean verbose = false;
+
+        public Options() {
+            rates.put(Kind.EVENT, 100);
+            rates.put(Kind.LOG, 100);
+            rates.put(Kind.REQUEST, 50);
+        }
+
+        public Options rate(Kind kind, int perSecond) {
+            rates.put(kind, perSecond);
+            return this;
+        }
+
+        public Options duration(int seconds) {
+            this.durationSeconds = seconds;
+            return this;
+        }
+
+        public Options harvestPeriod(int seconds) {
+            this.harvestPeriodSeconds = seconds;
+            return this;
+        }
+
+        public Options drain(int seconds) {
+            this.drainSeconds = seconds;
+            return this;
+        }
+
+        static Options parse(String[] args) {
+            final Options options = new Options();
+
+            for (int i = 0; i < args.length; i++) {
+                final String arg = args[i];
+                if ("--verbose".equals(arg)) {
+                    options.verbose = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                final String value = args[++i];
+                switch (arg) {
+                    case "--events":
+                        options.rate(Kind.EVENT, Integer.parseInt(value));
+                        break;
+                    case "--logs":
+                        options.rate(Kind.LOG, Integer.parseInt(value));
+                        break;
+                    case "--requests":
+                        options.rate(Kind.REQUEST, Integer.parseInt(value));
+                        break;
+                    case "--duration":
+                        options.duration(Integer.parseInt(value));
+                        break;
+                    case "--harvestPeriod":
+                        options.harvestPeriod(Integer.parseInt(value));
+                        break;
+                    case "--drain":
+                        options.drain(Integer.parseInt(value));
+                        break;
+                    case "--fault":
+                        options.faults.add(value);
+                        break;
+                    case "--delay":
+                        options.delays.add(value);
+                        break;
+                    case "--report":
+                        options.reportFile = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+
+            return options;
+        }
+    }
+
+    /**
+     * Per-kind delivery tracking: items in flight, and latencies of those delivered
+     */
+    static class Delivery {
+        final AtomicLong sequence = new AtomicLong(0);
+        final Map<Long, Long> inFlight = new ConcurrentHashMap<>();
+        final List<Long> latenciesMs = new ArrayList<>();
+
+        long next() {
+            final long seq = sequence.incrementAndGet();
+            inFlight.put(seq, System.nanoTime());
+            return seq;
+        }
+
+        void delivered(long seq, long arrivalNanos) {
+            final Long sentNanos = inFlight.remove(seq);
+            if (sentNanos != null) {
+                synchronized (latenciesMs) {
+                    latenciesMs.add(TimeUnit.MILLISECONDS.convert(arrivalNanos - sentNanos, TimeUnit.NANOSECONDS));
+                }
+            }
+        }
+    }
+
+    private final Options options;
+    private final Map<Kind, Delivery> deliveries = new EnumMap<>(Kind.class);
+    private final Map<Long, Long> allocatedBytes = new ConcurrentHashMap<>();
+    private final NullAgentImpl agentImpl = new NullAgentImpl();
+
+    public LoadDriver(Options options) {
+        this.options = options;
+        for (Kind kind : Kind.values()) {
+            deliveries.put(kind, new Delivery());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Options options = Options.parse(args);
+        final LoadReport report = new LoadDriver(options).run();
+
+        System.out.println(report);
+
+        if (options.reportFile != null) {
+            try (Writer writer = new FileWriter(options.reportFile)) {
+                writer.write(report.toJsonString());
+            }
+        }
+
+        System.exit(0);
+    }
+
+    public LoadReport run() throws Exception {
+        AgentLogManager.setAgentLog(new ConsoleAgentLog());
+        AgentLogManager.getAgentLog().setLevel(options.verbose ? AgentLog.DEBUG : AgentLog.WARN);
+
+        try (FakeCollector collector = new FakeCollector().start()) {
+            FakeCollector.installTrust();
+            collector.setDataReportPeriod(options.harvestPeriodSeconds);
+            collector.setPayloadListener(this::onPayload);
+            injectFaults(collector);
+
+            final File reportsDir = Files.createTempDirectory("LoadDriver-").toFile();
+            final AgentConfiguration agentConfiguration = startAgent(collector, reportsDir);
+
+            final com.sun.management.OperatingSystemMXBean osMXBean =
+                    (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+            final long processCpuStart = osMXBean.getProcessCpuTime();
+            final long collectorCpuStart = collector.getCpuTimeNanos();
+            final long wallStart = System.nanoTime();
+
+            final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> newThread(runnable, "sampler"));
+            sampler.scheduleAtFixedRate(() -> sampleAllocations(collector), 0, 200, TimeUnit.MILLISECONDS);
+
+            final ScheduledExecutorService generators = Executors.newScheduledThreadPool(Kind.values().length, runnable -> newThread(runnable, "generator"));
+            for (Kind kind : Kind.values()) {
+                final int rate = options.rates.get(kind);
+                if (rate > 0) {
+                    generators.scheduleAtFixedRate(new Generator(kind, rate), 0, TICK_MS, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            TimeUnit.SECONDS.sleep(options.durationSeconds);
+            generators.shutdown();
+            generators.awaitTermination(5, TimeUnit.SECONDS);
+
+            // flush what remains, then allow uploads (and retries) to settle
+            TaskQueue.synchronousDequeue();
+            Harvest.harvestNow(true, true);
+            final long drainDeadline = System.nanoTime() + TimeUnit.NANOSECONDS.convert(options.drainSeconds, TimeUnit.SECONDS);
+            while (!isDrained() && System.nanoTime() < drainDeadline) {
+                TimeUnit.MILLISECONDS.sleep(500);
+                if (!isDrained()) {
+                    Harvest.harvestNow(false, true);
+                }
+            }
+
+            sampler.shutdown();
+            sampler.awaitTermination(5, TimeUnit.SECONDS);
+            sampleAllocations(collector);
+
+            final long wallNanos = System.nanoTime() - wallStart;
+            final long samplerCpu = getThreadCpuTime(THREAD_PREFIX + "sampler");
+            final long agentCpu = (osMXBean.getProcessCpuTime() - processCpuStart)
+                    - (collector.getCpuTimeNanos() - collectorCpuStart) - samplerCpu;
+
+            final LoadReport report = new LoadReport(options, wallNanos, agentCpu, getAllocatedBytes(), collector, deliveries);
+
+            stopAgent();
+            Files.walk(reportsDir.toPath())
+                    .sorted((a, b) -> b.compareTo(a))
+                    .forEach(path -> path.toFile().delete());
+
+            return report;
+        }
+    }
+
+    AgentConfiguration startAgent(FakeCollector collector, File reportsDir) throws IOException {
+        final AgentConfiguration agentConfiguration = new AgentConfiguration();
+        agentConfiguration.setApplicationToken("LoadDriver-application-token");
+        agentConfiguration.setCollectorHost(collector.getHost());
+        agentConfiguration.setCrashCollectorHost(collector.getHost());
+        agentConfiguration.setEnableAnalyticsEvents(true);
+        agentConfiguration.setAnalyticsAttributeStore(new InMemoryAttributeStore());
+        agentConfiguration.getLogReportingConfiguration().setConfiguration(new LogReportingConfiguration(true, LogLevel.DEBUG));
+        agentConfiguration.getLogReportingConfiguration().setSamplingOverride(true);
+
+        FeatureFlag.enableFeature(FeatureFlag.LogReporting);
+        FeatureFlag.enableFeature(FeatureFlag.HttpResponseBodyCapture);
+
+        agentImpl.start();
+        Agent.setImpl(agentImpl);
+        Measurements.initialize();
+        Harvest.initialize(agentConfiguration);
+        Harvest.getInstance().getHarvestTimer().setPeriod(TimeUnit.MILLISECONDS.convert(options.harvestPeriodSeconds, TimeUnit.SECONDS));
+
+        AnalyticsControllerImpl.initialize(agentConfiguration, agentImpl);
+        AnalyticsControllerImpl.getInstance().setMaxEventBufferTime(options.harvestPeriodSeconds);
+
+        LogReporting.setLogLevel(LogLevel.DEBUG);
+        Harvest.addHarvestListener(LogReporter.initialize(reportsDir, agentConfiguration));
+
+        TaskQueue.start();
+        Harvest.start();
+
+        return agentConfiguration;
+    }
+
+    void stopAgent() {
+        Harvest.stop();
+        TaskQueue.stop();
+        AnalyticsControllerImpl.shutdown();
+        Harvest.shutdown();
+        Measurements.shutdown();
+        agentImpl.stop();
+        FeatureFlag.disableFeature(FeatureFlag.LogReporting);
+    }
+
+    void injectFaults(FakeCollector collector) {
+        for (String spec : options.faults) {
+            final String[] parts = spec.split(":");
+            final FakeCollector.Fault fault = FakeCollector.Fault.status(Integer.parseInt(parts[1]));
+            if (parts.length > 2) {
+                fault.retryAfter(Integer.parseInt(parts[2]));
+            }
+            if (parts.length > 3) {
+                fault.rate(Double.parseDouble(parts[3]));
+            }
+            collector.inject(FakeCollector.Endpoint.valueOf(parts[0].toUpperCase()), fault);
+        }
+        for (String spec : options.delays) {
+            final String[] parts = spec.split(":");
+            final FakeCollector.Fault fault = FakeCollector.Fault.delay(Long.parseLong(parts[1]));
+            if (parts.length > 2) {
+                fault.rate(Double.parseDouble(parts[2]));
+            }
+            collector.inject(FakeCollector.Endpoint.valueOf(parts[0].toUpperCase()), fault);
+        }
+    }
+
+    void onPayload(FakeCollector.Endpoint endpoint, String payload) {
+        final long arrivalNanos = System.nanoTime();
+        final Matcher matcher = SEQUENCE_TOKEN.matcher(payload);
+        while (matcher.find()) {
+            final Kind kind = Kind.of(matcher.group(1));
+            if (kind != null) {
+                deliveries.get(kind).delivered(Long.parseLong(matcher.group(2)), arrivalNanos);
+            }
+        }
+    }
+
+    boolean isDrained() {
+        for (Delivery delivery : deliveries.values()) {
+            if (!delivery.inFlight.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Allocation counters are per thread, and are lost when a thread exits. Sampling keeps
+     * the high-water mark of each thread seen, so short-lived threads are undercounted.
+     */
+    void sampleAllocations(FakeCollector collector) {
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long[] threadIds = threadMXBean.getAllThreadIds();
+        final ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds);
+        final long[] allocated = threadMXBean.getThreadAllocatedBytes(threadIds);
+
+        for (int i = 0; i < threadIds.length; i++) {
+            final ThreadInfo threadInfo = threadInfos[i];
+            if (threadInfo == null || allocated[i] < 0 || collector.isCollectorThread(threadIds[i])) {
+                continue;
+            }
+            final String name = threadInfo.getThreadName();
+            if (name.startsWith("HTTP-Dispatcher") || name.equals(THREAD_PREFIX + "sampler")) {
+                continue;
+            }
+            allocatedBytes.merge(threadIds[i], allocated[i], Math::max);
+        }
+    }
+
+    long getAllocatedBytes() {
+        long total = 0;
+        for (Long bytes : allocatedBytes.values()) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    static long getThreadCpuTime(String threadName) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(threadName)) {
+                return Math.max(0, ManagementFactory.getThreadMXBean().getThreadCpuTime(thread.getId()));
+            }
+        }
+        return 0;
+    }
+
+    static Thread newThread(Runnable runnable, String name) {
+        final Thread thread = new Thread(runnable, THREAD_PREFIX + name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Issues {@code rate} operations per second, in bursts every {@link #TICK_MS}
+     */
+    class Generator implements Runnable {
+        final Kind kind;
+        final double perTick;
+        double credit = 0;
+
+        Generator(Kind kind, int rate) {
+            this.kind = kind;
+            this.perTick = rate * TICK_MS / 1000.0;
+        }
+
+        @Override
+        public void run() {
+            credit += perTick;
+            while (credit >= 1) {
+                credit--;
+                final long seq = deliveries.get(kind).next();
+                switch (kind) {
+                    case EVENT:
+                        recordEvent(seq);
+                        break;
+                    case LOG:
+                        recordLog(seq);
+                        break;
+                    case REQUEST:
+                        recordRequest(seq);
+                        break;
+                }
+            }
+        }
+
+        void recordEvent(long seq) {
+            final Map<String, Object> attributes = new HashMap<>();
+            attributes.put("name", "loadEvent=" + seq);
+            attributes.put("screen", "LoadDriver");
+            AnalyticsControllerImpl.getInstance().recordCustomEvent("LoadDriverEvent", attributes);
+        }
+
+        void recordLog(long seq) {
+            LogReporting.getLogger().log(LogLevel.INFO, "LoadDriver: loadLog=" + seq);
+        }
+
+        void recordRequest(long seq) {
+            final TransactionState transactionState = new TransactionState();
+            transactionState.setUrl("https://load.newrelic.test/loadRequest/" + seq);
+            transactionState.setHttpMethod("GET");
+            transactionState.setStatusCode(200);
+            transactionState.setBytesSent(0);
+            transactionState.setBytesReceived(1024);
+
+            final TransactionData transactionData = transactionState.end();
+            if (transactionData != null) {
+                TaskQueue.queue(new HttpTransactionMeasurement(transactionData));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.google.gson.GsonBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of a {@link LoadDriver} run
+ */
+public class LoadReport {
+
+    public static class Latency {
+        long generated;
+        long delivered;
+        long p50Ms;
+        long p95Ms;
+        long p99Ms;
+        long maxMs;
+
+        Latency(long generated, List<Long> latenciesMs) {
+            final List<Long> sorted = new ArrayList<>(latenciesMs);
+            Collections.sort(sorted);
+
+            this.generated = generated;
+            this.delivered = sorted.size();
+            this.p50Ms = percentile(sorted, 0.50);
+            this.p95Ms = percentile(sorted, 0.95);
+            this.p99Ms = percentile(sorted, 0.99);
+            this.maxMs = sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1);
+        }
+
+        static long percentile(List<Long> sorted, double percentile) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(percentile * sorted.size()) - 1));
+        }
+
+        public long getGenerated() {
+            return generated;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getP50Ms() {
+            return p50Ms;
+        }
+
+        public long getP95Ms() {
+            return p95Ms;
+        }
+
+        public long getP99Ms() {
+            return p99Ms;
+        }
+
+        public long getMaxMs() {
+            return maxMs;
+        }
+    }
+
+    public static class Endpoint {
+        long requests;
+        long bytesReceived;
+        long bytesSent;
+        long faults;
+        Map<Integer, Long> responseCodes = new LinkedHashMap<>();
+
+        Endpoint(FakeCollector.EndpointStats stats) {
+            this.requests = stats.getRequests();
+            this.bytesReceived = stats.getBytesReceived();
+            this.bytesSent = stats.getBytesSent();
+            this.faults = stats.getFaults();
+            stats.getResponseCodes().forEach((code, count) -> responseCodes.put(code, count.get()));
+        }
+    }
+
+    final long wallTimeMs;
+    final long agentCpuTimeMs;
+    final double agentCpuUtilization;
+    final long allocatedBytes;
+    final double allocationRateBytesPerSecond;
+    final long bytesOnWire;
+    final Map<String, Latency> latency = new LinkedHashMap<>();
+    final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    LoadReport(LoadDriver.Options options, long wallNanos, long agentCpuNanos, long allocatedBytes,
+               FakeCollector collector, Map<LoadDriver.Kind, LoadDriver.Delivery> deliveries) {
+        final double wallSeconds = wallNanos / (double) TimeUnit.SECONDS.toNanos(1);
+
+        this.wallTimeMs = TimeUnit.MILLISECONDS.convert(wallNanos, TimeUnit.NANOSECONDS);
+        this.agentCpuTimeMs = TimeUnit.MILLISECONDS.convert(agentCpuNanos, TimeUnit.NANOSECONDS);
+        this.agentCpuUtilization = agentCpuNanos / (double) wallNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.allocationRateBytesPerSecond = allocatedBytes / wallSeconds;
+        this.bytesOnWire = collector.getTotalBytesOnWire();
+
+        deliveries.forEach((kind, delivery) -> latency.put(kind.name(), new Latency(delivery.sequence.get(), delivery.latenciesMs)));
+        for (FakeCollector.Endpoint endpoint : FakeCollector.Endpoint.values()) {
+            final FakeCollector.EndpointStats stats = collector.getStats(endpoint);
+            if (stats.getRequests() > 0) {
+                endpoints.put(endpoint.name(), new Endpoint(stats));
+            }
+        }
+    }
+
+    public long getAgentCpuTimeMs() {
+        return agentCpuTimeMs;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getBytesOnWire() {
+        return bytesOnWire;
+    }
+
+    public Latency getLatency(LoadDriver.Kind kind) {
+        return latency.get(kind.name());
+    }
+
+    public String toJsonString() {
+        return new GsonBuilder().setPrettyPrinting().create().toJson(this);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("Wall time:        %d ms%n", wallTimeMs));
+        sb.append(String.format("Agent CPU time:   %d ms (%.1f%% of one core)%n", agentCpuTimeMs, agentCpuUtilization * 100));
+        sb.append(String.format("Allocated:        %d B (%.0f B/s)%n", allocatedBytes, allocationRateBytesPerSecond));
+        sb.append(String.format("Bytes on wire:    %d B%n", bytesOnWire));
+
+        sb.append(String.format("%nEnd-to-end latency%n"));
+        latency.forEach((kind, l) -> sb.append(String.format("  %-8s generated %d, delivered %d, p50 %d ms, p95 %d ms, p99 %d ms, max %d ms%n",
+                kind, l.generated, l.delivered, l.p50Ms, l.p95Ms, l.p99Ms, l.maxMs)));
+
+        sb.append(String.format("%nCollector%n"));
+        endpoints.forEach((name, e) -> sb.append(String.format("  %-15s requests %d, received %d B, sent %d B, faults %d, responses %s%n",
+                name, e.requests, e.bytesReceived, e.bytesSent, e.faults, e.responseCodes)));
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2022-present New Relic Corporation. All rights reserved.
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.newrelic.agent.android.benchmark;
+
+import com.newrelic.agent.android.NullAgentImpl;
+import com.newrelic.agent.android.harvest.ConnectInformation;
+import com.newrelic.agent.android.harvest.HarvestConnection;
+import com.newrelic.agent.android.harvest.HarvestResponse;
+import com.newrelic.agent.android.util.Constants;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FakeCollectorTest {
+
+    private FakeCollector collector;
+    private HarvestConnection harvestConnection;
+    private List<String> payloads;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        FakeCollector.installTrust();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        collector = new FakeCollector().start();
+        payloads = new ArrayList<>();
+        collector.setPayloadListener((endpoint, payload) -> {
+            synchronized (payloads) {
+                payloads.add(endpoint.name() + ":" + payload);
+            }
+        });
+
+        harvestConnection = new HarvestConnection();
+        harvestConnection.setCollectorHost(collector.getHost());
+        harvestConnection.setApplicationToken("FakeCollectorTest");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        collector.close();
+    }
+
+    @Test
+    public void testConnect() {
+        NullAgentImpl agentImpl = new NullAgentImpl();
+        harvestConnection.setConnectInformation(new ConnectInformation(agentImpl.getApplicationInformation(), agentImpl.getDeviceInformation()));
+
+        HarvestResponse response = harvestConnection.sendConnect();
+        Assert.assertTrue(response.isOK());
+        Assert.assertTrue(response.getResponseBody().contains("data_token"));
+        Assert.assertEquals(1, collector.getStats(FakeCollector.Endpoint.CONNECT).getRequests());
+    }
+
+    @Test
+    public void testDeflatedData() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 4096) {
+            sb.append("[\"FakeCollectorTest\"],");
+        }
+        String data = "[" + sb + "\"end\"]";
+
+        HarvestResponse response = harvestConnection.sendData(data);
+        Assert.assertTrue(response.isOK());
+
+        FakeCollector.EndpointStats stats = collector.getStats(FakeCollector.Endpoint.DATA);
+        Assert.assertTrue("Should count compressed bytes", stats.getBytesReceived() < data.length());
+        Assert.assertEquals(data.length(), stats.getBytesDecoded());
+        Assert.assertEquals("DATA:" + data, payloads.get(0));
+    }
+
+    @Test
+    public void testThrottledWithRetryAfter() throws IOException {
+        collector.inject(FakeCollector.Endpoint.LOGS, FakeCollector.Fault.status(429).retryAfter(30).times(1));
+
+        HttpURLConnection connection = post(FakeCollector.Endpoint.LOGS, "[{\"message\":\"throttled\"}]");
+        Assert.assertEquals(429, connection.getResponseCode());
+        Assert.assertEquals("30", connection.getHeaderField("Retry-After"));
+        Assert.assertTrue("Throttled payloads are not delivered", payloads.isEmpty());
+
+        connection = post(FakeCollector.Endpoint.LOGS, "[{\"message\":\"accepted\"}]");
+        Assert.assertEquals(202, connection.getResponseCode());
+
+        FakeCollector.EndpointStats stats = collector.getStats(FakeCollector.Endpoint.LOGS);
+        Assert.assertEquals(2, stats.getRequests());
+        Assert.assertEquals(1, stats.getFaults());
+        Assert.assertEquals(1, stats.getResponseCount(429));
+        Assert.assertEquals(1, stats.getResponseCount(202));
+    }
+
+    @Test
+    public void testEntityTooLarge() throws IOException {
+        collector.inject(FakeCollector.Endpoint.SESSION_REPLAY, FakeCollector.Fault.status(413));
+
+        Assert.assertEquals(413, post(FakeCollector.Endpoint.SESSION_REPLAY, "{}").getResponseCode());
+        Assert.assertEquals(413, post(FakeCollector.Endpoint.SESSION_REPLAY, "{}").getResponseCode());
+
+        collector.clearFaults();
+        Assert.assertEquals(202, post(FakeCollector.Endpoint.SESSION_REPLAY, "{}").getResponseCode());
+    }
+
+    @Test
+    public void testTimeout() throws IOException {
+        Assert.assertEquals(200, post(FakeCollector.Endpoint.CRASH, "{}").getResponseCode());
+        collector.inject(FakeCollector.Endpoint.CRASH, FakeCollector.Fault.delay(3000).times(1));
+
+        try {
+            post(FakeCollector.Endpoint.CRASH, "{}", 1000).getResponseCode();
+            Assert.fail("Should time out");
+        } catch (SocketTimeoutException e) {
+            Assert.assertEquals(1, collector.getStats(FakeCollector.Endpoint.CRASH).getFaults());
+        }
+
+        Assert.assertEquals(200, post(FakeCollector.Endpoint.CRASH, "{}").getResponseCode());
+    }
+
+    @Test
+    public void testUnknownEndpoint() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("https://" + collector.getHost() + "/unknown").openConnection();
+        Assert.assertEquals(404, connection.getResponseCode());
+    }
+
+    @Test
+    public void testFaultRate() {
+        Assert.assertFalse(FakeCollector.Fault.status(500).rate(0).applies());
+        Assert.assertTrue(FakeCollector.Fault.status(500).rate(1).applies());
+
+        FakeCollector.Fault fault = FakeCollector.Fault.status(500).times(2);
+        Assert.assertTrue(fault.applies());
+        Assert.assertTrue(fault.applies());
+        Assert.assertFalse(fault.applies());
+    }
+
+    private HttpURLConnection post(FakeCollector.Endpoint endpoint, String body) throws IOException {
+        return post(endpoint, body, 0);
+    }
+
+    private HttpURLConnection post(FakeCollector.Endpoint endpoint, String body, int readTimeout) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("https://" + collector.getHost() + endpoint.getPath()).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestProperty(Constants.Network.CONTENT_TYPE_HEADER, Constants.Network.ContentType.JSON);
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return connection;
+    }
+}